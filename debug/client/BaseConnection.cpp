@@ -1283,6 +1283,34 @@ NaviError BaseConnection::sendBreakpointEvent(const DBGEVT *dbg) const {
   return sendEventReply(command, 0, dbg->tid, dbg->registerString);
 }
 
+/**
+ * Sends several echo breakpoint hits to BinNavi in one packet. Every hit is
+ * made of the same two arguments as a single echo breakpoint hit reply: the
+ * thread ID and the register string.
+ *
+ * @param events The echo breakpoint hit events to be sent.
+ *
+ * @return A NaviError code that describes whether the operation was successful
+ * or not.
+ **/
+NaviError BaseConnection::sendEchoBreakpointHits(
+    const std::vector<DBGEVT> &events) const {
+  const unsigned int ARGUMENTS_PER_HIT = 2;
+  PacketBuffer buffer;
+  buffer.add(
+      createPacketHeader(resp_bpe_hits, 0, ARGUMENTS_PER_HIT * events.size()));
+  for (const DBGEVT &event : events) {
+    addIntegerArgument(buffer, event.tid);
+    addStringArgument(buffer, event.registerString);
+  }
+  NaviError sendResult = send(buffer.data(), buffer.size());
+  if (sendResult) {
+    msglog->log(LOG_VERBOSE, "Error: Couldn't send echo breakpoint hits");
+    return sendResult;
+  }
+  return NaviErrors::SUCCESS;
+}
+
 /**
  * Sends a process closed debug event to BinNavi.
  *
@@ -16,6 +16,7 @@
 #define BASECONNECTION_HPP
 
 #include <string>
+#include <vector>
 
 #include "defs.hpp"
 #include "errors.hpp"
@@ -327,6 +328,9 @@ class BaseConnection {
   // Sends a debug reply that is not the result of an earlier debug command.
   NaviError sendDebugEvent(const DBGEVT* event) const;
 
+  // Sends several echo breakpoint hits to BinNavi in one packet.
+  NaviError sendEchoBreakpointHits(const std::vector<DBGEVT>& events) const;
+
   // Sends the initial debugger information string to BinNavi
   NaviError sendInfoString(const std::string& infoString) const;
 
@@ -13,6 +13,7 @@
 // limitations under the License.
 
 #include "BaseSystem.hpp"
+#include <cctype>
 #include <string>
 #include <limits>
 
@@ -95,6 +96,87 @@ std::string createRegisterString(const RegisterContainer& registerContainer) {
   return ret;
 }
 
+/**
+ * Appends a big-endian 32 bit value to binary data.
+ *
+ * @param data The data to append to.
+ * @param value The value to append.
+ **/
+void appendDWord(std::string& data, unsigned int value) {
+  data += static_cast<char>((value >> 24) & 0xFF);
+  data += static_cast<char>((value >> 16) & 0xFF);
+  data += static_cast<char>((value >> 8) & 0xFF);
+  data += static_cast<char>(value & 0xFF);
+}
+
+/**
+ * Turns the hexadecimal string of a register value into the bytes of the
+ * unsigned big-endian value.
+ *
+ * @param value The hexadecimal register value.
+ *
+ * @return The bytes of the register value.
+ **/
+std::string createValueBytes(const std::string& value) {
+  std::string bytes;
+  unsigned int byte = 0;
+  // With an odd number of digits the first byte only has a low nibble.
+  bool highNibble = value.size() % 2 == 0;
+  for (char digit : value) {
+    const unsigned int nibble = isdigit(digit) ? digit - '0'
+                                               : tolower(digit) - 'a' + 10;
+    if (highNibble) {
+      byte = nibble << 4;
+    } else {
+      bytes += static_cast<char>(byte | nibble);
+    }
+    highNibble = !highNibble;
+  }
+  return bytes;
+}
+
+/**
+ * Creates a binary string that contains the names and values of registers.
+ * This is the compact alternative to createRegisterString that BinNavi can
+ * request in the debugger event settings. All numbers are big-endian:
+ *
+ * u32 magic ("BNRV")
+ * u32 number of threads
+ *   u32 thread ID
+ *   u32 number of registers
+ *     u8  flags (1 = program counter, 2 = stack pointer)
+ *     u8  length of the name, followed by the name
+ *     u8  length of the value, followed by the unsigned value
+ *     u32 length of the memory, followed by the memory
+ *
+ * @param registers The register information is taken from here.
+ *
+ * @return The binary string that contains all relevant register information.
+ **/
+std::string createRegisterData(const RegisterContainer& registerContainer) {
+  std::string ret;
+  appendDWord(ret, 0x424E5256);
+  std::vector<Thread> threads = registerContainer.getThreads();
+  appendDWord(ret, threads.size());
+  for (const Thread& thread : threads) {
+    appendDWord(ret, thread.tid);
+    appendDWord(ret, thread.registers.size());
+    for (const RegisterValue& reg : thread.registers) {
+      ret += static_cast<char>((reg.isPc() ? 1 : 0) | (reg.isSp() ? 2 : 0));
+      const std::string name = reg.getName();
+      ret += static_cast<char>(name.size());
+      ret += name;
+      const std::string value = createValueBytes(reg.getValue());
+      ret += static_cast<char>(value.size());
+      ret += value;
+      const std::vector<char> memory = reg.getMemory();
+      appendDWord(ret, memory.size());
+      ret.append(memory.begin(), memory.end());
+    }
+  }
+  return ret;
+}
+
 /**
  * Creates an XML string that contains the names and process IDs of all running
  * processes.
@@ -510,7 +592,7 @@ NaviError BaseSystem::processSingleStep(const Packet* p,
                 readResult);
     return readResult;
   }
-  provider.setRegisterString(createRegisterString(registers));
+  provider.setRegisterString(createRegisterSnapshot(registers));
   return NaviErrors::SUCCESS;
 }
 
@@ -651,7 +733,7 @@ NaviError BaseSystem::processRegisters(const Packet* p,
                 readResult);
     return readResult;
   }
-  provider.setRegisterString(createRegisterString(registers));
+  provider.setRegisterString(createRegisterSnapshot(registers));
   return NaviErrors::SUCCESS;
 }
 
@@ -1234,7 +1316,7 @@ NaviError BaseSystem::simpleBreakpointHit(const BREAKPOINT& bp,
   if (preError) {
     return preError;
   }
-  dbgevt.registerString = createRegisterString(registers);
+  dbgevt.registerString = createRegisterSnapshot(registers);
   if (conditionMet) {
     addDebugEvent(dbgevt);
     return NaviErrors::SUCCESS;
@@ -1293,7 +1375,7 @@ NaviError BaseSystem::echoBreakpointHit(const BREAKPOINT& bp, unsigned int tid,
                 readResult);
     return readResult;
   }
-  dbgevt.registerString = createRegisterString(registers);
+  dbgevt.registerString = createRegisterSnapshot(registers);
   addDebugEvent(dbgevt);
 
   // After an echo breakpoint was hit, we offer the option to resume the target
@@ -1357,7 +1439,7 @@ NaviError BaseSystem::steppingBreakpointHit(const BREAKPOINT& bp,
                 readResult);
     return readResult;
   }
-  dbgevt.registerString = createRegisterString(registers);
+  dbgevt.registerString = createRegisterSnapshot(registers);
   addDebugEvent(dbgevt);
   return NaviErrors::SUCCESS;
 }
@@ -1910,6 +1992,31 @@ unsigned int BaseSystem::getDebugEvent(DBGEVT* event) const {
   return 0;
 }
 
+/**
+ * Returns the number of unprocessed debug events.
+ *
+ * @return The number of unprocessed debug events.
+ **/
+unsigned int BaseSystem::getDebugEventCount() const { return dbgevts.size(); }
+
+/**
+ * Returns the echo breakpoint hits at the front of the list of unprocessed
+ * debug events. The events are not removed from the list.
+ *
+ * @param events The echo breakpoint hits are copied into this vector.
+ * @param maximum The maximum number of echo breakpoint hits to return.
+ **/
+void BaseSystem::getEchoBreakpointHits(std::vector<DBGEVT>& events,
+                                       unsigned int maximum) const {
+  events.clear();
+  for (const DBGEVT& event : dbgevts) {
+    if (event.type != dbgevt_bpe_hit || events.size() >= maximum) {
+      break;
+    }
+    events.push_back(event);
+  }
+}
+
 /**
  * Removes the first unprocessed debug event from the list of
  * unprocessed debug events.
@@ -1934,17 +2041,37 @@ NaviError BaseSystem::processSetDebuggerEventSettings(const Packet* p) {
     msglog->log(LOG_ALWAYS, "Error: Invalid packet passed to function");
     return NaviErrors::INVALID_PACKET;
   }
-  if (p->ints.size() != 2) {
+  // The third argument is only sent by BinNavi versions which understand the
+  // binary register format and the fourth argument only by versions which
+  // understand batched echo breakpoint hits.
+  if (p->ints.size() < 2 || p->ints.size() > 4) {
     msglog->log(LOG_ALWAYS, "Error: Set Event Settings packet has invalid "
-                            "number of arguments - expected 2, found %u",
+                            "number of arguments - expected 2 to 4, found %u",
                 p->ints.size());
     return NaviErrors::INVALID_PACKET;
   }
   debuggerEventSettings =
-      DebuggerEventSettings(p->ints[0] != 0, p->ints[1] != 0);
+      DebuggerEventSettings(p->ints[0] != 0, p->ints[1] != 0,
+                            p->ints.size() >= 3 && p->ints[2] != 0,
+                            p->ints.size() == 4 && p->ints[3] != 0);
   return NaviErrors::SUCCESS;
 }
 
+/**
+ * Creates register information in the format requested by BinNavi.
+ *
+ * @param registers The register information is taken from here.
+ *
+ * @return The binary or XML string that contains the register information.
+ **/
+std::string BaseSystem::createRegisterSnapshot(
+    const RegisterContainer& registers) const {
+  if (debuggerEventSettings.binaryRegisters) {
+    return createRegisterData(registers);
+  }
+  return createRegisterString(registers);
+}
+
 /**
  * Resolve a given exception code to the corresponding name.
  * If the exception code is unknown, an empty name is returned.
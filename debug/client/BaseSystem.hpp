@@ -34,6 +34,9 @@ class InformationProvider;
 // Creates an XML string that contains register information.
 std::string createRegisterString(const RegisterContainer& registers);
 
+// Creates a binary string that contains register information.
+std::string createRegisterData(const RegisterContainer& registers);
+
 // Searches for a substring in a larger buffer.
 unsigned int search(const char* buffer, unsigned int bufferSize,
                     const char* searchString, unsigned int stringLen);
@@ -259,6 +262,9 @@ class BaseSystem : public IConditionProvider {
   bool hasCurrentBreakpoint(unsigned int threadId) const;
 
  protected:
+  // Creates register information in the format requested by BinNavi.
+  std::string createRegisterSnapshot(const RegisterContainer& registers) const;
+
   /**
   * List of echo breakpoints set in the target process.
   **/
@@ -695,6 +701,14 @@ data.
   // Removes the next unprocessed debug event.
   unsigned int popDebugEvent();
 
+  // Returns the number of unprocessed debug events.
+  unsigned int getDebugEventCount() const;
+
+  // Returns the unprocessed echo breakpoint hits at the front of the list of
+  // unprocessed debug events.
+  void getEchoBreakpointHits(std::vector<DBGEVT>& events,
+                             unsigned int maximum) const;
+
   // Reloads memory data.
   NaviError reloadMemory(Packet* p, InformationProvider& provider);
 
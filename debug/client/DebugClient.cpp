@@ -16,6 +16,9 @@
 
 #include "logger.hpp"
 
+// The maximum number of echo breakpoint hits that are sent in one packet.
+const unsigned int MAX_BATCHED_ECHO_HITS = 1024;
+
 /**
  * Creates an XML string that describes the options supported by the debugger.
  *
@@ -61,6 +64,10 @@ std::string getDebuggerOptionsString(const DebuggerOptions& options) {
      + zylib::zycon::toBoolString(options.canBreakOnModuleUnload) + "\" />";
   optionsString += "<option name=\"canTraceCount\" value=\""
       + zylib::zycon::toBoolString(options.canTraceCount) + "\" />";
+  optionsString += "<option name=\"binaryRegisters\" value=\""
+      + zylib::zycon::toBoolString(options.canBinaryRegisters) + "\" />";
+  optionsString += "<option name=\"batchedEchoHits\" value=\""
+      + zylib::zycon::toBoolString(options.canBatchEchoHits) + "\" />";
   // build exception list
   for (const DebugException& ex : options.exceptions) {
     optionsString += "<option name=\"exception\" exceptionName=\""
@@ -228,6 +235,54 @@ NaviError DebugClient::handleEventSettingsPacket() const {
   return process->processPacket(&settingsPacket, provider);
 }
 
+/**
+ * Sends the echo breakpoint hits at the front of the debug event queue to
+ * BinNavi in one packet. As long as only echo breakpoint hits are queued and
+ * BinNavi has not sent anything, more debug events are read first. This way
+ * tracing a loop produces a few large packets instead of one packet per hit.
+ *
+ * @return The number of echo breakpoint hits that were sent. If this is zero,
+ * the next debug event must be sent on its own.
+ */
+unsigned int DebugClient::sendEchoBreakpointHits() {
+  std::vector<DBGEVT> hits;
+  process->getEchoBreakpointHits(hits, MAX_BATCHED_ECHO_HITS);
+
+  while (!hits.empty() && hits.size() < MAX_BATCHED_ECHO_HITS &&
+         hits.size() == process->getDebugEventCount() &&
+         !binnavi_connection->hasData()) {
+    const size_t previousSize = hits.size();
+    if (process->readDebugEvents() == NaviErrors::CONNECTION_CLOSED) {
+      break;
+    }
+    process->getEchoBreakpointHits(hits, MAX_BATCHED_ECHO_HITS);
+    if (hits.size() == previousSize) {
+      // The target did not hit another echo breakpoint, so there is no
+      // reason to keep BinNavi waiting.
+      break;
+    }
+  }
+
+  if (hits.size() < 2) {
+    return 0;
+  }
+
+  NaviError sendResult = binnavi_connection->sendEchoBreakpointHits(hits);
+  if (sendResult) {
+    msglog->log(LOG_ALWAYS,
+                "Error: Couldn't send echo breakpoint hits (Code %d)",
+                sendResult);
+    return 0;
+  }
+
+  // BinNavi was notified of the debug events, so they can now be removed from
+  // the list of debug events.
+  for (size_t i = 0; i < hits.size(); ++i) {
+    process->popDebugEvent();
+  }
+  return hits.size();
+}
+
 /**
  * Creates a new debug client object
  * The argument ConnectionPolicy specifies the kind of connection
@@ -429,6 +484,11 @@ NaviError DebugClient::processPackets() {
         }
       }
       while (process->isDebugEventAvailable()) {
+        if (process->getDebuggerEventSettings().batchedEchoHits &&
+            sendEchoBreakpointHits() != 0) {
+          continue;
+        }
+
         DBGEVT* evt = new DBGEVT;
 
         NaviError dbgResult = process->getDebugEvent(evt);
@@ -63,6 +63,9 @@ class DebugClient {
   // Retrieves the debugger event settings packet from BinNavi.
   NaviError handleEventSettingsPacket() const;
 
+  // Sends the queued echo breakpoint hits to BinNavi in one packet.
+  unsigned int sendEchoBreakpointHits();
+
  public:
 
   // Creates a new debug client object
@@ -18,16 +18,32 @@
 struct DebuggerEventSettings {
   DebuggerEventSettings()
       : breakOnDllLoad(false),
-        breakOnDllUnload(false) {
+        breakOnDllUnload(false),
+        binaryRegisters(false),
+        batchedEchoHits(false) {
   }
 
-  DebuggerEventSettings(bool breakOnDllLoad, bool breakOnDllUnload)
+  DebuggerEventSettings(bool breakOnDllLoad, bool breakOnDllUnload,
+                        bool binaryRegisters = false,
+                        bool batchedEchoHits = false)
       : breakOnDllLoad(breakOnDllLoad),
-        breakOnDllUnload(breakOnDllUnload) {
+        breakOnDllUnload(breakOnDllUnload),
+        binaryRegisters(binaryRegisters),
+        batchedEchoHits(batchedEchoHits) {
   }
 
   bool breakOnDllLoad;
   bool breakOnDllUnload;
+
+  // Specifies whether register values are sent to BinNavi in the binary
+  // format instead of XML. BinNavi only enables this if the debugger announced
+  // the binaryRegisters option.
+  bool binaryRegisters;
+
+  // Specifies whether echo breakpoint hits are sent to BinNavi in batches.
+  // BinNavi only enables this if the debugger announced the batchedEchoHits
+  // option.
+  bool batchedEchoHits;
 };
 
 #endif
@@ -47,6 +47,14 @@ struct DebuggerOptions {
   // is unmapped from the address space.
   bool canBreakOnModuleUnload;
 
+  // Specifies that the debugger can send register values in the binary
+  // format (see createRegisterData).
+  bool canBinaryRegisters;
+
+  // Specifies that the debugger can send several echo breakpoint hits in one
+  // packet (see DebugClient::sendEchoBreakpointHits).
+  bool canBatchEchoHits;
+
   // list of supported exceptions on the specific platform
   DebugExceptionContainer exceptions;
 
@@ -65,7 +73,9 @@ struct DebuggerOptions {
         canTraceCount(true),
         pageSize(0),
         canBreakOnModuleLoad(true),
-        canBreakOnModuleUnload(true) {
+        canBreakOnModuleUnload(true),
+        canBinaryRegisters(true),
+        canBatchEchoHits(true) {
   }
 };
 
@@ -126,7 +126,8 @@ std::map<commandtype_t, const char*> CommandMap = boost::assign::map_list_of(
     "resp_set_debugger_event_settings_err")(
     resp_query_debugger_event_settings,
     "resp_query_debugger_event_settings")(resp_process_start,
-                                          "resp_process_start");
+                                          "resp_process_start")(
+    resp_bpe_hits, "resp_bpe_hits");
 
 const char* commandToString(commandtype_t cmd) {
   std::map<commandtype_t, const char*>::const_iterator cit =
@@ -122,7 +122,8 @@ enum commandtype_t {
   resp_set_debugger_event_settings_succ = 104,
   resp_set_debugger_event_settings_err = 105,
   resp_query_debugger_event_settings = 106,
-  resp_process_start = 107
+  resp_process_start = 107,
+  resp_bpe_hits = 108
 };
 
 extern const char* commandToString(commandtype_t cmd);
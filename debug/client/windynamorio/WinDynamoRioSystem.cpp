@@ -690,7 +690,7 @@ NaviError WinDynamoRioSystem::echoBreakpointHit(const BREAKPOINT& bp,
   dbgevt.bp = bp;
   dbgevt.tid = tid;
   dbgevt.type = dbgevt_bpe_hit;
-  dbgevt.registerString = createRegisterString(registers);
+  dbgevt.registerString = createRegisterSnapshot(registers);
   addDebugEvent(dbgevt);
 
   return NaviErrors::SUCCESS;
@@ -0,0 +1,156 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.PostgreSQL.Savers;
+
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.binnavi.CConfigLoader;
+import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
+import com.google.security.zynamics.binnavi.Database.CDatabase;
+import com.google.security.zynamics.binnavi.Database.CJdbcDriverNames;
+import com.google.security.zynamics.binnavi.config.ConfigManager;
+import com.google.security.zynamics.binnavi.disassembly.CCodeNode;
+import com.google.security.zynamics.binnavi.disassembly.INaviFunction;
+import com.google.security.zynamics.binnavi.disassembly.INaviInstruction;
+import com.google.security.zynamics.binnavi.disassembly.INaviModule;
+import com.google.security.zynamics.binnavi.disassembly.views.CView;
+import com.google.security.zynamics.binnavi.disassembly.views.INaviView;
+import com.google.security.zynamics.zylib.gui.zygraph.edges.EdgeType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link PostgreSQLViewSaver#save} needs to store a generated view.
+ *
+ * The benchmark needs the PostgreSQL test database "test_disassembly" that is also used by the
+ * expensive tests. The connection settings are read from tests/postgresql.txt by {@link
+ * CConfigLoader}. The generated view is deleted again once the benchmark is finished.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ViewSaverBenchmark {
+  /**
+   * Number of code nodes of the generated view.
+   */
+  @Param({"1000", "20000"})
+  public int nodes;
+
+  /**
+   * The database that holds the generated view.
+   */
+  private CDatabase database;
+
+  /**
+   * Provides the connection to the database.
+   */
+  private AbstractSQLProvider provider;
+
+  /**
+   * The module the generated view belongs to.
+   */
+  private INaviModule module;
+
+  /**
+   * The generated view.
+   */
+  private CView view;
+
+  /**
+   * Finds a function with a non-empty flowgraph and returns the first code node of the flowgraph.
+   * The instructions of that node are used for all generated nodes.
+   */
+  private static CCodeNode findCodeNode(final INaviModule module) throws Exception {
+    for (final INaviFunction function : module.getContent().getFunctionContainer().getFunctions()) {
+      if (function.getBasicBlockCount() == 0) {
+        continue;
+      }
+
+      final INaviView flowgraph = module.getContent().getViewContainer().getView(function);
+      flowgraph.load();
+      return (CCodeNode) flowgraph.getGraph().getNodes().get(0);
+    }
+
+    throw new IllegalStateException("Error: Module does not contain a non-empty function");
+  }
+
+  @Setup
+  public void setUp() throws Exception {
+    final String[] parts = CConfigLoader.loadPostgreSQL();
+    database = new CDatabase("View saver benchmark database",
+        CJdbcDriverNames.jdbcPostgreSQLDriverName, parts[0], "test_disassembly", parts[1],
+        parts[2], parts[3], false, false);
+    database.connect();
+    database.load();
+
+    final Field providerField = CDatabase.class.getDeclaredField("provider");
+    providerField.setAccessible(true);
+    provider = (AbstractSQLProvider) providerField.get(database);
+    ConfigManager.instance().read();
+
+    module = provider.loadModules().get(0);
+    module.load();
+
+    final CCodeNode template = findCodeNode(module);
+    final List<INaviInstruction> instructions = Lists.newArrayList(template.getInstructions());
+    final INaviFunction function = template.getParentFunction();
+
+    view = module.getContent().getViewContainer().createView("View saver benchmark", "");
+
+    CCodeNode previous = null;
+    for (int i = 0; i < nodes; i++) {
+      final CCodeNode node = view.getContent().createCodeNode(function, instructions);
+
+      if (previous != null) {
+        view.getContent().createEdge(previous, node, EdgeType.JUMP_UNCONDITIONAL);
+      }
+
+      previous = node;
+    }
+
+    // The first save creates the view in the database, all further saves replace its content.
+    view.save();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    module.getContent().getViewContainer().deleteView(view);
+    module.close();
+    database.close();
+  }
+
+  @Benchmark
+  public void save() throws Exception {
+    PostgreSQLViewSaver.save(provider, view);
+  }
+}
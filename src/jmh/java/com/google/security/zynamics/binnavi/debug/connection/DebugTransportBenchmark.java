@@ -0,0 +1,153 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.connection;
+
+import com.google.security.zynamics.binnavi.Debug.Connection.ChannelReader;
+import com.google.security.zynamics.binnavi.Debug.Connection.LoopbackDebugServer;
+import com.google.security.zynamics.binnavi.debug.connection.helpers.DebugProtocolHelper;
+import com.google.security.zynamics.binnavi.debug.connection.interfaces.ClientReader;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replyparsers.ParserFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the debug connection needs to receive and decode a stream of replies from a
+ * {@link LoopbackDebugServer}, once through a {@link SocketReader} and once through a {@link
+ * ChannelReader}. The replies are decoded the same way {@link ReceiveWorker} decodes them.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DebugTransportBenchmark {
+  /**
+   * Register values of the echo breakpoint hits.
+   */
+  private static final String REGISTERS = "<Registers><Thread id=\"5\">"
+      + "<Register name=\"EAX\" value=\"1a1eb4\" memory=\"\"/>"
+      + "<Register name=\"EBX\" value=\"7ffda000\" memory=\"\"/>"
+      + "<Register name=\"ESP\" value=\"7fb20\" memory=\"\" sp=\"true\"/>"
+      + "<Register name=\"EIP\" value=\"7c91120f\" memory=\"\" pc=\"true\"/>"
+      + "</Thread></Registers>";
+
+  /**
+   * The reader that decodes the replies, either "socket" or "channel".
+   */
+  @Param({"socket", "channel"})
+  public String transport;
+
+  /**
+   * The kind of replies, either 4 MB memory dumps or echo breakpoint hits.
+   */
+  @Param({"memory", "echo"})
+  public String replies;
+
+  /**
+   * Serves the replies.
+   */
+  private LoopbackDebugServer server;
+
+  /**
+   * Number of replies the server sends per connection.
+   */
+  private int count;
+
+  @Setup
+  public void setUp() throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+    if ("memory".equals(replies)) {
+      stream.write(LoopbackDebugServer.createReadMemoryReply(1, 0x401000, new byte[4 << 20]));
+      count = 16;
+    } else {
+      for (int i = 0; i < 1000; i++) {
+        stream.write(LoopbackDebugServer.createEchoBreakpointHitReply(i, 5, REGISTERS));
+      }
+      count = 20;
+    }
+
+    server = new LoopbackDebugServer(stream.toByteArray(), count);
+
+    if ("echo".equals(replies)) {
+      count *= 1000;
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    server.close();
+  }
+
+  @Benchmark
+  public DebuggerReply receive() throws IOException {
+    final InetSocketAddress address =
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+
+    if ("channel".equals(transport)) {
+      try (final SocketChannel channel = SocketChannel.open(address)) {
+        return decode(new ChannelReader(channel));
+      }
+    }
+
+    try (final Socket socket = new Socket(address.getAddress(), address.getPort())) {
+      return decode(new SocketReader(socket));
+    }
+  }
+
+  /**
+   * Reads the authentication message and all replies from the server.
+   *
+   * @param reader The reader connected to the server.
+   *
+   * @return The last decoded reply.
+   */
+  private DebuggerReply decode(final ClientReader reader) throws IOException {
+    final ParserFactory parserFactory = new ParserFactory(reader);
+    DebugProtocolHelper.readDWord(reader);
+
+    DebuggerReply reply = null;
+
+    for (int i = 0; i < count; i++) {
+      final int type = (int) DebugProtocolHelper.readDWord(reader);
+      final int id = (int) DebugProtocolHelper.readDWord(reader);
+      reply = parserFactory.getParser(type).parse(type, id);
+    }
+
+    return reply;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.connection.packets.parsers;
+
+import com.google.security.zynamics.binnavi.Debug.Connection.Packets.Parsers.BinaryRegisterValuesWriter;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValue;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValues;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.ThreadRegisters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many register snapshots {@link RegisterValuesParser} decodes per second, once from
+ * the XML format and once from the binary format. A snapshot is what a debug client sends for
+ * every echo breakpoint hit.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RegisterValuesParserBenchmark {
+  /**
+   * Format of the snapshot, either "xml" or "binary".
+   */
+  @Param({"xml", "binary"})
+  public String format;
+
+  /**
+   * Number of registers in the snapshot. 16 is about what x86 clients send, 64 covers larger
+   * register files.
+   */
+  @Param({"16", "64"})
+  public int registers;
+
+  /**
+   * The encoded snapshot.
+   */
+  private byte[] data;
+
+  /**
+   * Creates the XML a debug client sends for the given register values.
+   */
+  private static String toXml(final RegisterValues values) {
+    final StringBuilder builder = new StringBuilder("<Registers>");
+
+    for (final ThreadRegisters thread : values) {
+      builder.append(String.format("<Thread id=\"%d\">", thread.getTid()));
+
+      for (final RegisterValue register : thread) {
+        builder.append(String.format("<Register name=\"%s\" value=\"%s\" memory=\"\"%s/>",
+            register.getName(), register.getValue().toString(16),
+            register.isPc() ? " pc=\"true\"" : register.isSp() ? " sp=\"true\"" : ""));
+      }
+
+      builder.append("</Thread>");
+    }
+
+    return builder.append("</Registers>").toString();
+  }
+
+  @Setup
+  public void setUp() {
+    final List<RegisterValue> values = new ArrayList<>();
+
+    for (int i = 0; i < registers; i++) {
+      values.add(new RegisterValue("R" + i, BigInteger.valueOf(0x7ffda000L + i * 0x1111L),
+          new byte[0], i == 0, i == 1));
+    }
+
+    final List<ThreadRegisters> threads = new ArrayList<>();
+    threads.add(new ThreadRegisters(2988, values));
+    final RegisterValues snapshot = new RegisterValues(threads);
+
+    data = "binary".equals(format) ? BinaryRegisterValuesWriter.write(snapshot)
+        : toXml(snapshot).getBytes();
+  }
+
+  @Benchmark
+  public RegisterValues parse() throws MessageParserException {
+    return RegisterValuesParser.parse(data);
+  }
+}
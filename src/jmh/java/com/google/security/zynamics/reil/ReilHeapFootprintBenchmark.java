@@ -0,0 +1,191 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil;
+
+import com.google.common.collect.Iterables;
+import com.google.security.zynamics.reil.translators.InternalTranslationException;
+import com.google.security.zynamics.reil.translators.ReilTranslator;
+import com.google.security.zynamics.reil.translators.StandardEnvironment;
+import com.google.security.zynamics.reil.translators.SyntheticInstructions;
+import com.google.security.zynamics.zylib.disassembly.ExpressionType;
+import com.google.security.zynamics.zylib.disassembly.MockBlockContainer;
+import com.google.security.zynamics.zylib.disassembly.MockInstruction;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the retained heap of translated REIL graphs. Every invocation translates
+ * {@link #FUNCTION_COUNT} synthetic x86 functions and reports the heap they retain through the
+ * {@link Footprint} counters. The {@code PRIVATE} layout additionally recreates the operand trees
+ * and metadata maps every instruction owned before operands were interned, so comparing the two
+ * layouts shows the size of the graphs before and after interning.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class ReilHeapFootprintBenchmark {
+  /**
+   * Number of functions translated per benchmark invocation.
+   */
+  private static final int FUNCTION_COUNT = 100;
+
+  /**
+   * Number of basic blocks per function.
+   */
+  private static final int BLOCK_COUNT = 10;
+
+  /**
+   * Number of instructions per basic block.
+   */
+  private static final int BLOCK_SIZE = 50;
+
+  /**
+   * Memory layout of the translated instructions.
+   */
+  public enum Layout {
+    /**
+     * Operands are interned and metadata maps are allocated lazily.
+     */
+    SHARED,
+
+    /**
+     * Every instruction owns its operand trees and an empty metadata map.
+     */
+    PRIVATE
+  }
+
+  /**
+   * Heap retained by the graphs of one invocation.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Footprint {
+    /**
+     * Retained bytes of the translated graphs.
+     */
+    public long retainedBytes;
+
+    /**
+     * Number of REIL instructions in the translated graphs.
+     */
+    public long reilInstructions;
+
+    /**
+     * Retained bytes per REIL instruction.
+     */
+    public long bytesPerInstruction;
+  }
+
+  /**
+   * Layout of the measured graphs.
+   */
+  @Param({"SHARED", "PRIVATE"})
+  public Layout layout;
+
+  /**
+   * Translator for whole functions.
+   */
+  private final ReilTranslator<MockInstruction> translator = new ReilTranslator<MockInstruction>();
+
+  /**
+   * The synthetic functions to translate.
+   */
+  private final List<MockBlockContainer> functions = new ArrayList<MockBlockContainer>();
+
+  /**
+   * Creates an operand that is not shared with any other instruction.
+   */
+  private static ReilOperand copyOperand(final ReilOperand operand) {
+    final ReilOperandNode root =
+        new ReilOperandNode(operand.getSize().toSizeString(), ExpressionType.SIZE_PREFIX);
+    final ReilOperandNode child = new ReilOperandNode(new String(operand.getValue()),
+        ReilHelpers.getOperandType(operand.getValue()));
+    ReilOperandNode.link(root, child);
+    return new ReilOperand(root);
+  }
+
+  /**
+   * Returns the used heap after collecting all unreachable objects.
+   */
+  private static long usedHeap() {
+    final Runtime runtime = Runtime.getRuntime();
+
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    for (int i = 0; i < FUNCTION_COUNT; i++) {
+      functions.add(SyntheticInstructions.createFunction("x86", BLOCK_COUNT, BLOCK_SIZE));
+    }
+  }
+
+  @Benchmark
+  public List<Object> translate(final Footprint footprint) throws InternalTranslationException {
+    final long baseline = usedHeap();
+
+    final List<Object> retained = new ArrayList<Object>();
+    long reilInstructions = 0;
+
+    for (final MockBlockContainer function : functions) {
+      final ReilFunction reilFunction = translator.translate(new StandardEnvironment(), function);
+      retained.add(reilFunction);
+
+      for (final ReilBlock block : reilFunction.getGraph()) {
+        reilInstructions += Iterables.size(block.getInstructions());
+
+        if (layout == Layout.PRIVATE) {
+          for (final ReilInstruction instruction : block.getInstructions()) {
+            retained.add(copyOperand(instruction.getFirstOperand()));
+            retained.add(copyOperand(instruction.getSecondOperand()));
+            retained.add(copyOperand(instruction.getThirdOperand()));
+            retained.add(new HashMap<String, String>());
+          }
+        }
+      }
+    }
+
+    footprint.retainedBytes = usedHeap() - baseline;
+    footprint.reilInstructions = reilInstructions;
+    footprint.bytesPerInstruction = footprint.retainedBytes / reilInstructions;
+
+    return retained;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.zylib.gui.zygraph.edges.EdgeType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates synthetic REIL functions for benchmarks of the REIL algorithms.
+ *
+ * A generated function is a chain of diamonds. Every diamond consists of a top block that
+ * branches into a left and a right block which join again in a bottom block. Optionally, the
+ * bottom block of every eighth diamond jumps back to the top of the diamond seven positions
+ * earlier, so the function also contains loops.
+ */
+public final class SyntheticReilFunctions {
+  /**
+   * Number of basic blocks per diamond. Every basic block is the translation of one native
+   * instruction.
+   */
+  private static final int BLOCKS_PER_DIAMOND = 4;
+
+  /**
+   * Number of diamonds per loop.
+   */
+  private static final int LOOP_LENGTH = 8;
+
+  private SyntheticReilFunctions() {
+    // You are not supposed to instantiate this class
+  }
+
+  private static ReilBlock createBottomBlock(final long nativeAddress) {
+    final long address = nativeAddress << 8;
+
+    return new ReilBlock(Lists.newArrayList(
+        ReilHelpers.createAdd(address, OperandSize.DWORD, "esi", OperandSize.DWORD, "edx",
+            OperandSize.QWORD, "t0"),
+        ReilHelpers.createAnd(address + 1, OperandSize.QWORD, "t0", OperandSize.DWORD,
+            "4294967295", OperandSize.DWORD, "esi"),
+        ReilHelpers.createBisz(address + 2, OperandSize.DWORD, "esi", OperandSize.BYTE, "ZF"),
+        ReilHelpers.createJcc(address + 3, OperandSize.BYTE, "ZF", OperandSize.DWORD, "0")));
+  }
+
+  private static ReilBlock createLeftBlock(final long nativeAddress) {
+    final long address = nativeAddress << 8;
+
+    return new ReilBlock(Lists.newArrayList(
+        ReilHelpers.createXor(address, OperandSize.DWORD, "ecx", OperandSize.DWORD, "eax",
+            OperandSize.DWORD, "ecx"),
+        ReilHelpers.createStr(address + 1, OperandSize.DWORD, "ecx", OperandSize.DWORD, "edx")));
+  }
+
+  private static ReilBlock createRightBlock(final long nativeAddress) {
+    final long address = nativeAddress << 8;
+
+    return new ReilBlock(Lists.newArrayList(
+        ReilHelpers.createSub(address, OperandSize.DWORD, "edx", OperandSize.DWORD, "ebx",
+            OperandSize.QWORD, "t0"),
+        ReilHelpers.createAnd(address + 1, OperandSize.QWORD, "t0", OperandSize.DWORD,
+            "4294967295", OperandSize.DWORD, "edx"),
+        ReilHelpers.createLdm(address + 2, OperandSize.DWORD, "edi", OperandSize.DWORD, "ebx")));
+  }
+
+  private static ReilBlock createTopBlock(final long nativeAddress) {
+    final long address = nativeAddress << 8;
+
+    return new ReilBlock(Lists.newArrayList(
+        ReilHelpers.createAdd(address, OperandSize.DWORD, "eax", OperandSize.DWORD, "ebx",
+            OperandSize.QWORD, "t0"),
+        ReilHelpers.createAnd(address + 1, OperandSize.QWORD, "t0", OperandSize.DWORD,
+            "4294967295", OperandSize.DWORD, "eax"),
+        ReilHelpers.createBisz(address + 2, OperandSize.DWORD, "eax", OperandSize.BYTE, "ZF"),
+        ReilHelpers.createJcc(address + 3, OperandSize.BYTE, "ZF", OperandSize.DWORD, "0")));
+  }
+
+  private static void link(final List<ReilEdge> edges, final ReilBlock source,
+      final ReilBlock target, final EdgeType type) {
+    final ReilEdge edge = new ReilEdge(source, target, type);
+    ReilBlock.link(source, target, edge);
+    edges.add(edge);
+  }
+
+  /**
+   * Creates a function that consists of a chain of diamonds.
+   *
+   * @param diamondCount Number of diamonds in the function.
+   * @param loops True, to add loops to the function. False, to create an acyclic function.
+   *
+   * @return The created function.
+   */
+  public static ReilFunction createFunction(final int diamondCount, final boolean loops) {
+    Preconditions.checkArgument(diamondCount > 0, "Error: Argument diamondCount must be positive");
+
+    final List<ReilBlock> blocks = new ArrayList<ReilBlock>();
+    final List<ReilEdge> edges = new ArrayList<ReilEdge>();
+    final List<ReilBlock> tops = new ArrayList<ReilBlock>();
+
+    ReilBlock previousBottom = null;
+
+    for (int i = 0; i < diamondCount; i++) {
+      final long nativeAddress = (long) i * BLOCKS_PER_DIAMOND;
+
+      final ReilBlock top = createTopBlock(nativeAddress);
+      final ReilBlock left = createLeftBlock(nativeAddress + 1);
+      final ReilBlock right = createRightBlock(nativeAddress + 2);
+      final ReilBlock bottom = createBottomBlock(nativeAddress + 3);
+
+      blocks.add(top);
+      blocks.add(left);
+      blocks.add(right);
+      blocks.add(bottom);
+      tops.add(top);
+
+      if (previousBottom != null) {
+        link(edges, previousBottom, top, EdgeType.JUMP_CONDITIONAL_FALSE);
+      }
+
+      link(edges, top, left, EdgeType.JUMP_CONDITIONAL_TRUE);
+      link(edges, top, right, EdgeType.JUMP_CONDITIONAL_FALSE);
+      link(edges, left, bottom, EdgeType.JUMP_UNCONDITIONAL);
+      link(edges, right, bottom, EdgeType.JUMP_UNCONDITIONAL);
+
+      if (loops && ((i % LOOP_LENGTH) == (LOOP_LENGTH - 1))) {
+        link(edges, bottom, tops.get(i - (LOOP_LENGTH - 1)), EdgeType.JUMP_CONDITIONAL_TRUE_LOOP);
+      }
+
+      previousBottom = bottom;
+    }
+
+    return new ReilFunction("SYNTHETIC", new ReilGraph(blocks, edges));
+  }
+
+  /**
+   * Returns the native address of the first instruction of a generated function.
+   *
+   * @return The native address of the first instruction.
+   */
+  public static long getFirstNativeAddress() {
+    return 0;
+  }
+
+  /**
+   * Returns the native address of the last instruction of a generated function.
+   *
+   * @param diamondCount Number of diamonds in the function.
+   *
+   * @return The native address of the last instruction.
+   */
+  public static long getLastNativeAddress(final int diamondCount) {
+    return ((long) diamondCount * BLOCKS_PER_DIAMOND) - 1;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.algorithms.mono2.registertracking;
+
+import com.google.security.zynamics.reil.ReilFunction;
+import com.google.security.zynamics.reil.SyntheticReilFunctions;
+import com.google.security.zynamics.reil.algorithms.mono2.common.MonoReilSolverResult;
+import com.google.security.zynamics.reil.algorithms.mono2.common.enums.AnalysisDirection;
+import com.google.security.zynamics.reil.algorithms.mono2.common.enums.WorklistStrategy;
+import com.google.security.zynamics.zylib.disassembly.MockInstruction;
+import com.google.security.zynamics.zylib.disassembly.MockOperandTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time the register tracker and the underlying {@link
+ * com.google.security.zynamics.reil.algorithms.mono2.common.MonoReilSolver} need to track a
+ * register through generated control flow graphs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RegisterTrackerBenchmark {
+  /**
+   * Number of diamonds in the generated function.
+   */
+  @Param({"16", "256"})
+  public int diamonds;
+
+  /**
+   * Direction of the analysis.
+   */
+  @Param({"DOWN", "UP"})
+  public AnalysisDirection direction;
+
+  /**
+   * Order in which the solver processes its worklist.
+   */
+  @Param({"UNORDERED", "DIRECTIONAL"})
+  public WorklistStrategy strategy;
+
+  /**
+   * The analyzed function.
+   */
+  private ReilFunction function;
+
+  /**
+   * Native instruction where the tracking starts.
+   */
+  private MockInstruction startInstruction;
+
+  /**
+   * Options of the register tracker.
+   */
+  private RegisterTrackingOptions options;
+
+  @Setup
+  public void setUp() {
+    function = SyntheticReilFunctions.createFunction(diamonds, true);
+
+    final long startAddress = direction == AnalysisDirection.DOWN
+        ? SyntheticReilFunctions.getFirstNativeAddress()
+        : SyntheticReilFunctions.getLastNativeAddress(diamonds);
+
+    startInstruction =
+        new MockInstruction(startAddress, "nop", new ArrayList<MockOperandTree>());
+    // Downwards tracking starts behind the first instruction, upwards tracking in front of the
+    // last instruction.
+    options = new RegisterTrackingOptions(true, new HashSet<String>(),
+        direction == AnalysisDirection.UP, direction, strategy);
+  }
+
+  @Benchmark
+  public MonoReilSolverResult<RegisterSetLatticeElement> track() {
+    return RegisterTracker.track(function, startInstruction, "eax", options);
+  }
+}
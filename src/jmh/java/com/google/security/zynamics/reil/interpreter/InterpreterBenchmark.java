@@ -0,0 +1,125 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.interpreter;
+
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.reil.OperandSize;
+import com.google.security.zynamics.reil.ReilHelpers;
+import com.google.security.zynamics.reil.ReilInstruction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many REIL instructions per second the interpreter executes. The program is a
+ * summation loop of {@link #LOOP_COUNT} iterations, so the reported throughput is in executed
+ * REIL instructions per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterpreterBenchmark {
+  /**
+   * Number of loop iterations per benchmark invocation.
+   */
+  private static final int LOOP_COUNT = 10000;
+
+  /**
+   * Number of REIL instructions executed per benchmark invocation. Two instructions initialize
+   * the loop and every iteration executes six instructions.
+   */
+  private static final int EXECUTED_INSTRUCTIONS = 2 + (6 * LOOP_COUNT);
+
+  /**
+   * Execution mode of the interpreter. COMPILED interprets the program after it was compiled by
+   * {@link ReilProgramCompiler}.
+   */
+  @Param({"BIG_INTEGER", "PRIMITIVE", "COMPILED"})
+  public String mode;
+
+  /**
+   * The interpreted program.
+   */
+  private final HashMap<BigInteger, List<ReilInstruction>> instructions =
+      new HashMap<BigInteger, List<ReilInstruction>>();
+
+  /**
+   * The compiled program.
+   */
+  private CompiledReilProgram program;
+
+  /**
+   * The interpreter that runs the program.
+   */
+  private ReilInterpreter interpreter;
+
+  @Setup
+  public void setUp() {
+    instructions.put(BigInteger.valueOf(0x000), Lists.newArrayList(
+        ReilHelpers.createStr(0x000, OperandSize.DWORD, String.valueOf(LOOP_COUNT),
+            OperandSize.DWORD, "ecx"),
+        ReilHelpers.createStr(0x001, OperandSize.DWORD, "0", OperandSize.DWORD, "eax")));
+    instructions.put(BigInteger.valueOf(0x100), Lists.newArrayList(
+        ReilHelpers.createAdd(0x100, OperandSize.DWORD, "eax", OperandSize.DWORD, "ecx",
+            OperandSize.QWORD, "t0"),
+        ReilHelpers.createAnd(0x101, OperandSize.QWORD, "t0", OperandSize.DWORD, "4294967295",
+            OperandSize.DWORD, "eax"),
+        ReilHelpers.createSub(0x102, OperandSize.DWORD, "ecx", OperandSize.DWORD, "1",
+            OperandSize.DWORD, "ecx")));
+    instructions.put(BigInteger.valueOf(0x200), Lists.newArrayList(
+        ReilHelpers.createBisz(0x200, OperandSize.DWORD, "ecx", OperandSize.BYTE, "t1"),
+        ReilHelpers.createJcc(0x201, OperandSize.BYTE, "t1", OperandSize.ADDRESS, "2.4"),
+        ReilHelpers.createJcc(0x202, OperandSize.DWORD, "1", OperandSize.DWORD, "1"),
+        ReilHelpers.createNop(0x203),
+        ReilHelpers.createStm(0x204, OperandSize.DWORD, "eax", OperandSize.DWORD, "4096")));
+
+    program = ReilProgramCompiler.compile(instructions);
+
+    interpreter = new ReilInterpreter(Endianness.LITTLE_ENDIAN, new CpuPolicyX86(),
+        new EmptyInterpreterPolicy(), "BIG_INTEGER".equals(mode) ? InterpreterMode.BIG_INTEGER
+            : InterpreterMode.PRIMITIVE);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EXECUTED_INSTRUCTIONS)
+  public BigInteger interpret() throws InterpreterException {
+    if ("COMPILED".equals(mode)) {
+      interpreter.interpret(program, BigInteger.ZERO);
+    } else {
+      interpreter.interpret(instructions, BigInteger.ZERO);
+    }
+
+    return interpreter.getVariableValue("eax");
+  }
+}
@@ -0,0 +1,255 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.translators;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.reil.translators.arm.TranslatorARM;
+import com.google.security.zynamics.reil.translators.mips.TranslatorMIPS;
+import com.google.security.zynamics.reil.translators.ppc.TranslatorPPC;
+import com.google.security.zynamics.reil.translators.x86.TranslatorX86;
+import com.google.security.zynamics.zylib.disassembly.ExpressionType;
+import com.google.security.zynamics.zylib.disassembly.MockBlockContainer;
+import com.google.security.zynamics.zylib.disassembly.MockCodeContainer;
+import com.google.security.zynamics.zylib.disassembly.MockInstruction;
+import com.google.security.zynamics.zylib.disassembly.MockOperandTree;
+import com.google.security.zynamics.zylib.disassembly.MockOperandTreeNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates synthetic native instruction streams for the supported CPU architectures. The streams
+ * are deterministic, so benchmark results can be compared between runs.
+ */
+public final class SyntheticInstructions {
+  private static final String[] X86_REGISTERS = {"eax", "ebx", "ecx", "edx", "esi", "edi"};
+  private static final String[] ARM_REGISTERS = {"R0", "R1", "R2", "R3", "R4", "R5", "R6", "R7"};
+  private static final String[] PPC_REGISTERS = {"%r3", "%r4", "%r5", "%r6", "%r7", "%r8"};
+  private static final String[] MIPS_REGISTERS = {"$a0", "$a1", "$a2", "$a3", "$t0", "$t1"};
+
+  private static final String[] ARM_MNEMONICS = {"ADD", "SUB", "AND", "EOR", "ORR"};
+  private static final String[] PPC_MNEMONICS = {"add", "subf", "and", "or", "xor"};
+  private static final String[] MIPS_MNEMONICS = {"addu", "subu", "and", "or", "xor"};
+
+  private SyntheticInstructions() {
+    // You are not supposed to instantiate this class
+  }
+
+  private static MockInstruction createArmInstruction(final long address, final int index) {
+    final String first = ARM_REGISTERS[index % ARM_REGISTERS.length];
+    final String second = ARM_REGISTERS[(index + 3) % ARM_REGISTERS.length];
+    final String third = ARM_REGISTERS[(index + 5) % ARM_REGISTERS.length];
+
+    if ((index % 6) == 5) {
+      return createInstruction("ARM-32", address, "MOV", register("b4", first),
+          register("b4", second));
+    }
+
+    return createInstruction("ARM-32", address, ARM_MNEMONICS[index % 6], register("b4", first),
+        register("b4", second), register("b4", third));
+  }
+
+  private static MockInstruction createInstruction(final String architecture, final long address,
+      final String mnemonic, final MockOperandTree... operands) {
+    return new SyntheticInstruction(architecture, address, mnemonic,
+        Lists.newArrayList(operands));
+  }
+
+  private static MockInstruction createMipsInstruction(final long address, final int index) {
+    final String first = MIPS_REGISTERS[index % MIPS_REGISTERS.length];
+    final String second = MIPS_REGISTERS[(index + 2) % MIPS_REGISTERS.length];
+    final String third = MIPS_REGISTERS[(index + 4) % MIPS_REGISTERS.length];
+
+    return createInstruction("MIPS-32", address, MIPS_MNEMONICS[index % MIPS_MNEMONICS.length],
+        register("b4", first), register("b4", second), register("b4", third));
+  }
+
+  private static MockInstruction createPpcInstruction(final long address, final int index) {
+    final String first = PPC_REGISTERS[index % PPC_REGISTERS.length];
+    final String second = PPC_REGISTERS[(index + 2) % PPC_REGISTERS.length];
+    final String third = PPC_REGISTERS[(index + 4) % PPC_REGISTERS.length];
+
+    return createInstruction("PowerPC-32", address, PPC_MNEMONICS[index % PPC_MNEMONICS.length],
+        register("dword", first), register("dword", second), register("dword", third));
+  }
+
+  private static MockInstruction createX86Instruction(final long address, final int index) {
+    final String first = X86_REGISTERS[index % X86_REGISTERS.length];
+    final String second = X86_REGISTERS[(index + 1) % X86_REGISTERS.length];
+
+    switch (index % 8) {
+      case 0:
+        return createInstruction("x86-32", address, "mov", register("dword", first),
+            immediate("dword", String.valueOf(index & 0xFFFF)));
+      case 1:
+        return createInstruction("x86-32", address, "add", register("dword", first),
+            register("dword", second));
+      case 2:
+        return createInstruction("x86-32", address, "xor", register("dword", first),
+            register("dword", second));
+      case 3:
+        return createInstruction("x86-32", address, "mov", register("dword", first),
+            memory("dword", second, String.valueOf((index & 0xFF) * 4)));
+      case 4:
+        return createInstruction("x86-32", address, "sub", register("dword", first),
+            immediate("dword", "4"));
+      case 5:
+        return createInstruction("x86-32", address, "add", register("word", "ax"),
+            register("word", "cx"));
+      case 6:
+        return createInstruction("x86-32", address, "mov", register("byte", "al"),
+            register("byte", "bh"));
+      default:
+        return createInstruction("x86-32", address, "push", register("dword", first));
+    }
+  }
+
+  private static MockOperandTree immediate(final String size, final String value) {
+    final MockOperandTree operand = new MockOperandTree();
+    operand.root = new MockOperandTreeNode(ExpressionType.SIZE_PREFIX, size);
+    operand.root.m_children.add(new MockOperandTreeNode(ExpressionType.IMMEDIATE_INTEGER, value));
+    return operand;
+  }
+
+  private static MockOperandTree memory(final String size, final String base,
+      final String displacement) {
+    final MockOperandTreeNode addition = new MockOperandTreeNode(ExpressionType.OPERATOR, "+");
+    addition.m_children.add(new MockOperandTreeNode(ExpressionType.REGISTER, base));
+    addition.m_children.add(new MockOperandTreeNode(ExpressionType.IMMEDIATE_INTEGER,
+        displacement));
+
+    final MockOperandTreeNode dereference = new MockOperandTreeNode(ExpressionType.MEMDEREF, "[");
+    dereference.m_children.add(addition);
+
+    final MockOperandTree operand = new MockOperandTree();
+    operand.root = new MockOperandTreeNode(ExpressionType.SIZE_PREFIX, size);
+    operand.root.m_children.add(dereference);
+    return operand;
+  }
+
+  private static MockOperandTree register(final String size, final String name) {
+    final MockOperandTree operand = new MockOperandTree();
+    operand.root = new MockOperandTreeNode(ExpressionType.SIZE_PREFIX, size);
+    operand.root.m_children.add(new MockOperandTreeNode(ExpressionType.REGISTER, name));
+    return operand;
+  }
+
+  /**
+   * Creates a stream of instructions for an architecture.
+   *
+   * @param architecture One of x86, arm, ppc and mips.
+   * @param count Number of instructions to create.
+   *
+   * @return The created instructions.
+   */
+  public static List<MockInstruction> create(final String architecture, final int count) {
+    Preconditions.checkNotNull(architecture, "Error: Argument architecture can not be null");
+    Preconditions.checkArgument(count >= 0, "Error: Argument count can not be negative");
+
+    final List<MockInstruction> instructions = new ArrayList<MockInstruction>(count);
+
+    long address = 0x1000;
+
+    for (int i = 0; i < count; i++) {
+      switch (architecture) {
+        case "x86":
+          instructions.add(createX86Instruction(address, i));
+          break;
+        case "arm":
+          instructions.add(createArmInstruction(address, i));
+          break;
+        case "ppc":
+          instructions.add(createPpcInstruction(address, i));
+          break;
+        case "mips":
+          instructions.add(createMipsInstruction(address, i));
+          break;
+        default:
+          throw new IllegalArgumentException("Error: Unknown architecture " + architecture);
+      }
+
+      address += 4;
+    }
+
+    return instructions;
+  }
+
+  /**
+   * Creates a function whose basic blocks contain a synthetic instruction stream. The blocks are
+   * not connected by edges.
+   *
+   * @param architecture One of x86, arm, ppc and mips.
+   * @param blockCount Number of basic blocks to create.
+   * @param blockSize Number of instructions per basic block.
+   *
+   * @return The created function.
+   */
+  public static MockBlockContainer createFunction(final String architecture,
+      final int blockCount, final int blockSize) {
+    final List<MockInstruction> instructions = create(architecture, blockCount * blockSize);
+    final MockBlockContainer function = new MockBlockContainer();
+
+    for (int i = 0; i < blockCount; i++) {
+      final MockCodeContainer block = new MockCodeContainer();
+      block.m_instructions.addAll(instructions.subList(i * blockSize, (i + 1) * blockSize));
+      block.m_address = block.m_instructions.get(0).getAddress();
+      function.m_blocks.add(block);
+    }
+
+    return function;
+  }
+
+  /**
+   * Creates the architecture translator for an architecture.
+   *
+   * @param architecture One of x86, arm, ppc and mips.
+   *
+   * @return The translator for the architecture.
+   */
+  public static ITranslator<MockInstruction> createTranslator(final String architecture) {
+    switch (architecture) {
+      case "x86":
+        return new TranslatorX86<MockInstruction>();
+      case "arm":
+        return new TranslatorARM<MockInstruction>();
+      case "ppc":
+        return new TranslatorPPC<MockInstruction>();
+      case "mips":
+        return new TranslatorMIPS<MockInstruction>();
+      default:
+        throw new IllegalArgumentException("Error: Unknown architecture " + architecture);
+    }
+  }
+
+  /**
+   * Mock instruction that reports the architecture it was generated for.
+   */
+  private static class SyntheticInstruction extends MockInstruction {
+    private final String architecture;
+
+    private SyntheticInstruction(final String architecture, final long address,
+        final String mnemonic, final List<MockOperandTree> operands) {
+      super(address, mnemonic, operands);
+      this.architecture = architecture;
+    }
+
+    @Override
+    public String getArchitecture() {
+      return architecture;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.translators;
+
+import com.google.security.zynamics.reil.ReilFunction;
+import com.google.security.zynamics.reil.ReilInstruction;
+import com.google.security.zynamics.zylib.disassembly.MockBlockContainer;
+import com.google.security.zynamics.zylib.disassembly.MockInstruction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many native instructions per second are translated to REIL code, both by the
+ * architecture translators alone and by {@link ReilTranslator} for whole functions. Every
+ * invocation translates {@link #INSTRUCTION_COUNT} synthetic instructions, so the reported
+ * throughput is in instructions per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranslatorBenchmark {
+  /**
+   * Number of instructions translated per benchmark invocation.
+   */
+  private static final int INSTRUCTION_COUNT = 10000;
+
+  /**
+   * Number of instructions per basic block of the translated function.
+   */
+  private static final int BLOCK_SIZE = 50;
+
+  /**
+   * Architecture whose translator is measured.
+   */
+  @Param({"x86", "arm", "ppc", "mips"})
+  public String architecture;
+
+  /**
+   * Translator of the measured architecture.
+   */
+  private ITranslator<MockInstruction> translator;
+
+  /**
+   * The synthetic instruction stream.
+   */
+  private List<MockInstruction> instructions;
+
+  /**
+   * Translator for whole functions.
+   */
+  private final ReilTranslator<MockInstruction> reilTranslator =
+      new ReilTranslator<MockInstruction>();
+
+  /**
+   * Function whose basic blocks contain the synthetic instruction stream.
+   */
+  private MockBlockContainer function;
+
+  /**
+   * Translation extensions passed to the translator.
+   */
+  private final List<ITranslationExtension<MockInstruction>> extensions =
+      new ArrayList<ITranslationExtension<MockInstruction>>();
+
+  @Setup
+  public void setUp() {
+    translator = SyntheticInstructions.createTranslator(architecture);
+    instructions = SyntheticInstructions.create(architecture, INSTRUCTION_COUNT);
+    function = SyntheticInstructions.createFunction(architecture, INSTRUCTION_COUNT / BLOCK_SIZE,
+        BLOCK_SIZE);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(INSTRUCTION_COUNT)
+  public int translate() throws InternalTranslationException {
+    final StandardEnvironment environment = new StandardEnvironment();
+
+    int reilInstructions = 0;
+
+    for (final MockInstruction instruction : instructions) {
+      environment.nextInstruction();
+
+      final List<ReilInstruction> result =
+          translator.translate(environment, instruction, extensions);
+      reilInstructions += result.size();
+    }
+
+    return reilInstructions;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(INSTRUCTION_COUNT)
+  public ReilFunction translateFunction() throws InternalTranslationException {
+    return reilTranslator.translate(new StandardEnvironment(), function);
+  }
+}
@@ -30,6 +30,7 @@ import com.google.security.zynamics.binnavi.debug.connection.packets.replies.Can
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerClosedUnexpectedlyReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DetachReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointSetReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointsRemovedReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.ExceptionOccurredReply;
@@ -624,6 +625,13 @@ public final class Debugger implements ApiObject<IDebugger> {
       }
     }
 
+    @Override
+    public void receivedReply(final EchoBreakpointHitsReply reply) {
+      for (final EchoBreakpointHitReply hit : reply.getHits()) {
+        receivedReply(hit);
+      }
+    }
+
     @Override
     public void receivedReply(final EchoBreakpointSetReply reply) {
       for (final IDebuggerListener listener : m_listeners) {
@@ -0,0 +1,164 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.API.disassembly;
+
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.binnavi.APIHelpers.ApiObject;
+
+// / Usage statistics of a database cache.
+/**
+ * Snapshot of the usage statistics of one of the instruction, node or edge caches of a database.
+ * The statistics can be used to choose the cache size of a database.
+ */
+public final class CacheStatistics
+    implements ApiObject<com.google.security.zynamics.binnavi.Database.cache.CacheStatistics> {
+  /**
+   * Wrapped internal statistics object.
+   */
+  private final com.google.security.zynamics.binnavi.Database.cache.CacheStatistics m_statistics;
+
+  // / @cond INTERNAL
+  /**
+   * Creates a new API cache statistics object.
+   *
+   * @param statistics Wrapped internal statistics object.
+   */
+  // / @endcond
+  public CacheStatistics(
+      final com.google.security.zynamics.binnavi.Database.cache.CacheStatistics statistics) {
+    m_statistics =
+        Preconditions.checkNotNull(statistics, "Error: Statistics argument can't be null");
+  }
+
+  @Override
+  public com.google.security.zynamics.binnavi.Database.cache.CacheStatistics getNative() {
+    return m_statistics;
+  }
+
+  // ! Number of evicted entries.
+  /**
+   * Returns the number of entries that were evicted from the cache because of its size limit or
+   * because they were garbage collected.
+   *
+   * @return The number of evicted entries.
+   */
+  public long getEvictionCount() {
+    return m_statistics.getEvictionCount();
+  }
+
+  // ! Number of cache hits.
+  /**
+   * Returns the number of lookups that found an entry.
+   *
+   * @return The number of cache hits.
+   */
+  public long getHitCount() {
+    return m_statistics.getHitCount();
+  }
+
+  // ! Fraction of cache hits.
+  /**
+   * Returns the fraction of lookups that found an entry.
+   *
+   * @return The hit rate between 0 and 1.
+   */
+  public double getHitRate() {
+    return m_statistics.getHitRate();
+  }
+
+  // ! Number of loads.
+  /**
+   * Returns the number of loads from the database that filled the cache.
+   *
+   * @return The number of loads.
+   */
+  public long getLoadCount() {
+    return m_statistics.getLoadCount();
+  }
+
+  // ! Memory budget of the cache.
+  /**
+   * Returns the memory budget of the cache. The instruction, node and edge caches never evict
+   * entries that are still in use and have no budget. Only the address indexes of the node and edge
+   * caches and the view graph cache are bounded.
+   *
+   * @return The memory budget in bytes or -1 if the cache has no budget.
+   */
+  public long getMaximumWeight() {
+    return m_statistics.getMaximumWeight();
+  }
+
+  // ! Number of cache misses.
+  /**
+   * Returns the number of lookups that did not find an entry.
+   *
+   * @return The number of cache misses.
+   */
+  public long getMissCount() {
+    return m_statistics.getMissCount();
+  }
+
+  // ! Name of the cache.
+  /**
+   * Returns the name of the cache.
+   *
+   * @return The name of the cache.
+   */
+  public String getName() {
+    return m_statistics.getName();
+  }
+
+  // ! Number of cache entries.
+  /**
+   * Returns the number of entries in the cache.
+   *
+   * @return The number of entries.
+   */
+  public long getSize() {
+    return m_statistics.getSize();
+  }
+
+  // ! Total load time.
+  /**
+   * Returns the total time spent loading the data that filled the cache.
+   *
+   * @return The total load time in nanoseconds.
+   */
+  public long getTotalLoadTime() {
+    return m_statistics.getTotalLoadTime();
+  }
+
+  // ! Estimated memory of the cache entries.
+  /**
+   * Returns the estimated memory used by the entries of the cache.
+   *
+   * @return The estimated memory in bytes.
+   */
+  public long getWeight() {
+    return m_statistics.getWeight();
+  }
+
+  // ! Printable representation of the statistics.
+  /**
+   * Returns a string representation of the statistics.
+   *
+   * @return A string representation of the statistics.
+   */
+  @Override
+  public String toString() {
+    return m_statistics.toString();
+  }
+}
@@ -318,6 +318,24 @@ public final class Database implements ApiObject<IDatabase> {
     return m_database.executeQuery(query);
   }
 
+  // ! Cache statistics of the database.
+  /**
+   * Returns the usage statistics of the instruction, node and edge caches of the database. The
+   * statistics help to choose the cache size of the database.
+   *
+   * @return The cache statistics. The list is empty if the database is not connected.
+   */
+  public List<CacheStatistics> getCacheStatistics() {
+    final List<CacheStatistics> statistics = new ArrayList<CacheStatistics>();
+
+    for (final com.google.security.zynamics.binnavi.Database.cache.CacheStatistics cacheStatistics :
+        m_database.getCacheStatistics()) {
+      statistics.add(new CacheStatistics(cacheStatistics));
+    }
+
+    return statistics;
+  }
+
   // ! Debugger template manager of the database.
   /**
    * Returns the debugger template manager of this database. This is the manager that keeps track of
@@ -598,6 +598,39 @@ public class Module implements ApiObject<INaviModule>, ViewContainer {
     } 
   }
 
+  // ! Loads several views of the module at once.
+  /**
+   * Loads the given views. This is considerably faster than loading the views one by one because
+   * the data of all views is loaded with a few combined database queries. Views that are already
+   * loaded are skipped.
+   *
+   * @param views The views to load.
+   *
+   * @throws CouldntLoadDataException Thrown if the views could not be loaded from the database.
+   * @throws PartialLoadException Thrown if a view could not be loaded because not all involved
+   *         modules could be loaded.
+   */
+  public void loadViews(final List<View> views)
+      throws CouldntLoadDataException, PartialLoadException {
+    Preconditions.checkNotNull(views, "Error: Views argument can not be null");
+
+    final List<INaviView> nativeViews = new ArrayList<INaviView>();
+
+    for (final View view : views) {
+      Preconditions.checkNotNull(view, "Error: Views list contains a null element");
+
+      nativeViews.add(view.getNative());
+    }
+
+    try {
+      CView.loadViews(nativeViews);
+    } catch (com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException | LoadCancelledException e) {
+      throw new CouldntLoadDataException(e);
+    } catch (final com.google.security.zynamics.binnavi.Database.Exceptions.CPartialLoadException e) {
+      throw new PartialLoadException(e);
+    }
+  }
+
   // ! Removes a module listener.
   /**
    * Removes a listener object from the module.
@@ -250,5 +250,13 @@ public final class Trace implements
         }
       }
     }
+
+    @Override
+    public void eventsAdded(final TraceList trace, final List<ITraceEvent> events) {
+      // Plugins keep receiving one notification per event.
+      for (final ITraceEvent event : events) {
+        eventAdded(trace, event);
+      }
+    }
   }
 }
@@ -16,7 +16,9 @@ limitations under the License.
 package com.google.security.zynamics.binnavi.API.reil;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.google.common.base.Preconditions;
 import com.google.security.zynamics.binnavi.API.disassembly.BasicBlock;
@@ -25,14 +27,18 @@ import com.google.security.zynamics.binnavi.API.disassembly.Instruction;
 import com.google.security.zynamics.binnavi.API.disassembly.View;
 import com.google.security.zynamics.binnavi.REIL.InstructionFinders;
 import com.google.security.zynamics.binnavi.REIL.ReilGraphConverter;
+import com.google.security.zynamics.binnavi.disassembly.INaviFunction;
 import com.google.security.zynamics.binnavi.disassembly.INaviInstruction;
 import com.google.security.zynamics.reil.translators.ITranslationExtension;
 import com.google.security.zynamics.reil.translators.ITranslator;
+import com.google.security.zynamics.reil.translators.ModuleReilTranslator;
 import com.google.security.zynamics.reil.translators.StandardEnvironment;
 import com.google.security.zynamics.reil.translators.arm.TranslatorARM;
 import com.google.security.zynamics.reil.translators.ppc.TranslatorPPC;
 import com.google.security.zynamics.reil.translators.reil.TranslatorREIL;
 import com.google.security.zynamics.reil.translators.x86.TranslatorX86;
+import com.google.security.zynamics.zylib.disassembly.IBlockContainer;
+import com.google.security.zynamics.zylib.disassembly.IInstruction;
 
 // / Translates native code to REIL code
 /**
@@ -46,6 +52,12 @@ public final class ReilTranslator {
       com.google.security.zynamics.reil.translators.ReilTranslator<INaviInstruction> m_translator =
           new com.google.security.zynamics.reil.translators.ReilTranslator<INaviInstruction>();
 
+  /**
+   * Translates many functions in parallel and caches the results.
+   */
+  private static final ModuleReilTranslator<INaviInstruction> m_moduleTranslator =
+      new ModuleReilTranslator<INaviInstruction>();
+
   /**
    * You are not supposed to instantiate this class.
    */
@@ -74,6 +86,28 @@ public final class ReilTranslator {
     }
   }
 
+  /**
+   * Searches for the API instruction of a native instruction in a list of functions.
+   *
+   * @param functions The functions to search through.
+   * @param searchInstruction The native instruction to search for.
+   *
+   * @return The API instruction of the native instruction.
+   */
+  private static Instruction findInstruction(final List<Function> functions,
+      final IInstruction searchInstruction) {
+    for (final Function function : functions) {
+      for (final BasicBlock block : function.getGraph().getNodes()) {
+        if (block.getNative().hasInstruction((INaviInstruction) searchInstruction)) {
+          return InstructionFinders.findInstruction(block, searchInstruction);
+        }
+      }
+    }
+
+    throw new IllegalStateException(
+        "Error: Could not determine what instruction could not be translated");
+  }
+
   // ! Translates a basic block to REIL code.
   /**
    * Translates a single native code block to REIL code.
@@ -119,6 +153,49 @@ public final class ReilTranslator {
     }
   }
 
+  // ! Translates many functions to REIL code.
+  /**
+   * Translates a list of functions to REIL code. The functions are translated in parallel and the
+   * translation results are cached, so translating the same unchanged functions again is cheap.
+   * All functions must be loaded.
+   *
+   * @param functions The functions to translate.
+   *
+   * @return Maps the functions to their translated REIL function objects.
+   *
+   * @throws InternalTranslationException Thrown if something goes wrong during translation.
+   */
+  public static Map<Function, ReilFunction> translate(final List<Function> functions)
+      throws InternalTranslationException {
+    Preconditions.checkNotNull(functions, "Error: Functions argument can't be null");
+
+    final List<INaviFunction> nativeFunctions = new ArrayList<INaviFunction>();
+
+    for (final Function function : functions) {
+      Preconditions.checkNotNull(function, "Error: Functions list can't contain null");
+      Preconditions.checkArgument(function.isLoaded(), "Error: All functions must be loaded");
+
+      nativeFunctions.add(function.getNative());
+    }
+
+    final Map<IBlockContainer<INaviInstruction>,
+        com.google.security.zynamics.reil.ReilFunction> translatedFunctions;
+
+    try {
+      translatedFunctions = m_moduleTranslator.translate(nativeFunctions);
+    } catch (final com.google.security.zynamics.reil.translators.InternalTranslationException e) {
+      throw new InternalTranslationException(e, findInstruction(functions, e.getInstruction()));
+    }
+
+    final Map<Function, ReilFunction> result = new LinkedHashMap<Function, ReilFunction>();
+
+    for (final Function function : functions) {
+      result.put(function, new ReilFunction(translatedFunctions.get(function.getNative())));
+    }
+
+    return result;
+  }
+
   // ! Translates a view to REIL code.
   /**
    * Translates a complete view to REIL code.
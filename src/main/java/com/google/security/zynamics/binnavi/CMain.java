@@ -72,9 +72,19 @@ public final class CMain {
     final CDatabaseManager manager = CDatabaseManager.instance();
 
     for (final DatabaseConfigItem database : ConfigManager.instance().getDatabases()) {
-      manager.addDatabase(new CDatabase(database.getDescription(), database.getDriver(),
+      final CDatabase newDatabase = new CDatabase(database.getDescription(), database.getDriver(),
           database.getHost(), database.getName(), database.getUser(), database.getPassword(),
-          database.getIdentity(), database.isSavePassword(), database.isAutoConnect()));
+          database.getIdentity(), database.isSavePassword(), database.isAutoConnect());
+
+      if (database.getConnectionPoolSize() > 0) {
+        newDatabase.getConfiguration().setConnectionPoolSize(database.getConnectionPoolSize());
+      }
+
+      if (database.getCacheSize() > 0) {
+        newDatabase.getConfiguration().setCacheSize(database.getCacheSize());
+      }
+
+      manager.addDatabase(newDatabase);
     }
   }
 
@@ -112,6 +112,7 @@ import java.io.InputStreamReader;
 import java.math.BigInteger;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -231,6 +232,35 @@ public abstract class AbstractSQLProvider implements SQLProvider {
     return contents.toString();
   }
 
+  /**
+   * Leases a pooled connection to the current thread for a load that can run concurrently with
+   * loads of other threads. The load must take its connections from {@link #getConnection()} after
+   * the lease was taken and must not use them once the lease is closed. Leases are reentrant, so
+   * loads that already run on a leased connection keep using it.
+   *
+   * @return The lease or null if the load has to run on the primary connection.
+   *
+   * @throws CouldntLoadDataException Thrown if the thread was interrupted while waiting for a
+   *         pooled connection.
+   */
+  private CConnectionPool.Lease leaseConnection() throws CouldntLoadDataException {
+    if (connection.getPool() == null) {
+      return null;
+    }
+
+    try {
+      return connection.lease();
+    } catch (final SQLException exception) {
+      CUtilityFunctions.logException(exception);
+
+      return null;
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+
+      throw new CouldntLoadDataException(exception);
+    }
+  }
+
   /**
    * Parses a resource as SQL file and returns the contents in a string.
    *
@@ -829,39 +859,51 @@ public abstract class AbstractSQLProvider implements SQLProvider {
 
   @Override
   public IFilledList<TraceList> loadTraces(final CModule module) throws CouldntLoadDataException {
-    return PostgreSQLTracesLoader.loadTraces(this, CTableNames.MODULE_TRACES_TABLE, "module_id",
-        module.getConfiguration().getId(), getModules());
+    try (CConnectionPool.Lease lease = leaseConnection()) {
+      return PostgreSQLTracesLoader.loadTraces(this, CTableNames.MODULE_TRACES_TABLE, "module_id",
+          module.getConfiguration().getId(), getModules());
+    }
   }
 
   @Override
   public IFilledList<TraceList> loadTraces(final CProject project)
       throws CouldntLoadDataException {
-    return PostgreSQLTracesLoader.loadTraces(this, CTableNames.PROJECT_TRACES_TABLE, "project_id",
-        project.getConfiguration().getId(), getModules());
+    try (CConnectionPool.Lease lease = leaseConnection()) {
+      return PostgreSQLTracesLoader.loadTraces(this, CTableNames.PROJECT_TRACES_TABLE,
+          "project_id", project.getConfiguration().getId(), getModules());
+    }
   }
 
   @Override
   public List<RawTypeInstance> loadTypeInstances(final INaviModule module)
       throws CouldntLoadDataException {
-    return PostgreSQLTypeFunctions.loadRawTypeInstances(getConnection().getConnection(), module);
+    try (CConnectionPool.Lease lease = leaseConnection()) {
+      return PostgreSQLTypeFunctions.loadRawTypeInstances(getConnection().getConnection(), module);
+    }
   }
 
   @Override
   public List<RawTypeMember> loadTypeMembers(final INaviModule module)
       throws CouldntLoadDataException {
-    return PostgreSQLTypeFunctions.loadRawTypeMembers(getConnection().getConnection(), module);
+    try (CConnectionPool.Lease lease = leaseConnection()) {
+      return PostgreSQLTypeFunctions.loadRawTypeMembers(getConnection().getConnection(), module);
+    }
   }
 
   @Override
   public List<RawBaseType> loadTypes(final INaviModule module) throws CouldntLoadDataException {
-    return PostgreSQLTypeFunctions.loadRawTypes(getConnection().getConnection(), module);
+    try (CConnectionPool.Lease lease = leaseConnection()) {
+      return PostgreSQLTypeFunctions.loadRawTypes(getConnection().getConnection(), module);
+    }
   }
 
   @Override
   public List<RawTypeSubstitution> loadTypeSubstitutions(final INaviModule module)
       throws CouldntLoadDataException {
-    return PostgreSQLTypeFunctions.loadRawTypeSubstitutions(getConnection().getConnection(),
-        module);
+    try (CConnectionPool.Lease lease = leaseConnection()) {
+      return PostgreSQLTypeFunctions.loadRawTypeSubstitutions(getConnection().getConnection(),
+          module);
+    }
   }
 
   @Override
@@ -870,6 +912,13 @@ public abstract class AbstractSQLProvider implements SQLProvider {
     return PostgreSQLViewLoader.loadView(this, view, getModules(), nodeTagManager);
   }
 
+  @Override
+  public Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> loadViews(
+      final Collection<? extends INaviView> views)
+      throws CouldntLoadDataException, CPartialLoadException {
+    return PostgreSQLViewLoader.loadViews(this, views, getModules(), nodeTagManager);
+  }
+
   @Override
   public ImmutableBiMap<INaviView, INaviFunction> loadViewFunctionMapping(
       final List<IFlowgraphView> flowgraphs, final List<INaviFunction> functions,
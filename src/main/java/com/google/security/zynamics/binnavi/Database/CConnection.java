@@ -23,6 +23,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.GregorianCalendar;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.base.Preconditions;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDriverException;
@@ -33,6 +34,10 @@ import com.google.security.zynamics.binnavi.Resources.Constants;
 /**
  * wrapper class for database connections. The idea is to use this class to log and count SQL
  * queries in order to look for inefficiencies and slow queries
+ *
+ * Threads that want to run loads concurrently with other threads lease a connection from the
+ * connection pool (see {@link #lease()}). All queries issued by a thread that holds a lease run on
+ * the leased connection, all other queries run on the primary connection.
  */
 public final class CConnection {
   /**
@@ -60,10 +65,15 @@ public final class CConnection {
    */
   private Connection m_connection;
 
+  /**
+   * Pool of additional connections used by concurrent loads.
+   */
+  private CConnectionPool m_pool;
+
   /**
    * Counts queries for debug output.
    */
-  private long m_debugQueryCount = 0;
+  private final AtomicLong m_debugQueryCount = new AtomicLong();
 
   /**
    * Creates a new connection object.
@@ -98,6 +108,7 @@ public final class CConnection {
 
     testDriver();
     connect(url, m_properties);
+    m_pool = new CConnectionPool(url, m_properties, databaseConfiguration.getConnectionPoolSize());
   }
 
   /**
@@ -110,7 +121,7 @@ public final class CConnection {
    */
   private void connect(final String databaseUrl, final Properties properties) throws SQLException {
     if (m_connection != null) {
-      closeConnection();
+      closePrimaryConnection();
     }
     try {
       m_connection = DriverManager.getConnection(databaseUrl, properties);
@@ -122,19 +133,6 @@ public final class CConnection {
     }
   }
 
-  /**
-   * Function builds the database URL.
-   * 
-   * @param baseUrl The base URL used to construct the URL.
-   * @param databaseName The database name.
-   * 
-   * @return The database URL.
-   */
-  private String getDatabaseUrl(final String baseUrl, final String databaseName) {
-    return baseUrl.endsWith("/") ? String.format("%s%s", baseUrl, databaseName) : String.format(
-        "%s/%s", baseUrl, databaseName);
-  }
-
   /**
    * This function tests whether the specified database driver in the configuration is available or
    * not.
@@ -150,10 +148,44 @@ public final class CConnection {
     }
   }
 
+  /**
+   * Returns the connection queries of the current thread are executed on. The result depends on
+   * the leases of the current thread, so it must be looked up again for every query.
+   * 
+   * @return The leased connection of the current thread or the primary connection.
+   */
+  private Connection getCurrentConnection() {
+    final Connection leased = m_pool == null ? null : m_pool.getLeasedConnection();
+    return leased == null ? m_connection : leased;
+  }
+
+  /**
+   * Re-establishes the connection queries of the current thread are executed on.
+   * 
+   * @throws SQLException Thrown if the connection could not be established.
+   */
+  private void reconnect() throws SQLException {
+    if ((m_pool != null) && (m_pool.getLeasedConnection() != null)) {
+      m_pool.reconnect();
+    } else {
+      connect(getURL(), m_properties);
+    }
+  }
+
   /**
    * Closes the connection to the database.
    */
   public void closeConnection() {
+    if (m_pool != null) {
+      m_pool.close();
+    }
+    closePrimaryConnection();
+  }
+
+  /**
+   * Closes the primary connection to the database.
+   */
+  private void closePrimaryConnection() {
     try {
       if (m_connection != null) {
         m_connection.close();
@@ -177,10 +209,10 @@ public final class CConnection {
    */
   public ResultSet executeQuery(final String query, final boolean retry) throws SQLException {
     if (!isConnectionValid()) {
-      connect(getURL(), m_properties);
+      reconnect();
     }
 
-    m_debugQueryCount++;
+    final long queryNumber = m_debugQueryCount.incrementAndGet();
 
     long militime = 0;
     if (m_performanceOutput) {
@@ -190,14 +222,14 @@ public final class CConnection {
     ResultSet retSet = null;
 
     final PreparedStatement prep =
-        m_connection.prepareStatement(query, ResultSet.TYPE_SCROLL_INSENSITIVE,
+        getCurrentConnection().prepareStatement(query, ResultSet.TYPE_SCROLL_INSENSITIVE,
             ResultSet.CONCUR_READ_ONLY);
 
     try {
       retSet = prep.executeQuery();
     } catch (final SQLException error) {
       if (m_performanceOutput) {
-        NaviLogger.severe(String.format("<%d>    <%d ms>    %s", m_debugQueryCount,
+        NaviLogger.severe(String.format("<%d>    <%d ms>    %s", queryNumber,
             Math.abs(militime), query));
         NaviLogger.severe("Error: Query failed on %s try: %s", retry ? "first" : "second", query);
       }
@@ -205,9 +237,7 @@ public final class CConnection {
       if (((error.getSQLState() == PostgreSQLErrorCodes.CONNECTION_DOES_NOT_EXIST) || (error
           .getSQLState() == PostgreSQLErrorCodes.CONNECTION_FAILURE)) && retry) {
         // here we want to reconnect and try again once.
-        connect(
-            getDatabaseUrl(m_databaseConfiguration.getUrl(), m_databaseConfiguration.getName()),
-            m_properties);
+        reconnect();
         executeQuery(query, false);
       } else {
         throw error;
@@ -216,7 +246,7 @@ public final class CConnection {
 
     if (m_performanceOutput) {
       militime -= new GregorianCalendar().getTimeInMillis();
-      NaviLogger.info("<%d>    <%d ms>    %s", m_debugQueryCount, Math.abs(militime),
+      NaviLogger.info("<%d>    <%d ms>    %s", queryNumber, Math.abs(militime),
           query.substring(0, Math.min(MAXIMUM_OUTPUT_SIZE, query.length())));
     }
 
@@ -234,7 +264,7 @@ public final class CConnection {
    * @throws SQLException Thrown if the query could not be executed.
    */
   public int executeUpdate(final String query, final boolean retry) throws SQLException {
-    m_debugQueryCount++;
+    final long queryNumber = m_debugQueryCount.incrementAndGet();
 
     long militime = 0;
     if (m_performanceOutput) {
@@ -243,19 +273,17 @@ public final class CConnection {
 
     int result = 0;
 
-    try (PreparedStatement prep = m_connection.prepareStatement(query)) {
+    try (PreparedStatement prep = getCurrentConnection().prepareStatement(query)) {
       result = prep.executeUpdate();
     } catch (final SQLException error) {
       if (m_performanceOutput) {
-        NaviLogger.severe("<%d>    <%d ms>    %s", m_debugQueryCount, Math.abs(militime), query);
+        NaviLogger.severe("<%d>    <%d ms>    %s", queryNumber, Math.abs(militime), query);
         NaviLogger.severe("Error: Query failed on %s try: %s", retry ? "first" : "second", query);
       }
 
       if ((error.getSQLState() == PostgreSQLErrorCodes.CONNECTION_DOES_NOT_EXIST) && retry) {
         // here we want to reconnect and try again once.
-        connect(
-            getDatabaseUrl(m_databaseConfiguration.getUrl(), m_databaseConfiguration.getName()),
-            m_properties);
+        reconnect();
         executeUpdate(query, false);
       } else {
         throw error;
@@ -264,7 +292,7 @@ public final class CConnection {
 
     if (m_performanceOutput) {
       militime -= new GregorianCalendar().getTimeInMillis();
-      NaviLogger.info("<%d>    <%d ms>    %s", m_debugQueryCount, Math.abs(militime),
+      NaviLogger.info("<%d>    <%d ms>    %s", queryNumber, Math.abs(militime),
           query.substring(0, Math.min(MAXIMUM_OUTPUT_SIZE, query.length())));
     }
 
@@ -272,12 +300,27 @@ public final class CConnection {
   }
 
   /**
-   * Returns the connection to the SQL database.
+   * Returns the connection to the SQL database. For threads that hold a lease this is the leased
+   * connection.
+   * 
+   * Once the lease is closed, the pool hands the connection to other threads. Callers must
+   * therefore not keep the returned connection, or statements and result sets created from it,
+   * past the lease that was active when it was returned. Call this method again for every load or
+   * save instead of storing the result in a field.
    * 
    * @return The connection to the SQL database.
    */
   public Connection getConnection() {
-    return m_connection;
+    return getCurrentConnection();
+  }
+
+  /**
+   * Returns the pool of additional connections.
+   * 
+   * @return The connection pool.
+   */
+  public CConnectionPool getPool() {
+    return m_pool;
   }
 
   /**
@@ -289,11 +332,26 @@ public final class CConnection {
     return m_databaseConfiguration.getUrl();
   }
 
+  /**
+   * Leases a pooled connection to the current thread. Until the lease is closed, all queries of
+   * the current thread run on the leased connection.
+   * 
+   * @return The lease which must be closed once the work of the thread is done.
+   * 
+   * @throws SQLException Thrown if a new connection could not be established.
+   * @throws InterruptedException Thrown if the thread was interrupted while waiting for a free
+   *         connection.
+   */
+  public CConnectionPool.Lease lease() throws SQLException, InterruptedException {
+    return m_pool.lease();
+  }
+
   public boolean isConnectionValid() {
-    if (m_connection == null) {
+    final Connection connection = getCurrentConnection();
+    if (connection == null) {
       return false;
     }
-    try (Statement statement = m_connection.createStatement()) {
+    try (Statement statement = connection.createStatement()) {
       // do something about the timeout.
         statement.execute("SELECT 1;");
       return true;
@@ -0,0 +1,581 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.binnavi.Log.NaviLogger;
+
+/**
+ * Pool of additional database connections that allows independent loads (views, traces, types,
+ * ...) to run concurrently on separate connections.
+ *
+ * Connections are leased to threads. While a thread holds a lease, every query it issues through
+ * its {@link CConnection} runs on the leased connection. A connection whose auto commit flag is
+ * false when the last lease is closed stays pinned to its thread so that the transaction can be
+ * finished on the connection that started it.
+ *
+ * Looking up the connection of the current thread happens on every query and does not take the
+ * pool lock. The lock only guards the bookkeeping; connecting, validating, rolling back and closing
+ * connections happen outside of it.
+ */
+public final class CConnectionPool {
+  /**
+   * Default number of pooled connections.
+   */
+  public static final int DEFAULT_SIZE = 4;
+
+  /**
+   * Idle connections that were not used for this long are validated before they are leased.
+   */
+  private static final long HEALTH_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+  /**
+   * Timeout in seconds used when validating a connection.
+   */
+  private static final int HEALTH_CHECK_TIMEOUT = 5;
+
+  /**
+   * Database URL used to open new connections.
+   */
+  private final String m_url;
+
+  /**
+   * Properties used to open new connections.
+   */
+  private final Properties m_properties;
+
+  /**
+   * Maximum number of connections managed by the pool.
+   */
+  private final int m_size;
+
+  /**
+   * Connections that are currently not leased to any thread.
+   */
+  private final Deque<PooledConnection> m_idle = new ArrayDeque<>();
+
+  /**
+   * Connections that are currently leased to or pinned to a thread. The map is only modified with
+   * the pool lock held but can be read without it.
+   */
+  private final Map<Thread, PooledConnection> m_leased = new ConcurrentHashMap<>();
+
+  /**
+   * Number of connections opened by the pool and not yet closed, including the slots reserved for
+   * connections that are currently being opened.
+   */
+  private int m_openConnections = 0;
+
+  /**
+   * Flag that says whether the pool was closed.
+   */
+  private boolean m_closed = false;
+
+  /**
+   * Creates a new connection pool.
+   *
+   * @param url Database URL used to open new connections.
+   * @param properties Properties used to open new connections.
+   * @param size Maximum number of connections managed by the pool.
+   */
+  public CConnectionPool(final String url, final Properties properties, final int size) {
+    m_url = Preconditions.checkNotNull(url, "IE03419: url argument can not be null");
+    m_properties =
+        Preconditions.checkNotNull(properties, "IE03420: properties argument can not be null");
+    Preconditions.checkArgument(size > 0, "IE03421: size argument must be positive");
+    m_size = size;
+  }
+
+  /**
+   * Forgets connections that are pinned to threads which have died or which are no longer used by
+   * their thread. Must be called with the pool lock held.
+   *
+   * @param abandoned Connections of dead threads are stored here. They may still be inside a
+   *        transaction and must be rolled back before they are put back into the idle list.
+   */
+  private void reclaimLeases(final List<PooledConnection> abandoned) {
+    final Iterator<Map.Entry<Thread, PooledConnection>> iterator = m_leased.entrySet().iterator();
+
+    while (iterator.hasNext()) {
+      final Map.Entry<Thread, PooledConnection> entry = iterator.next();
+      final PooledConnection pooled = entry.getValue();
+
+      if (!entry.getKey().isAlive()) {
+        iterator.remove();
+        abandoned.add(pooled);
+      } else if ((pooled.depth == 0) && isAutoCommit(pooled.connection)) {
+        iterator.remove();
+        returnToIdle(pooled);
+      }
+    }
+  }
+
+  /**
+   * Closes a connection without propagating errors.
+   *
+   * @param connection The connection to close.
+   */
+  private static void closeQuietly(final Connection connection) {
+    try {
+      connection.close();
+    } catch (final SQLException exception) {
+      NaviLogger.warning("Error: Closing a pooled database connection failed: %s", exception);
+    }
+  }
+
+  /**
+   * Closes connections without propagating errors.
+   *
+   * @param connections The connections to close.
+   */
+  private static void closeQuietly(final List<PooledConnection> connections) {
+    for (final PooledConnection pooled : connections) {
+      closeQuietly(pooled.connection);
+    }
+  }
+
+  /**
+   * Returns whether a connection is in auto commit mode. Broken connections are treated as not
+   * being inside a transaction.
+   *
+   * @param connection The connection to check.
+   *
+   * @return True, if the connection is in auto commit mode.
+   */
+  private static boolean isAutoCommit(final Connection connection) {
+    try {
+      return connection.getAutoCommit();
+    } catch (final SQLException exception) {
+      return true;
+    }
+  }
+
+  /**
+   * Rolls back an unfinished transaction of a connection whose owner thread is gone.
+   *
+   * @param connection The connection to roll back.
+   */
+  private static void rollbackQuietly(final Connection connection) {
+    try {
+      if (!connection.isClosed() && !connection.getAutoCommit()) {
+        connection.rollback();
+        connection.setAutoCommit(true);
+      }
+    } catch (final SQLException exception) {
+      NaviLogger.warning("Error: Rolling back an abandoned pooled connection failed: %s",
+          exception);
+    }
+  }
+
+  /**
+   * Returns whether a connection can still be used.
+   *
+   * @param connection The connection to check.
+   *
+   * @return True, if the connection is usable.
+   */
+  private static boolean isValid(final Connection connection) {
+    try {
+      return connection.isValid(HEALTH_CHECK_TIMEOUT);
+    } catch (final SQLException exception) {
+      return false;
+    }
+  }
+
+  /**
+   * Puts a connection back into the idle list. Must be called with the pool lock held.
+   *
+   * @param pooled The connection to put back.
+   *
+   * @return True, if the pool was closed and the caller must close the connection once it released
+   *         the pool lock.
+   */
+  private boolean returnToIdle(final PooledConnection pooled) {
+    pooled.depth = 0;
+    pooled.lastUsed = System.currentTimeMillis();
+
+    if (m_closed) {
+      m_openConnections--;
+      return true;
+    }
+
+    m_idle.push(pooled);
+    notifyAll();
+    return false;
+  }
+
+  /**
+   * Gives up a connection slot whose connection was discarded or could not be opened. Must be
+   * called with the pool lock held.
+   */
+  private void releaseSlot() {
+    m_openConnections--;
+    notifyAll();
+  }
+
+  /**
+   * Rolls back the connections of dead threads and puts them back into the idle list. Must be
+   * called without the pool lock held.
+   *
+   * @param abandoned The connections to recycle.
+   */
+  private void recycle(final List<PooledConnection> abandoned) {
+    if (abandoned.isEmpty()) {
+      return;
+    }
+
+    for (final PooledConnection pooled : abandoned) {
+      rollbackQuietly(pooled.connection);
+    }
+
+    final List<PooledConnection> toClose = new ArrayList<>();
+
+    synchronized (this) {
+      for (final PooledConnection pooled : abandoned) {
+        if (returnToIdle(pooled)) {
+          toClose.add(pooled);
+        }
+      }
+    }
+
+    closeQuietly(toClose);
+  }
+
+  /**
+   * Validates all idle connections and closes the ones that are no longer usable.
+   *
+   * @return The number of discarded connections.
+   */
+  public int checkHealth() {
+    final List<PooledConnection> candidates;
+
+    synchronized (this) {
+      candidates = new ArrayList<>(m_idle);
+    }
+
+    final List<PooledConnection> invalid = new ArrayList<>();
+
+    for (final PooledConnection pooled : candidates) {
+      if (!isValid(pooled.connection)) {
+        invalid.add(pooled);
+      }
+    }
+
+    final List<PooledConnection> discarded = new ArrayList<>();
+
+    synchronized (this) {
+      for (final PooledConnection pooled : invalid) {
+        // Connections leased in the meantime are validated by the lease when they are stale.
+        if (m_idle.remove(pooled)) {
+          releaseSlot();
+          discarded.add(pooled);
+        }
+      }
+    }
+
+    closeQuietly(discarded);
+
+    return discarded.size();
+  }
+
+  /**
+   * Closes all connections of the pool. Leased connections are closed when their lease ends.
+   */
+  public void close() {
+    final List<PooledConnection> toClose = new ArrayList<>();
+
+    synchronized (this) {
+      m_closed = true;
+
+      toClose.addAll(m_idle);
+      m_openConnections -= m_idle.size();
+      m_idle.clear();
+
+      final Iterator<PooledConnection> iterator = m_leased.values().iterator();
+
+      while (iterator.hasNext()) {
+        final PooledConnection pooled = iterator.next();
+
+        if (pooled.depth == 0) {
+          iterator.remove();
+          toClose.add(pooled);
+          m_openConnections--;
+        }
+      }
+
+      notifyAll();
+    }
+
+    closeQuietly(toClose);
+  }
+
+  /**
+   * Returns the connection leased to or pinned to the current thread. This does not take the pool
+   * lock because it is called for every query.
+   *
+   * @return The connection of the current thread or null if the thread does not hold one.
+   */
+  public Connection getLeasedConnection() {
+    final PooledConnection pooled = m_leased.get(Thread.currentThread());
+    return pooled == null ? null : pooled.connection;
+  }
+
+  /**
+   * Returns the number of connections currently leased to or pinned to threads.
+   *
+   * @return The number of leased connections.
+   */
+  public synchronized int getLeasedCount() {
+    return m_leased.size();
+  }
+
+  /**
+   * Returns the number of idle connections.
+   *
+   * @return The number of idle connections.
+   */
+  public synchronized int getIdleCount() {
+    return m_idle.size();
+  }
+
+  /**
+   * Returns the maximum number of connections managed by the pool.
+   *
+   * @return The maximum number of connections.
+   */
+  public int getSize() {
+    return m_size;
+  }
+
+  /**
+   * Replaces the connection of the current thread with a new one. This is used when the leased
+   * connection broke down.
+   *
+   * @return The new connection of the current thread.
+   *
+   * @throws SQLException Thrown if the new connection could not be established.
+   */
+  public Connection reconnect() throws SQLException {
+    // Only the owner thread replaces its connection, so no lock is needed.
+    final PooledConnection pooled = m_leased.get(Thread.currentThread());
+    Preconditions.checkState(pooled != null, "IE03422: Current thread does not hold a lease");
+
+    closeQuietly(pooled.connection);
+    pooled.connection = DriverManager.getConnection(m_url, m_properties);
+    return pooled.connection;
+  }
+
+  /**
+   * Leases a connection to the current thread. Leases are reentrant; a thread that already holds a
+   * connection gets the same connection again. If all connections are in use, the call blocks until
+   * a connection becomes available.
+   *
+   * @return The lease which must be closed once the work of the thread is done.
+   *
+   * @throws SQLException Thrown if a new connection could not be established.
+   * @throws InterruptedException Thrown if the thread was interrupted while waiting.
+   */
+  public Lease lease() throws SQLException, InterruptedException {
+    final Thread thread = Thread.currentThread();
+
+    while (true) {
+      final List<PooledConnection> abandoned = new ArrayList<>();
+      PooledConnection pooled;
+
+      // Reserve an idle connection or a slot for a new one under the lock ...
+      synchronized (this) {
+        Preconditions.checkState(!m_closed, "IE03423: Connection pool was closed");
+
+        pooled = m_leased.get(thread);
+
+        if (pooled != null) {
+          pooled.depth++;
+          return new Lease(pooled);
+        }
+
+        pooled = m_idle.poll();
+
+        if (pooled == null) {
+          reclaimLeases(abandoned);
+          pooled = m_idle.poll();
+        }
+
+        if ((pooled == null) && abandoned.isEmpty()) {
+          if (m_openConnections >= m_size) {
+            wait(HEALTH_CHECK_INTERVAL);
+            Preconditions.checkState(!m_closed, "IE03424: Connection pool was closed");
+            continue;
+          }
+
+          m_openConnections++;
+        }
+      }
+
+      // ... and connect, validate or roll back outside of it.
+      recycle(abandoned);
+
+      if (pooled == null) {
+        if (!abandoned.isEmpty()) {
+          continue;
+        }
+
+        try {
+          pooled = new PooledConnection(DriverManager.getConnection(m_url, m_properties));
+        } catch (final SQLException exception) {
+          synchronized (this) {
+            releaseSlot();
+          }
+
+          throw exception;
+        }
+      } else if ((System.currentTimeMillis() - pooled.lastUsed >= HEALTH_CHECK_INTERVAL)
+          && !isValid(pooled.connection)) {
+        NaviLogger.info("Discarding a pooled database connection that failed its health check");
+        closeQuietly(pooled.connection);
+
+        synchronized (this) {
+          releaseSlot();
+        }
+
+        continue;
+      }
+
+      synchronized (this) {
+        if (!m_closed) {
+          pooled.depth = 1;
+          m_leased.put(thread, pooled);
+          return new Lease(pooled);
+        }
+
+        m_openConnections--;
+      }
+
+      closeQuietly(pooled.connection);
+      throw new IllegalStateException("IE03498: Connection pool was closed");
+    }
+  }
+
+  /**
+   * Ends one lease of a connection.
+   *
+   * @param pooled The leased connection.
+   */
+  private void release(final PooledConnection pooled) {
+    // Only the owner thread changes the auto commit flag of its connection.
+    final boolean autoCommit = isAutoCommit(pooled.connection);
+    boolean close = false;
+
+    synchronized (this) {
+      pooled.depth--;
+
+      if ((pooled.depth > 0) || !autoCommit) {
+        // Nested lease or open transaction: the connection stays with its thread.
+        return;
+      }
+
+      m_leased.values().remove(pooled);
+      close = returnToIdle(pooled);
+    }
+
+    if (close) {
+      closeQuietly(pooled.connection);
+    }
+  }
+
+  /**
+   * Lease of a pooled connection. Closing the lease hands the connection back to the pool.
+   */
+  public final class Lease implements AutoCloseable {
+    /**
+     * The leased connection.
+     */
+    private final PooledConnection m_pooled;
+
+    /**
+     * Flag that says whether the lease was already closed.
+     */
+    private boolean m_released = false;
+
+    /**
+     * Creates a new lease.
+     *
+     * @param pooled The leased connection.
+     */
+    private Lease(final PooledConnection pooled) {
+      m_pooled = pooled;
+    }
+
+    @Override
+    public void close() {
+      if (!m_released) {
+        m_released = true;
+        release(m_pooled);
+      }
+    }
+
+    /**
+     * Returns the leased connection.
+     *
+     * @return The leased connection.
+     */
+    public Connection getConnection() {
+      return m_pooled.connection;
+    }
+  }
+
+  /**
+   * Connection managed by the pool.
+   */
+  private static final class PooledConnection {
+    /**
+     * The wrapped connection. Only replaced by the owner thread, but read by other threads through
+     * the pool bookkeeping.
+     */
+    private volatile Connection connection;
+
+    /**
+     * Number of open leases of the current owner thread.
+     */
+    private int depth = 0;
+
+    /**
+     * Time of the last lease release.
+     */
+    private long lastUsed = System.currentTimeMillis();
+
+    /**
+     * Creates a new pooled connection.
+     *
+     * @param connection The wrapped connection.
+     */
+    private PooledConnection(final Connection connection) {
+      this.connection = connection;
+    }
+  }
+}
@@ -34,6 +34,10 @@ import com.google.security.zynamics.binnavi.Database.Interfaces.IDatabaseLoadPro
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Notifications.NotificationChannel;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Notifications.PostgreSQLNotificationProvider;
+import com.google.security.zynamics.binnavi.Database.cache.CacheStatistics;
+import com.google.security.zynamics.binnavi.Database.cache.EdgeCache;
+import com.google.security.zynamics.binnavi.Database.cache.InstructionCache;
+import com.google.security.zynamics.binnavi.Database.cache.NodeCache;
 import com.google.security.zynamics.binnavi.Gui.Users.CUserManager;
 import com.google.security.zynamics.binnavi.Log.NaviLogger;
 import com.google.security.zynamics.binnavi.Resources.Constants;
@@ -54,6 +58,7 @@ import com.google.security.zynamics.zylib.types.trees.TreeNode;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -336,6 +341,21 @@ public final class CDatabase implements IDatabase, IDatabaseObject {
     return provider.executeQuery(query);
   }
 
+  @Override
+  public List<CacheStatistics> getCacheStatistics() {
+    final List<CacheStatistics> statistics = new ArrayList<CacheStatistics>();
+
+    if (provider == null) {
+      return statistics;
+    }
+
+    statistics.addAll(InstructionCache.get(provider).getStatistics());
+    statistics.addAll(NodeCache.get(provider).getStatistics());
+    statistics.addAll(EdgeCache.get(provider).getStatistics());
+
+    return statistics;
+  }
+
   @Override
   public CDatabaseConfiguration getConfiguration() {
     return description;
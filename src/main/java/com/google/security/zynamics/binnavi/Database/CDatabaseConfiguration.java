@@ -20,6 +20,7 @@ import com.google.common.base.Preconditions;
 import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.Database.Interfaces.IDatabase;
 import com.google.security.zynamics.binnavi.Database.Interfaces.IDatabaseListener;
+import com.google.security.zynamics.binnavi.Database.cache.CacheSettings;
 import com.google.security.zynamics.zylib.general.ListenerProvider;
 
 /**
@@ -79,6 +80,16 @@ public final class CDatabaseConfiguration {
    */
   private boolean m_savePassword;
 
+  /**
+   * Maximum number of pooled connections used for concurrent loads.
+   */
+  private int m_connectionPoolSize = CConnectionPool.DEFAULT_SIZE;
+
+  /**
+   * Memory budget of the node and edge address indexes in megabytes.
+   */
+  private int m_cacheSize = CacheSettings.DEFAULT_CACHE_SIZE;
+
   /**
    * Creates a new configuration object.
    * 
@@ -119,6 +130,24 @@ public final class CDatabaseConfiguration {
     m_savePassword = savePassword;
   }
 
+  /**
+   * Returns the memory budget of the node and edge address indexes.
+   * 
+   * @return The cache memory budget in megabytes.
+   */
+  public int getCacheSize() {
+    return m_cacheSize;
+  }
+
+  /**
+   * Returns the maximum number of pooled connections used for concurrent loads.
+   * 
+   * @return The connection pool size.
+   */
+  public int getConnectionPoolSize() {
+    return m_connectionPoolSize;
+  }
+
   /**
    * Returns the description string of the database.
    * 
@@ -201,6 +230,29 @@ public final class CDatabaseConfiguration {
     return m_savePassword;
   }
 
+  /**
+   * Changes the memory budget of the node and edge address indexes. The new value is used the
+   * next time a connection to the database is established.
+   * 
+   * @param cacheSize The new cache memory budget in megabytes.
+   */
+  public void setCacheSize(final int cacheSize) {
+    Preconditions.checkArgument(cacheSize > 0, "IE03431: cacheSize argument must be positive");
+    m_cacheSize = cacheSize;
+  }
+
+  /**
+   * Changes the maximum number of pooled connections. The new value is used the next time a
+   * connection to the database is established.
+   * 
+   * @param connectionPoolSize The new connection pool size.
+   */
+  public void setConnectionPoolSize(final int connectionPoolSize) {
+    Preconditions.checkArgument(connectionPoolSize > 0,
+        "IE03425: connectionPoolSize argument must be positive");
+    m_connectionPoolSize = connectionPoolSize;
+  }
+
   /**
    * Changes the flag that says whether to automatically connect to this database or not.
    * 
@@ -24,6 +24,7 @@ import com.google.security.zynamics.binnavi.Database.Exceptions.InvalidExporterD
 import com.google.security.zynamics.binnavi.Database.Exceptions.LoadCancelledException;
 import com.google.security.zynamics.binnavi.Database.Interfaces.IDatabaseLoadProgressReporter;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
+import com.google.security.zynamics.binnavi.Database.cache.CacheSettings;
 import com.google.security.zynamics.binnavi.Resources.Constants;
 import com.google.security.zynamics.zylib.general.Pair;
 
@@ -66,6 +67,7 @@ public final class CDatabaseConnection {
 
       final CConnection connection = new CConnection(m_databaseConfiguration);
       final AbstractSQLProvider sql = new PostgreSQLProvider(connection);
+      CacheSettings.setCacheSize(sql, m_databaseConfiguration.getCacheSize());
 
       reportProgress(reporter, LoadEvents.CHECKING_EXPORTER_TABLE_FORMAT);
 
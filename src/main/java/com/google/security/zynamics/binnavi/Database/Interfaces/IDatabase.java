@@ -25,10 +25,12 @@ import com.google.security.zynamics.binnavi.Database.Exceptions.InvalidDatabaseE
 import com.google.security.zynamics.binnavi.Database.Exceptions.InvalidDatabaseVersionException;
 import com.google.security.zynamics.binnavi.Database.Exceptions.InvalidExporterDatabaseFormatException;
 import com.google.security.zynamics.binnavi.Database.Exceptions.LoadCancelledException;
+import com.google.security.zynamics.binnavi.Database.cache.CacheStatistics;
 import com.google.security.zynamics.binnavi.disassembly.IDatabaseObject;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Interface for all database objects.
@@ -83,6 +85,13 @@ public interface IDatabase extends IDatabaseObject {
    */
   ResultSet executeQuery(String query) throws SQLException;
 
+  /**
+   * Returns the usage statistics of the instruction, node and edge caches of the database.
+   * 
+   * @return The cache statistics. The list is empty if the database is not connected.
+   */
+  List<CacheStatistics> getCacheStatistics();
+
   /**
    * Returns the database configuration object.
    * 
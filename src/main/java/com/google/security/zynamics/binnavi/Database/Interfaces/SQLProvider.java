@@ -1638,6 +1638,22 @@ public interface SQLProvider extends AddressSpaceConfigurationBackend, AddressSp
   MutableDirectedGraph<INaviViewNode, INaviEdge> loadView(INaviView view)
       throws CouldntLoadDataException, CPartialLoadException;
 
+  /**
+   * Loads the graphs of several views from the database with set-based queries. This is much
+   * cheaper than loading the views one by one when many views are loaded at once.
+   *
+   * @param views The views to load.
+   *
+   * @return Maps the views to their graphs, in the order of the views argument.
+   *
+   * @throws CouldntLoadDataException Thrown if the graphs of the views could not be loaded.
+   * @throws CPartialLoadException Thrown if the graphs could not be loaded because not all required
+   *         modules are loaded.
+   */
+  Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> loadViews(
+      Collection<? extends INaviView> views)
+      throws CouldntLoadDataException, CPartialLoadException;
+
   /**
    * Loads the view -> function mapping from the database.
    *
@@ -1766,6 +1782,18 @@ public interface SQLProvider extends AddressSpaceConfigurationBackend, AddressSp
    */
   void saveData(INaviModule module, byte[] data) throws CouldntSaveDataException;
 
+  /**
+   * Saves a range of events of a trace to the database. This is used to write the events of a trace
+   * while the trace is still being recorded.
+   *
+   * @param trace The trace whose events are saved.
+   * @param from Index of the first event to save.
+   * @param to Index after the last event to save.
+   *
+   * @throws CouldntSaveDataException Thrown if the events could not be saved to the database.
+   */
+  void saveEvents(TraceList trace, int from, int to) throws CouldntSaveDataException;
+
   /**
    * Stores the settings map of a view to the database.
    *
@@ -561,6 +561,8 @@ public final class CCodeNodeParser {
     // At the beginning of the parsing process, the data provider
     // is set to before the data set. The parser needs to tell
     // it to point to the proper data.
+    final long start = System.nanoTime();
+
     if (!dataProvider.next()) {
       return new ArrayList<CCodeNode>();
     }
@@ -578,6 +580,8 @@ public final class CCodeNodeParser {
       nodes.add(extractNode(dataProvider));
     }
 
+    InstructionCache.get(sqlProvider).recordLoad(System.nanoTime() - start);
+
     final HashSet<Integer> allComments = Sets.newHashSet();
     allComments.addAll(localCommentIdToCodeNode.keySet());
     allComments.addAll(globalCommentIdToCodeNode.keySet());
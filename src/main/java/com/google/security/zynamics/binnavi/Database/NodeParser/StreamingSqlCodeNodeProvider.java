@@ -0,0 +1,445 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.NodeParser;
+
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.binnavi.disassembly.CReference;
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+import com.google.security.zynamics.zylib.disassembly.IAddress;
+import com.google.security.zynamics.zylib.disassembly.ReferenceType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides instruction data from a forward-only database cursor.
+ *
+ * Unlike {@link SqlCodeNodeProvider} this provider does not require a scrollable result set, so the
+ * JDBC driver can fetch the rows in batches instead of materializing the complete result before
+ * the parser sees the first row. The single step back the parser needs is served from a copy of
+ * the previous row.
+ */
+public final class StreamingSqlCodeNodeProvider implements ICodeNodeProvider {
+  /**
+   * Marks the position behind the last row of the result set.
+   */
+  private static final Object[] AFTER_LAST = new Object[0];
+
+  /**
+   * The forward-only result set of the query that requested the instruction data.
+   */
+  private final ResultSet m_resultSet;
+
+  /**
+   * Maps column labels to column indices of the row copies.
+   */
+  private final Map<String, Integer> m_columns = new HashMap<>();
+
+  /**
+   * Types of the result set columns.
+   */
+  private final int[] m_types;
+
+  /**
+   * The row the provider currently points to.
+   */
+  private Object[] m_current;
+
+  /**
+   * The row before the current row.
+   */
+  private Object[] m_previous;
+
+  /**
+   * Row that was stepped back from and is returned by the next call to {@link #next()}.
+   */
+  private Object[] m_pushedBack;
+
+  /**
+   * Creates a new streaming SQL provider object.
+   *
+   * @param resultSet The forward-only result set of the query that requested the instruction data.
+   *
+   * @throws SQLException Thrown if the result set meta data could not be read.
+   */
+  public StreamingSqlCodeNodeProvider(final ResultSet resultSet) throws SQLException {
+    m_resultSet = Preconditions.checkNotNull(resultSet, "Error: resultSet argument can not be null");
+
+    final ResultSetMetaData metaData = resultSet.getMetaData();
+    m_types = new int[metaData.getColumnCount()];
+
+    for (int i = 0; i < m_types.length; i++) {
+      m_columns.put(metaData.getColumnLabel(i + 1).toLowerCase(), i);
+      m_types[i] = metaData.getColumnType(i + 1);
+    }
+  }
+
+  /**
+   * Copies the values of the current result set row.
+   *
+   * @return The copied row.
+   *
+   * @throws SQLException Thrown if the row could not be read.
+   */
+  private Object[] copyRow() throws SQLException {
+    final Object[] row = new Object[m_types.length];
+
+    for (int i = 0; i < row.length; i++) {
+      // Enumeration types are returned as driver specific objects.
+      row[i] = m_types[i] == Types.OTHER ? m_resultSet.getString(i + 1)
+          : m_resultSet.getObject(i + 1);
+    }
+
+    return row;
+  }
+
+  /**
+   * Returns a value of the current row.
+   *
+   * @param column The label of the column.
+   *
+   * @return The value or null if the value is SQL NULL.
+   *
+   * @throws ParserException Thrown if the provider does not point to a row or the column does not
+   *         exist.
+   */
+  private Object getValue(final String column) throws ParserException {
+    if ((m_current == null) || (m_current == AFTER_LAST)) {
+      throw new ParserException("Error: Provider does not point to a row");
+    }
+
+    final Integer index = m_columns.get(column);
+
+    if (index == null) {
+      throw new ParserException(String.format("Error: Unknown column '%s'", column));
+    }
+
+    return m_current[index];
+  }
+
+  /**
+   * Returns an address value of the current row.
+   *
+   * @param column The label of the column.
+   *
+   * @return The address or null if the value is SQL NULL.
+   *
+   * @throws ParserException Thrown if the value could not be read.
+   */
+  private IAddress getAddress(final String column) throws ParserException {
+    final Object value = getValue(column);
+
+    if (value == null) {
+      return null;
+    }
+
+    return new CAddress(value instanceof BigDecimal ? ((BigDecimal) value).toBigIntegerExact()
+        : new BigInteger(value.toString()));
+  }
+
+  /**
+   * Returns a boolean value of the current row.
+   *
+   * @param column The label of the column.
+   *
+   * @return The value or false if the value is SQL NULL.
+   *
+   * @throws ParserException Thrown if the value could not be read.
+   */
+  private boolean getBoolean(final String column) throws ParserException {
+    final Object value = getValue(column);
+    return value != null && (Boolean) value;
+  }
+
+  /**
+   * Returns a floating point value of the current row.
+   *
+   * @param column The label of the column.
+   *
+   * @return The value or 0 if the value is SQL NULL.
+   *
+   * @throws ParserException Thrown if the value could not be read.
+   */
+  private double getDouble(final String column) throws ParserException {
+    final Object value = getValue(column);
+    return value == null ? 0 : ((Number) value).doubleValue();
+  }
+
+  /**
+   * Returns an integer value of the current row.
+   *
+   * @param column The label of the column.
+   *
+   * @return The value or 0 if the value is SQL NULL.
+   *
+   * @throws ParserException Thrown if the value could not be read.
+   */
+  private int getInt(final String column) throws ParserException {
+    final Object value = getValue(column);
+    return value == null ? 0 : ((Number) value).intValue();
+  }
+
+  /**
+   * Returns a nullable integer value of the current row.
+   *
+   * @param column The label of the column.
+   *
+   * @return The value or null if the value is SQL NULL.
+   *
+   * @throws ParserException Thrown if the value could not be read.
+   */
+  private Integer getInteger(final String column) throws ParserException {
+    final Object value = getValue(column);
+    return value == null ? null : ((Number) value).intValue();
+  }
+
+  /**
+   * Returns a string value of the current row.
+   *
+   * @param column The label of the column.
+   *
+   * @return The value or null if the value is SQL NULL.
+   *
+   * @throws ParserException Thrown if the value could not be read.
+   */
+  private String getString(final String column) throws ParserException {
+    final Object value = getValue(column);
+    return value == null ? null : value.toString();
+  }
+
+  @Override
+  public IAddress getInstructionAddress() throws ParserException {
+    return getAddress("instruction_address");
+  }
+
+  @Override
+  public String getInstructionArchitecture() throws ParserException {
+    return getString("architecture");
+  }
+
+  @Override
+  public int getBorderColor() throws ParserException {
+    return getInt("bordercolor");
+  }
+
+  @Override
+  public int getColor() throws ParserException {
+    return getInt("color");
+  }
+
+  @Override
+  public byte[] getData() throws ParserException {
+    return (byte[]) getValue("instruction_data");
+  }
+
+  @Override
+  public int getExpressionTreeId() throws ParserException {
+    return getInt("expression_tree_id");
+  }
+
+  @Override
+  public int getExpressionTreeType() throws ParserException {
+    return getInt("expression_tree_type");
+  }
+
+  @Override
+  public IAddress getFunctionAddress() throws ParserException {
+    return getAddress("function_address");
+  }
+
+  @Override
+  public Integer getGlobalInstructionCommentId() throws ParserException {
+    return getInteger("global_instruction_comment");
+  }
+
+  @Override
+  public Integer getLocalInstructionCommentId() throws ParserException {
+    return getInteger("local_instruction_comment");
+  }
+
+  @Override
+  public Integer getGlobalNodeCommentId() throws ParserException {
+    return getInteger("global_code_node_comment");
+  }
+
+  @Override
+  public Integer getLocalNodeCommentId() throws ParserException {
+    return getInteger("local_code_node_comment");
+  }
+
+  @Override
+  public double getHeight() throws ParserException {
+    return getDouble("height");
+  }
+
+  @Override
+  public String getImmediate() throws ParserException {
+    return getString("immediate");
+  }
+
+  @Override
+  public String getMnemonic() throws ParserException {
+    return getString("mnemonic");
+  }
+
+  @Override
+  public int getModule() throws ParserException {
+    return getInt("module_id");
+  }
+
+  @Override
+  public int getNodeId() throws ParserException {
+    return getInt("node_id");
+  }
+
+  @Override
+  public Integer getOperandPosition() throws ParserException {
+    return getInteger("operand_position");
+  }
+
+  @Override
+  public IAddress getParentFunction() throws ParserException {
+    return getAddress("parent_function");
+  }
+
+  @Override
+  public int getParentId() throws ParserException {
+    return getInt("expression_tree_parent_id");
+  }
+
+  @Override
+  public CReference getReference() throws ParserException {
+    final IAddress address = getAddress("target");
+    return address == null ? null : new CReference(address,
+        ReferenceType.valueOf(getString("address_references_type").toUpperCase()));
+  }
+
+  @Override
+  public String getReplacement() throws ParserException {
+    return getString("replacement");
+  }
+
+  @Override
+  public int getSubstitutionOffset() throws ParserException {
+    return getInt("expression_types_offset");
+  }
+
+  @Override
+  public int getSubstitutionPosition() throws ParserException {
+    return getInt("expression_types_position");
+  }
+
+  @Override
+  public Integer getSubstitutionTypeId() throws ParserException {
+    return getInteger("expression_types_type");
+  }
+
+  @Override
+  public String getSymbol() throws ParserException {
+    return getString("symbol");
+  }
+
+  @Override
+  public Integer getTypeInstanceId() throws ParserException {
+    return getInteger("type_instance_id");
+  }
+
+  @Override
+  public double getWidth() throws ParserException {
+    return getDouble("width");
+  }
+
+  @Override
+  public double getX() throws ParserException {
+    return getDouble("x");
+  }
+
+  @Override
+  public double getY() throws ParserException {
+    return getDouble("y");
+  }
+
+  @Override
+  public boolean isAfterLast() {
+    return m_current == AFTER_LAST;
+  }
+
+  @Override
+  public boolean isSelected() throws ParserException {
+    return getBoolean("selected");
+  }
+
+  @Override
+  public boolean isVisible() throws ParserException {
+    return getBoolean("visible");
+  }
+
+  @Override
+  public boolean next() throws ParserException {
+    if (m_pushedBack != null) {
+      m_previous = m_current;
+      m_current = m_pushedBack;
+      m_pushedBack = null;
+      return m_current != AFTER_LAST;
+    }
+
+    if (m_current == AFTER_LAST) {
+      return false;
+    }
+
+    try {
+      m_previous = m_current;
+      m_current = m_resultSet.next() ? copyRow() : AFTER_LAST;
+      return m_current != AFTER_LAST;
+    } catch (final SQLException e) {
+      throw new ParserException(e);
+    }
+  }
+
+  @Override
+  public boolean prev() throws ParserException {
+    if (m_previous == null) {
+      throw new ParserException("Error: Streaming providers can only step back a single row");
+    }
+
+    m_pushedBack = m_current;
+    m_current = m_previous;
+    m_previous = null;
+    return true;
+  }
+
+  @Override
+  public Integer[] getSubstitutionPath() throws ParserException {
+    final Object value = getValue("expression_types_path");
+
+    if (value == null) {
+      return new Integer[0];
+    }
+
+    try {
+      return (Integer[]) ((Array) value).getArray();
+    } catch (final SQLException exception) {
+      throw new ParserException(exception);
+    }
+  }
+}
@@ -25,6 +25,7 @@ import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataE
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntSaveDataException;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
+import com.google.security.zynamics.binnavi.Database.cache.ModuleSnapshotCache;
 import com.google.security.zynamics.binnavi.Log.NaviLogger;
 import com.google.security.zynamics.binnavi.debug.debugger.DebuggerTemplate;
 import com.google.security.zynamics.binnavi.disassembly.UnrelocatedAddress;
@@ -157,6 +158,9 @@ public final class PostgreSQLModuleFunctions {
     } catch (final SQLException e) {
       throw new CouldntDeleteException(e);
     }
+
+    ModuleSnapshotCache.instance().invalidate(connection.getURL(),
+        module.getConfiguration().getId());
   }
 
   /**
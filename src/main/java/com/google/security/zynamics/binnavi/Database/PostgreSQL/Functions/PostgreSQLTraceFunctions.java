@@ -18,15 +18,19 @@ package com.google.security.zynamics.binnavi.Database.PostgreSQL.Functions;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Locale;
+import java.util.List;
 
 import com.google.common.base.Preconditions;
+import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
 import com.google.security.zynamics.binnavi.Database.CConnection;
+import com.google.security.zynamics.binnavi.Database.CConnectionPool;
 import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntDeleteException;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntSaveDataException;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLCopyWriter;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceEventType;
 import com.google.security.zynamics.binnavi.debug.models.trace.TraceList;
 import com.google.security.zynamics.binnavi.debug.models.trace.TraceRegister;
 import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceEvent;
@@ -34,6 +38,11 @@ import com.google.security.zynamics.binnavi.disassembly.INaviModule;
 import com.google.security.zynamics.binnavi.disassembly.INaviProject;
 
 public final class PostgreSQLTraceFunctions {
+  /**
+   * Maximum number of events that are saved in one transaction.
+   */
+  private static final int SAVE_CHUNK_SIZE = 10000;
+
   /**
    * You are not supposed to intantiate this class.
    */
@@ -110,54 +119,126 @@ public final class PostgreSQLTraceFunctions {
   }
 
   /**
-   * Saves the events of a trace.
+   * Leases a pooled connection to the current thread, so that saving trace events does not block
+   * the main connection while events are streamed during a trace.
    *
    * @param connection Connection to the database.
-   * @param trace The trace whose events are saved.
    *
-   * @throws CouldntSaveDataException Thrown if the events could not be saved.
+   * @return The lease or null if no pooled connection is available.
+   *
+   * @throws CouldntSaveDataException Thrown if the thread was interrupted while waiting for a
+   *         pooled connection.
    */
-  private static void saveEvents(final CConnection connection, final TraceList trace)
+  private static CConnectionPool.Lease leaseConnection(final CConnection connection)
       throws CouldntSaveDataException {
-    final String queryPrefix = "INSERT INTO " + CTableNames.TRACE_EVENT_TABLE
-        + "(trace_id, position, tid, module_id, address, type) VALUES";
+    if (connection.getPool() == null) {
+      return null;
+    }
 
-    final StringBuilder stringBuilder = new StringBuilder(queryPrefix);
+    try {
+      return connection.lease();
+    } catch (final SQLException exception) {
+      CUtilityFunctions.logException(exception);
 
-    int position = 0;
+      return null;
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
 
-    for (final ITraceEvent traceEvent : trace) {
-      final String moduleString = traceEvent.getOffset().getModule() == null ? "null"
-          : String.valueOf(traceEvent.getOffset().getModule().getConfiguration().getId());
+      throw new CouldntSaveDataException(exception);
+    }
+  }
 
-      stringBuilder.append(String.format(Locale.ENGLISH,
-          "(%d, %d, %d, %s, %s, %d)",
-          trace.getId(),
-          position,
-          traceEvent.getThreadId(),
-          moduleString,
-          traceEvent.getOffset().getAddress().getAddress().toBigInteger().toString(),
-          1));
+  /**
+   * Loads the number of events of a trace that are already stored in the database. Events are
+   * always stored in order, so these are the events at the start of the trace.
+   *
+   * @param connection Connection to the database.
+   * @param trace The trace whose stored events are counted.
+   *
+   * @return The number of stored events.
+   *
+   * @throws SQLException Thrown if the events could not be counted.
+   */
+  private static int loadSavedEventCount(final CConnection connection, final TraceList trace)
+      throws SQLException {
+    final String query = "SELECT COALESCE(MAX(position) + 1, 0) FROM "
+        + CTableNames.TRACE_EVENT_TABLE + " WHERE trace_id = " + trace.getId();
+
+    final ResultSet resultSet = connection.executeQuery(query, true);
 
-      ++position;
+    try {
+      return resultSet.next() ? resultSet.getInt(1) : 0;
+    } finally {
+      resultSet.close();
+    }
+  }
 
-      if (trace.getEventCount() > position) {
-        stringBuilder.append(", ");
+  /**
+   * Writes trace events with a single COPY command.
+   *
+   * @param connection Connection to the database.
+   * @param trace The trace whose events are written.
+   * @param events The events to write.
+   * @param position Position of the first event in the trace.
+   *
+   * @throws SQLException Thrown if the events could not be written.
+   */
+  private static void writeEvents(final CConnection connection, final TraceList trace,
+      final List<ITraceEvent> events, final int position) throws SQLException {
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(connection,
+        CTableNames.TRACE_EVENT_TABLE, "trace_id", "position", "tid", "module_id", "address",
+        "type")) {
+      int currentPosition = position;
+
+      for (final ITraceEvent traceEvent : events) {
+        final INaviModule module = traceEvent.getOffset().getModule();
+
+        writer.startRow();
+        writer.writeInt(trace.getId());
+        writer.writeInt(currentPosition);
+        writer.writeInt((int) traceEvent.getThreadId());
+        writer.writeInteger(module == null ? null : module.getConfiguration().getId());
+        writer.writeLong(traceEvent.getOffset().getAddress().getAddress().toLong());
+        writer.writeInt(traceEvent.getType() == TraceEventType.REGULAR_BREAKPOINT ? 2 : 1);
+
+        ++currentPosition;
       }
+
+      writer.finish();
     }
+  }
 
-    try {
-      final PreparedStatement prep =
-          connection.getConnection().prepareStatement(stringBuilder.toString());
-      try {
-        prep.execute();
-      } catch (final SQLException exception) {
-        throw new CouldntSaveDataException(exception);
-      } finally {
-        prep.close();
+  /**
+   * Writes the register values of trace events with a single COPY command.
+   *
+   * @param connection Connection to the database.
+   * @param trace The trace whose event values are written.
+   * @param events The events whose values are written.
+   * @param position Position of the first event in the trace.
+   *
+   * @throws SQLException Thrown if the event values could not be written.
+   */
+  private static void writeEventValues(final CConnection connection, final TraceList trace,
+      final List<ITraceEvent> events, final int position) throws SQLException {
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(connection,
+        CTableNames.TRACE_EVENT_VALUES_TABLE, "trace_id", "position", "register_name",
+        "register_value", "memory_value")) {
+      int currentPosition = position;
+
+      for (final ITraceEvent traceEvent : events) {
+        for (final TraceRegister register : traceEvent.getRegisterValues()) {
+          writer.startRow();
+          writer.writeInt(trace.getId());
+          writer.writeInt(currentPosition);
+          writer.writeText(register.getName());
+          writer.writeLong(register.getValue().toLong());
+          writer.writeBytes(register.getMemory());
+        }
+
+        ++currentPosition;
       }
-    } catch (final SQLException exception) {
-      throw new CouldntSaveDataException(exception);
+
+      writer.finish();
     }
   }
 
@@ -245,7 +326,8 @@ public final class PostgreSQLTraceFunctions {
   }
 
   /**
-   * Saves a trace to the database.
+   * Saves a trace to the database. Only events that are not yet stored in the database are saved,
+   * so events that were already streamed to the database during the trace are not written again.
    *
    * @param provider The SQL provider that provides the connection.
    * @param trace The trace to save to the database.
@@ -259,55 +341,73 @@ public final class PostgreSQLTraceFunctions {
     Preconditions.checkArgument(trace.inSameDatabase(provider),
         "IE00581: List is not part of this database");
 
-    final CConnection connection = provider.getConnection();
+    final int eventCount = trace.getEventCount();
+
+    if (eventCount == 0) {
+      return;
+    }
+
+    int savedEvents;
+
+    try {
+      savedEvents = loadSavedEventCount(provider.getConnection(), trace);
+    } catch (final SQLException exception) {
+      throw new CouldntSaveDataException(exception);
+    }
 
-    if (trace.getEventCount() != 0) {
-      saveEvents(connection, trace);
-      saveEventValues(connection, trace);
+    while (savedEvents < eventCount) {
+      final int nextEvents = Math.min(eventCount, savedEvents + SAVE_CHUNK_SIZE);
+      saveEvents(provider, trace, savedEvents, nextEvents);
+      savedEvents = nextEvents;
     }
   }
 
   /**
-   * Saves the event values of a trace.
+   * Saves a range of trace events and their register values to the database. The events are
+   * written with COPY in a single transaction on a pooled connection.
    *
-   * @param connection Connection to the database.
-   * @param trace Trace whose event values are saved.
+   * @param provider The SQL provider that provides the connection.
+   * @param trace The trace whose events are saved.
+   * @param from Index of the first event to save.
+   * @param to Index after the last event to save.
    *
-   * @throws CouldntSaveDataException Thrown if the data could not be saved.
+   * @throws CouldntSaveDataException Thrown if the events could not be saved.
    */
-  public static void saveEventValues(final CConnection connection, final TraceList trace)
-      throws CouldntSaveDataException {
-    Preconditions.checkNotNull(connection, "IE02412: connection argument can not be null");
-    Preconditions.checkNotNull(trace, "IE02413: trace argument can not be null");
+  public static void saveEvents(final AbstractSQLProvider provider, final TraceList trace,
+      final int from, final int to) throws CouldntSaveDataException {
+    Preconditions.checkNotNull(provider, "IE02412: Provider argument can not be null");
+    Preconditions.checkNotNull(trace, "IE02413: Trace argument can not be null");
+    Preconditions.checkArgument((from >= 0) && (from <= to) && (to <= trace.getEventCount()),
+        "IE03492: Invalid event range");
+
+    if (from == to) {
+      return;
+    }
 
-    final String query = "INSERT INTO " + CTableNames.TRACE_EVENT_VALUES_TABLE
-        + "(trace_id, position, register_name, register_value, memory_value) VALUES "
-        + "(?, ?, ?, ?, ?)";
+    final CConnection connection = provider.getConnection();
+    final CConnectionPool.Lease lease = leaseConnection(connection);
 
     try {
-      final PreparedStatement preparedStatement =
-          connection.getConnection().prepareStatement(query);
+      final List<ITraceEvent> events = trace.getEvents().subList(from, to);
 
-      int position = 0;
+      PostgreSQLHelpers.beginTransaction(connection);
 
-      for (final ITraceEvent traceEvent : trace) {
-        for (final TraceRegister register : traceEvent.getRegisterValues()) {
-          preparedStatement.setInt(1, trace.getId());
-          preparedStatement.setInt(2, position);
-          preparedStatement.setString(3, register.getName());
-          preparedStatement.setLong(4, register.getValue().toLong());
-          preparedStatement.setBytes(5, register.getMemory());
+      writeEvents(connection, trace, events, from);
+      writeEventValues(connection, trace, events, from);
 
-          preparedStatement.addBatch();
-        }
-        ++position;
+      PostgreSQLHelpers.endTransaction(connection);
+    } catch (final SQLException exception) {
+      try {
+        PostgreSQLHelpers.rollback(connection);
+      } catch (final SQLException e) {
+        CUtilityFunctions.logException(e);
       }
-      preparedStatement.executeBatch();
 
-      preparedStatement.close();
-    }
- catch (final SQLException exception) {
       throw new CouldntSaveDataException(exception);
+    } finally {
+      if (lease != null) {
+        lease.close();
+      }
     }
   }
 
@@ -15,9 +15,9 @@ limitations under the License.
 */
 package com.google.security.zynamics.binnavi.Database.PostgreSQL.Loaders;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 import com.google.common.base.Preconditions;
@@ -26,7 +26,9 @@ import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CPartialLoadException;
 import com.google.security.zynamics.binnavi.Database.NodeParser.CCodeNodeParser;
 import com.google.security.zynamics.binnavi.Database.NodeParser.ParserException;
-import com.google.security.zynamics.binnavi.Database.NodeParser.SqlCodeNodeProvider;
+import com.google.security.zynamics.binnavi.Database.NodeParser.StreamingSqlCodeNodeProvider;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLStreamingQuery;
 import com.google.security.zynamics.binnavi.disassembly.INaviModule;
 import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
 import com.google.security.zynamics.binnavi.disassembly.views.INaviView;
@@ -64,20 +66,62 @@ public final class PostgreSQLCodeNodeLoader {
     Preconditions.checkNotNull(modules, "Error: modules argument can not be null");
 
     final String query = " SELECT * FROM load_code_nodes(?) ";
-    final PreparedStatement statement =
-        provider.getConnection().getConnection()
-            .prepareStatement(query, ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
-    statement.setInt(1, view.getConfiguration().getId());
-    final ResultSet resultSet = statement.executeQuery();
-
-    try {
-      final CCodeNodeParser parser =
-          new CCodeNodeParser(new SqlCodeNodeProvider(resultSet), modules, provider);
-      nodes.addAll(parser.parse());
-    } catch (final ParserException e) {
-      CUtilityFunctions.logException(e);
-    } finally {
-      resultSet.close();
+
+    // The rows are streamed so that huge views do not have to be materialized in memory before the
+    // parser can start working on them.
+    try (PostgreSQLStreamingQuery streamingQuery =
+        new PostgreSQLStreamingQuery(provider.getConnection(), query)) {
+      streamingQuery.getStatement().setInt(1, view.getConfiguration().getId());
+
+      try (ResultSet resultSet = streamingQuery.execute()) {
+        final CCodeNodeParser parser =
+            new CCodeNodeParser(new StreamingSqlCodeNodeProvider(resultSet), modules, provider);
+        nodes.addAll(parser.parse());
+      } catch (final ParserException e) {
+        CUtilityFunctions.logException(e);
+      }
+    }
+  }
+
+  /**
+   * Loads the code nodes of several views. All rows are streamed through a single parser so that
+   * instructions and comments shared between the views are only materialized once.
+   * 
+   * @param provider The connection to the database.
+   * @param viewIds The IDs of the views whose code nodes are loaded.
+   * @param nodes The loaded nodes are stored here.
+   * @param modules All modules of the database.
+   * 
+   * @throws SQLException Thrown of loading the nodes failed.
+   * @throws CPartialLoadException Thrown if loading the nodes failed because a necessary module was
+   *         not loaded.
+   */
+  public static void load(final AbstractSQLProvider provider, final Collection<Integer> viewIds,
+      final List<INaviViewNode> nodes, final List<? extends INaviModule> modules)
+      throws SQLException, CPartialLoadException {
+
+    Preconditions.checkNotNull(provider, "IE03443: provider argument can not be null");
+    Preconditions.checkNotNull(viewIds, "IE03444: viewIds argument can not be null");
+    Preconditions.checkNotNull(nodes, "IE03445: nodes argument can not be null");
+    Preconditions.checkNotNull(modules, "IE03446: modules argument can not be null");
+
+    // The rows of one view are returned in the order load_code_nodes produces them, which is the
+    // order the parser depends on.
+    final String query = " SELECT nodes.* FROM unnest(?::int4[]) AS views(view_id), "
+        + " LATERAL load_code_nodes(views.view_id) AS nodes ";
+
+    try (PostgreSQLStreamingQuery streamingQuery =
+        new PostgreSQLStreamingQuery(provider.getConnection(), query)) {
+      streamingQuery.getStatement().setArray(1,
+          PostgreSQLHelpers.createIdArray(streamingQuery.getConnection(), viewIds));
+
+      try (ResultSet resultSet = streamingQuery.execute()) {
+        final CCodeNodeParser parser =
+            new CCodeNodeParser(new StreamingSqlCodeNodeProvider(resultSet), modules, provider);
+        nodes.addAll(parser.parse());
+      } catch (final ParserException e) {
+        CUtilityFunctions.logException(e);
+      }
     }
   }
 }
@@ -15,13 +15,15 @@ limitations under the License.
 */
 package com.google.security.zynamics.binnavi.Database.PostgreSQL.Loaders;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
-import com.google.security.zynamics.binnavi.Database.CConnection;
 import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Functions.PostgreSQLCommentFunctions;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLStreamingQuery;
 import com.google.security.zynamics.binnavi.Gui.GraphWindows.CommentDialogs.Interfaces.IComment;
 import com.google.security.zynamics.binnavi.disassembly.CNaviViewEdge;
 import com.google.security.zynamics.binnavi.disassembly.CommentManager;
@@ -40,6 +42,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,10 +78,10 @@ public final class PostgreSQLEdgeLoader {
   }
 
   /**
-   * Loads the edges of a view.
+   * Loads the edges returned by an edge query.
    *
    * @param provider The connection to the database.
-   * @param view The view whose edges are loaded.
+   * @param streamingQuery The prepared query that returns the edge rows.
    * @param nodeLookup Maps between node IDs and their corresponding node objects.
    * @param edgeToGlobalCommentMap Maps between edge IDs and their associated comments.
    *
@@ -86,20 +89,16 @@ public final class PostgreSQLEdgeLoader {
    *
    * @throws CouldntLoadDataException
    */
-  private static List<INaviEdge> loadEdges(final AbstractSQLProvider provider, final INaviView view,
-      final Map<Integer, INaviViewNode> nodeLookup,
+  private static List<INaviEdge> loadEdges(final AbstractSQLProvider provider,
+      final PostgreSQLStreamingQuery streamingQuery, final Map<Integer, INaviViewNode> nodeLookup,
       final Map<Integer, ArrayList<IComment>> edgeToGlobalCommentMap)
       throws CouldntLoadDataException {
-    final String query = "SELECT * FROM load_view_edges(" + view.getConfiguration().getId() + ")";
-
     List<CBend> currentPaths = new ArrayList<CBend>();
     final Map<Integer, INaviEdge> commentIdToEdge = new HashMap<Integer, INaviEdge>();
     final Map<Integer, INaviEdge> edgeIdToEdge = new HashMap<Integer, INaviEdge>();
 
     try {
-      final CConnection connection = provider.getConnection();
-      final PreparedStatement statement = connection.getConnection().prepareStatement(query);
-      final ResultSet resultSet = statement.executeQuery();
+      final ResultSet resultSet = streamingQuery.execute();
 
       try {
         while (resultSet.next()) {
@@ -196,17 +195,18 @@ public final class PostgreSQLEdgeLoader {
   }
 
   /**
-   * Loads the edge comments of a view.
+   * Loads the edge comments of a set of views.
    *
    * @param provider The provider used to access the database.
-   * @param viewId ID of the view whose edges are loaded.
+   * @param viewIds IDs of the views whose edges are loaded.
    *
    * @return A map of <Edge ID, Edge Comment>.
    *
    * @throws CouldntLoadDataException
    */
   private static Map<Integer, ArrayList<IComment>> loadGlobalEdgeComments(
-      final SQLProvider provider, final int viewId) throws CouldntLoadDataException {
+      final SQLProvider provider, final Collection<Integer> viewIds)
+      throws CouldntLoadDataException {
     // TODO (timkornau): this query needs to go into the database and needs to use the get all
     // comment ancestors
     // to build the complete
@@ -227,23 +227,22 @@ public final class PostgreSQLEdgeLoader {
         + " AS e ON e.source_node_id = src_nodes.node_id AND e.target_node_id = dst_nodes.node_id "
         + " join " + CTableNames.NODES_TABLE + " AS src_n ON e.source_node_id = src_n.id "
         + " join " + CTableNames.NODES_TABLE + " AS dst_n ON e.target_node_id = dst_n.id "
-        + " WHERE src_n.view_id = " + viewId + " AND dst_n.view_id = " + viewId;
+        + " WHERE src_n.view_id = ANY(?) AND dst_n.view_id = src_n.view_id";
 
     final HashMap<Integer, Integer> commentIdsToEdgeIds = new HashMap<Integer, Integer>();
     final HashMap<Integer, ArrayList<IComment>> edgeIdsToCommentArray =
         new HashMap<Integer, ArrayList<IComment>>();
 
-    try {
-      final ResultSet resultSet = provider.getConnection().executeQuery(query, true);
+    try (PreparedStatement statement =
+        provider.getConnection().getConnection().prepareStatement(query)) {
+      statement.setArray(1, PostgreSQLHelpers.createIdArray(provider.getConnection(), viewIds));
 
-      try {
+      try (ResultSet resultSet = statement.executeQuery()) {
         while (resultSet.next()) {
           final int edgeId = resultSet.getInt("id");
           final int commentId = resultSet.getInt("comment_id");
           commentIdsToEdgeIds.put(commentId, edgeId);
         }
-      } finally {
-        resultSet.close();
       }
     } catch (final SQLException exception) {
       throw new CouldntLoadDataException(exception);
@@ -288,8 +287,73 @@ public final class PostgreSQLEdgeLoader {
     }
 
     final Map<Integer, ArrayList<IComment>> edgeToGlobalCommentMap =
-        loadGlobalEdgeComments(provider, view.getConfiguration().getId());
+        loadGlobalEdgeComments(provider,
+            Collections.singletonList(view.getConfiguration().getId()));
+
+    final String query = "SELECT * FROM load_view_edges(" + view.getConfiguration().getId() + ")";
+
+    try (PostgreSQLStreamingQuery streamingQuery =
+        new PostgreSQLStreamingQuery(provider.getConnection(), query)) {
+      return loadEdges(provider, streamingQuery, nodeLookup, edgeToGlobalCommentMap);
+    } catch (final SQLException exception) {
+      throw new CouldntLoadDataException(exception);
+    }
+  }
+
+  /**
+   * Loads the edges of several views with a single query.
+   *
+   * The views and all nodes must be stored in the database connected to by the provider argument.
+   *
+   * @param provider The SQL provider that provides the database connection.
+   * @param viewNodes Maps the IDs of the views whose edges are loaded to the previously loaded
+   *        nodes of the views.
+   *
+   * @return Maps the IDs of the views to their edges.
+   *
+   * @throws CouldntLoadDataException
+   */
+  public static Map<Integer, List<INaviEdge>> loadEdges(final AbstractSQLProvider provider,
+      final Map<Integer, List<INaviViewNode>> viewNodes) throws CouldntLoadDataException {
+    Preconditions.checkNotNull(provider, "IE03447: provider argument can not be null");
+    Preconditions.checkNotNull(viewNodes, "IE03448: viewNodes argument can not be null");
+
+    final Map<Integer, INaviViewNode> nodeLookup = new HashMap<Integer, INaviViewNode>();
+    final Map<Integer, Integer> nodeToView = new HashMap<Integer, Integer>();
+    final Map<Integer, List<INaviEdge>> viewEdges = new HashMap<Integer, List<INaviEdge>>();
+
+    for (final Entry<Integer, List<INaviViewNode>> entry : viewNodes.entrySet()) {
+      for (final INaviViewNode viewNode : entry.getValue()) {
+        nodeLookup.put(viewNode.getId(), viewNode);
+        nodeToView.put(viewNode.getId(), entry.getKey());
+      }
+
+      viewEdges.put(entry.getKey(), new ArrayList<INaviEdge>());
+    }
+
+    if (viewNodes.isEmpty()) {
+      return viewEdges;
+    }
+
+    final Map<Integer, ArrayList<IComment>> edgeToGlobalCommentMap =
+        loadGlobalEdgeComments(provider, viewNodes.keySet());
+
+    final String query = "SELECT edges.* FROM unnest(?::int4[]) AS views(view_id), "
+        + " LATERAL load_view_edges(views.view_id) AS edges";
+
+    try (PostgreSQLStreamingQuery streamingQuery =
+        new PostgreSQLStreamingQuery(provider.getConnection(), query)) {
+      streamingQuery.getStatement().setArray(1,
+          PostgreSQLHelpers.createIdArray(streamingQuery.getConnection(), viewNodes.keySet()));
+
+      for (final INaviEdge edge :
+          loadEdges(provider, streamingQuery, nodeLookup, edgeToGlobalCommentMap)) {
+        viewEdges.get(nodeToView.get(edge.getSource().getId())).add(edge);
+      }
+    } catch (final SQLException exception) {
+      throw new CouldntLoadDataException(exception);
+    }
 
-    return loadEdges(provider, view, nodeLookup, edgeToGlobalCommentMap);
+    return viewEdges;
   }
 }
@@ -20,6 +20,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -73,6 +75,27 @@ public final class PostgreSQLFunctionNodeLoader {
     Preconditions.checkNotNull(view, "IE02511: view argument can not be null");
     Preconditions.checkNotNull(nodes, "IE02512: nodes argument can not be null");
 
+    load(provider, Collections.singletonList(view.getConfiguration().getId()), nodes);
+  }
+
+  /**
+   * Loads the function nodes of several views with a single query.
+   * 
+   * @param provider The connection to the database.
+   * @param viewIds The IDs of the views whose function nodes are loaded.
+   * @param nodes The loaded nodes are stored here.
+   * 
+   * @throws CPartialLoadException Thrown if loading the nodes failed because a necessary module was
+   *         not loaded.
+   * @throws CouldntLoadDataException
+   */
+  public static void load(final AbstractSQLProvider provider, final Collection<Integer> viewIds,
+      final List<INaviViewNode> nodes) throws CPartialLoadException, CouldntLoadDataException {
+
+    Preconditions.checkNotNull(provider, "IE03437: provider argument can not be null");
+    Preconditions.checkNotNull(viewIds, "IE03438: viewIds argument can not be null");
+    Preconditions.checkNotNull(nodes, "IE03439: nodes argument can not be null");
+
     // TODO (timkornau): query needs to go into the database.
     final String query =
         "SELECT nodes.view_id, nodes.id, functions.module_id, "
@@ -81,7 +104,7 @@ public final class PostgreSQLFunctionNodeLoader {
             + CTableNames.FUNCTION_NODES_TABLE + " AS fnodes "
             + " ON nodes.id = fnodes.node_id JOIN " + CTableNames.FUNCTIONS_TABLE
             + " AS functions ON functions.address = fnodes.function "
-            + " AND functions.module_id = fnodes.module_id  WHERE view_id = ?";
+            + " AND functions.module_id = fnodes.module_id  WHERE view_id = ANY(?)";
 
     final Map<Integer, INaviFunctionNode> commentIdToFunctionNode =
         new HashMap<Integer, INaviFunctionNode>();
@@ -90,7 +113,7 @@ public final class PostgreSQLFunctionNodeLoader {
       final PreparedStatement statement =
           provider.getConnection().getConnection().prepareStatement(query);
 
-      statement.setInt(1, view.getConfiguration().getId());
+      statement.setArray(1, PostgreSQLHelpers.createIdArray(provider.getConnection(), viewIds));
 
       final ResultSet resultSet = statement.executeQuery();
 
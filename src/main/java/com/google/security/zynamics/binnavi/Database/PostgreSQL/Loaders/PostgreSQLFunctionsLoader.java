@@ -18,10 +18,12 @@ package com.google.security.zynamics.binnavi.Database.PostgreSQL.Loaders;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Functions.PostgreSQLCommentFunctions;
+import com.google.security.zynamics.binnavi.Database.cache.ModuleSnapshotCache;
 import com.google.security.zynamics.binnavi.Gui.GraphWindows.CommentDialogs.Interfaces.IComment;
 import com.google.security.zynamics.binnavi.disassembly.CFunction;
 import com.google.security.zynamics.binnavi.disassembly.CommentManager;
@@ -48,6 +50,16 @@ import java.util.Map.Entry;
  * This class provides PostgreSQL queries for loading the functions of a module.
  */
 public final class PostgreSQLFunctionsLoader {
+  /**
+   * Loads the columns of the functions of a module that can change after the module was imported.
+   */
+  private static final String FUNCTIONS_QUERY = "SELECT view_id, ft.address, name, original_name, "
+      + "description, comment_id AS global_comment, type, parent_module_name, parent_module_id, "
+      + "parent_module_function, stack_frame, prototype FROM " + CTableNames.FUNCTIONS_TABLE
+      + " AS ft JOIN " + CTableNames.FUNCTION_VIEWS_TABLE + " AS fviews "
+      + " ON fviews.module_id = ft.module_id AND function = ft.address "
+      + " WHERE ft.module_id = ? ORDER BY ft.address";
+
   /**
    * Do not instantiate this class.
    */
@@ -76,17 +88,19 @@ public final class PostgreSQLFunctionsLoader {
    * @param provider The {@link SQLProvider} to access the database with.
    * @param module The {@link INaviModule} to which the {@link INaviFunction function(s)} are
    *        associated.
+   * @param counts Node counts, edge counts and degrees of the functions from the module snapshot
+   *        or null if the counts are part of the {@link ResultSet}.
    *
    * @return A {@link List} of {@link INaviFunction functions} parsed from the {@link ResultSet
-   *         resultSet}.
+   *         resultSet} or null if the snapshot does not know one of the functions.
    *
    * @throws SQLException if the {@link ResultSet} could not be parsed.
    * @throws CouldntLoadDataException if the associated comments could not be loaded from the
    *         database.
    */
   private static List<INaviFunction> parseFunctionInformation(final ResultSet resultSet,
-      final SQLProvider provider, final INaviModule module) throws SQLException,
-      CouldntLoadDataException {
+      final SQLProvider provider, final INaviModule module, final Map<Long, int[]> counts)
+      throws SQLException, CouldntLoadDataException {
 
     final List<INaviFunction> functions = Lists.newArrayList();
     final Map<Integer, INaviFunction> commentIdToFunction = new HashMap<Integer, INaviFunction>();
@@ -94,6 +108,18 @@ public final class PostgreSQLFunctionsLoader {
     try {
       while (resultSet.next()) {
         final IAddress address = PostgreSQLHelpers.loadAddress(resultSet, "address");
+        final int[] functionCounts = counts == null ? null : counts.get(address.toLong());
+
+        if (counts != null) {
+          if (functionCounts == null) {
+            return null;
+          }
+
+          if (functionCounts[0] < 0) {
+            continue;
+          }
+        }
+
         final String name = resultSet.getString("name");
         final String originalName = resultSet.getString("original_name");
 
@@ -111,10 +137,14 @@ public final class PostgreSQLFunctionsLoader {
         final IAddress parentModuleFunction = resultSet.wasNull() ? null
             : PostgreSQLHelpers.loadAddress(resultSet, "parent_module_function");
 
-        final Integer nodeCount = resultSet.getInt("bbcount");
-        final Integer edgeCount = resultSet.getInt("edgeCount");
-        final Integer indegree = resultSet.getInt("incount");
-        final Integer outdegree = resultSet.getInt("outcount");
+        final Integer nodeCount =
+            functionCounts == null ? resultSet.getInt("bbcount") : functionCounts[0];
+        final Integer edgeCount =
+            functionCounts == null ? resultSet.getInt("edgeCount") : functionCounts[1];
+        final Integer indegree =
+            functionCounts == null ? resultSet.getInt("incount") : functionCounts[2];
+        final Integer outdegree =
+            functionCounts == null ? resultSet.getInt("outcount") : functionCounts[3];
         Integer stackFrameId = resultSet.getInt("stack_frame");
         if (resultSet.wasNull()) {
           stackFrameId = null;
@@ -198,7 +228,7 @@ public final class PostgreSQLFunctionsLoader {
       statement.setInt(1, module.getConfiguration().getId());
       statement.setObject(2, address.toBigInteger(), Types.BIGINT);
       final ResultSet resultSet = statement.executeQuery();
-      return Iterables.getFirst(parseFunctionInformation(resultSet, provider, module), null);
+      return Iterables.getFirst(parseFunctionInformation(resultSet, provider, module, null), null);
     } catch (final SQLException exception) {
       throw new CouldntLoadDataException(exception);
     }
@@ -218,6 +248,15 @@ public final class PostgreSQLFunctionsLoader {
   public static List<INaviFunction> loadFunctions(final SQLProvider provider,
       final INaviModule module, final List<IFlowgraphView> views) throws CouldntLoadDataException {
     checkArguments(provider, module);
+
+    if (ModuleSnapshotCache.instance().isEnabled()) {
+      final List<INaviFunction> snapshotFunctions = loadSnapshotFunctions(provider, module);
+
+      if (snapshotFunctions != null) {
+        return snapshotFunctions;
+      }
+    }
+
     final String query = " SELECT * FROM load_function_information(?) ";
 
     try {
@@ -225,9 +264,87 @@ public final class PostgreSQLFunctionsLoader {
           provider.getConnection().getConnection().prepareStatement(query);
       statement.setInt(1, module.getConfiguration().getId());
       final ResultSet resultSet = statement.executeQuery();
-      return parseFunctionInformation(resultSet, provider, module);
+      final List<INaviFunction> functions =
+          parseFunctionInformation(resultSet, provider, module, null);
+
+      if (ModuleSnapshotCache.instance().isEnabled()) {
+        writeSnapshot(provider, module, functions);
+      }
+
+      return functions;
     } catch (final SQLException e) {
       throw new CouldntLoadDataException(e);
     }
   }
+
+  /**
+   * Loads the functions of a module with the help of the module snapshot. The node counts, edge
+   * counts and degrees of functions never change, so they are taken from the snapshot instead of
+   * being computed by the database.
+   *
+   * @param provider The SQL provider that provides the connection.
+   * @param module The module whose functions are loaded.
+   *
+   * @return The functions of the module or null if there is no valid snapshot.
+   *
+   * @throws CouldntLoadDataException Thrown if the functions of the module could not be loaded.
+   */
+  private static List<INaviFunction> loadSnapshotFunctions(final SQLProvider provider,
+      final INaviModule module) throws CouldntLoadDataException {
+    final Map<Long, int[]> counts = ModuleSnapshotCache.instance().readFunctionCounts(
+        provider.getConnection().getURL(), module.getConfiguration().getId(),
+        ModuleSnapshotCache.getStamp(module));
+
+    if (counts == null) {
+      return null;
+    }
+
+    try {
+      final PreparedStatement statement =
+          provider.getConnection().getConnection().prepareStatement(FUNCTIONS_QUERY);
+      statement.setInt(1, module.getConfiguration().getId());
+      final ResultSet resultSet = statement.executeQuery();
+      return parseFunctionInformation(resultSet, provider, module, counts);
+    } catch (final SQLException e) {
+      throw new CouldntLoadDataException(e);
+    }
+  }
+
+  /**
+   * Stores the node counts, edge counts and degrees of the functions of a module in the module
+   * snapshot. Functions that are not loaded with the module are stored with negative counts, so
+   * that functions unknown to the snapshot can be recognized.
+   *
+   * @param provider The SQL provider that provides the connection.
+   * @param module The module the functions belong to.
+   * @param functions The loaded functions of the module.
+   *
+   * @throws SQLException Thrown if the functions of the module could not be determined.
+   */
+  private static void writeSnapshot(final SQLProvider provider, final INaviModule module,
+      final List<INaviFunction> functions) throws SQLException {
+    final Map<Long, int[]> counts = new HashMap<Long, int[]>();
+
+    final PreparedStatement statement =
+        provider.getConnection().getConnection().prepareStatement(FUNCTIONS_QUERY);
+    statement.setInt(1, module.getConfiguration().getId());
+    final ResultSet resultSet = statement.executeQuery();
+
+    try {
+      while (resultSet.next()) {
+        counts.put(PostgreSQLHelpers.loadAddress(resultSet, "address").toLong(),
+            new int[] {-1, -1, -1, -1});
+      }
+    } finally {
+      resultSet.close();
+    }
+
+    for (final INaviFunction function : functions) {
+      counts.put(function.getAddress().toLong(), new int[] {function.getBasicBlockCount(),
+          function.getEdgeCount(), function.getIndegree(), function.getOutdegree()});
+    }
+
+    ModuleSnapshotCache.instance().writeFunctionCounts(provider.getConnection().getURL(),
+        module.getConfiguration().getId(), ModuleSnapshotCache.getStamp(module), counts);
+  }
 }
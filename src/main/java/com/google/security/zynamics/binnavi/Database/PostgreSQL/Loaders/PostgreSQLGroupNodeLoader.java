@@ -16,9 +16,12 @@ limitations under the License.
 package com.google.security.zynamics.binnavi.Database.PostgreSQL.Loaders;
 
 import java.awt.Color;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -31,6 +34,7 @@ import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
 import com.google.security.zynamics.binnavi.Database.CConnection;
 import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Functions.PostgreSQLCommentFunctions;
 import com.google.security.zynamics.binnavi.Gui.GraphWindows.CommentDialogs.Interfaces.IComment;
 import com.google.security.zynamics.binnavi.Tagging.CTag;
@@ -66,39 +70,64 @@ public final class PostgreSQLGroupNodeLoader {
     Preconditions.checkNotNull(view, "IE02514: view argument can not be null");
     Preconditions.checkNotNull(nodes, "IE02515: nodes argument can not be null");
 
+    load(provider, Collections.singletonList(view.getConfiguration().getId()), nodes);
+  }
+
+  /**
+   * Loads the group nodes of several views with a single query.
+   * 
+   * @param provider The connection to the database.
+   * @param viewIds The IDs of the views whose group nodes are loaded.
+   * @param nodes The loaded nodes are stored here.
+   * 
+   * @throws SQLException Thrown of loading the nodes failed.
+   * @throws CouldntLoadDataException
+   */
+  public static void load(final AbstractSQLProvider provider, final Collection<Integer> viewIds,
+      final List<INaviViewNode> nodes) throws SQLException, CouldntLoadDataException {
+
+    Preconditions.checkNotNull(provider, "IE03434: provider argument can not be null");
+    Preconditions.checkNotNull(viewIds, "IE03435: viewIds argument can not be null");
+    Preconditions.checkNotNull(nodes, "IE03436: nodes argument can not be null");
+
     final Map<Integer, INaviGroupNode> commentIdToGroupNode =
         new HashMap<Integer, INaviGroupNode>();
 
     final String query =
         "SELECT id, comment_id , collapsed, x, y, width, height, color, selected, visible "
             + " FROM " + CTableNames.NODES_TABLE + " JOIN " + CTableNames.GROUP_NODES_TABLE
-            + " ON id = node_id WHERE view_id = " + view.getConfiguration().getId();
-
-    try (ResultSet resultSet = provider.getConnection().executeQuery(query, true)) {
-      while (resultSet.next()) {
-        final int nodeId = resultSet.getInt("id");
-        Integer commentId = resultSet.getInt("comment_id");
-        if (resultSet.wasNull()) {
-          commentId = null;
+            + " ON id = node_id WHERE view_id = ANY(?)";
+
+    try (PreparedStatement statement =
+        provider.getConnection().getConnection().prepareStatement(query)) {
+      statement.setArray(1, PostgreSQLHelpers.createIdArray(provider.getConnection(), viewIds));
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          final int nodeId = resultSet.getInt("id");
+          Integer commentId = resultSet.getInt("comment_id");
+          if (resultSet.wasNull()) {
+            commentId = null;
+          }
+          final boolean collapsed = resultSet.getBoolean("collapsed");
+          final double posX = resultSet.getDouble("x");
+          final double posY = resultSet.getDouble("y");
+          final double width = resultSet.getDouble("width");
+          final double height = resultSet.getDouble("height");
+          final Color color = new Color(resultSet.getInt("color"));
+          final boolean selected = resultSet.getBoolean("selected");
+          final boolean visible = resultSet.getBoolean("visible");
+
+          final INaviGroupNode groupNode =
+              new CGroupNode(nodeId, posX, posY, width, height, color, selected, visible,
+                  new HashSet<CTag>(), null, collapsed, provider);
+
+          if (commentId != null) {
+            commentIdToGroupNode.put(commentId, groupNode);
+          }
+
+          nodes.add(groupNode);
         }
-        final boolean collapsed = resultSet.getBoolean("collapsed");
-        final double posX = resultSet.getDouble("x");
-        final double posY = resultSet.getDouble("y");
-        final double width = resultSet.getDouble("width");
-        final double height = resultSet.getDouble("height");
-        final Color color = new Color(resultSet.getInt("color"));
-        final boolean selected = resultSet.getBoolean("selected");
-        final boolean visible = resultSet.getBoolean("visible");
-
-        final INaviGroupNode groupNode =
-            new CGroupNode(nodeId, posX, posY, width, height, color, selected, visible,
-                new HashSet<CTag>(), null, collapsed, provider);
-
-        if (commentId != null) {
-          commentIdToGroupNode.put(commentId, groupNode);
-        }
-
-        nodes.add(groupNode);
       }
 
       if (!commentIdToGroupNode.isEmpty()) {
@@ -155,4 +184,23 @@ public final class PostgreSQLGroupNodeLoader {
       }
     }
   }
+
+  /**
+   * Sets up the elements of the group nodes of several views.
+   * 
+   * @param nodeLookup Maps the IDs of the loaded nodes to the nodes.
+   * @param parents Maps the IDs of all nodes that belong to a group node to the ID of the group
+   *        node. The map must be ordered by node ID.
+   */
+  public static void setupGroupNodes(final Map<Integer, INaviViewNode> nodeLookup,
+      final Map<Integer, Integer> parents) {
+    for (final Entry<Integer, Integer> nodeToParent : parents.entrySet()) {
+      final INaviViewNode node = nodeLookup.get(nodeToParent.getKey());
+      final INaviViewNode parent = nodeLookup.get(nodeToParent.getValue());
+
+      if ((node != null) && (parent instanceof CGroupNode)) {
+        ((CGroupNode) parent).addElement(node);
+      }
+    }
+  }
 }
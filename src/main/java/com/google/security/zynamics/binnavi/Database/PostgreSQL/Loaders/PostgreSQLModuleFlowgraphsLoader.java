@@ -21,6 +21,8 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,9 +30,11 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
 import com.google.security.zynamics.binnavi.Database.CConnection;
+import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
+import com.google.security.zynamics.binnavi.Database.cache.ModuleSnapshotCache;
 import com.google.security.zynamics.binnavi.Tagging.CTag;
 import com.google.security.zynamics.binnavi.Tagging.CTagManager;
 import com.google.security.zynamics.binnavi.disassembly.IFlowgraphView;
@@ -46,6 +50,15 @@ import com.google.security.zynamics.zylib.disassembly.ViewType;
  * This class provides queries that can be used to load information about module flow graph views.
  */
 public final class PostgreSQLModuleFlowgraphsLoader extends PostgreSQLModuleViewsLoader {
+  /**
+   * Loads the columns of the native views of a module that can change after the module was
+   * imported.
+   */
+  private static final String NATIVE_VIEWS_QUERY = "SELECT vt.id AS view_id, name, description, "
+      + "creation_date, modification_date, stared FROM " + CTableNames.VIEWS_TABLE + " AS vt JOIN "
+      + CTableNames.MODULE_VIEWS_TABLE + " AS mvt ON vt.id = mvt.view_id "
+      + " WHERE vt.type = 'native' AND mvt.module_id = ? ORDER BY vt.id";
+
   /**
    * Do not instantiate this class.
    */
@@ -124,7 +137,112 @@ public final class PostgreSQLModuleFlowgraphsLoader extends PostgreSQLModuleView
   public static ImmutableList<IFlowgraphView> loadNativeFlowgraphs(
       final AbstractSQLProvider provider, final CModule module, final CTagManager viewTagManager,
       final CTagManager nodeTagManager) throws CouldntLoadDataException {
-    return loadModuleFlowgraphs(provider, module, viewTagManager, nodeTagManager, ViewType.Native);
+    if (!ModuleSnapshotCache.instance().isEnabled()) {
+      return loadModuleFlowgraphs(provider, module, viewTagManager, nodeTagManager,
+          ViewType.Native);
+    }
+
+    final ImmutableList<IFlowgraphView> snapshotViews =
+        loadSnapshotFlowgraphs(provider, module, viewTagManager, nodeTagManager);
+
+    if (snapshotViews != null) {
+      return snapshotViews;
+    }
+
+    final ImmutableList<IFlowgraphView> views =
+        loadModuleFlowgraphs(provider, module, viewTagManager, nodeTagManager, ViewType.Native);
+
+    writeSnapshot(provider, module, views);
+
+    return views;
+  }
+
+  /**
+   * Loads the native flow graph views of a module with the help of the module snapshot. The node
+   * and edge counts of native views never change, so they are taken from the snapshot instead of
+   * being computed by the database.
+   * 
+   * @param provider The SQL provider that provides the connection.
+   * @param module The module from where the views are loaded.
+   * @param viewTagManager View tag manager that contains all view tags of the database.
+   * @param nodeTagManager The tag manager responsible for tagging view nodes.
+   * 
+   * @return The native flow graph views or null if there is no valid snapshot.
+   * 
+   * @throws CouldntLoadDataException Thrown if the views could not be loaded.
+   */
+  private static ImmutableList<IFlowgraphView> loadSnapshotFlowgraphs(
+      final AbstractSQLProvider provider, final CModule module, final CTagManager viewTagManager,
+      final CTagManager nodeTagManager) throws CouldntLoadDataException {
+    checkArguments(provider, module, viewTagManager);
+
+    final CConnection connection = provider.getConnection();
+    final Map<Integer, int[]> counts = ModuleSnapshotCache.instance().readViewCounts(
+        connection.getURL(), module.getConfiguration().getId(),
+        ModuleSnapshotCache.getStamp(module));
+
+    if (counts == null) {
+      return null;
+    }
+
+    try {
+      final PreparedStatement statement =
+          connection.getConnection().prepareStatement(NATIVE_VIEWS_QUERY);
+      statement.setInt(1, module.getConfiguration().getId());
+      final ResultSet resultSet = statement.executeQuery();
+
+      final Map<Integer, Set<CTag>> tags = loadTags(connection, module, viewTagManager);
+
+      final List<CView> views = processSnapshotResults(resultSet, module, tags, nodeTagManager,
+          provider, counts, ViewType.Native, GraphType.FLOWGRAPH);
+
+      return views == null ? null
+          : new ImmutableList.Builder<IFlowgraphView>().addAll(views).build();
+    } catch (final SQLException exception) {
+      throw new CouldntLoadDataException(exception);
+    }
+  }
+
+  /**
+   * Stores the node and edge counts of the native flow graph views of a module in the module
+   * snapshot. Native views that are not flow graphs are stored with negative counts, so that views
+   * unknown to the snapshot can be recognized.
+   * 
+   * @param provider The SQL provider that provides the connection.
+   * @param module The module the views belong to.
+   * @param views The native flow graph views of the module.
+   * 
+   * @throws CouldntLoadDataException Thrown if the native views could not be determined.
+   */
+  private static void writeSnapshot(final AbstractSQLProvider provider, final CModule module,
+      final List<IFlowgraphView> views) throws CouldntLoadDataException {
+    final CConnection connection = provider.getConnection();
+    final Map<Integer, int[]> counts = new HashMap<Integer, int[]>();
+
+    try {
+      final PreparedStatement statement =
+          connection.getConnection().prepareStatement(NATIVE_VIEWS_QUERY);
+      statement.setInt(1, module.getConfiguration().getId());
+      final ResultSet resultSet = statement.executeQuery();
+
+      try {
+        while (resultSet.next()) {
+          counts.put(resultSet.getInt("view_id"), new int[] {-1, -1});
+        }
+      } finally {
+        resultSet.close();
+      }
+    } catch (final SQLException exception) {
+      throw new CouldntLoadDataException(exception);
+    }
+
+    for (final IFlowgraphView view : views) {
+      counts.put(view.getConfiguration().getId(),
+          new int[] {view.getNodeCount(), view.getEdgeCount()});
+    }
+
+    ModuleSnapshotCache.instance().writeViewCounts(connection.getURL(),
+        module.getConfiguration().getId(), ModuleSnapshotCache.getStamp(module), counts);
   }
 
   public static ImmutableNaviViewConfiguration loadFlowGraphInformation(final SQLProvider provider,
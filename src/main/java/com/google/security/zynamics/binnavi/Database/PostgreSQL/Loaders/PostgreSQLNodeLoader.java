@@ -15,6 +15,7 @@ limitations under the License.
 */
 package com.google.security.zynamics.binnavi.Database.PostgreSQL.Loaders;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -23,7 +24,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
@@ -31,6 +34,7 @@ import com.google.security.zynamics.binnavi.Database.CConnection;
 import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CPartialLoadException;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
 import com.google.security.zynamics.binnavi.Tagging.CTag;
 import com.google.security.zynamics.binnavi.Tagging.CTagHelpers;
 import com.google.security.zynamics.binnavi.Tagging.CTagManager;
@@ -44,6 +48,17 @@ import com.google.security.zynamics.binnavi.disassembly.views.INaviView;
  * Contains code for loading the nodes of a view.
  */
 public final class PostgreSQLNodeLoader {
+  /**
+   * Orders view nodes by their IDs.
+   */
+  private static final Comparator<INaviViewNode> NODE_ID_COMPARATOR =
+      new Comparator<INaviViewNode>() {
+        @Override
+        public int compare(final INaviViewNode lhs, final INaviViewNode rhs) {
+          return lhs.getId() - rhs.getId();
+        }
+      };
+
   /**
    * Do not instantiate this class.
    */
@@ -142,12 +157,7 @@ public final class PostgreSQLNodeLoader {
     // TODO: sp has said this sometime in the past without any reasoning why
     // therefore this has to be checked and understood otherwise this code is just
     // burning cycles.
-    Collections.sort(nodes, new Comparator<INaviViewNode>() {
-      @Override
-      public int compare(final INaviViewNode lhs, final INaviViewNode rhs) {
-        return lhs.getId() - rhs.getId();
-      }
-    });
+    Collections.sort(nodes, NODE_ID_COMPARATOR);
 
     final CConnection connection = provider.getConnection();
 
@@ -157,4 +167,83 @@ public final class PostgreSQLNodeLoader {
 
     return nodes;
   }
+
+  /**
+   * Loads the view nodes of several views. Every kind of node is loaded with one query for all
+   * views, so the number of round trips does not depend on the number of views.
+   * 
+   * @param provider The connection to the database.
+   * @param viewIds The IDs of the views whose nodes are loaded.
+   * @param modules All modules that belong to the database.
+   * @param nodeTagManager Tag manager responsible for tagging the nodes of the views.
+   * 
+   * @return Maps the IDs of the views to their loaded nodes, ordered by node ID.
+   * 
+   * @throws SQLException Thrown of loading the nodes failed.
+   * @throws CPartialLoadException Thrown if loading the nodes failed because a necessary module was
+   *         not loaded.
+   * @throws CouldntLoadDataException
+   */
+  public static Map<Integer, List<INaviViewNode>> loadNodes(final AbstractSQLProvider provider,
+      final Collection<Integer> viewIds, final List<INaviModule> modules,
+      final CTagManager nodeTagManager)
+      throws SQLException, CPartialLoadException, CouldntLoadDataException {
+    final Map<Integer, List<INaviViewNode>> viewNodes = new HashMap<Integer, List<INaviViewNode>>();
+
+    for (final Integer viewId : viewIds) {
+      viewNodes.put(viewId, new ArrayList<INaviViewNode>());
+    }
+
+    if (viewIds.isEmpty()) {
+      return viewNodes;
+    }
+
+    final CConnection connection = provider.getConnection();
+
+    // The view membership and group structure of all nodes is read once up front; it is needed to
+    // split the nodes of the individual node queries between the views.
+    final Map<Integer, Integer> nodeToView = new HashMap<Integer, Integer>();
+    final Map<Integer, Integer> parents = new LinkedHashMap<Integer, Integer>();
+
+    final String query = "SELECT id, view_id, parent_id FROM " + CTableNames.NODES_TABLE
+        + " WHERE view_id = ANY(?) ORDER BY id";
+
+    try (PreparedStatement statement = connection.getConnection().prepareStatement(query)) {
+      statement.setArray(1, PostgreSQLHelpers.createIdArray(connection, viewIds));
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          final int nodeId = resultSet.getInt("id");
+          nodeToView.put(nodeId, resultSet.getInt("view_id"));
+
+          final int parentId = resultSet.getInt("parent_id");
+          if (!resultSet.wasNull()) {
+            parents.put(nodeId, parentId);
+          }
+        }
+      }
+    }
+
+    final List<INaviViewNode> nodes = new ArrayList<INaviViewNode>(nodeToView.size());
+
+    PostgreSQLGroupNodeLoader.load(provider, viewIds, nodes);
+    PostgreSQLFunctionNodeLoader.load(provider, viewIds, nodes);
+    PostgreSQLCodeNodeLoader.load(provider, viewIds, nodes, modules);
+    PostgreSQLTextNodeLoader.load(provider, viewIds, nodes);
+
+    // See loadNodes for a single view for why the order of the nodes matters.
+    Collections.sort(nodes, NODE_ID_COMPARATOR);
+
+    final Map<Integer, INaviViewNode> nodeLookup = new HashMap<Integer, INaviViewNode>();
+    for (final INaviViewNode node : nodes) {
+      nodeLookup.put(node.getId(), node);
+      viewNodes.get(nodeToView.get(node.getId())).add(node);
+    }
+
+    PostgreSQLGroupNodeLoader.setupGroupNodes(nodeLookup, parents);
+
+    loadNodeTags(connection, nodes, nodeTagManager);
+
+    return viewNodes;
+  }
 }
@@ -20,6 +20,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -31,6 +33,7 @@ import com.google.common.base.Preconditions;
 import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
 import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Functions.PostgreSQLCommentFunctions;
 import com.google.security.zynamics.binnavi.Gui.GraphWindows.CommentDialogs.Interfaces.IComment;
 import com.google.security.zynamics.binnavi.Tagging.CTag;
@@ -65,12 +68,31 @@ public final class PostgreSQLTextNodeLoader {
     Preconditions.checkNotNull(view, "IE02517: view argument can not be null");
     Preconditions.checkNotNull(nodes, "IE02518: nodes argument can not be null");
 
+    load(provider, Collections.singletonList(view.getConfiguration().getId()), nodes);
+  }
+
+  /**
+   * Loads the text nodes of several views with a single query.
+   * 
+   * @param provider The connection to the database.
+   * @param viewIds The IDs of the views whose text nodes are loaded.
+   * @param nodes The loaded nodes are stored here.
+   * 
+   * @throws CouldntLoadDataException
+   */
+  public static void load(final AbstractSQLProvider provider, final Collection<Integer> viewIds,
+      final List<INaviViewNode> nodes) throws CouldntLoadDataException {
+
+    Preconditions.checkNotNull(provider, "IE03440: provider argument can not be null");
+    Preconditions.checkNotNull(viewIds, "IE03441: viewIds argument can not be null");
+    Preconditions.checkNotNull(nodes, "IE03442: nodes argument can not be null");
+
     final Map<Integer, INaviTextNode> commentIdToTextNode = new HashMap<Integer, INaviTextNode>();
 
     final String query =
         "SELECT id, comment_id, x, y, width, height, color, selected, visible " + " FROM "
             + CTableNames.NODES_TABLE + " JOIN " + CTableNames.TEXT_NODES_TABLE
-            + " ON id = node_id " + " WHERE view_id = " + view.getConfiguration().getId();
+            + " ON id = node_id " + " WHERE view_id = ANY(?)";
 
     // TODO (timkornau): the SQL code in here needs to go into a stored procedure in the
     // database. Also the commentId code has to be checked again and other conditions need to be
@@ -79,6 +101,7 @@ public final class PostgreSQLTextNodeLoader {
     try {
       final PreparedStatement statement =
           provider.getConnection().getConnection().prepareStatement(query);
+      statement.setArray(1, PostgreSQLHelpers.createIdArray(provider.getConnection(), viewIds));
 
       final ResultSet resultSet = statement.executeQuery();
 
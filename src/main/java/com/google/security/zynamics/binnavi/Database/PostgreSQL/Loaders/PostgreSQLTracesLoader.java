@@ -21,12 +21,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
 import com.google.security.zynamics.binnavi.Database.CConnection;
 import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLStreamingQuery;
 import com.google.security.zynamics.binnavi.debug.models.breakpoints.BreakpointAddress;
 import com.google.security.zynamics.binnavi.debug.models.trace.TraceEvent;
 import com.google.security.zynamics.binnavi.debug.models.trace.TraceList;
@@ -42,6 +42,11 @@ import com.google.security.zynamics.zylib.types.lists.IFilledList;
  * Contains functions for working with traces in the database.
  */
 public final class PostgreSQLTracesLoader {
+  /**
+   * Number of loaded events that are added to a trace list at once.
+   */
+  private static final int PAGE_SIZE = PostgreSQLStreamingQuery.FETCH_SIZE;
+
   /**
    * Do not instantiate this class.
    */
@@ -69,7 +74,9 @@ public final class PostgreSQLTracesLoader {
   }
 
   /**
-   * Loads the trace events of a trace list from the database.
+   * Loads the trace events of a trace list from the database. Events and their register values are
+   * streamed from the server with a single query and added to the trace list page by page, so the
+   * rows of a long trace never have to be held in memory at once.
    *
    * @param connection The connection to the database.
    * @param traceList The trace list whose events are loaded.
@@ -79,88 +86,72 @@ public final class PostgreSQLTracesLoader {
    */
   private static void loadTraceEvents(final CConnection connection, final TraceList traceList,
       final List<? extends INaviModule> modules) throws SQLException {
-    final List<List<TraceRegister>> values = loadTraceEventValues(connection, traceList);
-
-    final String query = "select tid, module_id, address, type from "
-        + CTableNames.TRACE_EVENT_TABLE + " where trace_id = " + traceList.getId()
-        + " order by position asc";
+    final String query = "SELECT e.position, e.tid, e.module_id, e.address, e.type, "
+        + "v.register_name, v.register_value, v.memory_value FROM "
+        + CTableNames.TRACE_EVENT_TABLE + " AS e LEFT JOIN "
+        + CTableNames.TRACE_EVENT_VALUES_TABLE
+        + " AS v ON v.trace_id = e.trace_id AND v.position = e.position"
+        + " WHERE e.trace_id = ? ORDER BY e.position";
+
+    try (PostgreSQLStreamingQuery streamingQuery =
+        new PostgreSQLStreamingQuery(connection, query)) {
+      streamingQuery.getStatement().setInt(1, traceList.getId());
+
+      try (ResultSet resultSet = streamingQuery.execute()) {
+        final List<TraceEvent> page = new ArrayList<>(PAGE_SIZE);
+
+        int currentPosition = -1;
+        long tid = 0;
+        BreakpointAddress address = null;
+        TraceEventType type = null;
+        List<TraceRegister> registers = new ArrayList<>();
 
-    final ResultSet resultSet = connection.executeQuery(query, true);
-
-    int counter = 0;
-
-    try {
-      while (resultSet.next()) {
-        final long tid = resultSet.getLong("tid");
-
-        final int moduleId = resultSet.getInt("module_id");
-        final INaviModule module = resultSet.wasNull() ? null : findModule(modules, moduleId);
-
-        final BreakpointAddress address = new BreakpointAddress(module,
-            new UnrelocatedAddress(PostgreSQLHelpers.loadAddress(resultSet, "address")));
-        final int event = resultSet.getInt("type");
+        while (resultSet.next()) {
+          final int position = resultSet.getInt("position");
 
-        traceList.addEvent(new TraceEvent(tid, address, TraceEventType.parseInt(event),
-            values.isEmpty() ? new ArrayList<TraceRegister>() : values.get(counter)));
-        counter++;
-      }
-    } finally {
-      resultSet.close();
-    }
-  }
+          if (position != currentPosition) {
+            if (address != null) {
+              page.add(new TraceEvent(tid, address, type, registers));
 
-  /**
-   * Loads the event values of a trace from the database.
-   *
-   * @param connection Connection to the database.
-   * @param traceList The trace to load.
-   *
-   * @return The event values.
-   *
-   * @throws SQLException Thrown if the values could not be loaded.
-   */
-  private static List<List<TraceRegister>> loadTraceEventValues(final CConnection connection,
-      final TraceList traceList) throws SQLException {
-    final List<List<TraceRegister>> values = new ArrayList<>();
+              if (page.size() == PAGE_SIZE) {
+                traceList.addEvents(page);
+                page.clear();
+              }
+            }
 
-    final String query = "select position, register_name, register_value, memory_value from "
-        + CTableNames.TRACE_EVENT_VALUES_TABLE + " where trace_id = " + traceList.getId()
-        + " order by position asc";
+            currentPosition = position;
+            tid = resultSet.getLong("tid");
 
-    final ResultSet resultSet = connection.executeQuery(query, true);
+            final int moduleId = resultSet.getInt("module_id");
+            final INaviModule module =
+                resultSet.wasNull() ? null : findModule(modules, moduleId);
 
-    int currentPosition = -1;
+            address = new BreakpointAddress(module,
+                new UnrelocatedAddress(PostgreSQLHelpers.loadAddress(resultSet, "address")));
+            type = TraceEventType.parseInt(resultSet.getInt("type"));
+            registers = new ArrayList<>();
+          }
 
-    try {
-      List<TraceRegister> registers = new ArrayList<TraceRegister>();
+          final String name = PostgreSQLHelpers.readString(resultSet, "register_name");
 
-      while (resultSet.next()) {
-        final int position = resultSet.getInt("position");
+          // Events without register values are joined with a single row of nulls.
+          if (name != null) {
+            final long value = resultSet.getLong("register_value");
+            final byte[] memory = resultSet.getBytes("memory_value");
 
-        if (position != currentPosition) {
-          if (!registers.isEmpty()) {
-            values.add(Lists.newArrayList(registers));
-            registers = new FilledList<TraceRegister>();
+            registers.add(new TraceRegister(name, new CAddress(value), memory));
           }
-
-          currentPosition = position;
         }
 
-        final String name = PostgreSQLHelpers.readString(resultSet, "register_name");
-        final long value = resultSet.getLong("register_value");
-        final byte[] memory = resultSet.getBytes("memory_value");
-
-        registers.add(new TraceRegister(name, new CAddress(value), memory));
-      }
+        if (address != null) {
+          page.add(new TraceEvent(tid, address, type, registers));
+        }
 
-      if (!registers.isEmpty()) {
-        values.add(Lists.newArrayList(registers));
+        if (!page.isEmpty()) {
+          traceList.addEvents(page);
+        }
       }
-    } finally {
-      resultSet.close();
     }
-
-    return values;
   }
 
   /**
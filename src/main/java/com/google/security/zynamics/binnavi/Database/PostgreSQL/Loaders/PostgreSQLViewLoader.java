@@ -16,7 +16,12 @@ limitations under the License.
 package com.google.security.zynamics.binnavi.Database.PostgreSQL.Loaders;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import com.google.common.base.Preconditions;
 import com.google.security.zynamics.binnavi.Database.AbstractSQLProvider;
@@ -90,13 +95,17 @@ public final class PostgreSQLViewLoader {
     checkArguments(provider, view, list, nodeTagManager);
 
     try {
+      final long nodesStart = System.nanoTime();
       final List<INaviViewNode> nodes =
           PostgreSQLNodeLoader.loadNodes(provider, view, list, nodeTagManager);
 
+      NodeCache.get(provider).recordLoad(System.nanoTime() - nodesStart);
       NodeCache.get(provider).addNodes(nodes);
 
+      final long edgesStart = System.nanoTime();
       final List<INaviEdge> edges = PostgreSQLEdgeLoader.loadEdges(provider, view, nodes);
 
+      EdgeCache.get(provider).recordLoad(System.nanoTime() - edgesStart);
       EdgeCache.get(provider).addEdges(edges);
 
       return new MutableDirectedGraph<INaviViewNode, INaviEdge>(nodes, edges);
@@ -104,4 +113,75 @@ public final class PostgreSQLViewLoader {
       throw new CouldntLoadDataException(exception);
     }
   }
+
+  /**
+   * Loads the graphs of several views from the database. Nodes, edges, tags and comments of all
+   * views are loaded with a fixed number of set-based queries and the node and edge caches are
+   * filled once for all views.
+   * 
+   * @param provider The SQL provider that provides the connection.
+   * @param views The views to load.
+   * @param list A list of all modules that are part of the database.
+   * @param nodeTagManager Node tag manager of the database.
+   * 
+   * @return Maps the views to their graphs, in the order of the views argument.
+   * 
+   * @throws CouldntLoadDataException Thrown if the graphs of the views could not be loaded.
+   * @throws CPartialLoadException Thrown if the graphs could not be loaded because not all required
+   *         modules are loaded.
+   */
+  public static Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> loadViews(
+      final AbstractSQLProvider provider, final Collection<? extends INaviView> views,
+      final List<INaviModule> list, final CTagManager nodeTagManager)
+      throws CouldntLoadDataException, CPartialLoadException {
+    Preconditions.checkNotNull(views, "IE03449: Views argument can not be null");
+
+    final Map<Integer, INaviView> idToView = new LinkedHashMap<Integer, INaviView>();
+
+    for (final INaviView view : views) {
+      checkArguments(provider, view, list, nodeTagManager);
+      idToView.put(view.getConfiguration().getId(), view);
+    }
+
+    final Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> graphs =
+        new LinkedHashMap<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>>();
+
+    if (idToView.isEmpty()) {
+      return graphs;
+    }
+
+    try {
+      final long nodesStart = System.nanoTime();
+      final Map<Integer, List<INaviViewNode>> nodes =
+          PostgreSQLNodeLoader.loadNodes(provider, idToView.keySet(), list, nodeTagManager);
+
+      final List<INaviViewNode> allNodes = new ArrayList<INaviViewNode>();
+      for (final List<INaviViewNode> viewNodes : nodes.values()) {
+        allNodes.addAll(viewNodes);
+      }
+
+      NodeCache.get(provider).recordLoad(System.nanoTime() - nodesStart);
+      NodeCache.get(provider).addNodes(allNodes);
+
+      final long edgesStart = System.nanoTime();
+      final Map<Integer, List<INaviEdge>> edges = PostgreSQLEdgeLoader.loadEdges(provider, nodes);
+
+      final List<INaviEdge> allEdges = new ArrayList<INaviEdge>();
+      for (final List<INaviEdge> viewEdges : edges.values()) {
+        allEdges.addAll(viewEdges);
+      }
+
+      EdgeCache.get(provider).recordLoad(System.nanoTime() - edgesStart);
+      EdgeCache.get(provider).addEdges(allEdges);
+
+      for (final Entry<Integer, INaviView> entry : idToView.entrySet()) {
+        graphs.put(entry.getValue(), new MutableDirectedGraph<INaviViewNode, INaviEdge>(
+            nodes.get(entry.getKey()), edges.get(entry.getKey())));
+      }
+
+      return graphs;
+    } catch (final SQLException exception) {
+      throw new CouldntLoadDataException(exception);
+    }
+  }
 }
@@ -19,6 +19,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -253,6 +254,68 @@ public class PostgreSQLViewsLoader {
     }
   }
 
+  /**
+   * Processes the results of a view loading query that does not compute the node and edge counts of
+   * the views. The counts are taken from a module snapshot instead.
+   * 
+   * @param resultSet Contains the results of the SQL query.
+   * @param module The module the views were loaded for.
+   * @param tags Map that contains the tags the views are tagged with.
+   * @param nodeTagManager Provides the node tags.
+   * @param provider The connection to the database.
+   * @param counts Maps view IDs to their node and edge counts. Views with negative counts are
+   *        skipped.
+   * @param viewType View type of the loaded views.
+   * @param graphType Graph type of the loaded views.
+   * 
+   * @return The loaded views or null if the snapshot does not know one of the loaded views.
+   * 
+   * @throws SQLException Thrown if the views could not be loaded.
+   */
+  protected static final List<CView> processSnapshotResults(final ResultSet resultSet,
+      final INaviModule module, final Map<Integer, Set<CTag>> tags,
+      final ITagManager nodeTagManager, final SQLProvider provider,
+      final Map<Integer, int[]> counts, final ViewType viewType, final GraphType graphType)
+      throws SQLException {
+    final Map<Integer, Set<CTag>> nodeTagMap =
+        getNodeTags(provider.getConnection(), module, nodeTagManager);
+    final List<CView> views = new ArrayList<CView>();
+
+    try {
+      while (resultSet.next()) {
+        final int viewId = resultSet.getInt("view_id");
+        final int[] viewCounts = counts.get(viewId);
+
+        if (viewCounts == null) {
+          return null;
+        }
+
+        if (viewCounts[0] < 0) {
+          continue;
+        }
+
+        final String name = PostgreSQLHelpers.readString(resultSet, "name");
+        final String description = PostgreSQLHelpers.readString(resultSet, "description");
+        final Timestamp creationDate = resultSet.getTimestamp("creation_date");
+        final Timestamp modificationDate = resultSet.getTimestamp("modification_date");
+        final boolean starState = resultSet.getBoolean("stared");
+
+        final Set<CTag> viewTags =
+            tags.containsKey(viewId) ? tags.get(viewId) : new HashSet<CTag>();
+        final Set<CTag> nodeTags =
+            nodeTagMap.containsKey(viewId) ? nodeTagMap.get(viewId) : new HashSet<CTag>();
+
+        final CModuleViewGenerator generator = new CModuleViewGenerator(provider, module);
+        views.add(generator.generate(viewId, name, description, viewType, graphType, creationDate,
+            modificationDate, viewCounts[0], viewCounts[1], viewTags, nodeTags, starState));
+      }
+
+      return views;
+    } finally {
+      resultSet.close();
+    }
+  }
+
   /**
    * Processes the results of a view loading query.
    * 
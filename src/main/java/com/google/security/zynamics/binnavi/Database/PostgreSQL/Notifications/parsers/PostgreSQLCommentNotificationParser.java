@@ -387,6 +387,9 @@ public class PostgreSQLCommentNotificationParser implements
     final ImmutableCollection<INaviEdge> edges = EdgeCache.get(provider).getEdgeBySourceAndTarget(
         notificationEdgeSourceAddress, notificationSourceModuleId,
         notificationEdgeDestinationAddress, notificationDestinationModuleId);
+    if (edges == null) {
+      return notifications;
+    }
     for (INaviEdge edge : edges) {
       notifications.add(
           new EdgeCommentNotificationContainer(edge, operation, CommentScope.GLOBAL, commentId));
@@ -0,0 +1,357 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.PostgreSQL;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.binnavi.Database.CConnection;
+import com.google.security.zynamics.zylib.disassembly.IAddress;
+
+/**
+ * Writes rows into a table with a single binary COPY FROM STDIN command. This is a lot faster than
+ * batched INSERT statements because the rows are neither parsed nor planned individually.
+ *
+ * Rows are started with {@link #startRow()} and then filled with exactly one value per column in
+ * the order of the columns passed to the constructor. The values must match the binary wire
+ * format of the column types: int4 for {@link #writeInt(int)}, int8 for {@link #writeLong(long)},
+ * float8 for {@link #writeDouble(double)}, bool for {@link #writeBoolean(boolean)}, bytea for
+ * {@link #writeBytes(byte[])} and text or enumeration types for {@link #writeText(String)}.
+ */
+public final class PostgreSQLCopyWriter implements AutoCloseable {
+  /**
+   * Signature, flags and header extension length that start every binary COPY stream.
+   */
+  private static final byte[] HEADER =
+      {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+  /**
+   * Number of buffered bytes that are sent to the server at once.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * The COPY operation that receives the data.
+   */
+  private final CopyIn m_copyIn;
+
+  /**
+   * Number of columns of each row.
+   */
+  private final int m_columnCount;
+
+  /**
+   * Buffers data before it is sent to the server.
+   */
+  private final ByteBuffer m_buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  /**
+   * Number of values written to the current row.
+   */
+  private int m_rowValues;
+
+  /**
+   * Number of rows written so far.
+   */
+  private long m_rows = 0;
+
+  /**
+   * Flag that says whether the COPY operation was finished.
+   */
+  private boolean m_finished = false;
+
+  /**
+   * Starts a new binary COPY into a table.
+   *
+   * @param connection The connection to the database.
+   * @param table The name of the table the rows are written to.
+   * @param columns The columns that are written for each row.
+   *
+   * @throws SQLException Thrown if the COPY operation could not be started.
+   */
+  public PostgreSQLCopyWriter(final CConnection connection, final String table,
+      final String... columns) throws SQLException {
+    this(connection.getConnection().unwrap(PGConnection.class).getCopyAPI().copyIn(
+        "COPY " + table + " (" + Joiner.on(", ").join(columns) + ") FROM STDIN BINARY"),
+        columns.length);
+  }
+
+  /**
+   * Creates a writer for an already started binary COPY operation.
+   *
+   * @param copyIn The COPY operation that receives the data.
+   * @param columnCount Number of columns of each row.
+   */
+  PostgreSQLCopyWriter(final CopyIn copyIn, final int columnCount) {
+    Preconditions.checkArgument(columnCount > 0, "Error: columnCount must be positive");
+    m_copyIn = Preconditions.checkNotNull(copyIn, "Error: copyIn argument can not be null");
+    m_columnCount = columnCount;
+    m_rowValues = columnCount;
+    m_buffer.put(HEADER);
+  }
+
+  /**
+   * Reserves a number of IDs from a sequence.
+   *
+   * @param connection The connection to the database.
+   * @param sequence Name of the sequence.
+   * @param count Number of IDs to reserve.
+   *
+   * @return The reserved IDs.
+   *
+   * @throws SQLException Thrown if the IDs could not be reserved.
+   */
+  public static int[] reserveIds(final CConnection connection, final String sequence,
+      final int count) throws SQLException {
+    final int[] ids = new int[count];
+
+    if (count == 0) {
+      return ids;
+    }
+
+    try (Statement statement = connection.getConnection().createStatement();
+        ResultSet resultSet = statement.executeQuery(String.format(
+            "SELECT nextval('%s') FROM generate_series(1, %d)", sequence, count))) {
+      for (int i = 0; i < count; i++) {
+        Preconditions.checkState(resultSet.next(), "Error: Sequence returned too few IDs");
+        ids[i] = resultSet.getInt(1);
+      }
+    }
+
+    return ids;
+  }
+
+  /**
+   * Sends the buffered data to the server.
+   *
+   * @throws SQLException Thrown if the data could not be sent.
+   */
+  private void flush() throws SQLException {
+    if (m_buffer.position() != 0) {
+      m_copyIn.writeToCopy(m_buffer.array(), 0, m_buffer.position());
+      m_buffer.clear();
+    }
+  }
+
+  /**
+   * Writes a variable length value. Values that do not fit into the buffer are sent directly.
+   *
+   * @param data The binary representation of the value.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  private void writeData(final byte[] data) throws SQLException {
+    prepareValue(data.length);
+
+    if (data.length + 4 > m_buffer.capacity()) {
+      m_buffer.putInt(data.length);
+      flush();
+      m_copyIn.writeToCopy(data, 0, data.length);
+    } else {
+      m_buffer.putInt(data.length).put(data);
+    }
+  }
+
+  /**
+   * Makes sure there is enough space in the buffer for the next value.
+   *
+   * @param length Number of bytes of the next value.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  private void prepareValue(final int length) throws SQLException {
+    Preconditions.checkState(m_rowValues < m_columnCount,
+        "Error: Too many values for the current row");
+    m_rowValues++;
+
+    if (m_buffer.remaining() < length + 4) {
+      flush();
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (!m_finished && m_copyIn.isActive()) {
+      m_copyIn.cancelCopy();
+    }
+  }
+
+  /**
+   * Finishes the COPY operation.
+   *
+   * @return The number of rows written.
+   *
+   * @throws SQLException Thrown if the rows could not be written.
+   */
+  public long finish() throws SQLException {
+    Preconditions.checkState(m_rowValues == m_columnCount,
+        "Error: Last row is missing values");
+
+    if (m_buffer.remaining() < 2) {
+      flush();
+    }
+
+    m_buffer.putShort((short) -1);
+    flush();
+    m_finished = true;
+    m_copyIn.endCopy();
+    return m_rows;
+  }
+
+  /**
+   * Starts a new row.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void startRow() throws SQLException {
+    Preconditions.checkState(!m_finished, "Error: COPY operation was already finished");
+    Preconditions.checkState(m_rowValues == m_columnCount,
+        "Error: Previous row is missing values");
+
+    if (m_buffer.remaining() < 2) {
+      flush();
+    }
+
+    m_buffer.putShort((short) m_columnCount);
+    m_rowValues = 0;
+    m_rows++;
+  }
+
+  /**
+   * Writes a boolean value.
+   *
+   * @param value The value to write.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void writeBoolean(final boolean value) throws SQLException {
+    prepareValue(1);
+    m_buffer.putInt(1).put((byte) (value ? 1 : 0));
+  }
+
+  /**
+   * Writes a bytea value.
+   *
+   * @param value The value to write.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void writeBytes(final byte[] value) throws SQLException {
+    if (value == null) {
+      writeNull();
+    } else {
+      writeData(value);
+    }
+  }
+
+  /**
+   * Writes a double precision value.
+   *
+   * @param value The value to write.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void writeDouble(final double value) throws SQLException {
+    prepareValue(8);
+    m_buffer.putInt(8).putDouble(value);
+  }
+
+  /**
+   * Writes an integer value.
+   *
+   * @param value The value to write.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void writeInt(final int value) throws SQLException {
+    prepareValue(4);
+    m_buffer.putInt(4).putInt(value);
+  }
+
+  /**
+   * Writes an integer value that might be null.
+   *
+   * @param value The value to write.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void writeInteger(final Integer value) throws SQLException {
+    if (value == null) {
+      writeNull();
+    } else {
+      writeInt(value);
+    }
+  }
+
+  /**
+   * Writes an address as a bigint value. Addresses at or above 2^63 are stored as negative values,
+   * which is how the address columns hold 64-bit addresses.
+   *
+   * @param address The address to write.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void writeAddress(final IAddress address) throws SQLException {
+    Preconditions.checkNotNull(address, "IE03499: Address argument can not be null");
+    writeLong(address.toLong());
+  }
+
+  /**
+   * Writes a bigint value.
+   *
+   * @param value The value to write.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void writeLong(final long value) throws SQLException {
+    prepareValue(8);
+    m_buffer.putInt(8).putLong(value);
+  }
+
+  /**
+   * Writes a SQL NULL value.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void writeNull() throws SQLException {
+    prepareValue(0);
+    m_buffer.putInt(-1);
+  }
+
+  /**
+   * Writes a text value. This is also used for values of enumeration types.
+   *
+   * @param value The value to write.
+   *
+   * @throws SQLException Thrown if buffered data could not be sent.
+   */
+  public void writeText(final String value) throws SQLException {
+    if (value == null) {
+      writeNull();
+      return;
+    }
+
+    writeData(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
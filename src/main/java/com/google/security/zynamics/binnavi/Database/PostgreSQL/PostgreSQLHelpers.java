@@ -30,10 +30,12 @@ import com.google.security.zynamics.zylib.types.lists.FilledList;
 import com.google.security.zynamics.zylib.types.lists.IFilledList;
 
 import java.math.BigInteger;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -115,6 +117,43 @@ public class PostgreSQLHelpers {
     }
   }
 
+  /**
+   * Creates a SQL integer array that can be bound to <code>= ANY(?)</code> parameters.
+   *
+   * @param connection The connection to the database.
+   * @param ids The IDs that make up the array.
+   *
+   * @return The created array.
+   *
+   * @throws SQLException Thrown if the array could not be created.
+   */
+  public static Array createIdArray(final CConnection connection, final Collection<Integer> ids)
+      throws SQLException {
+    Preconditions.checkNotNull(connection, "IE03432: Connection argument can not be null");
+    Preconditions.checkNotNull(ids, "IE03433: IDs argument can not be null");
+
+    return createIdArray(connection.getConnection(), ids);
+  }
+
+  /**
+   * Creates a SQL integer array on a specific JDBC connection. Arrays must be created on the
+   * connection of the statement they are bound to.
+   *
+   * @param connection The JDBC connection the array is bound on.
+   * @param ids The IDs that make up the array.
+   *
+   * @return The created array.
+   *
+   * @throws SQLException Thrown if the array could not be created.
+   */
+  public static Array createIdArray(final Connection connection, final Collection<Integer> ids)
+      throws SQLException {
+    Preconditions.checkNotNull(connection, "IE03496: Connection argument can not be null");
+    Preconditions.checkNotNull(ids, "IE03497: IDs argument can not be null");
+
+    return connection.createArrayOf("int4", ids.toArray(new Integer[ids.size()]));
+  }
+
   /**
    * Deletes a table from the database.
    *
@@ -0,0 +1,168 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.PostgreSQL;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.binnavi.Database.CConnection;
+import com.google.security.zynamics.binnavi.Database.CConnectionPool;
+import com.google.security.zynamics.binnavi.Log.NaviLogger;
+
+/**
+ * Query whose result rows are streamed from the database server in batches.
+ *
+ * The PostgreSQL driver only uses a server side cursor for forward-only statements with a fetch
+ * size that are executed inside a transaction. Otherwise it materializes the complete result in
+ * memory before the first row can be read.
+ *
+ * The query therefore always runs on a pooled connection that it leases for its lifetime, never on
+ * the primary connection that other threads share. If the thread already holds a lease, the query
+ * runs on the leased connection. If that connection is in auto commit mode when the query is
+ * created, the query opens a transaction of its own and finishes it when it is closed.
+ */
+public final class PostgreSQLStreamingQuery implements AutoCloseable {
+  /**
+   * Number of rows fetched from the server per round trip.
+   */
+  public static final int FETCH_SIZE = 1000;
+
+  /**
+   * Lease of the pooled connection the query is executed on.
+   */
+  private final CConnectionPool.Lease m_lease;
+
+  /**
+   * The connection the query is executed on.
+   */
+  private final Connection m_connection;
+
+  /**
+   * The prepared query.
+   */
+  private final PreparedStatement m_statement;
+
+  /**
+   * Flag that says whether the query opened the transaction it runs in.
+   */
+  private final boolean m_ownsTransaction;
+
+  /**
+   * Creates a new streaming query.
+   *
+   * @param connection The connection whose pool provides the connection the query is executed on.
+   * @param query The SQL query.
+   *
+   * @throws SQLException Thrown if the query could not be prepared or if the thread was interrupted
+   *         while waiting for a pooled connection.
+   */
+  public PostgreSQLStreamingQuery(final CConnection connection, final String query)
+      throws SQLException {
+    Preconditions.checkNotNull(connection, "Error: connection argument can not be null");
+    Preconditions.checkNotNull(query, "Error: query argument can not be null");
+
+    try {
+      m_lease = connection.lease();
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a pooled connection", exception);
+    }
+
+    m_connection = m_lease.getConnection();
+
+    boolean ownsTransaction = false;
+    try {
+      ownsTransaction = m_connection.getAutoCommit();
+
+      if (ownsTransaction) {
+        m_connection.setAutoCommit(false);
+      }
+    } catch (final SQLException exception) {
+      m_lease.close();
+      throw exception;
+    }
+    m_ownsTransaction = ownsTransaction;
+
+    try {
+      m_statement = m_connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY);
+      m_statement.setFetchSize(FETCH_SIZE);
+    } catch (final SQLException exception) {
+      finish();
+      throw exception;
+    }
+  }
+
+  /**
+   * Ends the transaction opened by this query and hands the leased connection back to the pool.
+   * Since the query only reads data, the transaction is rolled back which also works if a statement
+   * of the transaction failed.
+   */
+  private void finish() {
+    try {
+      if (m_ownsTransaction) {
+        m_connection.rollback();
+        m_connection.setAutoCommit(true);
+      }
+    } catch (final SQLException exception) {
+      NaviLogger.severe("Error: Could not end the transaction of a streaming query: %s",
+          exception);
+    } finally {
+      m_lease.close();
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    try {
+      m_statement.close();
+    } finally {
+      finish();
+    }
+  }
+
+  /**
+   * Executes the query.
+   *
+   * @return The forward-only result set of the query.
+   *
+   * @throws SQLException Thrown if the query could not be executed.
+   */
+  public ResultSet execute() throws SQLException {
+    return m_statement.executeQuery();
+  }
+
+  /**
+   * Returns the pooled connection the query is executed on.
+   *
+   * @return The leased connection.
+   */
+  public Connection getConnection() {
+    return m_connection;
+  }
+
+  /**
+   * Returns the prepared statement of the query. This is used to set query parameters.
+   *
+   * @return The prepared statement.
+   */
+  public PreparedStatement getStatement() {
+    return m_statement;
+  }
+}
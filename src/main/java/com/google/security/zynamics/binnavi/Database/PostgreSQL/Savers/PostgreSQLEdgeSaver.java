@@ -15,22 +15,24 @@ limitations under the License.
 */
 package com.google.security.zynamics.binnavi.Database.PostgreSQL.Savers;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
 import java.util.List;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
-import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.Database.CConnection;
 import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLCopyWriter;
 import com.google.security.zynamics.binnavi.disassembly.INaviEdge;
 import com.google.security.zynamics.zylib.gui.zygraph.edges.CBend;
 
 public final class PostgreSQLEdgeSaver {
+  /**
+   * Sequence that provides the IDs of new edges.
+   */
+  private static final String EDGES_SEQUENCE = CTableNames.EDGES_TABLE + "_id_seq";
+
   /**
    * You are not supposed to instantiate this class.
    */
@@ -39,7 +41,8 @@ public final class PostgreSQLEdgeSaver {
   }
 
   /**
-   * Writes the data from the edge objects to the edges table.
+   * Writes the data from the edge objects to the edges table. The IDs of the edges are reserved
+   * from the edge ID sequence and assigned to the edge objects.
    * 
    * @param connection Connection to a PostgreSQL database.
    * @param edges The edges to write.
@@ -48,53 +51,31 @@ public final class PostgreSQLEdgeSaver {
    */
   private static void fillEdgesTable(final CConnection connection, final List<INaviEdge> edges)
       throws SQLException {
+    final int[] ids = PostgreSQLCopyWriter.reserveIds(connection, EDGES_SEQUENCE, edges.size());
 
-    final String query =
-        "INSERT INTO " + CTableNames.EDGES_TABLE
-            + "(source_node_id, target_node_id, x1, y1, x2, y2, type, "
-            + "color, visible, selected, comment_id) VALUES "
-            + "( ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ";
-
-    final PreparedStatement preparedStatement =
-        connection.getConnection().prepareStatement(query, PreparedStatement.RETURN_GENERATED_KEYS);
-
-    try {
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(connection,
+        CTableNames.EDGES_TABLE, "id", "source_node_id", "target_node_id", "x1", "y1", "x2", "y2",
+        "type", "color", "visible", "selected", "comment_id")) {
+      int counter = 0;
       for (final INaviEdge edge : edges) {
-        preparedStatement.setInt(1, edge.getSource().getId());
-        preparedStatement.setInt(2, edge.getTarget().getId());
-        preparedStatement.setDouble(3, edge.getX1());
-        preparedStatement.setDouble(4, edge.getY1());
-        preparedStatement.setDouble(5, edge.getX2());
-        preparedStatement.setDouble(6, edge.getY2());
-        preparedStatement.setObject(7, edge.getType().toString().toLowerCase(), Types.OTHER);
-        preparedStatement.setInt(8, edge.getColor().getRGB());
-        preparedStatement.setBoolean(9, edge.isVisible());
-        preparedStatement.setBoolean(10, edge.isSelected());
-        if (edge.getLocalComment() == null) {
-          preparedStatement.setNull(11, Types.INTEGER);
-        } else {
-          preparedStatement.setInt(11, Iterables.getLast(edge.getLocalComment()).getId());
-        }
-
-        preparedStatement.addBatch();
+        edge.setId(ids[counter++]);
+
+        writer.startRow();
+        writer.writeInt(edge.getId());
+        writer.writeInt(edge.getSource().getId());
+        writer.writeInt(edge.getTarget().getId());
+        writer.writeDouble(edge.getX1());
+        writer.writeDouble(edge.getY1());
+        writer.writeDouble(edge.getX2());
+        writer.writeDouble(edge.getY2());
+        writer.writeText(edge.getType().toString().toLowerCase());
+        writer.writeInt(edge.getColor().getRGB());
+        writer.writeBoolean(edge.isVisible());
+        writer.writeBoolean(edge.isSelected());
+        writer.writeInteger(edge.getLocalComment() == null ? null
+            : Iterables.getLast(edge.getLocalComment()).getId());
       }
-      preparedStatement.executeBatch();
-
-      final ResultSet resultSet = preparedStatement.getGeneratedKeys();
-
-      for (final INaviEdge edge : edges) {
-        if (resultSet.next()) {
-          edge.setId(resultSet.getInt(1));
-        } else {
-          throw new IllegalStateException(
-              "Error: The number of keys generated does not match the number of edges");
-        }
-      }
-    } catch (final SQLException exception) {
-      CUtilityFunctions.logException(exception);
-      CUtilityFunctions.logException(exception.getNextException());
-    } finally {
-      preparedStatement.close();
+      writer.finish();
     }
   }
 
@@ -108,29 +89,19 @@ public final class PostgreSQLEdgeSaver {
    */
   protected static void fillEdgepathsTable(final CConnection connection, final List<INaviEdge> edges)
       throws SQLException {
-    final String query =
-        "INSERT INTO " + CTableNames.EDGE_PATHS_TABLE
-            + "(edge_id, position, x, y) VALUES (?, ?, ?, ?)";
-
-    final PreparedStatement preparedStatement = connection.getConnection().prepareStatement(query);
-
-    try {
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(connection,
+        CTableNames.EDGE_PATHS_TABLE, "edge_id", "position", "x", "y")) {
       for (final INaviEdge edge : edges) {
+        int position = 0;
         for (final CBend bend : edge.getBends()) {
-          preparedStatement.setInt(1, edge.getId());
-          preparedStatement.setInt(2, edge.getBends().indexOf(bend));
-          preparedStatement.setDouble(3, bend.getX());
-          preparedStatement.setDouble(4, bend.getY());
-          preparedStatement.addBatch();
+          writer.startRow();
+          writer.writeInt(edge.getId());
+          writer.writeInt(position++);
+          writer.writeDouble(bend.getX());
+          writer.writeDouble(bend.getY());
         }
       }
-      preparedStatement.executeBatch();
-
-    } catch (final SQLException exception) {
-      CUtilityFunctions.logException(exception);
-      CUtilityFunctions.logException(exception.getNextException());
-    } finally {
-      preparedStatement.close();
+      writer.finish();
     }
   }
 
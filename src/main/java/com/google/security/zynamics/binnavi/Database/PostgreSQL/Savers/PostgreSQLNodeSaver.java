@@ -27,6 +27,7 @@ import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntSaveDataE
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Functions.PostgreSQLInstructionFunctions;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Functions.PostgreSQLNodeFunctions;
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLCopyWriter;
 import com.google.security.zynamics.binnavi.Exceptions.MaybeNullException;
 import com.google.security.zynamics.binnavi.Gui.GraphWindows.CommentDialogs.CComment;
 import com.google.security.zynamics.binnavi.Gui.GraphWindows.CommentDialogs.Interfaces.IComment;
@@ -43,10 +44,7 @@ import com.google.security.zynamics.binnavi.disassembly.INaviTextNode;
 import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
 import com.google.security.zynamics.zylib.general.Pair;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -59,6 +57,11 @@ public final class PostgreSQLNodeSaver {
   private static String GROUP = "group";
   private static String TEXT = "text";
 
+  /**
+   * Sequence that provides the IDs of new nodes.
+   */
+  private static final String NODES_SEQUENCE = CTableNames.NODES_TABLE + "_id_seq";
+
   /**
    * Class is only used to provide state less methods and thus should not be instantiated.
    */
@@ -70,6 +73,9 @@ public final class PostgreSQLNodeSaver {
    * store the indices into the nodes list for all node types. TODO: This method should probably be
    * split into two methods.
    *
+   * The IDs of the nodes are reserved from the node ID sequence and assigned to the node objects
+   * before the rows are written. This way the parent groups can be written together with the nodes.
+   *
    * @param provider Provides the connection to the database.
    * @param newViewId ID of the new view that is being saved.
    * @param nodes The nodes to save.
@@ -78,79 +84,58 @@ public final class PostgreSQLNodeSaver {
    * @param textNodeIndices Index into the nodes list that identifies the text nodes.
    * @param groupNodeIndices Index into the nodes list that identifies the group nodes.
    * @param groupNodeMap Maps between node IDs and group node objects.
-   * @return The ID of the first node saved to the database.
    * @throws SQLException Thrown if saving the nodes failed.
    */
-  private static int saveNodes(final AbstractSQLProvider provider, final int newViewId,
+  private static void saveNodes(final AbstractSQLProvider provider, final int newViewId,
       final List<INaviViewNode> nodes, final List<Integer> functionNodeIndices,
       final List<Integer> codeNodeIndices, final List<Integer> textNodeIndices,
       final List<Integer> groupNodeIndices, final BiMap<Integer, INaviGroupNode> groupNodeMap)
       throws SQLException {
+    final CConnection connection = provider.getConnection();
 
-    final String query =
-        "INSERT INTO " + CTableNames.NODES_TABLE
-            + "( view_id, parent_id, type, x, y, width, height, color, bordercolor, "
-            + " selected, visible) VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-    final PreparedStatement preparedStatement =
-        provider.getConnection().getConnection()
-            .prepareStatement(query, java.sql.Statement.RETURN_GENERATED_KEYS);
+    updateNodeIds(nodes, PostgreSQLCopyWriter.reserveIds(connection, NODES_SEQUENCE, nodes.size()));
+
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(connection,
+        CTableNames.NODES_TABLE, "id", "view_id", "parent_id", "type", "x", "y", "width", "height",
+        "color", "bordercolor", "selected", "visible")) {
+      int counter = 0;
+      for (final INaviViewNode node : nodes) {
+        String nodeType = null;
+
+        if (node instanceof CCodeNode) {
+          nodeType = CODE;
+          codeNodeIndices.add(counter);
+        } else if (node instanceof CFunctionNode) {
+          nodeType = FUNCTION;
+          functionNodeIndices.add(counter);
+        } else if (node instanceof INaviGroupNode) {
+          nodeType = GROUP;
+          groupNodeIndices.add(counter);
+          groupNodeMap.put(counter, (INaviGroupNode) node);
+        } else if (node instanceof CTextNode) {
+          nodeType = TEXT;
+          textNodeIndices.add(counter);
+        }
 
-    int counter = 0;
-    for (final INaviViewNode node : nodes) {
-      String nodeType = null;
-
-      if (node instanceof CCodeNode) {
-        nodeType = CODE;
-        codeNodeIndices.add(counter);
-      } else if (node instanceof CFunctionNode) {
-        nodeType = FUNCTION;
-        functionNodeIndices.add(counter);
-      } else if (node instanceof INaviGroupNode) {
-        nodeType = GROUP;
-        groupNodeIndices.add(counter);
-        groupNodeMap.put(counter, (INaviGroupNode) node);
-      } else if (node instanceof CTextNode) {
-        nodeType = TEXT;
-        textNodeIndices.add(counter);
+        counter++;
+
+        writer.startRow();
+        writer.writeInt(node.getId());
+        writer.writeInt(newViewId);
+        writer.writeInteger(node.getParentGroup() == null ? null : node.getParentGroup().getId());
+        writer.writeText(nodeType);
+        writer.writeDouble(node.getX());
+        writer.writeDouble(node.getY());
+        writer.writeDouble(node.getWidth());
+        writer.writeDouble(node.getHeight());
+        writer.writeInt(node.getColor().getRGB());
+        writer.writeInt(node.getBorderColor().getRGB());
+        writer.writeBoolean(node.isSelected());
+        writer.writeBoolean(node.isVisible());
       }
 
-      counter++;
-
-      preparedStatement.setInt(1, newViewId);
-      preparedStatement.setNull(2, Types.INTEGER);
-      preparedStatement.setObject(3, nodeType, Types.OTHER);
-      preparedStatement.setDouble(4, node.getX());
-      preparedStatement.setDouble(5, node.getY());
-      preparedStatement.setDouble(6, node.getWidth());
-      preparedStatement.setDouble(7, node.getHeight());
-      preparedStatement.setInt(8, node.getColor().getRGB());
-      preparedStatement.setInt(9, node.getBorderColor().getRGB());
-      preparedStatement.setBoolean(10, node.isSelected());
-      preparedStatement.setBoolean(11, node.isVisible());
-
-      preparedStatement.addBatch();
-
-    }
-
-    preparedStatement.executeBatch();
-
-    final ResultSet resultSet = preparedStatement.getGeneratedKeys();
-
-    int lastId = 0;
-    try {
-      while (resultSet.next()) {
-        if (resultSet.isFirst()) {
-          lastId = resultSet.getInt(1);
-          break;
-        }
-      }
-    } finally {
-      preparedStatement.close();
-      resultSet.close();
+      writer.finish();
     }
-
-    return lastId;
   }
 
   protected static void checkArguments(final AbstractSQLProvider provider, final int newViewId,
@@ -166,13 +151,12 @@ public final class PostgreSQLNodeSaver {
    *
    * @param provider The provider used to access the database.
    * @param nodes The nodes to save.
-   * @param firstNode The database index of the first node.
    * @param codeNodeIndices Index into the nodes list that identifies the code nodes.
    *
    * @throws SQLException Thrown if saving the code node instructions failed.
    */
   protected static ArrayList<Pair<INaviCodeNode, INaviInstruction>> saveCodeNodeInstructions(
-      final SQLProvider provider, final List<INaviViewNode> nodes, final int firstNode,
+      final SQLProvider provider, final List<INaviViewNode> nodes,
       final List<Integer> codeNodeIndices) throws SQLException {
     if (!nodes.isEmpty()) {
       final Set<INaviInstruction> unsavedInstructions = new HashSet<INaviInstruction>();
@@ -191,17 +175,12 @@ public final class PostgreSQLNodeSaver {
 
       PostgreSQLInstructionFunctions.createInstructions(provider, unsavedInstructions);
 
-      final String query =
-          "INSERT INTO " + CTableNames.CODENODE_INSTRUCTIONS_TABLE
-              + " (module_id, node_id, position, address, comment_id) VALUES (?, ?, ?, ?, ?)";
-
-      final PreparedStatement preparedStatement =
-          provider.getConnection().getConnection().prepareStatement(query);
-
       final ArrayList<Pair<INaviCodeNode, INaviInstruction>> instructionsWithUnsavedLocalComments =
           new ArrayList<Pair<INaviCodeNode, INaviInstruction>>();
 
-      try {
+      try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(provider.getConnection(),
+          CTableNames.CODENODE_INSTRUCTIONS_TABLE, "module_id", "node_id", "position", "address",
+          "comment_id")) {
         for (final Integer index : codeNodeIndices) {
           final INaviCodeNode codeNode = (INaviCodeNode) nodes.get(index);
           int position = 0;
@@ -219,23 +198,17 @@ public final class PostgreSQLNodeSaver {
 
             final int moduleId = instruction.getModule().getConfiguration().getId();
 
-            preparedStatement.setInt(1, moduleId);
-            preparedStatement.setInt(2, firstNode + index);
-            preparedStatement.setInt(3, position);
-            preparedStatement.setObject(4, instruction.getAddress().toBigInteger(), Types.BIGINT);
-            if (commentId == null) {
-              preparedStatement.setNull(5, Types.INTEGER);
-            } else {
-              preparedStatement.setInt(5, commentId);
-            }
+            writer.startRow();
+            writer.writeInt(moduleId);
+            writer.writeInt(codeNode.getId());
+            writer.writeInt(position);
+            writer.writeAddress(instruction.getAddress());
+            writer.writeInteger(commentId);
 
             position++;
-            preparedStatement.addBatch();
           }
         }
-        preparedStatement.executeBatch();
-      } finally {
-        preparedStatement.close();
+        writer.finish();
       }
       return instructionsWithUnsavedLocalComments;
     }
@@ -247,31 +220,23 @@ public final class PostgreSQLNodeSaver {
    *
    * @param provider The connection to the database.
    * @param nodes The nodes to save.
-   * @param firstNode The database index of the first node.
    * @param codeNodeIndices Index into the nodes list that identifies the code nodes.
    *
    * @throws SQLException Thrown if saving the code node instructions failed.
    */
   protected static void saveCodeNodes(final SQLProvider provider, final List<INaviViewNode> nodes,
-      final int firstNode, final List<Integer> codeNodeIndices) throws SQLException {
+      final List<Integer> codeNodeIndices) throws SQLException {
 
     if (!codeNodeIndices.isEmpty()) {
       final List<Pair<INaviCodeNode, INaviInstruction>> instructionsWithUnsavedLocalComments =
-          PostgreSQLNodeSaver.saveCodeNodeInstructions(provider, nodes, firstNode, codeNodeIndices);
-
-      final String query =
-          "INSERT INTO " + CTableNames.CODE_NODES_TABLE
-              + "(module_id, node_id, parent_function, comment_id) VALUES (?, ?, ?, ?)";
+          PostgreSQLNodeSaver.saveCodeNodeInstructions(provider, nodes, codeNodeIndices);
 
       final ArrayList<INaviCodeNode> codeNodesWithUnsavedComments = new ArrayList<INaviCodeNode>();
 
-      final PreparedStatement preparedStatement =
-          provider.getConnection().getConnection().prepareStatement(query);
-
-      try {
+      try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(provider.getConnection(),
+          CTableNames.CODE_NODES_TABLE, "module_id", "node_id", "parent_function", "comment_id")) {
         for (final int index : codeNodeIndices) {
           final INaviCodeNode codeNode = (INaviCodeNode) nodes.get(index);
-          codeNode.setId(firstNode + index);
           INaviFunction function = null;
           try {
             function = codeNode.getParentFunction();
@@ -287,23 +252,17 @@ public final class PostgreSQLNodeSaver {
           if ((comment != null) && (comment.size() != 0) && (commentId == null)) {
             codeNodesWithUnsavedComments.add(codeNode);
           }
-          preparedStatement.setInt(1, moduleId);
-          preparedStatement.setInt(2, firstNode + index);
+          writer.startRow();
+          writer.writeInt(moduleId);
+          writer.writeInt(codeNode.getId());
           if (function == null) {
-            preparedStatement.setNull(3, Types.BIGINT);
-          } else {
-            preparedStatement.setObject(3, function.getAddress().toBigInteger(), Types.BIGINT);
-          }
-          if (commentId == null) {
-            preparedStatement.setNull(4, Types.INTEGER);
+            writer.writeNull();
           } else {
-            preparedStatement.setInt(4, commentId);
+            writer.writeAddress(function.getAddress());
           }
-          preparedStatement.addBatch();
+          writer.writeInteger(commentId);
         }
-        preparedStatement.executeBatch();
-      } finally {
-        preparedStatement.close();
+        writer.finish();
       }
 
       // TODO (timkornau): this is not the best solution and is more a test then a full fledged
@@ -356,30 +315,23 @@ public final class PostgreSQLNodeSaver {
    *
    * @param provider The connection to the database.
    * @param nodes The nodes to save.
-   * @param firstNode The database index of the first node.
    * @param functionNodeIndices Index into the nodes list that identifies the function nodes.
    *
    * @throws SQLException Thrown if saving the function nodes failed.
    */
   protected static void saveFunctionNodes(final SQLProvider provider,
-      final List<INaviViewNode> nodes, final int firstNode, final List<Integer> functionNodeIndices)
+      final List<INaviViewNode> nodes, final List<Integer> functionNodeIndices)
       throws SQLException {
 
     if (functionNodeIndices.isEmpty()) {
       return;
     }
 
-    final String query =
-        "INSERT INTO " + CTableNames.FUNCTION_NODES_TABLE
-            + "(module_id, node_id, function, comment_id) VALUES (?, ?, ?, ?)";
-
     final ArrayList<INaviFunctionNode> functionNodesWithUnsavedComments =
         new ArrayList<INaviFunctionNode>();
 
-    final PreparedStatement preparedStatement =
-        provider.getConnection().getConnection().prepareStatement(query);
-
-    try {
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(provider.getConnection(),
+        CTableNames.FUNCTION_NODES_TABLE, "module_id", "node_id", "function", "comment_id")) {
       for (final int index : functionNodeIndices) {
         final CFunctionNode node = (CFunctionNode) nodes.get(index);
         final INaviFunction function = node.getFunction();
@@ -392,19 +344,13 @@ public final class PostgreSQLNodeSaver {
           functionNodesWithUnsavedComments.add(node);
         }
 
-        preparedStatement.setInt(1, function.getModule().getConfiguration().getId());
-        preparedStatement.setInt(2, firstNode + index);
-        preparedStatement.setObject(3, function.getAddress().toBigInteger(), Types.BIGINT);
-        if (commentId == null) {
-          preparedStatement.setNull(4, Types.INTEGER);
-        } else {
-          preparedStatement.setInt(4, commentId);
-        }
-        preparedStatement.addBatch();
+        writer.startRow();
+        writer.writeInt(function.getModule().getConfiguration().getId());
+        writer.writeInt(node.getId());
+        writer.writeAddress(function.getAddress());
+        writer.writeInteger(commentId);
       }
-      preparedStatement.executeBatch();
-    } finally {
-      preparedStatement.close();
+      writer.finish();
     }
 
     for (final INaviFunctionNode functionNode : functionNodesWithUnsavedComments) {
@@ -430,13 +376,12 @@ public final class PostgreSQLNodeSaver {
    *
    * @param provider The connection to the database.
    * @param nodes The nodes to save.
-   * @param firstNode The database index of the first node.
    * @param groupNodeIndices Index into the nodes list that identifies the group nodes.
    *
    * @throws SQLException Thrown if saving the group nodes failed.
    */
   protected static void saveGroupNodes(final SQLProvider provider, final List<INaviViewNode> nodes,
-      final int firstNode, final List<Integer> groupNodeIndices) throws SQLException {
+      final List<Integer> groupNodeIndices) throws SQLException {
 
     Preconditions.checkNotNull(provider, "IE02525: connection argument can not be null");
     Preconditions.checkNotNull(nodes, "IE02526: nodes argument can not be null");
@@ -445,21 +390,15 @@ public final class PostgreSQLNodeSaver {
 
     if (!groupNodeIndices.isEmpty()) {
 
-      final String query =
-          "INSERT INTO " + CTableNames.GROUP_NODES_TABLE
-              + "(node_id, collapsed, comment_id) VALUES (?, ?, ?)";
-
-      final PreparedStatement preparedStatement =
-          provider.getConnection().getConnection().prepareStatement(query);
-
       final List<INaviGroupNode> groupNodesWithUnsavedComments = new ArrayList<INaviGroupNode>();
 
-      try {
+      try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(provider.getConnection(),
+          CTableNames.GROUP_NODES_TABLE, "node_id", "collapsed", "comment_id")) {
         for (final Integer index : groupNodeIndices) {
           final INaviGroupNode node = (INaviGroupNode) nodes.get(index);
-          preparedStatement.setInt(1, firstNode + index);
-          preparedStatement.setBoolean(2, node.isCollapsed());
-
+          writer.startRow();
+          writer.writeInt(node.getId());
+          writer.writeBoolean(node.isCollapsed());
 
           final List<IComment> comment = node.getComments();
           final Integer commentId =
@@ -470,16 +409,9 @@ public final class PostgreSQLNodeSaver {
             groupNodesWithUnsavedComments.add(node);
           }
 
-          if (commentId == null) {
-            preparedStatement.setNull(3, Types.INTEGER);
-          } else {
-            preparedStatement.setInt(3, commentId);
-          }
-          preparedStatement.addBatch();
+          writer.writeInteger(commentId);
         }
-        preparedStatement.executeBatch();
-      } finally {
-        preparedStatement.close();
+        writer.finish();
       }
 
       // TODO (timkornau): this can work better.
@@ -504,95 +436,27 @@ public final class PostgreSQLNodeSaver {
   }
 
   /**
-   * Stores parent groups for all nodes that have an assigned parent group.
-   *
-   * @param connection Provides the connection to the database.
-   * @param nodes All nodes that were saved.
-   * @param firstNode The database index of the first node.
-   * @param groupNodeMap Maps between node IDs and parent group node objects.
-   *
-   * @throws SQLException Thrown if the parent groups could not be assigned.
-   */
-  protected static void saveParentGroups(final CConnection connection,
-      final List<INaviViewNode> nodes, final int firstNode,
-      final BiMap<Integer, INaviGroupNode> groupNodeMap) throws SQLException {
-    int counter = 0;
-
-    for (final INaviViewNode node : nodes) {
-      if (node.getParentGroup() != null) {
-        final int parentId = firstNode + groupNodeMap.inverse().get(node.getParentGroup());
-        final int childId = firstNode + counter;
-
-        connection.executeUpdate(String.format("UPDATE " + CTableNames.NODES_TABLE
-            + " set parent_id = %d WHERE id = %d", parentId, childId), true);
-      }
-
-      counter++;
-    }
-  }
-
-  /**
-   *
-   * TODO (timkornau): this code here has serious issues and is in no way anything that we want to
-   * keep.
-   *
    * Saves the node tags to the database.
    *
    * @param connection The connection to the database.
    * @param nodes The nodes to save.
-   * @param firstNode Database index of the first node.
    *
    * @throws SQLException Thrown if saving the tags failed.
    */
-  protected static void saveTags(final CConnection connection, final List<INaviViewNode> nodes,
-      final int firstNode) throws SQLException {
-    int counter = firstNode;
-
-    final String deleteStatement =
-        "DELETE FROM " + CTableNames.TAGGED_NODES_TABLE + " WHERE node_id IN (%s)";
-    final String insertStatement = "INSERT INTO " + CTableNames.TAGGED_NODES_TABLE + " VALUES %s ";
-
-    boolean isFirst = true;
-    final StringBuilder range = new StringBuilder();
-
-    for (int i = 0; i < nodes.size(); i++) {
-      if (isFirst) {
-        range.append(counter);
-        isFirst = false;
-        continue;
-      }
-
-      range.append(", ");
-      range.append(counter);
-
-      ++counter;
-    }
-    if (range.length() != 0) {
-      connection.executeUpdate(String.format(deleteStatement, range.toString()), true);
-    }
-
-    counter = firstNode;
-
-    final StringBuilder insert = new StringBuilder();
-    isFirst = true;
-    for (final INaviViewNode node : nodes) {
-      final Iterator<CTag> it = node.getTagsIterator();
-      while (it.hasNext()) {
-        final CTag tag = it.next();
-        insert.append(isFirst ? "" : ",");
-        insert.append('(');
-        insert.append(counter);
-        insert.append(", ");
-        insert.append(tag.getId());
-        insert.append(')');
-
-        isFirst = false;
+  protected static void saveTags(final CConnection connection, final List<INaviViewNode> nodes)
+      throws SQLException {
+    // The nodes were saved with freshly reserved IDs, so there are no old tags to delete.
+    try (PostgreSQLCopyWriter writer =
+        new PostgreSQLCopyWriter(connection, CTableNames.TAGGED_NODES_TABLE, "node_id", "tag_id")) {
+      for (final INaviViewNode node : nodes) {
+        final Iterator<CTag> it = node.getTagsIterator();
+        while (it.hasNext()) {
+          writer.startRow();
+          writer.writeInt(node.getId());
+          writer.writeInt(it.next().getId());
+        }
       }
-
-      ++counter;
-    }
-    if (insert.length() != 0) {
-      connection.executeUpdate(String.format(insertStatement, insert.toString()), true);
+      writer.finish();
     }
   }
 
@@ -601,13 +465,12 @@ public final class PostgreSQLNodeSaver {
    *
    * @param provider The connection to the database.
    * @param nodes The nodes to save.
-   * @param firstNode The database index of the first node.
    * @param textNodeIndices Index into the nodes list that identifies the text nodes.
    *
    * @throws SQLException Thrown if saving the text nodes failed.
    */
   protected static void saveTextNodes(final SQLProvider provider, final List<INaviViewNode> nodes,
-      final int firstNode, final List<Integer> textNodeIndices) throws SQLException {
+      final List<Integer> textNodeIndices) throws SQLException {
 
     Preconditions.checkNotNull(provider, "IE02527: provider argument can not be null");
     Preconditions.checkNotNull(nodes, "IE02528: nodes argument can not be null");
@@ -616,15 +479,10 @@ public final class PostgreSQLNodeSaver {
 
     if (!textNodeIndices.isEmpty()) {
 
-      final String query =
-          "INSERT INTO " + CTableNames.TEXT_NODES_TABLE + "(node_id, comment_id) VALUES (?, ?)";
-
-      final PreparedStatement preparedStatement =
-          provider.getConnection().getConnection().prepareStatement(query);
-
       final List<INaviTextNode> textNodesWithUnsavedComments = new ArrayList<INaviTextNode>();
 
-      try {
+      try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(provider.getConnection(),
+          CTableNames.TEXT_NODES_TABLE, "node_id", "comment_id")) {
         for (final Integer index : textNodeIndices) {
           final INaviTextNode node = (INaviTextNode) nodes.get(index);
           final List<IComment> comment = node.getComments();
@@ -636,17 +494,11 @@ public final class PostgreSQLNodeSaver {
             textNodesWithUnsavedComments.add(node);
           }
 
-          preparedStatement.setInt(1, firstNode + index);
-          if (commentId == null) {
-            preparedStatement.setNull(2, Types.INTEGER);
-          } else {
-            preparedStatement.setInt(2, commentId);
-          }
-          preparedStatement.addBatch();
+          writer.startRow();
+          writer.writeInt(node.getId());
+          writer.writeInteger(commentId);
         }
-        preparedStatement.executeBatch();
-      } finally {
-        preparedStatement.close();
+        writer.finish();
       }
 
       // TODO (timkornau): this needs to be reworked once I have thought of a better idea for the
@@ -690,7 +542,9 @@ public final class PostgreSQLNodeSaver {
       for (final Integer id : clonedList) {
         final INaviGroupNode node = groupNodeMap.get(id);
 
-        if ((node.getParentGroup() == null) || addedNodes.contains(node.getParentGroup())) {
+        // Parent groups that are not written together with this group are already stored.
+        if ((node.getParentGroup() == null) || addedNodes.contains(node.getParentGroup())
+            || !groupNodeMap.containsValue(node.getParentGroup())) {
           addedNodes.add(node);
           sortedList.add(id);
           clonedList.remove(id);
@@ -703,18 +557,18 @@ public final class PostgreSQLNodeSaver {
   }
 
   /**
-   * Updates the node IDs of the nodes that were saved to the database.
+   * Updates the node IDs of the nodes that are saved to the database.
    *
    * @param nodes The nodes whose IDs are updated.
-   * @param firstNode The new ID of the first node.
+   * @param ids The new IDs of the nodes.
    */
-  protected static void updateNodeIds(final List<INaviViewNode> nodes, final int firstNode) {
-    int newIdCounter = firstNode;
+  protected static void updateNodeIds(final List<INaviViewNode> nodes, final int[] ids) {
+    int counter = 0;
 
     for (final INaviViewNode node : nodes) {
-      node.setId(newIdCounter);
+      node.setId(ids[counter]);
 
-      newIdCounter++;
+      counter++;
     }
   }
 
@@ -744,28 +598,19 @@ public final class PostgreSQLNodeSaver {
 
     final BiMap<Integer, INaviGroupNode> groupNodeMap = HashBiMap.create();
 
-    final int firstNode =
-        saveNodes(provider, newViewId, nodes, functionNodeIndices, codeNodeIndices,
-            textNodeIndices, groupNodeIndices, groupNodeMap);
-
-    // After this point, the nodes table has been filled
-    // After each saving, the node IDs have to be updated
-    PostgreSQLNodeSaver.updateNodeIds(nodes, firstNode);
-
+    // After this point, the nodes table has been filled and the nodes have their new IDs. The
+    // parent groups were saved together with the nodes.
+    saveNodes(provider, newViewId, nodes, functionNodeIndices, codeNodeIndices,
+        textNodeIndices, groupNodeIndices, groupNodeMap);
 
     // Now, the individual node type tables can be saved
-    PostgreSQLNodeSaver.saveGroupNodes(provider, nodes, firstNode,
+    PostgreSQLNodeSaver.saveGroupNodes(provider, nodes,
         PostgreSQLNodeSaver.sortGroupNodes(groupNodeIndices, groupNodeMap));
-    PostgreSQLNodeSaver.saveFunctionNodes(provider, nodes, firstNode, functionNodeIndices);
-    PostgreSQLNodeSaver.saveCodeNodes(provider, nodes, firstNode, codeNodeIndices);
-    PostgreSQLNodeSaver.saveTextNodes(provider, nodes, firstNode, textNodeIndices);
-
-
-    // Once all nodes are saved, the parent nodes can be saved too
-    final CConnection connection = provider.getConnection();
-    PostgreSQLNodeSaver.saveParentGroups(connection, nodes, firstNode, groupNodeMap);
+    PostgreSQLNodeSaver.saveFunctionNodes(provider, nodes, functionNodeIndices);
+    PostgreSQLNodeSaver.saveCodeNodes(provider, nodes, codeNodeIndices);
+    PostgreSQLNodeSaver.saveTextNodes(provider, nodes, textNodeIndices);
 
     // And finally, we can save the tags associated with the nodes
-    PostgreSQLNodeSaver.saveTags(connection, nodes, firstNode);
+    PostgreSQLNodeSaver.saveTags(provider.getConnection(), nodes);
   }
 }
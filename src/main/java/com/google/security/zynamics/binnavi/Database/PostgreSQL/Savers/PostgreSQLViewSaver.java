@@ -15,9 +15,14 @@ limitations under the License.
 */
 package com.google.security.zynamics.binnavi.Database.PostgreSQL.Savers;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-
+import java.util.Set;
 
 import com.google.common.base.Preconditions;
 import com.google.security.zynamics.binnavi.CUtilityFunctions;
@@ -27,10 +32,19 @@ import com.google.security.zynamics.binnavi.Database.CTableNames;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntSaveDataException;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLHelpers;
 import com.google.security.zynamics.binnavi.disassembly.INaviEdge;
+import com.google.security.zynamics.binnavi.disassembly.INaviGroupNode;
 import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
 import com.google.security.zynamics.binnavi.disassembly.views.CView;
+import com.google.security.zynamics.binnavi.disassembly.views.CViewChangeSet;
 
 public final class PostgreSQLViewSaver {
+  /**
+   * Views whose number of changed nodes and edges exceeds this fraction of all nodes and edges are
+   * rewritten completely because deleting and copying all rows is cheaper than the individual
+   * statements of a delta save.
+   */
+  private static final double FULL_REWRITE_RATIO = 0.5;
+
   /**
    * You are not supposed to instantiate this class.
    */
@@ -61,7 +75,168 @@ public final class PostgreSQLViewSaver {
   }
 
   /**
-   * Saves a view to the database.
+   * Deletes rows with the given IDs from a table.
+   *
+   * @param connection The connection to the database.
+   * @param table The table to delete from.
+   * @param ids The IDs of the rows to delete.
+   *
+   * @throws SQLException Thrown if the rows could not be deleted.
+   */
+  private static void deleteRows(final CConnection connection, final String table,
+      final Collection<Integer> ids) throws SQLException {
+    if (ids.isEmpty()) {
+      return;
+    }
+
+    try (PreparedStatement statement = connection.getConnection().prepareStatement(
+        "DELETE FROM " + table + " WHERE id = ANY(?)")) {
+      statement.setArray(1,
+          connection.getConnection().createArrayOf("int4", ids.toArray(new Integer[ids.size()])));
+      statement.executeUpdate();
+    }
+  }
+
+  /**
+   * Determines whether the changes of a view can be written as a delta or whether the whole view
+   * must be written again.
+   *
+   * @param view The view to save.
+   * @param changes The changes of the view since it was last loaded or saved.
+   *
+   * @return True, if the view must be written completely. False, otherwise.
+   */
+  private static boolean requiresFullRewrite(final CView view, final CViewChangeSet changes) {
+    final List<INaviViewNode> nodes = view.getGraph().getNodes();
+    final List<INaviEdge> edges = view.getGraph().getEdges();
+
+    if (changes.size() > FULL_REWRITE_RATIO * (nodes.size() + edges.size())) {
+      return true;
+    }
+
+    // Nodes or edges that were never written but are not known as added can only be written by a
+    // full rewrite.
+    for (final INaviViewNode node : nodes) {
+      if ((node.getId() == -1) && !changes.getAddedNodes().contains(node)) {
+        return true;
+      }
+    }
+
+    for (final INaviEdge edge : edges) {
+      if ((edge.getId() == -1) && !changes.getAddedEdges().contains(edge)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Writes only the changed nodes and edges of a stored view to the database. Deleted rows are
+   * deleted, added nodes and edges are copied into the database, and modified nodes are updated in
+   * place. Nodes whose type specific data changed and modified edges are deleted and written again;
+   * the edges attached to written nodes are written again too because deleting a node deletes its
+   * edges.
+   *
+   * @param provider The SQL provider that provides the connection.
+   * @param viewId The ID of the view.
+   * @param changes The changes to write.
+   *
+   * @throws SQLException Thrown if the changes could not be written.
+   */
+  private static void saveChanges(final AbstractSQLProvider provider, final int viewId,
+      final CViewChangeSet changes) throws SQLException {
+    final CConnection connection = provider.getConnection();
+
+    final Set<INaviViewNode> nodesToWrite = new LinkedHashSet<>(changes.getAddedNodes());
+    nodesToWrite.addAll(changes.getRewrittenNodes());
+
+    final Set<INaviEdge> edgesToWrite = new LinkedHashSet<>(changes.getAddedEdges());
+    edgesToWrite.addAll(changes.getModifiedEdges());
+
+    final Set<INaviViewNode> nodesToUpdate = new LinkedHashSet<>(changes.getModifiedNodes());
+
+    final Set<Integer> nodesToDelete = new LinkedHashSet<>(changes.getDeletedNodeIds());
+
+    for (final INaviViewNode node : changes.getRewrittenNodes()) {
+      nodesToDelete.add(node.getId());
+
+      edgesToWrite.addAll(node.getIncomingEdges());
+      edgesToWrite.addAll(node.getOutgoingEdges());
+
+      if (node instanceof INaviGroupNode) {
+        // The members of the group must point to the new ID of the group.
+        nodesToUpdate.addAll(((INaviGroupNode) node).getElements());
+      }
+    }
+
+    nodesToUpdate.removeAll(nodesToWrite);
+
+    final Set<Integer> edgesToDelete = new LinkedHashSet<>(changes.getDeletedEdgeIds());
+
+    for (final INaviEdge edge : edgesToWrite) {
+      if (edge.getId() != -1) {
+        edgesToDelete.add(edge.getId());
+      }
+    }
+
+    deleteRows(connection, CTableNames.EDGES_TABLE, edgesToDelete);
+    deleteRows(connection, CTableNames.NODES_TABLE, nodesToDelete);
+
+    PostgreSQLNodeSaver.writeNodes(provider, viewId, new ArrayList<>(nodesToWrite));
+
+    updateNodes(connection, nodesToUpdate);
+
+    PostgreSQLEdgeSaver.writeEdges(provider, new ArrayList<>(edgesToWrite));
+  }
+
+  /**
+   * Updates the rows of changed nodes in the nodes table.
+   *
+   * @param connection The connection to the database.
+   * @param nodes The nodes to update.
+   *
+   * @throws SQLException Thrown if the nodes could not be updated.
+   */
+  private static void updateNodes(final CConnection connection,
+      final Collection<INaviViewNode> nodes) throws SQLException {
+    if (nodes.isEmpty()) {
+      return;
+    }
+
+    final String query = "UPDATE " + CTableNames.NODES_TABLE + " SET parent_id = ?, x = ?, y = ?, "
+        + "width = ?, height = ?, color = ?, bordercolor = ?, selected = ?, visible = ? "
+        + "WHERE id = ?";
+
+    try (PreparedStatement statement = connection.getConnection().prepareStatement(query)) {
+      for (final INaviViewNode node : nodes) {
+        if (node.getParentGroup() == null) {
+          statement.setNull(1, Types.INTEGER);
+        } else {
+          statement.setInt(1, node.getParentGroup().getId());
+        }
+
+        statement.setDouble(2, node.getX());
+        statement.setDouble(3, node.getY());
+        statement.setDouble(4, node.getWidth());
+        statement.setDouble(5, node.getHeight());
+        statement.setInt(6, node.getColor().getRGB());
+        statement.setInt(7, node.getBorderColor().getRGB());
+        statement.setBoolean(8, node.isSelected());
+        statement.setBoolean(9, node.isVisible());
+        statement.setInt(10, node.getId());
+
+        statement.addBatch();
+      }
+
+      statement.executeBatch();
+    }
+  }
+
+  /**
+   * Saves a view to the database. Only the nodes and edges that changed since the view was last
+   * loaded or saved are written unless so much of the view changed that writing the whole view is
+   * cheaper.
    * 
    * @param provider The SQL provider that provides the connection.
    * @param view The view to save to the database.
@@ -73,22 +248,31 @@ public final class PostgreSQLViewSaver {
     PostgreSQLViewSaver.checkArguments(provider, view);
 
     final CConnection connection = provider.getConnection();
+    final CViewChangeSet changes = view.getChanges();
+
+    if (changes.isEmpty()) {
+      return;
+    }
 
     try {
       PostgreSQLHelpers.beginTransaction(connection);
 
       final int viewId = view.getConfiguration().getId();
 
-      final List<INaviViewNode> nodes = view.getGraph().getNodes();
-      final List<INaviEdge> edges = view.getGraph().getEdges();
+      if (requiresFullRewrite(view, changes)) {
+        final List<INaviViewNode> nodes = view.getGraph().getNodes();
+        final List<INaviEdge> edges = view.getGraph().getEdges();
 
-      PostgreSQLViewSaver.deleteNodes(connection, viewId);
+        PostgreSQLViewSaver.deleteNodes(connection, viewId);
 
-      // Store all nodes
-      PostgreSQLNodeSaver.writeNodes(provider, viewId, nodes);
+        // Store all nodes
+        PostgreSQLNodeSaver.writeNodes(provider, viewId, nodes);
 
-      // Store all edges
-      PostgreSQLEdgeSaver.writeEdges(provider, edges);
+        // Store all edges
+        PostgreSQLEdgeSaver.writeEdges(provider, edges);
+      } else {
+        PostgreSQLViewSaver.saveChanges(provider, viewId, changes);
+      }
 
       PostgreSQLHelpers.endTransaction(connection);
     } catch (final SQLException exception) {
@@ -565,6 +565,12 @@ public class PostgreSQLProvider extends AbstractSQLProvider {
     PostgreSQLDataFunctions.saveData(this, module, data);
   }
 
+  @Override
+  public void saveEvents(final TraceList trace, final int from, final int to)
+      throws CouldntSaveDataException {
+    PostgreSQLTraceFunctions.saveEvents(this, trace, from, to);
+  }
+
   @Override
   public void updateDatabase() throws CouldntUpdateDatabaseException {
     PostgreSQLDatabaseFunctions.updateDatabase(this);
@@ -0,0 +1,189 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Guava cache that estimates the memory of its entries and records usage statistics. Evicting
+ * caches are bounded by that estimate. Registries of live objects, which must never drop an object
+ * that is still referenced, have no memory budget and only report their estimated memory. Values
+ * can be held weakly, so entries also disappear once nothing else references them.
+ *
+ * @param <K> Type of the cache keys.
+ * @param <V> Type of the cached values.
+ */
+final class BoundedCache<K, V> {
+  /**
+   * Name of the cache used in the statistics.
+   */
+  private final String m_name;
+
+  /**
+   * Estimates the memory of the cache entries.
+   */
+  private final Weigher<? super K, ? super V> m_weigher;
+
+  /**
+   * Maximum estimated memory of the cache entries in bytes or {@link CacheStatistics#UNBOUNDED} for
+   * registries.
+   */
+  private final long m_maximumWeight;
+
+  /**
+   * The wrapped Guava cache.
+   */
+  private final Cache<K, V> m_cache;
+
+  /**
+   * Number of loads that filled the cache.
+   */
+  private final AtomicLong m_loadCount = new AtomicLong();
+
+  /**
+   * Total time spent loading the data that filled the cache in nanoseconds.
+   */
+  private final AtomicLong m_loadTime = new AtomicLong();
+
+  /**
+   * Creates a new cache that evicts entries once their estimated memory exceeds the maximum weight.
+   *
+   * @param name Name of the cache used in the statistics.
+   * @param weigher Estimates the memory of the cache entries.
+   * @param maximumWeight Maximum estimated memory of the cache entries in bytes.
+   * @param weakValues True, to hold the cached values weakly.
+   */
+  BoundedCache(final String name, final Weigher<? super K, ? super V> weigher,
+      final long maximumWeight, final boolean weakValues) {
+    m_name = name;
+    m_weigher = weigher;
+    m_maximumWeight = maximumWeight;
+
+    final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+    if (weakValues) {
+      builder.weakValues();
+    }
+    m_cache = builder.maximumWeight(maximumWeight).weigher(weigher).build();
+  }
+
+  /**
+   * Creates a new registry that holds its values weakly and never evicts them because of their
+   * size.
+   *
+   * @param name Name of the cache used in the statistics.
+   * @param weigher Estimates the memory of the cache entries.
+   */
+  BoundedCache(final String name, final Weigher<? super K, ? super V> weigher) {
+    m_name = name;
+    m_weigher = weigher;
+    m_maximumWeight = CacheStatistics.UNBOUNDED;
+    m_cache = CacheBuilder.newBuilder().recordStats().weakValues().build();
+  }
+
+  /**
+   * Returns all cached values of the given keys.
+   *
+   * @param keys The keys to look up.
+   *
+   * @return The cached values of the keys that are in the cache.
+   */
+  ImmutableMap<K, V> getAllPresent(final Iterable<?> keys) {
+    return m_cache.getAllPresent(keys);
+  }
+
+  /**
+   * Returns the cached value of a key.
+   *
+   * @param key The key to look up.
+   *
+   * @return The cached value or null if the key is not in the cache.
+   */
+  V getIfPresent(final Object key) {
+    return m_cache.getIfPresent(key);
+  }
+
+  /**
+   * Returns a snapshot of the usage statistics of the cache. The weight of the entries is computed
+   * from the current content of the cache.
+   *
+   * @return The statistics of the cache.
+   */
+  CacheStatistics getStatistics() {
+    long weight = 0;
+    for (final Map.Entry<K, V> entry : m_cache.asMap().entrySet()) {
+      weight += m_weigher.weigh(entry.getKey(), entry.getValue());
+    }
+
+    final CacheStats stats = m_cache.stats();
+    return new CacheStatistics(m_name, m_cache.size(), weight, m_maximumWeight, stats.hitCount(),
+        stats.missCount(), stats.evictionCount(), m_loadCount.get(), m_loadTime.get());
+  }
+
+  /**
+   * Removes an entry from the cache.
+   *
+   * @param key The key of the entry.
+   */
+  void invalidate(final Object key) {
+    m_cache.invalidate(key);
+  }
+
+  /**
+   * Adds an entry to the cache.
+   *
+   * @param key The key of the entry.
+   * @param value The value of the entry.
+   */
+  void put(final K key, final V value) {
+    m_cache.put(key, value);
+  }
+
+  /**
+   * Adds entries to the cache.
+   *
+   * @param entries The entries to add.
+   */
+  void putAll(final Map<? extends K, ? extends V> entries) {
+    m_cache.putAll(entries);
+  }
+
+  /**
+   * Records that data which fills the cache was loaded from the database.
+   *
+   * @param nanoseconds Time spent loading the data.
+   */
+  void recordLoad(final long nanoseconds) {
+    m_loadCount.incrementAndGet();
+    m_loadTime.addAndGet(nanoseconds);
+  }
+
+  /**
+   * Returns a live view of the cached values.
+   *
+   * @return The cached values.
+   */
+  Collection<V> values() {
+    return m_cache.asMap().values();
+  }
+}
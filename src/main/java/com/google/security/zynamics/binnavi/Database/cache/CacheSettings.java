@@ -0,0 +1,97 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Memory budgets of the address indexes of the node and edge caches of each database. The budget
+ * of a database is split between the two indexes by fixed shares, and each index evicts its least
+ * recently used entries to stay within its share. The node, edge and instruction registries hold
+ * the objects that open views use, so they have no budget. A new budget takes effect when the
+ * caches of the database are created the next time, which happens after the database was
+ * connected again.
+ */
+public final class CacheSettings {
+  /**
+   * Default memory budget of the caches of a database in megabytes.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 128;
+
+  /**
+   * Share of the memory budget given to the node address index in percent.
+   */
+  static final int NODE_INDEX_SHARE = 60;
+
+  /**
+   * Share of the memory budget given to the edge address index in percent.
+   */
+  static final int EDGE_INDEX_SHARE = 40;
+
+  /**
+   * Memory budgets of the databases in megabytes.
+   */
+  private static final Map<SQLProvider, Integer> cacheSizes = new WeakHashMap<>();
+
+  /**
+   * You are not supposed to instantiate this class.
+   */
+  private CacheSettings() {
+  }
+
+  /**
+   * Returns the memory budget of one cache of a database.
+   *
+   * @param provider Provides the database.
+   * @param share Share of the memory budget of the database in percent.
+   *
+   * @return The memory budget of the cache in bytes.
+   */
+  static synchronized long getMaximumWeight(final SQLProvider provider, final int share) {
+    final Integer cacheSize = cacheSizes.get(provider);
+    final long megabytes = cacheSize == null ? DEFAULT_CACHE_SIZE : cacheSize;
+    return megabytes * 1024 * 1024 * share / 100;
+  }
+
+  /**
+   * Returns the memory budget of the caches of a database.
+   *
+   * @param provider Provides the database.
+   *
+   * @return The memory budget in megabytes.
+   */
+  public static synchronized int getCacheSize(final SQLProvider provider) {
+    Preconditions.checkNotNull(provider, "IE03427: Provider argument can not be null");
+    final Integer cacheSize = cacheSizes.get(provider);
+    return cacheSize == null ? DEFAULT_CACHE_SIZE : cacheSize;
+  }
+
+  /**
+   * Changes the memory budget of the caches of a database.
+   *
+   * @param provider Provides the database.
+   * @param cacheSize The new memory budget in megabytes.
+   */
+  public static synchronized void setCacheSize(final SQLProvider provider, final int cacheSize) {
+    Preconditions.checkNotNull(provider, "IE03428: Provider argument can not be null");
+    Preconditions.checkArgument(cacheSize > 0, "IE03429: Cache size must be positive");
+    cacheSizes.put(provider, cacheSize);
+  }
+}
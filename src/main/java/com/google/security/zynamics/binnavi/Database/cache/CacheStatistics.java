@@ -0,0 +1,200 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.cache;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Snapshot of the usage statistics of one database cache.
+ */
+public final class CacheStatistics {
+  /**
+   * Maximum weight reported by registries of live objects, which have no memory budget.
+   */
+  public static final long UNBOUNDED = -1;
+
+  /**
+   * Name of the cache.
+   */
+  private final String m_name;
+
+  /**
+   * Number of entries in the cache.
+   */
+  private final long m_size;
+
+  /**
+   * Estimated memory used by the entries of the cache in bytes.
+   */
+  private final long m_weight;
+
+  /**
+   * Memory budget of the cache in bytes or {@link #UNBOUNDED} if the cache has no budget.
+   */
+  private final long m_maximumWeight;
+
+  /**
+   * Number of lookups that found an entry.
+   */
+  private final long m_hitCount;
+
+  /**
+   * Number of lookups that did not find an entry.
+   */
+  private final long m_missCount;
+
+  /**
+   * Number of entries evicted because of the size limit or because they were garbage collected.
+   */
+  private final long m_evictionCount;
+
+  /**
+   * Number of loads from the database that filled the cache.
+   */
+  private final long m_loadCount;
+
+  /**
+   * Total time spent loading the data that filled the cache in nanoseconds.
+   */
+  private final long m_totalLoadTime;
+
+  /**
+   * Creates a new statistics snapshot.
+   *
+   * @param name Name of the cache.
+   * @param size Number of entries in the cache.
+   * @param weight Estimated memory used by the entries of the cache in bytes.
+   * @param maximumWeight Memory budget of the cache in bytes or {@link #UNBOUNDED}.
+   * @param hitCount Number of lookups that found an entry.
+   * @param missCount Number of lookups that did not find an entry.
+   * @param evictionCount Number of evicted entries.
+   * @param loadCount Number of loads that filled the cache.
+   * @param totalLoadTime Total time spent loading in nanoseconds.
+   */
+  public CacheStatistics(final String name, final long size, final long weight,
+      final long maximumWeight, final long hitCount, final long missCount,
+      final long evictionCount, final long loadCount, final long totalLoadTime) {
+    m_name = Preconditions.checkNotNull(name, "IE03430: Name argument can not be null");
+    m_size = size;
+    m_weight = weight;
+    m_maximumWeight = maximumWeight;
+    m_hitCount = hitCount;
+    m_missCount = missCount;
+    m_evictionCount = evictionCount;
+    m_loadCount = loadCount;
+    m_totalLoadTime = totalLoadTime;
+  }
+
+  /**
+   * Returns the number of evicted entries.
+   *
+   * @return The number of evicted entries.
+   */
+  public long getEvictionCount() {
+    return m_evictionCount;
+  }
+
+  /**
+   * Returns the number of lookups that found an entry.
+   *
+   * @return The number of cache hits.
+   */
+  public long getHitCount() {
+    return m_hitCount;
+  }
+
+  /**
+   * Returns the fraction of lookups that found an entry.
+   *
+   * @return The hit rate between 0 and 1. If there were no lookups, the hit rate is 1.
+   */
+  public double getHitRate() {
+    final long requestCount = m_hitCount + m_missCount;
+    return requestCount == 0 ? 1.0 : (double) m_hitCount / requestCount;
+  }
+
+  /**
+   * Returns the number of loads that filled the cache.
+   *
+   * @return The number of loads.
+   */
+  public long getLoadCount() {
+    return m_loadCount;
+  }
+
+  /**
+   * Returns the memory budget of the cache. Registries of live objects never evict entries because
+   * of their size, so they have no budget.
+   *
+   * @return The memory budget in bytes or {@link #UNBOUNDED}.
+   */
+  public long getMaximumWeight() {
+    return m_maximumWeight;
+  }
+
+  /**
+   * Returns the number of lookups that did not find an entry.
+   *
+   * @return The number of cache misses.
+   */
+  public long getMissCount() {
+    return m_missCount;
+  }
+
+  /**
+   * Returns the name of the cache.
+   *
+   * @return The name of the cache.
+   */
+  public String getName() {
+    return m_name;
+  }
+
+  /**
+   * Returns the number of entries in the cache.
+   *
+   * @return The number of entries.
+   */
+  public long getSize() {
+    return m_size;
+  }
+
+  /**
+   * Returns the total time spent loading the data that filled the cache.
+   *
+   * @return The total load time in nanoseconds.
+   */
+  public long getTotalLoadTime() {
+    return m_totalLoadTime;
+  }
+
+  /**
+   * Returns the estimated memory used by the entries of the cache.
+   *
+   * @return The weight in bytes.
+   */
+  public long getWeight() {
+    return m_weight;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s: %d entries, %d/%s bytes, %d hits, %d misses, %d evictions, %d loads in %d ms", m_name,
+        m_size, m_weight, m_maximumWeight == UNBOUNDED ? "unbounded" : m_maximumWeight,
+        m_hitCount, m_missCount, m_evictionCount, m_loadCount, m_totalLoadTime / 1000000);
+  }
+}
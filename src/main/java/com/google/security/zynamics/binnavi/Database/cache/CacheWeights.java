@@ -0,0 +1,143 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.cache;
+
+import com.google.security.zynamics.binnavi.disassembly.INaviCodeNode;
+import com.google.security.zynamics.binnavi.disassembly.INaviEdge;
+import com.google.security.zynamics.binnavi.disassembly.INaviInstruction;
+import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
+import com.google.security.zynamics.zylib.types.graphs.IDirectedGraph;
+
+import java.util.List;
+
+/**
+ * Rough estimates of the memory used by cached objects. The estimates only need to be good enough
+ * to bound the caches in proportion to the size of the loaded data.
+ */
+final class CacheWeights {
+  /**
+   * Estimated memory of a cache entry including the key.
+   */
+  private static final int ENTRY = 64;
+
+  /**
+   * Estimated memory of an instruction without its operands.
+   */
+  private static final int INSTRUCTION = 160;
+
+  /**
+   * Estimated memory of a single operand tree.
+   */
+  private static final int OPERAND = 192;
+
+  /**
+   * Estimated memory of a view node.
+   */
+  private static final int NODE = 256;
+
+  /**
+   * Estimated memory of a view edge.
+   */
+  private static final int EDGE = 160;
+
+  /**
+   * Estimated memory of a reference or a boxed integer in a collection.
+   */
+  private static final int REFERENCE = 24;
+
+  /**
+   * Estimated memory of an edge bend.
+   */
+  private static final int BEND = 32;
+
+  /**
+   * You are not supposed to instantiate this class.
+   */
+  private CacheWeights() {
+  }
+
+  /**
+   * Estimates the memory of a cached edge.
+   *
+   * @param edge The edge.
+   *
+   * @return The estimated memory in bytes.
+   */
+  static int edge(final INaviEdge edge) {
+    return ENTRY + EDGE + BEND * edge.getBendCount();
+  }
+
+  /**
+   * Estimates the memory of a cached view graph. Unlike for cached nodes, the instructions of code
+   * nodes are counted because the graph keeps them alive independently of the instruction cache.
+   *
+   * @param graph The graph.
+   *
+   * @return The estimated memory in bytes.
+   */
+  static int graph(final IDirectedGraph<INaviViewNode, INaviEdge> graph) {
+    int weight = ENTRY;
+    for (final INaviViewNode node : graph.getNodes()) {
+      weight += node(node);
+      if (node instanceof INaviCodeNode) {
+        for (final INaviInstruction instruction : ((INaviCodeNode) node).getInstructions()) {
+          weight += instruction(instruction);
+        }
+      }
+    }
+    for (final INaviEdge edge : graph.getEdges()) {
+      weight += edge(edge);
+    }
+    return weight;
+  }
+
+  /**
+   * Estimates the memory of a cached list of IDs.
+   *
+   * @param ids The IDs.
+   *
+   * @return The estimated memory in bytes.
+   */
+  static int ids(final List<Integer> ids) {
+    return ENTRY + REFERENCE * ids.size();
+  }
+
+  /**
+   * Estimates the memory of a cached instruction.
+   *
+   * @param instruction The instruction.
+   *
+   * @return The estimated memory in bytes.
+   */
+  static int instruction(final INaviInstruction instruction) {
+    return ENTRY + INSTRUCTION + OPERAND * instruction.getOperands().size()
+        + (int) instruction.getLength();
+  }
+
+  /**
+   * Estimates the memory of a cached node. The instructions of code nodes are weighed by the
+   * instruction cache, so only the references to them are counted here.
+   *
+   * @param node The node.
+   *
+   * @return The estimated memory in bytes.
+   */
+  static int node(final INaviViewNode node) {
+    final int instructions =
+        node instanceof INaviCodeNode ? ((INaviCodeNode) node).instructionCount() : 0;
+    return ENTRY + NODE + REFERENCE * (instructions + node.getTags().size());
+  }
+}
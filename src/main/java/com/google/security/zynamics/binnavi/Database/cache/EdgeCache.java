@@ -17,8 +17,7 @@ package com.google.security.zynamics.binnavi.Database.cache;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -33,9 +32,11 @@ import com.google.security.zynamics.binnavi.disassembly.INaviFunctionNode;
 import com.google.security.zynamics.zylib.disassembly.IAddress;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class EdgeCache {
 
@@ -76,21 +77,43 @@ public class EdgeCache {
 
   private static Map<SQLProvider, EdgeCache> caches = new HashMap<SQLProvider, EdgeCache>();
 
+  /**
+   * Estimates the memory of the cached edges.
+   */
+  private static final Weigher<Integer, INaviEdge> EDGE_WEIGHER =
+      new Weigher<Integer, INaviEdge>() {
+        @Override
+        public int weigh(final Integer key, final INaviEdge edge) {
+          return CacheWeights.edge(edge);
+        }
+      };
+
+  /**
+   * Estimates the memory of the cached edge ID lists.
+   */
+  private static final Weigher<Object, List<Integer>> IDS_WEIGHER =
+      new Weigher<Object, List<Integer>>() {
+        @Override
+        public int weigh(final Object key, final List<Integer> ids) {
+          return CacheWeights.ids(ids);
+        }
+      };
+
   /**
    * The edges by id cache stores weak values of the actual edges to evict them from the cache when
-   * no further references exist which reference them.
+   * no further references exist which reference them. The cache is never evicted because of its
+   * size, its estimated memory is only reported in the statistics.
    * https://code.google.com/p/guava-libraries/wiki/CachesExplained
    */
-  Cache<Integer, INaviEdge> edgesByIdCache = CacheBuilder.newBuilder().weakValues().build();
+  final BoundedCache<Integer, INaviEdge> edgesByIdCache;
 
   /**
-   * The edge address to edge id cache is stores a list of the edge ids. This cache can in the
-   * current design not be evicted as there is no way to have weak references work on the list of
-   * node ids. Therefore we are leaking memory here. An alternative approach here would be to do the
-   * evictions manually.
+   * The edge address to edge id cache stores lists of edge ids. Weak references do not work on the
+   * lists, so the index is bounded by its share of the cache budget of the database instead. IDs of
+   * collected edges are dropped when the index is read, and addresses whose entry was evicted are
+   * looked up in the registry instead.
    */
-  Cache<EdgeIdentifier, List<Integer>> edgeAddressToEdgeIdsCache =
-      CacheBuilder.newBuilder().build();
+  final BoundedCache<EdgeIdentifier, List<Integer>> edgeAddressToEdgeIdsCache;
 
   private SQLProvider provider;
 
@@ -99,6 +122,10 @@ public class EdgeCache {
   private EdgeCache(final SQLProvider provider) {
     this.provider = provider;
     this.provider.addListener(providerListener);
+
+    edgesByIdCache = new BoundedCache<>("Edges", EDGE_WEIGHER);
+    edgeAddressToEdgeIdsCache = new BoundedCache<>("Edge addresses", IDS_WEIGHER,
+        CacheSettings.getMaximumWeight(provider, CacheSettings.EDGE_INDEX_SHARE), false);
   }
 
   public static synchronized EdgeCache get(final SQLProvider provider) {
@@ -114,7 +141,7 @@ public class EdgeCache {
     provider.removeListener(providerListener);
   }
 
-  public void addEdges(final List<INaviEdge> edges) {
+  public synchronized void addEdges(final List<INaviEdge> edges) {
     final ImmutableMap<Integer, INaviEdge> edgesMap =
         Maps.uniqueIndex(edges, new Function<INaviEdge, Integer>() {
           @Override
@@ -126,40 +153,56 @@ public class EdgeCache {
     edgesByIdCache.putAll(edgesMap);
 
     for (final INaviEdge edge : edges) {
-      if (edge.getSource() instanceof IAddressNode && edge.getTarget() instanceof IAddressNode) {
-        final IAddress sourceAddress = ((IAddressNode) edge.getSource()).getAddress();
-        final IAddress targetAddress = ((IAddressNode) edge.getTarget()).getAddress();
-        Integer sourceModuleId = null;
-        Integer targetModuleId = null;
-        if (edge.getSource() instanceof INaviCodeNode) {
-          sourceModuleId = getModuleId((INaviCodeNode) edge.getSource());
-        } else if (edge.getSource() instanceof INaviFunctionNode) {
-          sourceModuleId = getModuleId((INaviFunctionNode) edge.getSource());
-        }
-        if (edge.getTarget() instanceof INaviCodeNode) {
-          targetModuleId = getModuleId((INaviCodeNode) edge.getTarget());
-        } else if (edge.getTarget() instanceof INaviFunctionNode) {
-          targetModuleId = getModuleId((INaviFunctionNode) edge.getTarget());
-        }
-        if (targetModuleId != null && sourceModuleId != null) {
-          UpdateAddressModuleIdCache(sourceAddress, sourceModuleId, targetAddress, targetModuleId,
-              edge);
-        }
+      final EdgeIdentifier identifier = getIdentifier(edge);
+      if (identifier != null) {
+        UpdateAddressModuleIdCache(identifier, edge);
       }
     }
   }
 
-  private void UpdateAddressModuleIdCache(IAddress sourceAddress, Integer sourceModuleId,
-      IAddress targetAddress, Integer targetModuleId, INaviEdge edge) {
-    final EdgeIdentifier edgeAddressModuleIds =
-        new EdgeIdentifier(sourceAddress, sourceModuleId, targetAddress, targetModuleId);
-    List<Integer> edgeIds = edgeAddressToEdgeIdsCache.getIfPresent(edgeAddressModuleIds);
-    if (edgeIds != null) {
-      edgeIds.add(edge.getId());
-    } else {
-      edgeIds = Lists.newArrayList(edge.getId());
+  /**
+   * Returns the identifier under which the address index stores an edge.
+   *
+   * @param edge The edge.
+   *
+   * @return The identifier or null if the edge does not connect two address nodes of loaded
+   *         modules.
+   */
+  private EdgeIdentifier getIdentifier(final INaviEdge edge) {
+    if (!(edge.getSource() instanceof IAddressNode)
+        || !(edge.getTarget() instanceof IAddressNode)) {
+      return null;
+    }
+    final IAddress sourceAddress = ((IAddressNode) edge.getSource()).getAddress();
+    final IAddress targetAddress = ((IAddressNode) edge.getTarget()).getAddress();
+    Integer sourceModuleId = null;
+    Integer targetModuleId = null;
+    if (edge.getSource() instanceof INaviCodeNode) {
+      sourceModuleId = getModuleId((INaviCodeNode) edge.getSource());
+    } else if (edge.getSource() instanceof INaviFunctionNode) {
+      sourceModuleId = getModuleId((INaviFunctionNode) edge.getSource());
+    }
+    if (edge.getTarget() instanceof INaviCodeNode) {
+      targetModuleId = getModuleId((INaviCodeNode) edge.getTarget());
+    } else if (edge.getTarget() instanceof INaviFunctionNode) {
+      targetModuleId = getModuleId((INaviFunctionNode) edge.getTarget());
+    }
+    if (targetModuleId == null || sourceModuleId == null) {
+      return null;
+    }
+    return new EdgeIdentifier(sourceAddress, sourceModuleId, targetAddress, targetModuleId);
+  }
+
+  private void UpdateAddressModuleIdCache(final EdgeIdentifier edgeAddressModuleIds,
+      final INaviEdge edge) {
+    final List<Integer> oldIds = edgeAddressToEdgeIdsCache.getIfPresent(edgeAddressModuleIds);
+    final Set<Integer> edgeIds = new LinkedHashSet<>();
+    if (oldIds != null) {
+      // Drop the IDs of edges that were collected since the entry was written.
+      edgeIds.addAll(edgesByIdCache.getAllPresent(oldIds).keySet());
     }
-    edgeAddressToEdgeIdsCache.put(edgeAddressModuleIds, edgeIds);
+    edgeIds.add(edge.getId());
+    edgeAddressToEdgeIdsCache.put(edgeAddressModuleIds, Lists.newArrayList(edgeIds));
   }
 
   private Integer getModuleId(final INaviCodeNode node) {
@@ -178,12 +221,66 @@ public class EdgeCache {
     return edgesByIdCache.getIfPresent(edgeId);
   }
 
-  public ImmutableCollection<INaviEdge> getEdgeBySourceAndTarget(final IAddress sourceAddress,
-      final Integer sourceModuleId, final IAddress targetAddress, final Integer targetModuleId) {
+  public synchronized ImmutableCollection<INaviEdge> getEdgeBySourceAndTarget(
+      final IAddress sourceAddress, final Integer sourceModuleId, final IAddress targetAddress,
+      final Integer targetModuleId) {
     final EdgeIdentifier edgeAddressModuleIds =
         new EdgeIdentifier(sourceAddress, sourceModuleId, targetAddress, targetModuleId);
     final List<Integer> edgeIds = edgeAddressToEdgeIdsCache.getIfPresent(edgeAddressModuleIds);
-    return edgesByIdCache.getAllPresent(edgeIds).values();
+    if (edgeIds == null) {
+      return findEdges(edgeAddressModuleIds);
+    }
+    final ImmutableMap<Integer, INaviEdge> edges = edgesByIdCache.getAllPresent(edgeIds);
+    if (edges.isEmpty()) {
+      edgeAddressToEdgeIdsCache.invalidate(edgeAddressModuleIds);
+      return null;
+    }
+    if (edges.size() < edgeIds.size()) {
+      edgeAddressToEdgeIdsCache.put(edgeAddressModuleIds, Lists.newArrayList(edges.keySet()));
+    }
+    return edges.values();
+  }
+
+  /**
+   * Searches the registry for the edges between two addresses whose index entry was evicted and
+   * adds the edges to the index again.
+   *
+   * @param identifier Addresses and modules of the edges.
+   *
+   * @return The edges or null if no registered edge connects the addresses.
+   */
+  private ImmutableCollection<INaviEdge> findEdges(final EdgeIdentifier identifier) {
+    final ImmutableMap.Builder<Integer, INaviEdge> edges = ImmutableMap.builder();
+    for (final INaviEdge edge : edgesByIdCache.values()) {
+      if (identifier.equals(getIdentifier(edge))) {
+        edges.put(edge.getId(), edge);
+      }
+    }
+    final ImmutableMap<Integer, INaviEdge> found = edges.build();
+    if (found.isEmpty()) {
+      return null;
+    }
+    edgeAddressToEdgeIdsCache.put(identifier, Lists.newArrayList(found.keySet()));
+    return found.values();
+  }
+
+  /**
+   * Records that edges which fill the cache were loaded from the database.
+   *
+   * @param nanoseconds Time spent loading the edges.
+   */
+  public void recordLoad(final long nanoseconds) {
+    edgesByIdCache.recordLoad(nanoseconds);
+  }
+
+  /**
+   * Returns the usage statistics of the edge cache and of the edge address index.
+   *
+   * @return The statistics of the caches.
+   */
+  public List<CacheStatistics> getStatistics() {
+    return Lists.newArrayList(
+        edgesByIdCache.getStatistics(), edgeAddressToEdgeIdsCache.getStatistics());
   }
 
   /**
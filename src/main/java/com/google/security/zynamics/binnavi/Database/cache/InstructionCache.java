@@ -17,8 +17,8 @@ package com.google.security.zynamics.binnavi.Database.cache;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProviderListener;
@@ -27,6 +27,7 @@ import com.google.security.zynamics.zylib.disassembly.IAddress;
 import com.google.security.zynamics.zylib.general.Pair;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class InstructionCache {
@@ -34,8 +35,22 @@ public class InstructionCache {
   private static Map<SQLProvider, InstructionCache> caches =
       new HashMap<SQLProvider, InstructionCache>();
 
-  Cache<Pair<IAddress, Integer>, INaviInstruction> instructionByAddressCache =
-      CacheBuilder.newBuilder().weakValues().build();
+  /**
+   * Estimates the memory of the cached instructions.
+   */
+  private static final Weigher<Pair<IAddress, Integer>, INaviInstruction> INSTRUCTION_WEIGHER =
+      new Weigher<Pair<IAddress, Integer>, INaviInstruction>() {
+        @Override
+        public int weigh(final Pair<IAddress, Integer> key, final INaviInstruction instruction) {
+          return CacheWeights.instruction(instruction);
+        }
+      };
+
+  /**
+   * Registry of the loaded instructions. The instructions are held weakly and are never evicted
+   * because of their size, so every instruction an open view references can be found.
+   */
+  final BoundedCache<Pair<IAddress, Integer>, INaviInstruction> instructionByAddressCache;
 
   private SQLProvider provider;
 
@@ -44,6 +59,8 @@ public class InstructionCache {
   private InstructionCache(final SQLProvider provider) {
     this.provider = provider;
     this.provider.addListener(providerListener);
+
+    instructionByAddressCache = new BoundedCache<>("Instructions", INSTRUCTION_WEIGHER);
   }
 
   public static synchronized InstructionCache get(final SQLProvider provider) {
@@ -79,6 +96,24 @@ public class InstructionCache {
         instruction.getAddress(), instruction.getModule().getConfiguration().getId()), instruction);
   }
 
+  /**
+   * Records that instructions which fill the cache were loaded from the database.
+   *
+   * @param nanoseconds Time spent loading the instructions.
+   */
+  public void recordLoad(final long nanoseconds) {
+    instructionByAddressCache.recordLoad(nanoseconds);
+  }
+
+  /**
+   * Returns the usage statistics of the cache.
+   *
+   * @return The statistics of the cache.
+   */
+  public List<CacheStatistics> getStatistics() {
+    return Lists.newArrayList(instructionByAddressCache.getStatistics());
+  }
+
   /**
    * Internal listener class to keep informed about changes in the {@link SQLProvider provider}.
    */
@@ -0,0 +1,428 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.security.zynamics.binnavi.Log.NaviLogger;
+import com.google.security.zynamics.binnavi.Resources.Constants;
+import com.google.security.zynamics.binnavi.config.ConfigManager;
+import com.google.security.zynamics.binnavi.disassembly.INaviModule;
+import com.google.security.zynamics.common.config.ConfigHelper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local on-disk cache of module data that never changes after a module was imported, for example
+ * the node and edge counts of the native flow graphs and the degrees of the functions. Computing
+ * this data in the database requires aggregating over all nodes and edges of the module, which
+ * takes most of the time when a large module is opened.
+ *
+ * Snapshots are keyed by the database URL, the module ID and a stamp that identifies the imported
+ * data of the module. Snapshot files are memory-mapped when they are read. Snapshots that are
+ * missing, outdated or damaged are ignored, in which case the data is loaded from the database.
+ */
+public final class ModuleSnapshotCache {
+  /**
+   * Identifies snapshot files.
+   */
+  private static final int MAGIC = 0x424E5353;
+
+  /**
+   * Version of the snapshot file format.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * Only valid instance of this class.
+   */
+  private static ModuleSnapshotCache m_instance = new ModuleSnapshotCache(new File(
+      ConfigHelper.getConfigurationDirectory(Constants.COMPANY_NAME, Constants.PROJECT_NAME)
+          + "snapshots"));
+
+  /**
+   * Directory where the snapshot files are stored.
+   */
+  private final File m_directory;
+
+  /**
+   * Creates a new snapshot cache.
+   *
+   * @param directory Directory where the snapshot files are stored.
+   */
+  ModuleSnapshotCache(final File directory) {
+    m_directory = Preconditions.checkNotNull(directory,
+        "IE03466: Directory argument can not be null");
+  }
+
+  /**
+   * Returns the only valid instance of this class.
+   *
+   * @return The only valid instance of this class.
+   */
+  public static ModuleSnapshotCache instance() {
+    return m_instance;
+  }
+
+  /**
+   * Returns the file that stores a part of the snapshot of a module.
+   *
+   * @param url URL of the database the module belongs to.
+   * @param moduleId ID of the module.
+   * @param part The part of the snapshot.
+   *
+   * @return The snapshot file.
+   */
+  private File getFile(final String url, final int moduleId, final SnapshotPart part) {
+    final String database = Hashing.sha1().hashString(url, StandardCharsets.UTF_8).toString();
+
+    return new File(m_directory,
+        String.format("%s-%d.%s", database.substring(0, 16), moduleId, part.getExtension()));
+  }
+
+  /**
+   * Reads a part of the snapshot of a module.
+   *
+   * @param url URL of the database the module belongs to.
+   * @param moduleId ID of the module.
+   * @param stamp Identifies the imported data of the module.
+   * @param part The part of the snapshot to read.
+   *
+   * @return The records of the snapshot part or null if there is no valid snapshot.
+   */
+  private ByteBuffer read(final String url, final int moduleId, final long stamp,
+      final SnapshotPart part) {
+    final File file = getFile(url, moduleId, part);
+
+    if (!file.exists()) {
+      return null;
+    }
+
+    try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)
+          || (buffer.getInt() != part.ordinal()) || (buffer.getInt() != moduleId)
+          || (buffer.getLong() != stamp)) {
+        return null;
+      }
+
+      final byte[] storedUrl = new byte[buffer.getInt()];
+      buffer.get(storedUrl);
+
+      if (!url.equals(new String(storedUrl, StandardCharsets.UTF_8))) {
+        return null;
+      }
+
+      final int records = buffer.getInt();
+
+      return buffer.remaining() == records * part.getRecordSize() ? buffer : null;
+    } catch (final IOException | BufferUnderflowException
+        | NegativeArraySizeException exception) {
+      NaviLogger.warning("Could not read module snapshot %s: %s", file, exception);
+
+      return null;
+    }
+  }
+
+  /**
+   * Writes a part of the snapshot of a module. The file is written to a temporary file first and
+   * then moved into place, so readers never see partially written snapshots.
+   *
+   * @param url URL of the database the module belongs to.
+   * @param moduleId ID of the module.
+   * @param stamp Identifies the imported data of the module.
+   * @param part The part of the snapshot to write.
+   * @param records Number of records in the snapshot part.
+   * @param writer Writes the records.
+   */
+  private void write(final String url, final int moduleId, final long stamp,
+      final SnapshotPart part, final int records, final IRecordWriter writer) {
+    final File file = getFile(url, moduleId, part);
+
+    try {
+      if (!m_directory.exists() && !m_directory.mkdirs()) {
+        throw new IOException("Could not create directory " + m_directory);
+      }
+
+      final File temporaryFile = File.createTempFile("snapshot", ".tmp", m_directory);
+
+      try {
+        try (final DataOutputStream stream = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+          final byte[] storedUrl = url.getBytes(StandardCharsets.UTF_8);
+
+          stream.writeInt(MAGIC);
+          stream.writeInt(VERSION);
+          stream.writeInt(part.ordinal());
+          stream.writeInt(moduleId);
+          stream.writeLong(stamp);
+          stream.writeInt(storedUrl.length);
+          stream.write(storedUrl);
+          stream.writeInt(records);
+          writer.write(stream);
+        }
+
+        try {
+          Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException exception) {
+          Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(temporaryFile.toPath());
+      }
+    } catch (final IOException exception) {
+      NaviLogger.warning("Could not write module snapshot %s: %s", file, exception);
+    }
+  }
+
+  /**
+   * Returns the stamp that identifies the imported data of a module. The imported data of a module
+   * never changes, so the import time of the module is sufficient.
+   *
+   * @param module The module whose stamp is returned.
+   *
+   * @return The stamp of the module.
+   */
+  public static long getStamp(final INaviModule module) {
+    Preconditions.checkNotNull(module, "IE03474: Module argument can not be null");
+
+    return module.getConfiguration().getCreationDate().getTime();
+  }
+
+  /**
+   * Deletes all parts of the snapshot of a module.
+   *
+   * @param url URL of the database the module belongs to.
+   * @param moduleId ID of the module.
+   */
+  public void invalidate(final String url, final int moduleId) {
+    Preconditions.checkNotNull(url, "IE03467: URL argument can not be null");
+
+    for (final SnapshotPart part : SnapshotPart.values()) {
+      try {
+        Files.deleteIfExists(getFile(url, moduleId, part).toPath());
+      } catch (final IOException exception) {
+        NaviLogger.warning("Could not delete module snapshot: %s", exception);
+      }
+    }
+  }
+
+  /**
+   * Determines whether module snapshots are enabled in the settings.
+   *
+   * @return True, if module snapshots are enabled. False, otherwise.
+   */
+  public boolean isEnabled() {
+    return ConfigManager.instance().getGeneralSettings().isModuleSnapshots();
+  }
+
+  /**
+   * Reads the snapshot of the function degrees of a module.
+   *
+   * @param url URL of the database the module belongs to.
+   * @param moduleId ID of the module.
+   * @param stamp Identifies the imported data of the module.
+   *
+   * @return Maps function addresses to their node count, edge count, indegree and outdegree, or
+   *         null if there is no valid snapshot. Functions that are not loaded by the module have
+   *         negative counts.
+   */
+  public Map<Long, int[]> readFunctionCounts(final String url, final int moduleId,
+      final long stamp) {
+    Preconditions.checkNotNull(url, "IE03468: URL argument can not be null");
+
+    final ByteBuffer buffer = read(url, moduleId, stamp, SnapshotPart.Functions);
+
+    if (buffer == null) {
+      return null;
+    }
+
+    final Map<Long, int[]> counts = new HashMap<Long, int[]>();
+
+    while (buffer.hasRemaining()) {
+      counts.put(buffer.getLong(),
+          new int[] {buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt()});
+    }
+
+    return counts;
+  }
+
+  /**
+   * Reads the snapshot of the native flow graph sizes of a module.
+   *
+   * @param url URL of the database the module belongs to.
+   * @param moduleId ID of the module.
+   * @param stamp Identifies the imported data of the module.
+   *
+   * @return Maps view IDs to their node count and edge count, or null if there is no valid
+   *         snapshot. Native views that are not flow graphs have negative counts.
+   */
+  public Map<Integer, int[]> readViewCounts(final String url, final int moduleId,
+      final long stamp) {
+    Preconditions.checkNotNull(url, "IE03469: URL argument can not be null");
+
+    final ByteBuffer buffer = read(url, moduleId, stamp, SnapshotPart.Views);
+
+    if (buffer == null) {
+      return null;
+    }
+
+    final Map<Integer, int[]> counts = new HashMap<Integer, int[]>();
+
+    while (buffer.hasRemaining()) {
+      counts.put(buffer.getInt(), new int[] {buffer.getInt(), buffer.getInt()});
+    }
+
+    return counts;
+  }
+
+  /**
+   * Writes the snapshot of the function degrees of a module.
+   *
+   * @param url URL of the database the module belongs to.
+   * @param moduleId ID of the module.
+   * @param stamp Identifies the imported data of the module.
+   * @param counts Maps function addresses to their node count, edge count, indegree and
+   *        outdegree.
+   */
+  public void writeFunctionCounts(final String url, final int moduleId, final long stamp,
+      final Map<Long, int[]> counts) {
+    Preconditions.checkNotNull(url, "IE03470: URL argument can not be null");
+    Preconditions.checkNotNull(counts, "IE03471: Counts argument can not be null");
+
+    write(url, moduleId, stamp, SnapshotPart.Functions, counts.size(), new IRecordWriter() {
+      @Override
+      public void write(final DataOutputStream stream) throws IOException {
+        for (final Map.Entry<Long, int[]> entry : counts.entrySet()) {
+          stream.writeLong(entry.getKey());
+
+          for (int i = 0; i < 4; i++) {
+            stream.writeInt(entry.getValue()[i]);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Writes the snapshot of the native flow graph sizes of a module.
+   *
+   * @param url URL of the database the module belongs to.
+   * @param moduleId ID of the module.
+   * @param stamp Identifies the imported data of the module.
+   * @param counts Maps view IDs to their node count and edge count.
+   */
+  public void writeViewCounts(final String url, final int moduleId, final long stamp,
+      final Map<Integer, int[]> counts) {
+    Preconditions.checkNotNull(url, "IE03472: URL argument can not be null");
+    Preconditions.checkNotNull(counts, "IE03473: Counts argument can not be null");
+
+    write(url, moduleId, stamp, SnapshotPart.Views, counts.size(), new IRecordWriter() {
+      @Override
+      public void write(final DataOutputStream stream) throws IOException {
+        for (final Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+          stream.writeInt(entry.getKey());
+          stream.writeInt(entry.getValue()[0]);
+          stream.writeInt(entry.getValue()[1]);
+        }
+      }
+    });
+  }
+
+  /**
+   * Writes the records of a snapshot part.
+   */
+  private interface IRecordWriter {
+    /**
+     * Writes the records.
+     *
+     * @param stream The stream the records are written to.
+     *
+     * @throws IOException Thrown if the records could not be written.
+     */
+    void write(DataOutputStream stream) throws IOException;
+  }
+
+  /**
+   * The parts a module snapshot consists of.
+   */
+  private enum SnapshotPart {
+    /**
+     * Node and edge counts of the native views.
+     */
+    Views("views", 12),
+
+    /**
+     * Node counts, edge counts and degrees of the functions.
+     */
+    Functions("functions", 24);
+
+    /**
+     * File extension of the snapshot part.
+     */
+    private final String m_extension;
+
+    /**
+     * Size of a single record in bytes.
+     */
+    private final int m_recordSize;
+
+    /**
+     * Creates a new snapshot part.
+     *
+     * @param extension File extension of the snapshot part.
+     * @param recordSize Size of a single record in bytes.
+     */
+    private SnapshotPart(final String extension, final int recordSize) {
+      m_extension = extension;
+      m_recordSize = recordSize;
+    }
+
+    /**
+     * Returns the file extension of the snapshot part.
+     *
+     * @return The file extension.
+     */
+    private String getExtension() {
+      return m_extension;
+    }
+
+    /**
+     * Returns the size of a single record.
+     *
+     * @return The size of a record in bytes.
+     */
+    private int getRecordSize() {
+      return m_recordSize;
+    }
+  }
+}
@@ -17,9 +17,9 @@ package com.google.security.zynamics.binnavi.Database.cache;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
@@ -30,9 +30,11 @@ import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
 import com.google.security.zynamics.zylib.disassembly.IAddress;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class NodeCache {
 
@@ -65,9 +67,40 @@ public class NodeCache {
 
   private static Map<SQLProvider, NodeCache> caches = new HashMap<SQLProvider, NodeCache>();
 
-  Cache<Integer, INaviViewNode> nodeByIdCache = CacheBuilder.newBuilder().weakValues().build();
-  Cache<NodeIdentifier, List<Integer>> addressModuleIdNodeIdsCache =
-      CacheBuilder.newBuilder().build();
+  /**
+   * Estimates the memory of the registered nodes.
+   */
+  private static final Weigher<Integer, INaviViewNode> NODE_WEIGHER =
+      new Weigher<Integer, INaviViewNode>() {
+        @Override
+        public int weigh(final Integer key, final INaviViewNode node) {
+          return CacheWeights.node(node);
+        }
+      };
+
+  /**
+   * Estimates the memory of the cached node ID lists.
+   */
+  private static final Weigher<Object, List<Integer>> IDS_WEIGHER =
+      new Weigher<Object, List<Integer>>() {
+        @Override
+        public int weigh(final Object key, final List<Integer> ids) {
+          return CacheWeights.ids(ids);
+        }
+      };
+
+  /**
+   * Registry of the loaded nodes. The nodes are held weakly and are never evicted because of their
+   * size, so every node an open view references can be found by notification handling.
+   */
+  final BoundedCache<Integer, INaviViewNode> nodeByIdCache;
+
+  /**
+   * Maps the addresses of code nodes to the IDs of the nodes. The index is bounded by its share of
+   * the cache budget of the database. IDs of collected nodes are dropped when the index is read,
+   * and addresses whose entry was evicted are looked up in the registry instead.
+   */
+  final BoundedCache<NodeIdentifier, List<Integer>> addressModuleIdNodeIdsCache;
 
   private final SQLProvider provider;
 
@@ -76,6 +109,10 @@ public class NodeCache {
   private NodeCache(final SQLProvider provider) {
     this.provider = provider;
     this.provider.addListener(providerListener);
+
+    nodeByIdCache = new BoundedCache<>("Nodes", NODE_WEIGHER);
+    addressModuleIdNodeIdsCache = new BoundedCache<>("Node addresses", IDS_WEIGHER,
+        CacheSettings.getMaximumWeight(provider, CacheSettings.NODE_INDEX_SHARE), false);
   }
 
   public static synchronized NodeCache get(final SQLProvider provider) {
@@ -91,14 +128,69 @@ public class NodeCache {
     provider.removeListener(providerListener);
   }
 
-  public ImmutableCollection<INaviViewNode> getNodeByAddress(final IAddress nodeAddress,
-      final Integer moduleId) {
-    final List<Integer> nodeIds =
-        addressModuleIdNodeIdsCache.getIfPresent(new NodeIdentifier(nodeAddress, moduleId));
-    return nodeByIdCache.getAllPresent(nodeIds).values();
+  /**
+   * Returns the identifier under which the address index stores a node.
+   *
+   * @param node The node.
+   *
+   * @return The identifier or null if the node is not a code node of a loaded module.
+   */
+  private NodeIdentifier getIdentifier(final INaviViewNode node) {
+    if (!(node instanceof INaviCodeNode)) {
+      return null;
+    }
+    try {
+      final Integer moduleId =
+          ((INaviCodeNode) node).getParentFunction().getModule().getConfiguration().getId();
+      return moduleId == null ? null
+          : new NodeIdentifier(((INaviCodeNode) node).getAddress(), moduleId);
+    } catch (final MaybeNullException e) {
+      return null;
+    }
+  }
+
+  public synchronized ImmutableCollection<INaviViewNode> getNodeByAddress(
+      final IAddress nodeAddress, final Integer moduleId) {
+    final NodeIdentifier identifier = new NodeIdentifier(nodeAddress, moduleId);
+    final List<Integer> nodeIds = addressModuleIdNodeIdsCache.getIfPresent(identifier);
+    if (nodeIds == null) {
+      return findNodes(identifier);
+    }
+    final ImmutableMap<Integer, INaviViewNode> nodes = nodeByIdCache.getAllPresent(nodeIds);
+    if (nodes.isEmpty()) {
+      addressModuleIdNodeIdsCache.invalidate(identifier);
+      return null;
+    }
+    if (nodes.size() < nodeIds.size()) {
+      addressModuleIdNodeIdsCache.put(identifier, Lists.newArrayList(nodes.keySet()));
+    }
+    return nodes.values();
+  }
+
+  /**
+   * Searches the registry for the nodes of an address whose index entry was evicted and adds the
+   * nodes to the index again.
+   *
+   * @param identifier Address and module of the nodes.
+   *
+   * @return The nodes or null if no registered node has the address.
+   */
+  private ImmutableCollection<INaviViewNode> findNodes(final NodeIdentifier identifier) {
+    final ImmutableMap.Builder<Integer, INaviViewNode> nodes = ImmutableMap.builder();
+    for (final INaviViewNode node : nodeByIdCache.values()) {
+      if (identifier.equals(getIdentifier(node))) {
+        nodes.put(node.getId(), node);
+      }
+    }
+    final ImmutableMap<Integer, INaviViewNode> found = nodes.build();
+    if (found.isEmpty()) {
+      return null;
+    }
+    addressModuleIdNodeIdsCache.put(identifier, Lists.newArrayList(found.keySet()));
+    return found.values();
   }
 
-  public void addNodes(final List<INaviViewNode> nodes) {
+  public synchronized void addNodes(final List<INaviViewNode> nodes) {
     nodeByIdCache.putAll(Maps.uniqueIndex(nodes, new Function<INaviViewNode, Integer>() {
       @Override
       public Integer apply(final INaviViewNode node) {
@@ -107,38 +199,48 @@ public class NodeCache {
     }));
 
     for (final INaviViewNode node : nodes) {
-      if (node instanceof INaviCodeNode) {
-        final IAddress nodeAddress = ((INaviCodeNode) node).getAddress();
-        Integer moduleId = null;
-        try {
-          moduleId =
-              ((INaviCodeNode) node).getParentFunction().getModule().getConfiguration().getId();
-        } catch (final MaybeNullException e) {
-          continue;
-        }
-        if (moduleId != null) {
-          UpdateAddressModuleIdCache(nodeAddress, moduleId, node);
-        }
+      final NodeIdentifier identifier = getIdentifier(node);
+      if (identifier != null) {
+        UpdateAddressModuleIdCache(identifier, node);
       }
     }
   }
 
-  private void UpdateAddressModuleIdCache(IAddress nodeAddress, Integer moduleId,
-      INaviViewNode node) {
-    final NodeIdentifier nodeAddressModuleId = new NodeIdentifier(nodeAddress, moduleId);
-    List<Integer> nodeIds = addressModuleIdNodeIdsCache.getIfPresent(nodeAddressModuleId);
-    if (nodeIds != null) {
-      nodeIds.add(node.getId());
-    } else {
-      nodeIds = Lists.newArrayList(node.getId());
+  private void UpdateAddressModuleIdCache(final NodeIdentifier nodeAddressModuleId,
+      final INaviViewNode node) {
+    final List<Integer> oldIds = addressModuleIdNodeIdsCache.getIfPresent(nodeAddressModuleId);
+    final Set<Integer> nodeIds = new LinkedHashSet<>();
+    if (oldIds != null) {
+      // Drop the IDs of nodes that were collected since the entry was written.
+      nodeIds.addAll(nodeByIdCache.getAllPresent(oldIds).keySet());
     }
-    addressModuleIdNodeIdsCache.put(nodeAddressModuleId, nodeIds);
+    nodeIds.add(node.getId());
+    addressModuleIdNodeIdsCache.put(nodeAddressModuleId, Lists.newArrayList(nodeIds));
   }
 
   public INaviViewNode getNodeById(final Integer nodeId) {
     return nodeByIdCache.getIfPresent(nodeId);
   }
 
+  /**
+   * Records that nodes which fill the cache were loaded from the database.
+   *
+   * @param nanoseconds Time spent loading the nodes.
+   */
+  public void recordLoad(final long nanoseconds) {
+    nodeByIdCache.recordLoad(nanoseconds);
+  }
+
+  /**
+   * Returns the usage statistics of the node cache and of the node address index.
+   *
+   * @return The statistics of the caches.
+   */
+  public List<CacheStatistics> getStatistics() {
+    return Lists.newArrayList(
+        nodeByIdCache.getStatistics(), addressModuleIdNodeIdsCache.getStatistics());
+  }
+
   /**
    * Internal listener class to keep informed about changes in the {@link SQLProvider provider}.
    */
@@ -0,0 +1,201 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Weigher;
+import com.google.security.zynamics.binnavi.disassembly.INaviEdge;
+import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
+import com.google.security.zynamics.binnavi.disassembly.views.INaviView;
+import com.google.security.zynamics.zylib.types.graphs.MutableDirectedGraph;
+
+import java.util.Date;
+
+/**
+ * Holds the graphs of views that were loaded from the database before the views themselves were
+ * loaded, for example by prefetching the functions called from an open view. A graph is handed out
+ * at most once and only if the view was not modified since the graph was loaded.
+ */
+public final class ViewGraphCache {
+  /**
+   * Default memory limit of the cache in megabytes.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 64;
+
+  /**
+   * Estimates the memory of the cached graphs.
+   */
+  private static final Weigher<INaviView, CCachedGraph> GRAPH_WEIGHER =
+      new Weigher<INaviView, CCachedGraph>() {
+        @Override
+        public int weigh(final INaviView view, final CCachedGraph graph) {
+          return CacheWeights.graph(graph.m_graph);
+        }
+      };
+
+  /**
+   * Only valid instance of this class.
+   */
+  private static final ViewGraphCache m_instance = new ViewGraphCache();
+
+  /**
+   * Memory limit of the cache in megabytes.
+   */
+  private int m_cacheSize = DEFAULT_CACHE_SIZE;
+
+  /**
+   * The cached graphs.
+   */
+  private BoundedCache<INaviView, CCachedGraph> m_cache = createCache(DEFAULT_CACHE_SIZE);
+
+  /**
+   * Private constructor because this class is a singleton.
+   */
+  private ViewGraphCache() {
+  }
+
+  /**
+   * Creates the underlying cache.
+   *
+   * @param cacheSize Memory limit of the cache in megabytes.
+   *
+   * @return The created cache.
+   */
+  private static BoundedCache<INaviView, CCachedGraph> createCache(final int cacheSize) {
+    return new BoundedCache<>("View graphs", GRAPH_WEIGHER, cacheSize * 1024L * 1024L, false);
+  }
+
+  /**
+   * Returns the only valid instance of this class.
+   *
+   * @return The only valid instance of this class.
+   */
+  public static ViewGraphCache instance() {
+    return m_instance;
+  }
+
+  /**
+   * Adds the graph of a view to the cache. Graphs that are larger than the memory limit of the
+   * cache are dropped immediately.
+   *
+   * @param view The view the graph belongs to.
+   * @param graph The graph of the view.
+   * @param loadTime Time in nanoseconds it took to load the graph.
+   */
+  public synchronized void add(final INaviView view,
+      final MutableDirectedGraph<INaviViewNode, INaviEdge> graph, final long loadTime) {
+    Preconditions.checkNotNull(view, "IE03456: View argument can not be null");
+    Preconditions.checkNotNull(graph, "IE03457: Graph argument can not be null");
+
+    m_cache.recordLoad(loadTime);
+    m_cache.put(view, new CCachedGraph(graph, view.getConfiguration().getModificationDate()));
+  }
+
+  /**
+   * Determines whether the cache holds the graph of a view.
+   *
+   * @param view The view to check.
+   *
+   * @return True, if the graph of the view is cached. False, otherwise.
+   */
+  public synchronized boolean contains(final INaviView view) {
+    return m_cache.getIfPresent(view) != null;
+  }
+
+  /**
+   * Returns the memory limit of the cache.
+   *
+   * @return The memory limit in megabytes.
+   */
+  public synchronized int getCacheSize() {
+    return m_cacheSize;
+  }
+
+  /**
+   * Returns the usage statistics of the cache.
+   *
+   * @return The statistics of the cache.
+   */
+  public synchronized CacheStatistics getStatistics() {
+    return m_cache.getStatistics();
+  }
+
+  /**
+   * Changes the memory limit of the cache. Changing the limit drops all cached graphs.
+   *
+   * @param cacheSize The new memory limit in megabytes.
+   */
+  public synchronized void setCacheSize(final int cacheSize) {
+    Preconditions.checkArgument(cacheSize > 0, "IE03458: Cache size must be positive");
+
+    if (cacheSize != m_cacheSize) {
+      m_cacheSize = cacheSize;
+      m_cache = createCache(cacheSize);
+    }
+  }
+
+  /**
+   * Removes the graph of a view from the cache and returns it.
+   *
+   * @param view The view whose graph is returned.
+   *
+   * @return The graph of the view or null if there is no graph for the view or if the cached graph
+   *         is outdated.
+   */
+  public synchronized MutableDirectedGraph<INaviViewNode, INaviEdge> take(final INaviView view) {
+    Preconditions.checkNotNull(view, "IE03459: View argument can not be null");
+
+    final CCachedGraph cachedGraph = m_cache.getIfPresent(view);
+
+    if (cachedGraph == null) {
+      return null;
+    }
+
+    m_cache.invalidate(view);
+
+    final Date modificationDate = view.getConfiguration().getModificationDate();
+
+    return cachedGraph.m_modificationDate.equals(modificationDate) ? cachedGraph.m_graph : null;
+  }
+
+  /**
+   * Graph of a view together with the modification date of the view at the time the graph was
+   * loaded.
+   */
+  private static final class CCachedGraph {
+    /**
+     * The graph of the view.
+     */
+    private final MutableDirectedGraph<INaviViewNode, INaviEdge> m_graph;
+
+    /**
+     * Modification date of the view when the graph was loaded.
+     */
+    private final Date m_modificationDate;
+
+    /**
+     * Creates a new cached graph.
+     *
+     * @param graph The graph of the view.
+     * @param modificationDate Modification date of the view when the graph was loaded.
+     */
+    private CCachedGraph(final MutableDirectedGraph<INaviViewNode, INaviEdge> graph,
+        final Date modificationDate) {
+      m_graph = graph;
+      m_modificationDate = new Date(modificationDate.getTime());
+    }
+  }
+}
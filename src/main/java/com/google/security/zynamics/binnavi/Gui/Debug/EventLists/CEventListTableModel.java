@@ -231,6 +231,13 @@ public final class CEventListTableModel extends CFilteredTableModel<TraceList> {
       fireTableDataChanged();
     }
 
+    @Override
+    public void eventsAdded(final TraceList trace, final List<ITraceEvent> events) {
+      m_cachedValues = null;
+
+      fireTableDataChanged();
+    }
+
     @Override
     public void loaded() {
       for (final TraceList traceList : m_traceProvider) {
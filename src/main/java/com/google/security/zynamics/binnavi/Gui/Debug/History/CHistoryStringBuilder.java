@@ -15,6 +15,8 @@ limitations under the License.
 */
 package com.google.security.zynamics.binnavi.Gui.Debug.History;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.security.zynamics.binnavi.CUtilityFunctions;
@@ -29,6 +31,7 @@ import com.google.security.zynamics.binnavi.debug.connection.packets.replies.Can
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerClosedUnexpectedlyReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DetachReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointSetReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointsRemovedReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.ExceptionOccurredReply;
@@ -109,8 +112,24 @@ public final class CHistoryStringBuilder {
    * Keeps track of the debug client events and updates the text field.
    */
   private final IDebugEventListener m_listener = new IDebugEventListener() {
-    private void updateText(final String text) {
-      m_string.add(text);
+    private String getEchoBreakpointHitText(final EchoBreakpointHitReply reply) {
+      try {
+        final IAddress programCounter =
+            getProgramCounter(reply.getThreadId(), reply.getRegisterValues());
+
+        return "SUCCESS"
+            + ": "
+            + String.format("Hit Echo Breakpoint (Address: %s / TID: %d)",
+                programCounter.toHexString(), reply.getThreadId());
+      } catch (final MaybeNullException e) {
+        return "ERROR" + ": " + "Hit Echo Breakpoint (Could not determine event address)";
+      }
+    }
+
+    private void updateText(final List<String> texts) {
+      for (final String text : texts) {
+        m_string.add(text);
+      }
 
       for (final IHistoryStringBuilderListener listener : m_listeners) {
         try {
@@ -121,6 +140,10 @@ public final class CHistoryStringBuilder {
       }
     }
 
+    private void updateText(final String text) {
+      updateText(Collections.singletonList(text));
+    }
+
     @Override
     public void debugException(final DebugExceptionWrapper debugException) {
       // Do not log this
@@ -211,17 +234,19 @@ public final class CHistoryStringBuilder {
 
     @Override
     public void receivedReply(final EchoBreakpointHitReply reply) {
-      try {
-        final IAddress programCounter =
-            getProgramCounter(reply.getThreadId(), reply.getRegisterValues());
+      updateText(getEchoBreakpointHitText(reply));
+    }
 
-        updateText("SUCCESS"
-            + ": "
-            + String.format("Hit Echo Breakpoint (Address: %s / TID: %d)",
-                programCounter.toHexString(), reply.getThreadId()));
-      } catch (final MaybeNullException e) {
-        updateText("ERROR" + ": " + "Hit Echo Breakpoint (Could not determine event address)");
+    @Override
+    public void receivedReply(final EchoBreakpointHitsReply reply) {
+      // All hits of the batch are logged but the listeners are only notified once.
+      final List<String> texts = new ArrayList<>();
+
+      for (final EchoBreakpointHitReply hit : reply.getHits()) {
+        texts.add(getEchoBreakpointHitText(hit));
       }
+
+      updateText(texts);
     }
 
     @Override
@@ -0,0 +1,176 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Gui.GraphWindows.Loader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.binnavi.CUtilityFunctions;
+import com.google.security.zynamics.binnavi.Database.Exceptions.CPartialLoadException;
+import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
+import com.google.security.zynamics.binnavi.Database.cache.ViewGraphCache;
+import com.google.security.zynamics.binnavi.config.ConfigManager;
+import com.google.security.zynamics.binnavi.config.GeneralSettingsConfigItem;
+import com.google.security.zynamics.binnavi.disassembly.INaviEdge;
+import com.google.security.zynamics.binnavi.disassembly.INaviFunction;
+import com.google.security.zynamics.binnavi.disassembly.INaviModule;
+import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
+import com.google.security.zynamics.binnavi.disassembly.views.CView;
+import com.google.security.zynamics.binnavi.disassembly.views.INaviView;
+import com.google.security.zynamics.binnavi.disassembly.views.IViewContainer;
+import com.google.security.zynamics.zylib.types.graphs.MutableDirectedGraph;
+
+/**
+ * Loads the graphs of the functions called by an open view in the background, so that following a
+ * call in the graph window does not have to wait for the database. The loaded graphs are kept in
+ * the {@link ViewGraphCache} until the views are opened.
+ *
+ * Prefetching is disabled unless it is switched on in the general settings. Prefetch tasks run with
+ * the lowest priority of the view load scheduler and stop as soon as a view is waiting to be opened.
+ */
+public final class CCalleePrefetcher {
+  /**
+   * Maximum number of callees that are prefetched for one view.
+   */
+  private static final int MAXIMUM_CALLEES = 32;
+
+  /**
+   * Number of callees that are loaded together. Foreground loads are checked for between batches.
+   */
+  private static final int BATCH_SIZE = 8;
+
+  /**
+   * You are not supposed to instantiate this class.
+   */
+  private CCalleePrefetcher() {
+  }
+
+  /**
+   * Determines the views of the functions called by the function of a view that still need to be
+   * loaded.
+   *
+   * @param container The context in which the view is opened.
+   * @param view The view whose callees are determined.
+   *
+   * @return The views of the callees.
+   */
+  private static List<INaviView> getCalleeViews(final IViewContainer container,
+      final INaviView view) {
+    final List<INaviView> calleeViews = new ArrayList<INaviView>();
+
+    final INaviFunction function = container.getFunction(view);
+
+    if ((function == null) || !function.getModule().isLoaded()) {
+      return calleeViews;
+    }
+
+    final INaviModule module = function.getModule();
+
+    for (final INaviFunction callee :
+        module.getContent().getNativeCallgraph().getCallees(function)) {
+      final INaviView calleeView = module.getContent().getViewContainer().getView(callee);
+
+      if ((calleeView != null) && (calleeView != view) && !calleeView.isLoaded()
+          && !ViewGraphCache.instance().contains(calleeView)) {
+        calleeViews.add(calleeView);
+
+        if (calleeViews.size() == MAXIMUM_CALLEES) {
+          break;
+        }
+      }
+    }
+
+    return calleeViews;
+  }
+
+  /**
+   * Loads the graphs of views into the view graph cache.
+   *
+   * @param views The views whose graphs are loaded.
+   */
+  private static void prefetch(final List<INaviView> views) {
+    for (final List<INaviView> batch : Lists.partition(views, BATCH_SIZE)) {
+      if ((CViewLoadScheduler.instance().getQueueDepth(ViewLoadPriority.FOREGROUND) > 0)
+          || Thread.currentThread().isInterrupted()) {
+        // Give way to the views the user wants to see.
+        return;
+      }
+
+      try {
+        final long start = System.nanoTime();
+        final Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> graphs =
+            CView.loadGraphs(batch);
+
+        if (graphs.isEmpty()) {
+          continue;
+        }
+
+        final long loadTime = (System.nanoTime() - start) / graphs.size();
+
+        for (final Entry<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> entry :
+            graphs.entrySet()) {
+          // The user might have opened the view while its graph was loaded.
+          if (!entry.getKey().isLoaded()) {
+            ViewGraphCache.instance().add(entry.getKey(), entry.getValue(), loadTime);
+          }
+        }
+      } catch (final CouldntLoadDataException | CPartialLoadException exception) {
+        // Prefetching is only an optimization; the views are loaded again when they are opened.
+        CUtilityFunctions.logException(exception);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Starts loading the graphs of the functions called by the function of a view in the background.
+   * Nothing happens if prefetching is disabled or if the view does not belong to a function.
+   *
+   * @param container The context in which the view is opened.
+   * @param view The view whose callees are prefetched.
+   */
+  public static void prefetchCallees(final IViewContainer container, final INaviView view) {
+    Preconditions.checkNotNull(container, "IE03462: Container argument can not be null");
+    Preconditions.checkNotNull(view, "IE03463: View argument can not be null");
+
+    final GeneralSettingsConfigItem settings = ConfigManager.instance().getGeneralSettings();
+
+    if (!settings.isPrefetchCallees()) {
+      return;
+    }
+
+    ViewGraphCache.instance().setCacheSize(settings.getPrefetchCacheSize());
+
+    final List<INaviView> calleeViews = getCalleeViews(container, view);
+
+    if (calleeViews.isEmpty()) {
+      return;
+    }
+
+    CViewLoadScheduler.instance().submit(new Callable<Void>() {
+      @Override
+      public Void call() {
+        prefetch(calleeViews);
+        return null;
+      }
+    }, ViewLoadPriority.PREFETCH);
+  }
+}
@@ -17,13 +17,10 @@ package com.google.security.zynamics.binnavi.Gui.GraphWindows.Loader;
 
 import java.awt.Window;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
 import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CPartialLoadException;
 import com.google.security.zynamics.binnavi.Gui.GraphWindows.CGraphWindow;
@@ -64,9 +61,13 @@ public final class CGraphOpener {
 
     CWindowManager.instance().bringViewToFront(view);
 
-    new Thread() {
+    // The user moved on, so the callees prefetched for previously opened views are less relevant
+    // than the view that is opened now.
+    CViewLoadScheduler.instance().cancelPending(ViewLoadPriority.PREFETCH);
+
+    CViewLoadScheduler.instance().submit(new Callable<Void>() {
       @Override
-      public void run() {
+      public Void call() {
         final CViewLoader viewLoader = new CViewLoader(window, container, view);
         final CViewLoadOperation operation = new CViewLoadOperation(view);
         try {
@@ -96,8 +97,10 @@ public final class CGraphOpener {
         } finally {
           operation.stop();
         }
+
+        return null;
       }
-    }.start();
+    }, ViewLoadPriority.FOREGROUND);
   }
 
   private static Callable<Boolean> generateViewLoader(final INaviView view,
@@ -141,19 +144,37 @@ public final class CGraphOpener {
     };
   }
 
-  public static void showGraphAndPerformCallBack(final IViewContainer container,
-      final INaviView view, final CGraphWindow window, final Window parent,
-      final FutureCallback<Boolean> callBack) {
+  /**
+   * Shows a graph in a window and notifies a callback object once the graph was loaded.
+   * 
+   * @param container
+   *          The context in which the view is opened.
+   * @param view
+   *          The view that is turned into a graph.
+   * @param window
+   *          Graph window where the graph is shown. If this value is null, the graph is shown
+   *          in a new window.
+   * @param parent
+   *          Parent window that is used as the parent of all dialogs.
+   * @param callBack
+   *          Callback object that is notified about the result of the load operation.
+   * 
+   * @return Future that can be used to cancel loading the graph.
+   */
+  public static ListenableFuture<Boolean> showGraphAndPerformCallBack(
+      final IViewContainer container, final INaviView view, final CGraphWindow window,
+      final Window parent, final FutureCallback<Boolean> callBack) {
 
     CWindowManager.instance().bringViewToFront(view);
 
-    final ListeningExecutorService service = MoreExecutors.listeningDecorator(Executors
-        .newFixedThreadPool(10));
+    CViewLoadScheduler.instance().cancelPending(ViewLoadPriority.PREFETCH);
 
-    final ListenableFuture<Boolean> loader = service.submit(generateViewLoader(view, container,
-        window, parent));
+    final ListenableFuture<Boolean> loader = CViewLoadScheduler.instance().submit(
+        generateViewLoader(view, container, window, parent), ViewLoadPriority.FOREGROUND);
 
     Futures.addCallback(loader, callBack);
+
+    return loader;
   }
 
   /**
@@ -0,0 +1,365 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Gui.GraphWindows.Loader;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Application-wide scheduler for loading views in the background. At most a fixed number of views
+ * are loaded at the same time. Waiting foreground loads are always started before waiting
+ * prefetches, and tasks that are still waiting can be cancelled.
+ */
+public final class CViewLoadScheduler {
+  /**
+   * Maximum number of views that are loaded at the same time.
+   */
+  private static final int MAXIMUM_CONCURRENT_LOADS = 4;
+
+  /**
+   * Time in seconds after which idle worker threads are stopped.
+   */
+  private static final long IDLE_TIMEOUT = 30;
+
+  /**
+   * Only valid instance of this class.
+   */
+  private static CViewLoadScheduler m_instance =
+      new CViewLoadScheduler(MAXIMUM_CONCURRENT_LOADS);
+
+  /**
+   * Executes the scheduled tasks in the order of their priorities.
+   */
+  private final ThreadPoolExecutor m_executor;
+
+  /**
+   * Used to keep tasks of the same priority in the order they were scheduled.
+   */
+  private final AtomicLong m_sequence = new AtomicLong();
+
+  /**
+   * Number of waiting tasks per priority.
+   */
+  private final Map<ViewLoadPriority, AtomicInteger> m_queued =
+      new EnumMap<ViewLoadPriority, AtomicInteger>(ViewLoadPriority.class);
+
+  /**
+   * Number of running tasks per priority.
+   */
+  private final Map<ViewLoadPriority, AtomicInteger> m_running =
+      new EnumMap<ViewLoadPriority, AtomicInteger>(ViewLoadPriority.class);
+
+  /**
+   * Number of finished tasks.
+   */
+  private final AtomicLong m_completed = new AtomicLong();
+
+  /**
+   * Number of cancelled tasks.
+   */
+  private final AtomicLong m_cancelled = new AtomicLong();
+
+  /**
+   * Total time in nanoseconds the finished tasks waited in the queue.
+   */
+  private final AtomicLong m_totalWaitTime = new AtomicLong();
+
+  /**
+   * Total time in nanoseconds the finished tasks took to execute.
+   */
+  private final AtomicLong m_totalLoadTime = new AtomicLong();
+
+  /**
+   * Longest time in nanoseconds a task took from being scheduled until it finished.
+   */
+  private final AtomicLong m_maximumLatency = new AtomicLong();
+
+  /**
+   * Creates a new scheduler.
+   *
+   * @param threads Maximum number of tasks that are executed at the same time.
+   */
+  CViewLoadScheduler(final int threads) {
+    Preconditions.checkArgument(threads > 0, "IE03452: Threads argument must be positive");
+
+    for (final ViewLoadPriority priority : ViewLoadPriority.values()) {
+      m_queued.put(priority, new AtomicInteger());
+      m_running.put(priority, new AtomicInteger());
+    }
+
+    m_executor = new ThreadPoolExecutor(threads, threads, IDLE_TIMEOUT, TimeUnit.SECONDS,
+        new PriorityBlockingQueue<Runnable>(), new CWorkerThreadFactory());
+    m_executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Returns the only valid instance of this class.
+   *
+   * @return The only valid instance of this class.
+   */
+  public static CViewLoadScheduler instance() {
+    return m_instance;
+  }
+
+  /**
+   * Updates the maximum latency if a new task took longer than all previous tasks.
+   *
+   * @param latency The latency of the finished task.
+   */
+  private void updateMaximumLatency(final long latency) {
+    long maximum = m_maximumLatency.get();
+
+    while ((latency > maximum) && !m_maximumLatency.compareAndSet(maximum, latency)) {
+      maximum = m_maximumLatency.get();
+    }
+  }
+
+  /**
+   * Cancels all tasks of a given priority that are still waiting to be executed.
+   *
+   * @param priority The priority of the tasks to cancel.
+   *
+   * @return The number of cancelled tasks.
+   */
+  public int cancelPending(final ViewLoadPriority priority) {
+    Preconditions.checkNotNull(priority, "IE03453: Priority argument can not be null");
+
+    final List<CScheduledTask<?>> cancelled = new ArrayList<CScheduledTask<?>>();
+
+    for (final Runnable runnable : m_executor.getQueue().toArray(new Runnable[0])) {
+      final CScheduledTask<?> task = (CScheduledTask<?>) runnable;
+
+      if (task.m_priority == priority) {
+        cancelled.add(task);
+      }
+    }
+
+    int count = 0;
+
+    for (final CScheduledTask<?> task : cancelled) {
+      if (task.m_future.cancel(false)) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Returns the current queue depth and latency statistics of the scheduler.
+   *
+   * @return The statistics of the scheduler.
+   */
+  public CViewLoadStatistics getStatistics() {
+    return new CViewLoadStatistics(m_queued.get(ViewLoadPriority.FOREGROUND).get(),
+        m_queued.get(ViewLoadPriority.PREFETCH).get(), m_running.get(ViewLoadPriority.FOREGROUND)
+            .get() + m_running.get(ViewLoadPriority.PREFETCH).get(), m_completed.get(),
+        m_cancelled.get(), m_totalWaitTime.get(), m_totalLoadTime.get(), m_maximumLatency.get());
+  }
+
+  /**
+   * Returns the number of tasks of a given priority that are waiting to be executed.
+   *
+   * @param priority The priority of the tasks.
+   *
+   * @return The number of waiting tasks.
+   */
+  public int getQueueDepth(final ViewLoadPriority priority) {
+    Preconditions.checkNotNull(priority, "IE03461: Priority argument can not be null");
+
+    return m_queued.get(priority).get();
+  }
+
+  /**
+   * Determines whether foreground tasks are waiting or running. Long running background tasks can
+   * use this to give way to foreground tasks.
+   *
+   * @return True, if there are foreground tasks. False, otherwise.
+   */
+  public boolean hasForegroundWork() {
+    return (m_queued.get(ViewLoadPriority.FOREGROUND).get() > 0)
+        || (m_running.get(ViewLoadPriority.FOREGROUND).get() > 0);
+  }
+
+  /**
+   * Stops the worker threads of the scheduler. Tasks that are still waiting are not executed
+   * anymore.
+   */
+  void shutdown() {
+    m_executor.shutdownNow();
+  }
+
+  /**
+   * Schedules a task.
+   *
+   * @param task The task to execute.
+   * @param priority The priority of the task.
+   *
+   * @return Future that can be used to wait for the result of the task or to cancel the task.
+   */
+  public <T> ListenableFuture<T> submit(final Callable<T> task, final ViewLoadPriority priority) {
+    Preconditions.checkNotNull(task, "IE03454: Task argument can not be null");
+    Preconditions.checkNotNull(priority, "IE03455: Priority argument can not be null");
+
+    final CScheduledTask<T> scheduledTask = new CScheduledTask<T>(task, priority);
+
+    m_queued.get(priority).incrementAndGet();
+
+    scheduledTask.m_future.addListener(new Runnable() {
+      @Override
+      public void run() {
+        if (scheduledTask.m_future.isCancelled()) {
+          m_cancelled.incrementAndGet();
+
+          if (scheduledTask.dequeue()) {
+            m_executor.remove(scheduledTask);
+          }
+        }
+      }
+    }, MoreExecutors.directExecutor());
+
+    m_executor.execute(scheduledTask);
+
+    return scheduledTask.m_future;
+  }
+
+  /**
+   * Task that is executed by the scheduler.
+   *
+   * @param <T> Type of the result of the task.
+   */
+  private final class CScheduledTask<T> implements Runnable, Comparable<CScheduledTask<?>> {
+    /**
+     * Future that executes the task and holds its result.
+     */
+    private final ListenableFutureTask<T> m_future;
+
+    /**
+     * The priority of the task.
+     */
+    private final ViewLoadPriority m_priority;
+
+    /**
+     * Orders tasks of the same priority.
+     */
+    private final long m_sequence;
+
+    /**
+     * Time in nanoseconds when the task was scheduled.
+     */
+    private final long m_scheduled = System.nanoTime();
+
+    /**
+     * Flag that says whether the task was already removed from the queue counters.
+     */
+    private final AtomicBoolean m_dequeued = new AtomicBoolean();
+
+    /**
+     * Creates a new task.
+     *
+     * @param task The task to execute.
+     * @param priority The priority of the task.
+     */
+    private CScheduledTask(final Callable<T> task, final ViewLoadPriority priority) {
+      m_future = ListenableFutureTask.create(task);
+      m_priority = priority;
+      m_sequence = CViewLoadScheduler.this.m_sequence.getAndIncrement();
+    }
+
+    /**
+     * Removes the task from the queue counters.
+     *
+     * @return True, if the task was still counted as waiting. False, otherwise.
+     */
+    private boolean dequeue() {
+      if (!m_dequeued.compareAndSet(false, true)) {
+        return false;
+      }
+
+      m_queued.get(m_priority).decrementAndGet();
+
+      return true;
+    }
+
+    @Override
+    public int compareTo(final CScheduledTask<?> other) {
+      final int result = m_priority.compareTo(other.m_priority);
+
+      return result == 0 ? Long.compare(m_sequence, other.m_sequence) : result;
+    }
+
+    @Override
+    public void run() {
+      if (!dequeue()) {
+        // The task was cancelled while it was waiting.
+        return;
+      }
+
+      final long started = System.nanoTime();
+
+      m_running.get(m_priority).incrementAndGet();
+
+      try {
+        m_future.run();
+      } finally {
+        m_running.get(m_priority).decrementAndGet();
+
+        final long finished = System.nanoTime();
+
+        m_completed.incrementAndGet();
+        m_totalWaitTime.addAndGet(started - m_scheduled);
+        m_totalLoadTime.addAndGet(finished - started);
+        updateMaximumLatency(finished - m_scheduled);
+      }
+    }
+  }
+
+  /**
+   * Creates the worker threads of the scheduler.
+   */
+  private static final class CWorkerThreadFactory implements ThreadFactory {
+    /**
+     * Used to give each worker thread a unique name.
+     */
+    private final AtomicInteger m_counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      final Thread thread =
+          new Thread(runnable, "View Loader " + m_counter.incrementAndGet());
+
+      // The workers must not keep the application alive after the last window is closed.
+      thread.setDaemon(true);
+
+      return thread;
+    }
+  }
+}
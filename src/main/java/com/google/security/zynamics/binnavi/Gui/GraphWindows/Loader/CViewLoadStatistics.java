@@ -0,0 +1,171 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Gui.GraphWindows.Loader;
+
+/**
+ * Snapshot of the queue depth and load latency of the view load scheduler.
+ */
+public final class CViewLoadStatistics {
+  /**
+   * Number of foreground tasks waiting for a worker thread.
+   */
+  private final int m_queuedForeground;
+
+  /**
+   * Number of prefetch tasks waiting for a worker thread.
+   */
+  private final int m_queuedPrefetch;
+
+  /**
+   * Number of tasks that are currently executed.
+   */
+  private final int m_running;
+
+  /**
+   * Number of tasks that finished, successfully or not.
+   */
+  private final long m_completed;
+
+  /**
+   * Number of tasks that were cancelled before they finished.
+   */
+  private final long m_cancelled;
+
+  /**
+   * Total time in nanoseconds the finished tasks waited in the queue.
+   */
+  private final long m_totalWaitTime;
+
+  /**
+   * Total time in nanoseconds the finished tasks took to execute.
+   */
+  private final long m_totalLoadTime;
+
+  /**
+   * Longest time in nanoseconds a finished task took from being scheduled until it finished.
+   */
+  private final long m_maximumLatency;
+
+  /**
+   * Creates a new statistics object.
+   *
+   * @param queuedForeground Number of foreground tasks waiting for a worker thread.
+   * @param queuedPrefetch Number of prefetch tasks waiting for a worker thread.
+   * @param running Number of tasks that are currently executed.
+   * @param completed Number of tasks that finished.
+   * @param cancelled Number of tasks that were cancelled before they finished.
+   * @param totalWaitTime Total time in nanoseconds the finished tasks waited in the queue.
+   * @param totalLoadTime Total time in nanoseconds the finished tasks took to execute.
+   * @param maximumLatency Longest time in nanoseconds a task took from being scheduled until it
+   *        finished.
+   */
+  public CViewLoadStatistics(final int queuedForeground, final int queuedPrefetch,
+      final int running, final long completed, final long cancelled, final long totalWaitTime,
+      final long totalLoadTime, final long maximumLatency) {
+    m_queuedForeground = queuedForeground;
+    m_queuedPrefetch = queuedPrefetch;
+    m_running = running;
+    m_completed = completed;
+    m_cancelled = cancelled;
+    m_totalWaitTime = totalWaitTime;
+    m_totalLoadTime = totalLoadTime;
+    m_maximumLatency = maximumLatency;
+  }
+
+  /**
+   * Returns the average time in nanoseconds a finished task took from being scheduled until it
+   * finished.
+   *
+   * @return The average latency of the finished tasks.
+   */
+  public long getAverageLatency() {
+    return m_completed == 0 ? 0 : (m_totalWaitTime + m_totalLoadTime) / m_completed;
+  }
+
+  /**
+   * Returns the average time in nanoseconds a finished task waited in the queue.
+   *
+   * @return The average queue wait time of the finished tasks.
+   */
+  public long getAverageWaitTime() {
+    return m_completed == 0 ? 0 : m_totalWaitTime / m_completed;
+  }
+
+  /**
+   * Returns the number of tasks that were cancelled before they finished.
+   *
+   * @return The number of cancelled tasks.
+   */
+  public long getCancelledCount() {
+    return m_cancelled;
+  }
+
+  /**
+   * Returns the number of tasks that finished.
+   *
+   * @return The number of finished tasks.
+   */
+  public long getCompletedCount() {
+    return m_completed;
+  }
+
+  /**
+   * Returns the longest time in nanoseconds a task took from being scheduled until it finished.
+   *
+   * @return The maximum latency of the finished tasks.
+   */
+  public long getMaximumLatency() {
+    return m_maximumLatency;
+  }
+
+  /**
+   * Returns the number of tasks waiting for a worker thread.
+   *
+   * @return The queue depth of the scheduler.
+   */
+  public int getQueueDepth() {
+    return m_queuedForeground + m_queuedPrefetch;
+  }
+
+  /**
+   * Returns the number of tasks of a given priority waiting for a worker thread.
+   *
+   * @param priority The priority of the tasks.
+   *
+   * @return The queue depth of the scheduler for the given priority.
+   */
+  public int getQueueDepth(final ViewLoadPriority priority) {
+    return priority == ViewLoadPriority.FOREGROUND ? m_queuedForeground : m_queuedPrefetch;
+  }
+
+  /**
+   * Returns the number of tasks that are currently executed.
+   *
+   * @return The number of running tasks.
+   */
+  public int getRunningCount() {
+    return m_running;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "View loading: %d queued (%d foreground), %d running, %d completed, %d cancelled, "
+        + "average latency %d ms, maximum latency %d ms", getQueueDepth(), m_queuedForeground,
+        m_running, m_completed, m_cancelled, getAverageLatency() / 1000000,
+        m_maximumLatency / 1000000);
+  }
+}
@@ -170,5 +170,7 @@ public final class CViewLoader {
       window.toFront();
       graphModel = model;
     }
+
+    CCalleePrefetcher.prefetchCallees(container, view);
   }
 }
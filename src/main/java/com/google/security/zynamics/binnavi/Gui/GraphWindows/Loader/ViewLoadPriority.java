@@ -0,0 +1,31 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Gui.GraphWindows.Loader;
+
+/**
+ * Priorities of view load tasks scheduled by {@link CViewLoadScheduler}.
+ */
+public enum ViewLoadPriority {
+  /**
+   * The view is loaded because the user wants to see it.
+   */
+  FOREGROUND,
+
+  /**
+   * The view is loaded in the background in anticipation of the user opening it.
+   */
+  PREFETCH
+}
@@ -19,6 +19,7 @@ import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.Log.NaviLogger;
 import com.google.security.zynamics.binnavi.config.ConfigManager;
 import com.google.security.zynamics.binnavi.config.GeneralSettingsConfigItem;
+import com.google.security.zynamics.zylib.gui.CDecFormatter;
 import com.google.security.zynamics.zylib.gui.FileChooser.FileChooserPanel;
 import com.google.security.zynamics.zylib.gui.scripting.LanguageBox;
 
@@ -31,6 +32,7 @@ import java.util.logging.Level;
 
 import javax.script.ScriptEngineManager;
 import javax.swing.JComboBox;
+import javax.swing.JFormattedTextField;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -73,6 +75,22 @@ public final class CGeneralSettingsPanel extends CAbstractSettingsPanel {
    */
   private final LanguageBox scriptingBox;
 
+  /**
+   * Used to switch prefetching of called functions on or off.
+   */
+  private final JComboBox<String> prefetchBox;
+
+  /**
+   * Used to switch local module snapshots on or off.
+   */
+  private final JComboBox<String> snapshotBox;
+
+  /**
+   * Used to configure the memory budget of prefetched functions.
+   */
+  private final JFormattedTextField prefetchCacheSizeField =
+      new JFormattedTextField(new CDecFormatter(5));
+
   /**
    * Creates a new general settings panel.
    */
@@ -90,6 +108,13 @@ public final class CGeneralSettingsPanel extends CAbstractSettingsPanel {
     scriptingBox = new LanguageBox(manager);
     scriptingBox.setPreferredSize(new Dimension(TEXTFIELD_WIDTH, TEXTFIELD_HEIGHT));
 
+    prefetchBox = new JComboBox<String>(new String[] {"Off", "On"});
+    prefetchBox.setPreferredSize(new Dimension(TEXTFIELD_WIDTH, TEXTFIELD_HEIGHT));
+    prefetchCacheSizeField.setPreferredSize(new Dimension(TEXTFIELD_WIDTH, TEXTFIELD_HEIGHT));
+
+    snapshotBox = new JComboBox<String>(new String[] {"Off", "On"});
+    snapshotBox.setPreferredSize(new Dimension(TEXTFIELD_WIDTH, TEXTFIELD_HEIGHT));
+
     final JPanel pMain = new JPanel(new BorderLayout());
     pMain.add(createEditElementsPanel(), BorderLayout.NORTH);
 
@@ -104,7 +129,7 @@ public final class CGeneralSettingsPanel extends CAbstractSettingsPanel {
    * @return The panel created by this function.
    */
   private JPanel createEditElementsPanel() {
-    final JPanel pEdits = new JPanel(new GridLayout(6, 1, 4, 4));
+    final JPanel pEdits = new JPanel(new GridLayout(9, 1, 4, 4));
     pEdits.setBorder(new TitledBorder("General Settings"));
 
     // IDA Pro selection
@@ -158,6 +183,47 @@ public final class CGeneralSettingsPanel extends CAbstractSettingsPanel {
 
     logLevelBox.setSelectedIndex(ConfigManager.instance().getGeneralSettings().getLogLevel());
 
+    // Prefetching of called functions
+    final JPanel prefetchPanel = new JPanel(new BorderLayout());
+    prefetchPanel.setBorder(new EmptyBorder(0, 2, 2, 2));
+    final JLabel prefetchLabel = new JLabel("Prefetch Called Functions" + ":");
+
+    prefetchPanel.add(prefetchLabel, BorderLayout.CENTER);
+    prefetchPanel.add(CHintCreator.createHintPanel(prefetchBox,
+        "Loads the functions called by an open function in the background."),
+        BorderLayout.EAST);
+    pEdits.add(prefetchPanel, BorderLayout.CENTER);
+
+    prefetchBox.setSelectedIndex(
+        ConfigManager.instance().getGeneralSettings().isPrefetchCallees() ? 1 : 0);
+
+    final JPanel prefetchCacheSizePanel = new JPanel(new BorderLayout());
+    prefetchCacheSizePanel.setBorder(new EmptyBorder(0, 2, 2, 2));
+    final JLabel prefetchCacheSizeLabel = new JLabel("Prefetch Memory (MB)" + ":");
+
+    prefetchCacheSizePanel.add(prefetchCacheSizeLabel, BorderLayout.CENTER);
+    prefetchCacheSizePanel.add(CHintCreator.createHintPanel(prefetchCacheSizeField,
+        "Memory available for prefetched functions that were not opened yet."),
+        BorderLayout.EAST);
+    pEdits.add(prefetchCacheSizePanel, BorderLayout.CENTER);
+
+    prefetchCacheSizeField.setText(
+        String.valueOf(ConfigManager.instance().getGeneralSettings().getPrefetchCacheSize()));
+
+    // Local module snapshots
+    final JPanel snapshotPanel = new JPanel(new BorderLayout());
+    snapshotPanel.setBorder(new EmptyBorder(0, 2, 2, 2));
+    final JLabel snapshotLabel = new JLabel("Module Snapshots" + ":");
+
+    snapshotPanel.add(snapshotLabel, BorderLayout.CENTER);
+    snapshotPanel.add(CHintCreator.createHintPanel(snapshotBox,
+        "Keeps a local copy of module data that never changes to speed up opening modules."),
+        BorderLayout.EAST);
+    pEdits.add(snapshotPanel, BorderLayout.CENTER);
+
+    snapshotBox.setSelectedIndex(
+        ConfigManager.instance().getGeneralSettings().isModuleSnapshots() ? 1 : 0);
+
     // Log file
 
     final JPanel logFilePanel = new JPanel(new BorderLayout());
@@ -182,6 +248,18 @@ public final class CGeneralSettingsPanel extends CAbstractSettingsPanel {
     settings.setLogLevel(logLevelBox.getSelectedIndex());
     settings.setDefaultScriptingLanguage(scriptingBox.getSelectedLanguage());
     settings.setSupportEmailAddress(emailBox.getText());
+    settings.setPrefetchCallees(prefetchBox.getSelectedIndex() == 1);
+    settings.setModuleSnapshots(snapshotBox.getSelectedIndex() == 1);
+
+    try {
+      final int prefetchCacheSize = Integer.parseInt(prefetchCacheSizeField.getText());
+
+      if (prefetchCacheSize > 0) {
+        settings.setPrefetchCacheSize(prefetchCacheSize);
+      }
+    } catch (final NumberFormatException exception) {
+      // Keep the previous memory budget if the input is not a number.
+    }
 
     switch (logLevelBox.getSelectedIndex()) {
       case 0:
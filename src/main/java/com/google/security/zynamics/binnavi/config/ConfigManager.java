@@ -304,6 +304,8 @@ public final class ConfigManager {
       databaseConfig.setName(database.getConfiguration().getName());
       databaseConfig.setUser(database.getConfiguration().getUser());
       databaseConfig.setIdentity(database.getConfiguration().getIdentity());
+      databaseConfig.setConnectionPoolSize(database.getConfiguration().getConnectionPoolSize());
+      databaseConfig.setCacheSize(database.getConfiguration().getCacheSize());
       databases.add(databaseConfig);
     }
 
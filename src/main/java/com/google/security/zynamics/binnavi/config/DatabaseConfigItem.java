@@ -55,6 +55,14 @@ public class DatabaseConfigItem extends AbstractConfigItem {
   private static final boolean SAVE_PASSWORD_DEFAULT = false;
   private boolean savePassword = SAVE_PASSWORD_DEFAULT;
 
+  private static final String CONNECTION_POOL_SIZE = "ConnectionPoolSize";
+  private static final int CONNECTION_POOL_SIZE_DEFAULT = 4;
+  private int connectionPoolSize = CONNECTION_POOL_SIZE_DEFAULT;
+
+  private static final String CACHE_SIZE = "CacheSize";
+  private static final int CACHE_SIZE_DEFAULT = 128;
+  private int cacheSize = CACHE_SIZE_DEFAULT;
+
   @Override
   public void load(final TypedPropertiesWrapper properties) {
     description = properties.getString(DESCRIPTION, DESCRIPTION_DEFAULT);
@@ -66,6 +74,8 @@ public class DatabaseConfigItem extends AbstractConfigItem {
     identity = properties.getString(IDENTITY, IDENTITY_DEFAULT);
     autoConnect = properties.getBoolean(AUTO_CONNECT, AUTO_CONNECT_DEFAULT);
     savePassword = properties.getBoolean(SAVE_PASSWORD, SAVE_PASSWORD_DEFAULT);
+    connectionPoolSize = properties.getInteger(CONNECTION_POOL_SIZE, CONNECTION_POOL_SIZE_DEFAULT);
+    cacheSize = properties.getInteger(CACHE_SIZE, CACHE_SIZE_DEFAULT);
   }
 
   @Override
@@ -79,6 +89,8 @@ public class DatabaseConfigItem extends AbstractConfigItem {
     properties.setString(IDENTITY, identity);
     properties.setBoolean(AUTO_CONNECT, autoConnect);
     properties.setBoolean(SAVE_PASSWORD, savePassword);
+    properties.setInteger(CONNECTION_POOL_SIZE, connectionPoolSize);
+    properties.setInteger(CACHE_SIZE, cacheSize);
   }
 
   public String getDescription() {
@@ -152,4 +164,20 @@ public class DatabaseConfigItem extends AbstractConfigItem {
   public void setSavePassword(final boolean value) {
     this.savePassword = value;
   }
+
+  public int getConnectionPoolSize() {
+    return connectionPoolSize;
+  }
+
+  public void setConnectionPoolSize(final int value) {
+    this.connectionPoolSize = value;
+  }
+
+  public int getCacheSize() {
+    return cacheSize;
+  }
+
+  public void setCacheSize(final int value) {
+    this.cacheSize = value;
+  }
 }
@@ -59,6 +59,20 @@ public class GeneralSettingsConfigItem extends AbstractConfigItem {
   private static final String DEFAULT_SCRIPTING_LANGUAGE_DEFAULT = "";
   private String defaultScriptingLanguage = DEFAULT_SCRIPTING_LANGUAGE_DEFAULT;
 
+  private static final String PREFETCH_CALLEES = PROPERTY_PREFIX + "PrefetchCallees";
+  private static final boolean PREFETCH_CALLEES_DEFAULT = false;
+  private Boolean prefetchCallees = PREFETCH_CALLEES_DEFAULT;
+
+  // Memory budget of the callee prefetch cache in megabytes.
+  private static final String PREFETCH_CACHE_SIZE = PROPERTY_PREFIX + "PrefetchCacheSize";
+  private static final int PREFETCH_CACHE_SIZE_DEFAULT = 64;
+  private int prefetchCacheSize = PREFETCH_CACHE_SIZE_DEFAULT;
+
+  // Keeps local snapshots of immutable module data to speed up opening modules again.
+  private static final String MODULE_SNAPSHOTS = PROPERTY_PREFIX + "ModuleSnapshots";
+  private static final boolean MODULE_SNAPSHOTS_DEFAULT = false;
+  private Boolean moduleSnapshots = MODULE_SNAPSHOTS_DEFAULT;
+
   private static final String PLUGINS_PREFIX = PROPERTY_PREFIX + "Plugins.";
   private static final String PLUGINS_COUNT = PLUGINS_PREFIX + "Count";
   private static final int PLUGINS_COUNT_DEFAULT = 0;
@@ -94,6 +108,9 @@ public class GeneralSettingsConfigItem extends AbstractConfigItem {
     logLevel = properties.getInteger(LOG_LEVEL, LOG_LEVEL_DEFAULT);
     defaultScriptingLanguage =
         properties.getString(DEFAULT_SCRIPTING_LANGUAGE, DEFAULT_SCRIPTING_LANGUAGE_DEFAULT);
+    prefetchCallees = properties.getBoolean(PREFETCH_CALLEES, PREFETCH_CALLEES_DEFAULT);
+    prefetchCacheSize = properties.getInteger(PREFETCH_CACHE_SIZE, PREFETCH_CACHE_SIZE_DEFAULT);
+    moduleSnapshots = properties.getBoolean(MODULE_SNAPSHOTS, MODULE_SNAPSHOTS_DEFAULT);
     lastOpenWindow.load(properties);
     graphWindow.load(properties);
     lastDirectory = properties.getString(LAST_DIRECTORY, LAST_DIRECTORY_DEFAULT);
@@ -117,6 +134,9 @@ public class GeneralSettingsConfigItem extends AbstractConfigItem {
     if (defaultScriptingLanguage != null) {
       properties.setString(DEFAULT_SCRIPTING_LANGUAGE, defaultScriptingLanguage);
     }
+    properties.setBoolean(PREFETCH_CALLEES, prefetchCallees);
+    properties.setInteger(PREFETCH_CACHE_SIZE, prefetchCacheSize);
+    properties.setBoolean(MODULE_SNAPSHOTS, moduleSnapshots);
     lastOpenWindow.store(properties);
     graphWindow.store(properties);
     properties.setString(LAST_DIRECTORY, lastDirectory);
@@ -195,6 +215,30 @@ public class GeneralSettingsConfigItem extends AbstractConfigItem {
     this.defaultScriptingLanguage = value;
   }
 
+  public Boolean isPrefetchCallees() {
+    return prefetchCallees;
+  }
+
+  public void setPrefetchCallees(final Boolean value) {
+    this.prefetchCallees = value;
+  }
+
+  public Integer getPrefetchCacheSize() {
+    return prefetchCacheSize;
+  }
+
+  public void setPrefetchCacheSize(final Integer value) {
+    this.prefetchCacheSize = value;
+  }
+
+  public Boolean isModuleSnapshots() {
+    return moduleSnapshots;
+  }
+
+  public void setModuleSnapshots(final Boolean value) {
+    this.moduleSnapshots = value;
+  }
+
   public LastOpenWindowConfigItem getLastOpenWindow() {
     return lastOpenWindow;
   }
@@ -534,6 +534,11 @@ public final class DebugCommandType {
    */
   public static final int RESP_PROCESS_START = 107;
 
+  /**
+   * Message identifier of replies that carry several echo breakpoint hits at once.
+   */
+  public static final int RESP_BPE_HITS = 108;
+
   public static String getMessageName(final int messageId) {
     switch (messageId) {
       case CMD_SETBP:
@@ -738,6 +743,8 @@ public final class DebugCommandType {
         return "RESP_QUERY_DEBUGGER_EVENT_SETTINGS";
       case RESP_PROCESS_START:
         return "RESP_PROCESS_START";
+      case RESP_BPE_HITS:
+        return "RESP_BPE_HITS";
       default:
         return "ERROR_INVALID_PACKET";
     }
@@ -19,14 +19,24 @@ import com.google.common.base.Preconditions;
 import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.debug.connection.interfaces.DebugEventListener;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
 import com.google.security.zynamics.zylib.general.ListenerProvider;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Worker thread that handles entries in the event queue.
  */
 public final class PipeFetcher implements Runnable {
+  /**
+   * Once a batch of coalesced echo breakpoint hits reaches this size, no further hits are added to
+   * it. This keeps the listeners responsive while the queue is flooded with hits.
+   */
+  public static final int MAX_COALESCED_HITS = 4096;
+
   /**
    * Event queue that is used to communicate between the worker thread and the fetcher thread.
    */
@@ -58,6 +68,58 @@ public final class PipeFetcher implements Runnable {
     this.eventQueue = Preconditions.checkNotNull(eventQueue, "IE00742: Event queue can't be null");
   }
 
+  /**
+   * Adds the echo breakpoint hits of a reply to a batch.
+   *
+   * @param hits The batch to add to.
+   * @param event Either a single or a batched echo breakpoint hit reply.
+   */
+  private static void addHits(final List<EchoBreakpointHitReply> hits,
+      final DebuggerReply event) {
+    if (event instanceof EchoBreakpointHitsReply) {
+      hits.addAll(((EchoBreakpointHitsReply) event).getHits());
+    } else {
+      hits.add((EchoBreakpointHitReply) event);
+    }
+  }
+
+  /**
+   * Determines whether a reply reports echo breakpoint hits.
+   *
+   * @param event The reply to check. This argument can be null.
+   *
+   * @return True, if the reply is a single or a batched echo breakpoint hit reply.
+   */
+  private static boolean isEchoBreakpointHit(final DebuggerReply event) {
+    return event instanceof EchoBreakpointHitReply || event instanceof EchoBreakpointHitsReply;
+  }
+
+  /**
+   * Merges an echo breakpoint hit with the echo breakpoint hits that directly follow it in the event
+   * queue. This way the listeners are notified once for all hits that arrived while they were busy
+   * instead of once per hit. Only consecutive hits are merged, so the order of events is kept.
+   *
+   * @param event The event that was taken from the event queue.
+   *
+   * @return The event itself or a batched echo breakpoint hit reply.
+   */
+  private DebuggerReply coalesce(final DebuggerReply event) {
+    // The pipe fetcher is the only consumer of the queue, so a peeked event is still there when
+    // it is polled.
+    if (!isEchoBreakpointHit(event) || !isEchoBreakpointHit(eventQueue.peek())) {
+      return event;
+    }
+
+    final List<EchoBreakpointHitReply> hits = new ArrayList<>();
+    addHits(hits, event);
+
+    while ((hits.size() < MAX_COALESCED_HITS) && isEchoBreakpointHit(eventQueue.peek())) {
+      addHits(hits, eventQueue.poll());
+    }
+
+    return new EchoBreakpointHitsReply(event.getId(), 0, hits);
+  }
+
   /**
    * Notifies all listeners of an incoming debug event. Afterwards, all protocol listeners are
    * notified of the event. This way, the protocol listeners can safely trigger protocol actions
@@ -137,7 +199,7 @@ public final class PipeFetcher implements Runnable {
   public void run() {
     while (m_run) {
       try {
-        notifyEventListeners(eventQueue.take());
+        notifyEventListeners(coalesce(eventQueue.take()));
       } catch (final InterruptedException ie) {
         // restore the interrupted status of the thread.
         // http://www.ibm.com/developerworks/java/library/j-jtp05236/index.html
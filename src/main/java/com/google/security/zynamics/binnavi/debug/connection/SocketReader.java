@@ -78,4 +78,28 @@ public final class SocketReader implements ClientReader {
   public int read(final byte[] data, final int offset, final int length) throws IOException {
     return m_InputStream.read(data, offset, length);
   }
+
+  /**
+   * Reads a big-endian DWORD value from the debug client.
+   *
+   * @return The unsigned DWORD value.
+   *
+   * @throws IOException If an I/O error occurs or the end of the stream was reached.
+   */
+  @Override
+  public long readDWord() throws IOException {
+    long dword = 0;
+
+    for (int i = 0; i < 4; i++) {
+      final int readByte = m_InputStream.read();
+
+      if (readByte == -1) {
+        throw new IOException("End of input stream");
+      }
+
+      dword = (dword << 8) | readByte;
+    }
+
+    return dword;
+  }
 }
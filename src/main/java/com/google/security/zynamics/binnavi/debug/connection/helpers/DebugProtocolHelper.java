@@ -19,7 +19,6 @@ import com.google.security.zynamics.binnavi.Log.NaviLogger;
 import com.google.security.zynamics.binnavi.debug.connection.interfaces.ClientReader;
 import com.google.security.zynamics.binnavi.debug.connection.packets.arguments.DebugArgumentType;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 /**
@@ -44,18 +43,21 @@ public final class DebugProtocolHelper {
    */
   private static byte[] readBytes(final ClientReader inputStream, final int length)
       throws IOException {
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
     final byte[] data = new byte[length];
 
     int read = 0;
 
     while (read < length) {
-      final int retval = inputStream.read(data, 0, length - read);
-      baos.write(data, 0, retval);
+      final int retval = inputStream.read(data, read, length - read);
+
+      if (retval == -1) {
+        throw new IOException("End of input stream");
+      }
+
       read += retval;
     }
 
-    return baos.toByteArray();
+    return data;
   }
 
   /**
@@ -128,36 +130,7 @@ public final class DebugProtocolHelper {
    * @throws IOException Thrown if reading from the stream fails.
    */
   public static long readDWord(final ClientReader inputStream) throws IOException {
-    long dword, readByte;
-    readByte = inputStream.read();
-
-    if (readByte == -1) {
-      throw new IOException("End of input stream");
-    }
-
-    dword = (readByte & 0xFF) << 24 & 0xFF000000;
-    readByte = inputStream.read();
-
-    if (readByte == -1) {
-      throw new IOException("End of input stream");
-    }
-
-    dword |= (readByte & 0xFF) << 16 & 0x00FF0000;
-    readByte = inputStream.read();
-
-    if (readByte == -1) {
-      throw new IOException("End of input stream");
-    }
-
-    dword |= (readByte & 0xFF) << 8 & 0x0000FF00;
-    readByte = inputStream.read();
-
-    if (readByte == -1) {
-      throw new IOException("End of input stream");
-    }
-
-    dword |= (readByte & 0xFF) & 0x000000FF;
-    return dword;
+    return inputStream.readDWord();
   }
 
   /**
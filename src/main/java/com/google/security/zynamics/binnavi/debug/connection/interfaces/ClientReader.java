@@ -51,4 +51,14 @@ public interface ClientReader {
    * @throws IOException If an I/O error occurs.
    */
   int read(byte[] data, int offset, int length) throws IOException;
+
+  /**
+   * Reads a big-endian DWORD value from the debug client. Readers that buffer the input can decode
+   * the value at once instead of reading it byte by byte.
+   *
+   * @return The unsigned DWORD value.
+   *
+   * @throws IOException If an I/O error occurs or the end of the stream was reached.
+   */
+  long readDWord() throws IOException;
 }
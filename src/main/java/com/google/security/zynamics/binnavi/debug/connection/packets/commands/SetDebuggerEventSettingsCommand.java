@@ -39,5 +39,13 @@ public class SetDebuggerEventSettingsCommand extends DebugCommand {
     // also see case 2615
     addArgument(new DebugMessageIntegerArgument(eventSettings.getBreakOnDllLoad() ? 1 : 0));
     addArgument(new DebugMessageIntegerArgument(eventSettings.getBreakOnDllUnload() ? 1 : 0));
+    // Debug clients that do not know the binary register format only accept two arguments and
+    // clients that do not know batched echo breakpoint hits only accept three.
+    if (eventSettings.getBinaryRegisters() || eventSettings.getBatchedEchoHits()) {
+      addArgument(new DebugMessageIntegerArgument(eventSettings.getBinaryRegisters() ? 1 : 0));
+    }
+    if (eventSettings.getBatchedEchoHits()) {
+      addArgument(new DebugMessageIntegerArgument(1));
+    }
   }
 }
@@ -0,0 +1,153 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.connection.packets.parsers;
+
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValue;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValues;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.ThreadRegisters;
+
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class that is used to parse register information replies from debug clients that send register
+ * values in the binary format. Debug clients announce the format with the binaryRegisters option
+ * of their target information and only use it after BinNavi enabled it in the debugger event
+ * settings.
+ *
+ * All numbers are big-endian:
+ *
+ * <pre>
+ * u32 magic ("BNRV")
+ * u32 number of threads
+ *   u32 thread ID
+ *   u32 number of registers
+ *     u8  flags (1 = program counter, 2 = stack pointer)
+ *     u8  length of the name, followed by the ASCII name
+ *     u8  length of the value, followed by the unsigned value
+ *     u32 length of the memory the register points to, followed by the memory
+ * </pre>
+ */
+public final class BinaryRegisterValuesParser {
+  /**
+   * Magic number at the beginning of binary register values. XML register values always start with
+   * a '<' character instead.
+   */
+  public static final int MAGIC = 0x424E5256;
+
+  /**
+   * Flag of the program counter register.
+   */
+  public static final int FLAG_PC = 1;
+
+  /**
+   * Flag of the stack pointer register.
+   */
+  public static final int FLAG_SP = 2;
+
+  /**
+   * You are not supposed to instantiate this class.
+   */
+  private BinaryRegisterValuesParser() {}
+
+  /**
+   * Reads a byte array whose length is stored in front of it.
+   *
+   * @param buffer The buffer to read from.
+   * @param length The length of the array.
+   *
+   * @return The read bytes.
+   *
+   * @throws MessageParserException If the length is larger than the rest of the buffer.
+   */
+  private static byte[] readBytes(final ByteBuffer buffer, final long length)
+      throws MessageParserException {
+    if (length > buffer.remaining()) {
+      throw new MessageParserException(
+          "IE03478: Binary register values message ends unexpectedly");
+    }
+
+    final byte[] bytes = new byte[(int) length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Determines whether register values from the debug client are in the binary format.
+   *
+   * @param data Byte array from the debug client.
+   *
+   * @return True, if the data starts with the magic number of the binary format.
+   */
+  public static boolean isBinary(final byte[] data) {
+    return (data.length >= 4) && (ByteBuffer.wrap(data).getInt() == MAGIC);
+  }
+
+  /**
+   * Parses binary register values from the debug client.
+   *
+   * @param data Byte array from the debug client.
+   *
+   * @return Usable register information.
+   *
+   * @throws IllegalArgumentException If the data argument is null.
+   * @throws MessageParserException If parsing the message failed.
+   */
+  public static RegisterValues parse(final byte[] data) throws MessageParserException {
+    Preconditions.checkNotNull(data, "IE03479: Data argument can not be null");
+
+    final ByteBuffer buffer = ByteBuffer.wrap(data);
+
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new MessageParserException(
+            "IE03480: Register values message is not in the binary format");
+      }
+
+      final int threadCount = buffer.getInt();
+      final List<ThreadRegisters> threads = new ArrayList<>();
+
+      for (int i = 0; i < threadCount; i++) {
+        final long tid = buffer.getInt() & 0xFFFFFFFFL;
+        final int registerCount = buffer.getInt();
+        final List<RegisterValue> registers = new ArrayList<>();
+
+        for (int j = 0; j < registerCount; j++) {
+          final int flags = buffer.get();
+          final String name =
+              new String(readBytes(buffer, buffer.get() & 0xFF), StandardCharsets.US_ASCII);
+          final BigInteger value = new BigInteger(1, readBytes(buffer, buffer.get() & 0xFF));
+          final byte[] memory = readBytes(buffer, buffer.getInt() & 0xFFFFFFFFL);
+
+          registers.add(new RegisterValue(name, value, memory, (flags & FLAG_PC) != 0,
+              (flags & FLAG_SP) != 0));
+        }
+
+        threads.add(new ThreadRegisters(tid, registers));
+      }
+
+      return new RegisterValues(threads);
+    } catch (final BufferUnderflowException exception) {
+      throw new MessageParserException(
+          "IE03481: Binary register values message ends unexpectedly");
+    }
+  }
+}
@@ -43,11 +43,37 @@ import javax.xml.parsers.ParserConfigurationException;
  * sp="0"/></thread></threads>
  */
 public final class RegisterValuesParser {
+  /**
+   * Document builders that are reused for XML register values. Creating a new builder factory for
+   * every message is expensive when echo breakpoints are hit at a high rate.
+   */
+  private static final ThreadLocal<DocumentBuilder> BUILDERS = new ThreadLocal<>();
+
   /**
    * You are not supposed to instantiate this class.
    */
   private RegisterValuesParser() {}
 
+  /**
+   * Returns the document builder of the current thread.
+   *
+   * @return The document builder.
+   *
+   * @throws ParserConfigurationException If the document builder could not be created.
+   */
+  private static DocumentBuilder getBuilder() throws ParserConfigurationException {
+    DocumentBuilder builder = BUILDERS.get();
+
+    if (builder == null) {
+      builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+      BUILDERS.set(builder);
+    } else {
+      builder.reset();
+    }
+
+    return builder;
+  }
+
   /**
    * Returns the value of a node attribute.
    *
@@ -115,7 +141,8 @@ public final class RegisterValuesParser {
   }
 
   /**
-   * Parses a byte array from the debug client into usable register information.
+   * Parses a byte array from the debug client into usable register information. The data can be
+   * either in the binary format of {@link BinaryRegisterValuesParser} or XML.
    *
    * @param data Byte array from the debug client.
    *
@@ -127,11 +154,13 @@ public final class RegisterValuesParser {
   public static RegisterValues parse(final byte[] data) throws MessageParserException {
     Preconditions.checkNotNull(data, "IE01299: Data argument can not be null");
 
-    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    if (BinaryRegisterValuesParser.isBinary(data)) {
+      return BinaryRegisterValuesParser.parse(data);
+    }
 
     try {
-      final DocumentBuilder builder = factory.newDocumentBuilder();
-      final Document document = builder.parse(new ByteArrayInputStream(data, 0, data.length));
+      final Document document =
+          getBuilder().parse(new ByteArrayInputStream(data, 0, data.length));
 
       final NodeList nodes = document.getFirstChild().getChildNodes();
 
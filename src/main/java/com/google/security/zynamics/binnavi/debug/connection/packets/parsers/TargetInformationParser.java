@@ -64,6 +64,8 @@ public final class TargetInformationParser {
     CAN_BREAK_ON_MODULE_LOAD("canBreakOnModuleLoad"),
     CAN_BREAK_ON_MODULE_UNLOAD("canBreakOnModuleUnLoad"),
     CAN_TRACE_COUNT("canTraceCount"),
+    CAN_BINARY_REGISTERS("binaryRegisters"),
+    CAN_BATCH_ECHO_HITS("batchedEchoHits"),
     EXCEPTION("exception");
 
     private final String name;
@@ -176,6 +178,12 @@ public final class TargetInformationParser {
         case CAN_TRACE_COUNT:
           builder.canTraceCounts(parseBooleanOption(child));
           break;
+        case CAN_BINARY_REGISTERS:
+          builder.canBinaryRegisters(parseBooleanOption(child));
+          break;
+        case CAN_BATCH_ECHO_HITS:
+          builder.canBatchEchoHits(parseBooleanOption(child));
+          break;
         case CAN_MEMMAP:
           builder.canMemmap(parseBooleanOption(child));
           break;
@@ -0,0 +1,58 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.connection.packets.replies;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Represents a batch of echo breakpoint hits. Debug clients send these replies while tracing to
+ * save one packet per hit, and the pipe fetcher creates them when several echo breakpoint hit
+ * replies are waiting in the event queue at once.
+ */
+public final class EchoBreakpointHitsReply extends DebuggerReply {
+  /**
+   * The individual echo breakpoint hits in the order they happened.
+   */
+  private final List<EchoBreakpointHitReply> hits;
+
+  /**
+   * Creates a new batched echo breakpoint hit reply.
+   *
+   * @param packetId Packet ID of the reply.
+   * @param errorCode Error code of the reply. If this error code is 0, the requested operation was
+   *        successful.
+   * @param hits The individual echo breakpoint hits in the order they happened.
+   */
+  public EchoBreakpointHitsReply(final int packetId, final int errorCode,
+      final List<EchoBreakpointHitReply> hits) {
+    super(packetId, errorCode);
+
+    this.hits = ImmutableList.copyOf(
+        Preconditions.checkNotNull(hits, "IE03482: Hits argument can not be null"));
+  }
+
+  /**
+   * Returns the individual echo breakpoint hits in the order they happened.
+   *
+   * @return The individual echo breakpoint hits.
+   */
+  public List<EchoBreakpointHitReply> getHits() {
+    return hits;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.connection.packets.replyparsers;
+
+import com.google.security.zynamics.binnavi.CUtilityFunctions;
+import com.google.security.zynamics.binnavi.debug.connection.DebugCommandType;
+import com.google.security.zynamics.binnavi.debug.connection.interfaces.ClientReader;
+import com.google.security.zynamics.binnavi.debug.connection.packets.parsers.RegisterValuesParser;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser responsible for parsing batched Echo Breakpoint hit replies. Every hit in the batch is
+ * made of the same two arguments as a single Echo Breakpoint hit reply: the thread ID and the
+ * register values.
+ */
+public final class EchoBreakpointHitsParser extends AbstractReplyParser<EchoBreakpointHitsReply> {
+  /**
+   * Creates a new batched Echo Breakpoint hit reply parser.
+   *
+   * @param clientReader Used to read messages sent by the debug client.
+   */
+  public EchoBreakpointHitsParser(final ClientReader clientReader) {
+    super(clientReader, DebugCommandType.RESP_BPE_HITS);
+  }
+
+  @Override
+  protected EchoBreakpointHitsReply parseError(final int packetId) {
+    throw new IllegalStateException("IE03483: Received invalid reply from the debug client");
+  }
+
+  @Override
+  public EchoBreakpointHitsReply parseSuccess(final int packetId, final int argumentCount)
+      throws IOException {
+    final int hitCount = argumentCount / 2;
+    final List<EchoBreakpointHitReply> hits = new ArrayList<>(hitCount);
+
+    for (int i = 0; i < hitCount; i++) {
+      final long tid = parseThreadId();
+      final byte[] data = parseData();
+
+      // A hit with broken register values must not stop the remaining hits from being read.
+      try {
+        final RegisterValues registerValues = RegisterValuesParser.parse(data);
+        hits.add(new EchoBreakpointHitReply(packetId, 0, tid, registerValues));
+      } catch (final Exception e) {
+        CUtilityFunctions.logException(e);
+        hits.add(new EchoBreakpointHitReply(packetId, PARSER_ERROR, 0, null));
+      }
+    }
+
+    return new EchoBreakpointHitsReply(packetId, 0, hits);
+  }
+}
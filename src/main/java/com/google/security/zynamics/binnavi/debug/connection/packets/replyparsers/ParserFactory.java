@@ -233,6 +233,11 @@ public final class ParserFactory {
    */
   private final AbstractReplyParser<?> processStartParser;
 
+  /**
+   * Parses batched Echo Breakpoint Hit replies.
+   */
+  private final AbstractReplyParser<?> echoBreakpointHitsParser;
+
   /**
    * Creates a new parser factory object for a given connection stream to a debug client.
    *
@@ -281,6 +286,7 @@ public final class ParserFactory {
     setDebugEventSettingsParser = new SetDebuggerEventSettingsParser(clientReader);
     queryDebuggerEventSettingsParser = new QueryDebuggerEventSettingsParser(clientReader);
     processStartParser = new ProcessStartReplyParser(clientReader);
+    echoBreakpointHitsParser = new EchoBreakpointHitsParser(clientReader);
   }
 
   /**
@@ -403,6 +409,8 @@ public final class ParserFactory {
         return queryDebuggerEventSettingsParser;
       case DebugCommandType.RESP_PROCESS_START:
         return processStartParser;
+      case DebugCommandType.RESP_BPE_HITS:
+        return echoBreakpointHitsParser;
 
       default:
         throw new IllegalStateException(
@@ -31,6 +31,8 @@ import com.google.security.zynamics.binnavi.debug.models.breakpoints.interfaces.
 import com.google.security.zynamics.binnavi.debug.models.processmanager.ProcessManager;
 import com.google.security.zynamics.binnavi.debug.models.targetinformation.DebuggerEventSettings;
 import com.google.security.zynamics.binnavi.debug.models.targetinformation.DebuggerException;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.DebuggerOptions;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.TargetInformation;
 import com.google.security.zynamics.binnavi.disassembly.INaviModule;
 import com.google.security.zynamics.binnavi.disassembly.RelocatedAddress;
 import com.google.security.zynamics.binnavi.disassembly.UnrelocatedAddress;
@@ -493,7 +495,16 @@ public abstract class AbstractDebugger implements IDebugger {
       throws DebugExceptionWrapper {
     ensureConnection();
     try {
-      connection.sendDebuggerEventSettingsMessage(eventSettings);
+      // Debug clients that support it are asked to send register values in the binary format
+      // and to send echo breakpoint hits in batches.
+      final TargetInformation targetInformation = processManager.getTargetInformation();
+      final DebuggerOptions options =
+          targetInformation == null ? null : targetInformation.getDebuggerOptions();
+      final boolean binaryRegisters = (options != null) && options.canBinaryRegisters();
+      final boolean batchedEchoHits = (options != null) && options.canBatchEchoHits();
+      connection.sendDebuggerEventSettingsMessage(new DebuggerEventSettings(
+          eventSettings.getBreakOnDllLoad(), eventSettings.getBreakOnDllUnload(), binaryRegisters,
+          batchedEchoHits));
     } catch (final IOException exception) {
       throw new DebugExceptionWrapper(exception);
     }
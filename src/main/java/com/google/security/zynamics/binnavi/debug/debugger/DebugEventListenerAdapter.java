@@ -25,6 +25,7 @@ import com.google.security.zynamics.binnavi.debug.connection.packets.replies.Can
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerClosedUnexpectedlyReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DetachReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointSetReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointsRemovedReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.ExceptionOccurredReply;
@@ -101,6 +102,17 @@ public class DebugEventListenerAdapter implements IDebugEventListener {
   @Override
   public void receivedReply(final EchoBreakpointHitReply reply) {}
 
+  /**
+   * Passes the individual hits of the batch on to the single hit handler. Listeners that can
+   * process whole batches more efficiently override this.
+   */
+  @Override
+  public void receivedReply(final EchoBreakpointHitsReply reply) {
+    for (final EchoBreakpointHitReply hit : reply.getHits()) {
+      receivedReply(hit);
+    }
+  }
+
   @Override
   public void receivedReply(final EchoBreakpointSetReply reply) {}
 
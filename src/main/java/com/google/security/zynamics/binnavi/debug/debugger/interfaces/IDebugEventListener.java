@@ -25,6 +25,7 @@ import com.google.security.zynamics.binnavi.debug.connection.packets.replies.Can
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerClosedUnexpectedlyReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DetachReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointSetReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointsRemovedReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.ExceptionOccurredReply;
@@ -150,6 +151,14 @@ public interface IDebugEventListener {
    */
   void receivedReply(EchoBreakpointHitReply reply);
 
+  /**
+   * Invoked after a batch of Echo Breakpoint Hits was received from the debug client. Batches are
+   * sent by the debug client or merged from consecutive single hits.
+   *
+   * @param reply The received reply.
+   */
+  void receivedReply(EchoBreakpointHitsReply reply);
+
   /**
    * Invoked after an Echo Breakpoint Set reply was received from the debug client.
    *
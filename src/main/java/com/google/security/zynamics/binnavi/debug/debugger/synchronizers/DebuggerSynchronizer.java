@@ -28,6 +28,7 @@ import com.google.security.zynamics.binnavi.debug.connection.packets.replies.Deb
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DetachReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointSetReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointsRemovedReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.ExceptionOccurredReply;
@@ -109,6 +110,11 @@ public final class DebuggerSynchronizer implements DebugEventListener {
    */
   private final EchoBreakpointHitSynchronizer echoBreakpointHitSynchronizer;
 
+  /**
+   * Synchronizes batched Echo Breakpoint Hit replies.
+   */
+  private final EchoBreakpointHitsSynchronizer echoBreakpointHitsSynchronizer;
+
   /**
    * Synchronizes Echo Breakpoint Removed replies from the debug client with the simulated target
    * process.
@@ -324,6 +330,8 @@ public final class DebuggerSynchronizer implements DebugEventListener {
     detachSynchronizer = new DetachSynchronizer(debugger, listeners);
     echoBreakpointHitSynchronizer =
         new EchoBreakpointHitSynchronizer(debugger, listeners);
+    echoBreakpointHitsSynchronizer =
+        new EchoBreakpointHitsSynchronizer(debugger, listeners);
     echoBreakpointRemovedSynchronizer =
         new EchoBreakpointRemovedSynchronizer(debugger, listeners);
     echoBreakpointSetSynchronizer =
@@ -413,6 +421,8 @@ public final class DebuggerSynchronizer implements DebugEventListener {
       detachSynchronizer.handle((DetachReply) reply);
     } else if (reply instanceof EchoBreakpointHitReply) {
       echoBreakpointHitSynchronizer.handle((EchoBreakpointHitReply) reply);
+    } else if (reply instanceof EchoBreakpointHitsReply) {
+      echoBreakpointHitsSynchronizer.handle((EchoBreakpointHitsReply) reply);
     } else if (reply instanceof EchoBreakpointsRemovedReply) {
       echoBreakpointRemovedSynchronizer.handle((EchoBreakpointsRemovedReply) reply);
     } else if (reply instanceof EchoBreakpointSetReply) {
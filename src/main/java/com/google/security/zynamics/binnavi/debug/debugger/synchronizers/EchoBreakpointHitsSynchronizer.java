@@ -0,0 +1,87 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.debugger.synchronizers;
+
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
+import com.google.security.zynamics.binnavi.debug.debugger.DebuggerHelpers;
+import com.google.security.zynamics.binnavi.debug.debugger.interfaces.IDebugEventListener;
+import com.google.security.zynamics.binnavi.debug.debugger.interfaces.IDebugger;
+import com.google.security.zynamics.binnavi.debug.models.breakpoints.BreakpointAddress;
+import com.google.security.zynamics.binnavi.debug.models.breakpoints.enums.BreakpointStatus;
+import com.google.security.zynamics.binnavi.debug.models.breakpoints.enums.BreakpointType;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValue;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.ThreadRegisters;
+import com.google.security.zynamics.binnavi.disassembly.RelocatedAddress;
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+import com.google.security.zynamics.zylib.general.ListenerProvider;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Synchronizes batched Echo Breakpoint Hit events from the debug client with the simulated target
+ * process.
+ */
+public final class EchoBreakpointHitsSynchronizer extends
+    ReplySynchronizer<EchoBreakpointHitsReply> {
+  /**
+   * Creates a new batched Echo Breakpoint Hit synchronizer.
+   *
+   * @param debugger The debug client synchronize.
+   * @param listeners Listeners that are notified about relevant events.
+   */
+  public EchoBreakpointHitsSynchronizer(final IDebugger debugger,
+      final ListenerProvider<IDebugEventListener> listeners) {
+    super(debugger, listeners);
+  }
+
+  @Override
+  protected void handleSuccess(final EchoBreakpointHitsReply reply) {
+    final Set<BreakpointAddress> addresses = new LinkedHashSet<>();
+
+    for (final EchoBreakpointHitReply hit : reply.getHits()) {
+      if (!hit.success()) {
+        continue;
+      }
+
+      for (final ThreadRegisters threadRegisters : hit.getRegisterValues()) {
+        if (hit.getThreadId() == threadRegisters.getTid()) {
+          for (final RegisterValue registerValue : threadRegisters) {
+            if (registerValue.isPc()) {
+              addresses.add(DebuggerHelpers.getBreakpointAddress(getDebugger(),
+                  new RelocatedAddress(new CAddress(registerValue.getValue()))));
+              break;
+            }
+          }
+        }
+      }
+    }
+
+    // A single status update for the whole batch keeps the breakpoint listeners from being
+    // notified once per hit.
+    if (!addresses.isEmpty()) {
+      getDebugger().getBreakpointManager().setBreakpointStatus(addresses, BreakpointType.ECHO,
+          BreakpointStatus.BREAKPOINT_HIT);
+    }
+  }
+
+  @Override
+  protected void notifyListener(final IDebugEventListener listener,
+      final EchoBreakpointHitsReply reply) {
+    listener.receivedReply(reply);
+  }
+}
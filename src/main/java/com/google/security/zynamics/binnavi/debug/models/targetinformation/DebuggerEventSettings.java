@@ -22,6 +22,8 @@ package com.google.security.zynamics.binnavi.debug.models.targetinformation;
 public class DebuggerEventSettings {
   private final boolean breakOnDllLoad;
   private final boolean breakOnDllUnload;
+  private final boolean binaryRegisters;
+  private final boolean batchedEchoHits;
 
   /**
    * Creates a new instance of the debugger event settings class.
@@ -32,8 +34,27 @@ public class DebuggerEventSettings {
    *        from the debuggee.
    */
   public DebuggerEventSettings(final boolean breakOnDllLoad, final boolean breakOnDllUnload) {
+    this(breakOnDllLoad, breakOnDllUnload, false, false);
+  }
+
+  /**
+   * Creates a new instance of the debugger event settings class.
+   *
+   * @param breakOnDllLoad Specifies whether the debugger should break whenever a dll is loaded into
+   *        the debuggee.
+   * @param breakOnDllUnload Specifies whether the debugger should break whenever a dll is unloaded
+   *        from the debuggee.
+   * @param binaryRegisters Specifies whether the debugger should send register values in the
+   *        binary format. Must only be set if the debugger supports the format.
+   * @param batchedEchoHits Specifies whether the debugger should send several echo breakpoint hits
+   *        in one packet. Must only be set if the debugger supports batched hits.
+   */
+  public DebuggerEventSettings(final boolean breakOnDllLoad, final boolean breakOnDllUnload,
+      final boolean binaryRegisters, final boolean batchedEchoHits) {
     this.breakOnDllLoad = breakOnDllLoad;
     this.breakOnDllUnload = breakOnDllUnload;
+    this.binaryRegisters = binaryRegisters;
+    this.batchedEchoHits = batchedEchoHits;
   }
 
   public boolean getBreakOnDllLoad() {
@@ -43,4 +64,12 @@ public class DebuggerEventSettings {
   public boolean getBreakOnDllUnload() {
     return breakOnDllUnload;
   }
+
+  public boolean getBinaryRegisters() {
+    return binaryRegisters;
+  }
+
+  public boolean getBatchedEchoHits() {
+    return batchedEchoHits;
+  }
 }
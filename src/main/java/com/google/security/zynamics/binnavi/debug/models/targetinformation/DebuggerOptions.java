@@ -109,6 +109,17 @@ public final class DebuggerOptions {
    */
   private final boolean canTraceCount;
 
+  /**
+   * This flag indicates whether the debugger can send register values in the compact binary format
+   * instead of XML.
+   */
+  private final boolean canBinaryRegisters;
+
+  /**
+   * This flag indicates whether the debugger can send several echo breakpoint hits in one packet.
+   */
+  private final boolean canBatchEchoHits;
+
   /**
    * Creates a new debugger options object.
    *
@@ -147,6 +158,56 @@ public final class DebuggerOptions {
       final boolean canBreakOnModuleLoad,
       final boolean canBreakOnModuleUnload,
       final boolean canTraceCount) {
+    this(canDetach, canAttach, canTerminate, canMemmap, stackAvailable, canValidMemory, canHalt,
+        haltBeforeCommunicating, canMultithread, canSoftwareBreakpoints, breakpointCounter,
+        pageSize, exceptions, canBreakOnModuleLoad, canBreakOnModuleUnload, canTraceCount, false,
+        false);
+  }
+
+  /**
+   * Creates a new debugger options object.
+   *
+   * @param canDetach Flag that says whether detaching is supported.
+   * @param canTerminate Flag that says whether terminating is supported.
+   * @param canMemmap Flag that says whether memory maps are supported.
+   * @param stackAvailable Flag that says whether stack is supported.
+   * @param canValidMemory Flag that says whether memory ranges can be validated.
+   * @param canHalt Flag that says whether the target process can be halted.
+   * @param haltBeforeCommunicating Flag that says whether the target process must be halted.
+   * @param canMultithread Flag that says whether the target process is multi-threaded.
+   * @param canSoftwareBreakpoints Flag that says whether software breakpoints can be used.
+   * @param breakpointCounter Maximum number of breakpoints that can be set.
+   * @param pageSize The page size of the target process.
+   * @param exceptions The list of platform exceptions supported by the debugging client
+   * @param canBreakOnModuleUnload Specifies whether the debugger allows for breaking when a module
+   *        is loaded.
+   * @param canBreakOnModuleLoad specifies whether the debugger allows for breaking when a module is
+   *        unloaded.
+   * @param canTraceCount specifies whether the debugger is able to handle breakpoint hit counter
+   *        bigger than one.
+   * @param canBinaryRegisters specifies whether the debugger can send register values in the
+   *        binary format.
+   * @param canBatchEchoHits specifies whether the debugger can send several echo breakpoint hits in
+   *        one packet.
+   */
+  public DebuggerOptions(final boolean canDetach,
+      final boolean canAttach,
+      final boolean canTerminate,
+      final boolean canMemmap,
+      final boolean stackAvailable,
+      final boolean canValidMemory,
+      final boolean canHalt,
+      final boolean haltBeforeCommunicating,
+      final boolean canMultithread,
+      final boolean canSoftwareBreakpoints,
+      final int breakpointCounter,
+      final int pageSize,
+      final List<DebuggerException> exceptions,
+      final boolean canBreakOnModuleLoad,
+      final boolean canBreakOnModuleUnload,
+      final boolean canTraceCount,
+      final boolean canBinaryRegisters,
+      final boolean canBatchEchoHits) {
     Preconditions.checkArgument(breakpointCounter > 0,
         "IE01036: Breakpoint counter argument must be positive");
 
@@ -166,6 +227,8 @@ public final class DebuggerOptions {
     this.canBreakOnModuleLoad = canBreakOnModuleLoad;
     this.canBreakOnModuleUnload = canBreakOnModuleUnload;
     this.canTraceCount = canTraceCount;
+    this.canBinaryRegisters = canBinaryRegisters;
+    this.canBatchEchoHits = canBatchEchoHits;
   }
 
   /**
@@ -190,7 +253,9 @@ public final class DebuggerOptions {
         new ArrayList<DebuggerException>(options.exceptions),
         options.canBreakOnModuleLoad,
         options.canBreakOnModuleUnload,
-        options.canTraceCount);
+        options.canTraceCount,
+        options.canBinaryRegisters,
+        options.canBatchEchoHits);
   }
 
   /**
@@ -215,6 +280,8 @@ public final class DebuggerOptions {
     boolean canBreakOnModuleLoad = false;
     boolean canBreakOnModuleUnload = false;
     boolean canTraceCount = true;
+    boolean canBinaryRegisters = false;
+    boolean canBatchEchoHits = false;
 
     public DebuggerOptionsBuilder canDetach(boolean value) {
       this.canDetach = value;
@@ -296,6 +363,16 @@ public final class DebuggerOptions {
       return this;
     }
 
+    public DebuggerOptionsBuilder canBinaryRegisters(boolean value) {
+      this.canBinaryRegisters = value;
+      return this;
+    }
+
+    public DebuggerOptionsBuilder canBatchEchoHits(boolean value) {
+      this.canBatchEchoHits = value;
+      return this;
+    }
+
     public DebuggerOptions build() {
       return new DebuggerOptions(canDetach,
           canAttach,
@@ -312,10 +389,30 @@ public final class DebuggerOptions {
           exceptions,
           canBreakOnModuleLoad,
           canBreakOnModuleUnload,
-          canTraceCount);
+          canTraceCount,
+          canBinaryRegisters,
+          canBatchEchoHits);
     }
   }
 
+  /**
+   * Returns if the debug client can send register values in the binary format.
+   *
+   * @return True if the debug client supports binary register values.
+   */
+  public boolean canBinaryRegisters() {
+    return canBinaryRegisters;
+  }
+
+  /**
+   * Returns if the debug client can send several echo breakpoint hits in one packet.
+   *
+   * @return True if the debug client supports batched echo breakpoint hits.
+   */
+  public boolean canBatchEchoHits() {
+    return canBatchEchoHits;
+  }
+
   /**
    * Specifies whether the debugger is able to break when a module is loaded.
    *
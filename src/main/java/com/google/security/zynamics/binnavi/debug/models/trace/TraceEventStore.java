@@ -0,0 +1,487 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.models.trace;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.security.zynamics.binnavi.debug.models.breakpoints.BreakpointAddress;
+import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceEvent;
+import com.google.security.zynamics.binnavi.disassembly.INaviModule;
+import com.google.security.zynamics.binnavi.disassembly.UnrelocatedAddress;
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stores trace events column by column outside of the Java heap. Thread IDs, addresses, modules,
+ * event types and register values are kept in separate off-heap columns, which take about 30 bytes
+ * per event plus the size of the register values. All stores share one direct memory budget that
+ * is derived from the direct memory limit of the JVM. Once the budget is exhausted, the columns are
+ * spilled to memory-mapped temporary files, so the number of events that can be stored is only
+ * limited by the available disk space. Closing the store deletes the temporary files.
+ *
+ * Events that are read from the store are lightweight views that decode the columns on demand.
+ * Views of the same event are equal to each other.
+ *
+ * Events are added by a single thread. Other threads can read the events that were added before.
+ */
+public final class TraceEventStore implements Iterable<ITraceEvent>, AutoCloseable {
+  /**
+   * All event types, indexed by their ordinal.
+   */
+  private static final TraceEventType[] EVENT_TYPES = TraceEventType.values();
+
+  /**
+   * Decides whether the columns can allocate more direct memory.
+   */
+  private final TraceMemoryBudget budget;
+
+  /**
+   * Thread IDs of the events.
+   */
+  private final TraceStoreBuffer threadIds;
+
+  /**
+   * Unrelocated addresses of the events.
+   */
+  private final TraceStoreBuffer addresses;
+
+  /**
+   * Indices of the modules of the events into the module table.
+   */
+  private final TraceStoreBuffer modules;
+
+  /**
+   * Ordinals of the event types.
+   */
+  private final TraceStoreBuffer types;
+
+  /**
+   * End positions of the register values of the events in the register value column.
+   */
+  private final TraceStoreBuffer registerEnds;
+
+  /**
+   * Encoded register values of the events.
+   */
+  private final TraceStoreBuffer registerValues;
+
+  /**
+   * Modules of the stored events. Traces only ever hit a few modules, so the events only store an
+   * index into this table.
+   */
+  private final List<INaviModule> moduleTable = new CopyOnWriteArrayList<>();
+
+  /**
+   * Maps the modules of the module table to their indices.
+   */
+  private final Map<INaviModule, Integer> moduleIndices = new IdentityHashMap<>();
+
+  /**
+   * Names of the registers of the stored events.
+   */
+  private final List<String> registerNameTable = new CopyOnWriteArrayList<>();
+
+  /**
+   * Maps the register names of the register name table to their indices.
+   */
+  private final Map<String, Integer> registerNameIndices = new HashMap<>();
+
+  /**
+   * Number of bytes used in the register value column.
+   */
+  private long registerSize = 0;
+
+  /**
+   * Number of stored events. The number is only increased after all columns of an event were
+   * written.
+   */
+  private volatile int size = 0;
+
+  /**
+   * Creates a new event store that is only limited by the direct memory budget shared by all
+   * stores.
+   */
+  public TraceEventStore() {
+    this(Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a new event store.
+   *
+   * @param directMemoryLimit Number of bytes all columns of the store can allocate as direct memory
+   *        together before they are spilled to memory-mapped temporary files. The budget shared by
+   *        all stores applies in addition.
+   */
+  public TraceEventStore(final long directMemoryLimit) {
+    budget = new TraceMemoryBudget(directMemoryLimit);
+    threadIds = new TraceStoreBuffer(budget);
+    addresses = new TraceStoreBuffer(budget);
+    modules = new TraceStoreBuffer(budget);
+    types = new TraceStoreBuffer(budget);
+    registerEnds = new TraceStoreBuffer(budget);
+    registerValues = new TraceStoreBuffer(budget);
+  }
+
+  /**
+   * Encodes the register values of an event.
+   *
+   * @param registers The register values to encode.
+   *
+   * @return The encoded register values.
+   */
+  private byte[] encodeRegisters(final List<TraceRegister> registers) {
+    int length = 4;
+    final byte[][] memories = new byte[registers.size()][];
+    for (int i = 0; i < memories.length; i++) {
+      memories[i] = registers.get(i).getMemory();
+      length += 16 + memories[i].length;
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    buffer.putInt(registers.size());
+    for (int i = 0; i < memories.length; i++) {
+      final TraceRegister register = registers.get(i);
+      buffer.putInt(getRegisterNameIndex(register.getName()));
+      buffer.putLong(register.getValue().toLong());
+      buffer.putInt(memories[i].length);
+      buffer.put(memories[i]);
+    }
+    return buffer.array();
+  }
+
+  /**
+   * Returns the index of a module in the module table. Modules that are not yet in the table are
+   * added to it.
+   *
+   * @param module The module.
+   *
+   * @return The index of the module.
+   */
+  private int getModuleIndex(final INaviModule module) {
+    Integer index = moduleIndices.get(module);
+    if (index == null) {
+      index = moduleTable.size();
+      moduleTable.add(module);
+      moduleIndices.put(module, index);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the index of a register name in the register name table. Names that are not yet in the
+   * table are added to it.
+   *
+   * @param name The register name.
+   *
+   * @return The index of the register name.
+   */
+  private int getRegisterNameIndex(final String name) {
+    Integer index = registerNameIndices.get(name);
+    if (index == null) {
+      index = registerNameTable.size();
+      registerNameTable.add(name);
+      registerNameIndices.put(name, index);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the position in the register value column where the register values of an event start.
+   *
+   * @param index Index of the event.
+   *
+   * @return The start position of the register values.
+   */
+  private long getRegisterStart(final int index) {
+    return index == 0 ? 0 : registerEnds.getLong((index - 1) * 8L);
+  }
+
+  /**
+   * Adds an event to the end of the store. The event is copied into the columns of the store.
+   *
+   * @param event The event to add.
+   */
+  public void add(final ITraceEvent event) {
+    Preconditions.checkNotNull(event, "IE03489: Event argument can not be null");
+    final int index = size;
+    final BreakpointAddress offset = event.getOffset();
+    final List<TraceRegister> registers = event.getRegisterValues();
+    if (!registers.isEmpty()) {
+      final byte[] encoded = encodeRegisters(registers);
+      registerValues.ensureCapacity(registerSize + encoded.length);
+      registerValues.put(registerSize, encoded);
+      registerSize += encoded.length;
+    }
+    threadIds.ensureCapacity((index + 1) * 8L);
+    threadIds.putLong(index * 8L, event.getThreadId());
+    addresses.ensureCapacity((index + 1) * 8L);
+    addresses.putLong(index * 8L, offset.getAddress().getAddress().toLong());
+    modules.ensureCapacity((index + 1) * 4L);
+    modules.putInt(index * 4L, getModuleIndex(offset.getModule()));
+    types.ensureCapacity(index + 1L);
+    types.put(index, (byte) event.getType().ordinal());
+    registerEnds.ensureCapacity((index + 1) * 8L);
+    registerEnds.putLong(index * 8L, registerSize);
+    size = index + 1;
+  }
+
+  /**
+   * Releases the memory of the store and deletes its temporary files. The store is empty
+   * afterwards, events read from it before must no longer be used.
+   */
+  @Override
+  public void close() {
+    size = 0;
+    registerSize = 0;
+    threadIds.close();
+    addresses.close();
+    modules.close();
+    types.close();
+    registerEnds.close();
+    registerValues.close();
+  }
+
+  /**
+   * Determines whether an event is a view of an event of this store.
+   *
+   * @param event The event to check.
+   *
+   * @return True, if the event was read from this store. False, otherwise.
+   */
+  public boolean contains(final ITraceEvent event) {
+    return (event instanceof TraceEventView) && (((TraceEventView) event).store == this);
+  }
+
+  /**
+   * Returns a view of a stored event.
+   *
+   * @param index Index of the event.
+   *
+   * @return A view of the event.
+   */
+  public ITraceEvent get(final int index) {
+    Preconditions.checkElementIndex(index, size, "IE03490: Index is out of bounds");
+    return new TraceEventView(this, index);
+  }
+
+  /**
+   * Returns a list that contains views of all events that are currently stored. Events that are
+   * added later are not part of the list.
+   *
+   * @return The stored events.
+   */
+  public List<ITraceEvent> getEvents() {
+    return new TraceEventList(this, size);
+  }
+
+  /**
+   * Returns the number of bytes of direct memory the store uses.
+   *
+   * @return The used direct memory in bytes.
+   */
+  public long getDirectMemorySize() {
+    return budget.getUsed();
+  }
+
+  /**
+   * Returns the address of a stored event.
+   *
+   * @param index Index of the event.
+   *
+   * @return The address of the event.
+   */
+  BreakpointAddress getOffset(final int index) {
+    return new BreakpointAddress(moduleTable.get(modules.getInt(index * 4L)),
+        new UnrelocatedAddress(new CAddress(addresses.getLong(index * 8L))));
+  }
+
+  /**
+   * Returns the register values of a stored event.
+   *
+   * @param index Index of the event.
+   *
+   * @return The register values of the event.
+   */
+  List<TraceRegister> getRegisterValues(final int index) {
+    final long start = getRegisterStart(index);
+    final long end = registerEnds.getLong(index * 8L);
+    if (start == end) {
+      return ImmutableList.of();
+    }
+    final byte[] encoded = new byte[(int) (end - start)];
+    registerValues.get(start, encoded);
+    final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    final ImmutableList.Builder<TraceRegister> registers = ImmutableList.builder();
+    for (int count = buffer.getInt(); count > 0; count--) {
+      final String name = registerNameTable.get(buffer.getInt());
+      final long value = buffer.getLong();
+      final byte[] memory = new byte[buffer.getInt()];
+      buffer.get(memory);
+      registers.add(new TraceRegister(name, new CAddress(value), memory));
+    }
+    return registers.build();
+  }
+
+  /**
+   * Returns the number of bytes of the store that were spilled to memory-mapped files.
+   *
+   * @return The number of spilled bytes.
+   */
+  public long getSpilledSize() {
+    return threadIds.getSpilledSize() + addresses.getSpilledSize() + modules.getSpilledSize()
+        + types.getSpilledSize() + registerEnds.getSpilledSize()
+        + registerValues.getSpilledSize();
+  }
+
+  /**
+   * Returns the thread ID of a stored event.
+   *
+   * @param index Index of the event.
+   *
+   * @return The thread ID of the event.
+   */
+  long getThreadId(final int index) {
+    return threadIds.getLong(index * 8L);
+  }
+
+  /**
+   * Returns the type of a stored event.
+   *
+   * @param index Index of the event.
+   *
+   * @return The type of the event.
+   */
+  TraceEventType getType(final int index) {
+    return EVENT_TYPES[types.get(index)];
+  }
+
+  @Override
+  public Iterator<ITraceEvent> iterator() {
+    return getEvents().iterator();
+  }
+
+  /**
+   * Returns the number of stored events.
+   *
+   * @return The number of stored events.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Read-only list of the events of a store.
+   */
+  private static final class TraceEventList extends AbstractList<ITraceEvent>
+      implements RandomAccess {
+    /**
+     * The store that contains the events.
+     */
+    private final TraceEventStore store;
+
+    /**
+     * Number of events in the list.
+     */
+    private final int size;
+
+    /**
+     * Creates a new event list.
+     *
+     * @param store The store that contains the events.
+     * @param size Number of events in the list.
+     */
+    private TraceEventList(final TraceEventStore store, final int size) {
+      this.store = store;
+      this.size = size;
+    }
+
+    @Override
+    public ITraceEvent get(final int index) {
+      Preconditions.checkElementIndex(index, size, "IE03491: Index is out of bounds");
+      return new TraceEventView(store, index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  /**
+   * View of an event of a store.
+   */
+  private static final class TraceEventView implements ITraceEvent {
+    /**
+     * The store that contains the event.
+     */
+    private final TraceEventStore store;
+
+    /**
+     * Index of the event in the store.
+     */
+    private final int index;
+
+    /**
+     * Creates a new event view.
+     *
+     * @param store The store that contains the event.
+     * @param index Index of the event in the store.
+     */
+    private TraceEventView(final TraceEventStore store, final int index) {
+      this.store = store;
+      this.index = index;
+    }
+
+    @Override
+    public boolean equals(final Object rhs) {
+      return (rhs instanceof TraceEventView) && (((TraceEventView) rhs).store == store)
+          && (((TraceEventView) rhs).index == index);
+    }
+
+    @Override
+    public BreakpointAddress getOffset() {
+      return store.getOffset(index);
+    }
+
+    @Override
+    public List<TraceRegister> getRegisterValues() {
+      return store.getRegisterValues(index);
+    }
+
+    @Override
+    public long getThreadId() {
+      return store.getThreadId(index);
+    }
+
+    @Override
+    public TraceEventType getType() {
+      return store.getType(index);
+    }
+
+    @Override
+    public int hashCode() {
+      return (31 * System.identityHashCode(store)) + index;
+    }
+  }
+}
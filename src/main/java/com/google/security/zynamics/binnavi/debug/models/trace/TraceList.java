@@ -16,6 +16,8 @@ limitations under the License.
 package com.google.security.zynamics.binnavi.debug.models.trace;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntSaveDataException;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
@@ -24,9 +26,9 @@ import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITrace
 import com.google.security.zynamics.binnavi.disassembly.IDatabaseObject;
 import com.google.security.zynamics.zylib.general.ListenerProvider;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a list of trace events.
@@ -48,9 +50,10 @@ public final class TraceList implements Iterable<ITraceEvent>, IDatabaseObject {
   private String traceDescription;
 
   /**
-   * List of individual events managed by the event list.
+   * Stores the individual events managed by the event list. The events are kept outside of the
+   * Java heap, so traces with millions of events do not exhaust the heap.
    */
-  private final List<ITraceEvent> traceEvents = new ArrayList<>();
+  private final TraceEventStore traceEvents = new TraceEventStore();
 
   /**
    * Listeners that are notified about changes in the event list.
@@ -81,7 +84,8 @@ public final class TraceList implements Iterable<ITraceEvent>, IDatabaseObject {
   }
 
   /**
-   * Adds a trace event to the end of the list.
+   * Adds a trace event to the end of the list. The event is copied into the event store of the
+   * list, so the events returned by the list are views of the stored data.
    *
    * @param event The trace event to add.
    */
@@ -100,6 +104,40 @@ public final class TraceList implements Iterable<ITraceEvent>, IDatabaseObject {
     }
   }
 
+  /**
+   * Adds trace events to the end of the list. Listeners are notified once for all events, which is
+   * much cheaper than adding the events one by one when a lot of events arrive at once.
+   *
+   * @param events The trace events to add.
+   */
+  public void addEvents(final List<? extends ITraceEvent> events) {
+    Preconditions.checkNotNull(events, "IE03484: Trace events can not be null");
+    if (events.isEmpty()) {
+      return;
+    }
+    final Set<ITraceEvent> newEvents = Sets.newIdentityHashSet();
+    for (final ITraceEvent event : events) {
+      Preconditions.checkNotNull(event, "IE03485: Trace event can not be null");
+      if (!newEvents.add(event)) {
+        throw new IllegalStateException("IE03486: Trace event was added twice");
+      }
+      if (traceEvents.contains(event)) {
+        throw new IllegalStateException("IE03487: Trace event already belongs to the trace list");
+      }
+    }
+    final List<ITraceEvent> addedEvents = ImmutableList.<ITraceEvent>copyOf(events);
+    for (final ITraceEvent event : addedEvents) {
+      traceEvents.add(event);
+    }
+    for (final ITraceListListener listener : listeners) {
+      try {
+        listener.eventsAdded(this, addedEvents);
+      } catch (final Exception exception) {
+        CUtilityFunctions.logException(exception);
+      }
+    }
+  }
+
   /**
    * Adds a listener object that is notified about changes in the event list.
    *
@@ -109,6 +147,14 @@ public final class TraceList implements Iterable<ITraceEvent>, IDatabaseObject {
     listeners.addListener(listener);
   }
 
+  /**
+   * Releases the memory of the events of the list and deletes their temporary files. This is done
+   * once the trace was deleted; the list is empty afterwards.
+   */
+  public void close() {
+    traceEvents.close();
+  }
+
   public String getDescription() {
     return traceDescription;
   }
@@ -117,8 +163,14 @@ public final class TraceList implements Iterable<ITraceEvent>, IDatabaseObject {
     return traceEvents.size();
   }
 
+  /**
+   * Returns the events of the list. The returned list is a read-only snapshot that creates views of
+   * the stored events on demand, so it is cheap even for very large traces.
+   *
+   * @return The events of the list.
+   */
   public List<ITraceEvent> getEvents() {
-    return new ArrayList<ITraceEvent>(traceEvents);
+    return traceEvents.getEvents();
   }
 
   public int getId() {
@@ -152,6 +204,18 @@ public final class TraceList implements Iterable<ITraceEvent>, IDatabaseObject {
     sqlProvider.save(this);
   }
 
+  /**
+   * Saves a range of events of the trace to the database.
+   *
+   * @param from Index of the first event to save.
+   * @param to Index after the last event to save.
+   *
+   * @throws CouldntSaveDataException Thrown if the events could not be saved.
+   */
+  public void saveEvents(final int from, final int to) throws CouldntSaveDataException {
+    sqlProvider.saveEvents(this, from, to);
+  }
+
   public void setDescription(final String description) throws CouldntSaveDataException {
     Preconditions.checkNotNull(description, "IE00783: Comment can not be null");
     if (traceDescription.equals(description)) {
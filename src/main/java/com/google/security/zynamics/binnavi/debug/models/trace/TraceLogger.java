@@ -21,6 +21,7 @@ import com.google.common.collect.Sets;
 import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.Log.NaviLogger;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
 import com.google.security.zynamics.binnavi.debug.debugger.DebugEventListenerAdapter;
 import com.google.security.zynamics.binnavi.debug.debugger.DebuggerHelpers;
 import com.google.security.zynamics.binnavi.debug.debugger.interfaces.IDebugEventListener;
@@ -34,6 +35,7 @@ import com.google.security.zynamics.binnavi.debug.models.breakpoints.enums.Break
 import com.google.security.zynamics.binnavi.debug.models.processmanager.ProcessManagerListenerAdapter;
 import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValue;
 import com.google.security.zynamics.binnavi.debug.models.targetinformation.ThreadRegisters;
+import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceEvent;
 import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceListProvider;
 import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceLoggerListener;
 import com.google.security.zynamics.binnavi.disassembly.RelocatedAddress;
@@ -59,6 +61,12 @@ public final class TraceLogger {
    */
   private TraceList eventList;
 
+  /**
+   * Writes the events of the active trace to the database while the trace is recorded. This value
+   * is null if no trace is active.
+   */
+  private TraceStreamWriter traceWriter;
+
   /**
    * List of the currently active echo breakpoints
    */
@@ -123,9 +131,14 @@ public final class TraceLogger {
       throw new IllegalStateException();
     }
 
-    @Override
-    public void receivedReply(final EchoBreakpointHitReply reply) {
-      lock.lock();
+    /**
+     * Turns an echo breakpoint hit into a trace event and counts down the remaining hits of the
+     * echo breakpoint.
+     *
+     * @param reply The echo breakpoint hit.
+     * @param events Collects the new trace events until they are added to the trace list.
+     */
+    private void handleHit(final EchoBreakpointHitReply reply, final List<ITraceEvent> events) {
       final Pair<ThreadRegisters, BreakpointAddress> addressPair = getAddress(reply);
       final BreakpointAddress address = addressPair.second();
 
@@ -133,32 +146,87 @@ public final class TraceLogger {
       // is part of the current graph, the event is added to the current
       // event list.
 
-      if (hasEchoBreakpoint(address)) {
-        NaviLogger.info("Adding echo breakpoint event %s to event list %s",
-            address.getAddress().getAddress().toHexString(), eventList.getName());
-        final List<TraceRegister> registers = new ArrayList<TraceRegister>();
-        for (final RegisterValue registerValue : addressPair.first()) {
-          registers.add(new TraceRegister(registerValue.getName(),
-              new CAddress(registerValue.getValue()), registerValue.getMemory()));
+      if (!hasEchoBreakpoint(address)) {
+        NaviLogger.info("Unknown echo breakpoint event for address [%s]",
+            address.getAddress().getAddress().toHexString());
+        return;
+      }
+
+      final List<TraceRegister> registers = new ArrayList<TraceRegister>();
+      for (final RegisterValue registerValue : addressPair.first()) {
+        registers.add(new TraceRegister(registerValue.getName(),
+            new CAddress(registerValue.getValue()), registerValue.getMemory()));
+      }
+      final List<TraceRegister> valueSet = Lists.newArrayList(registers);
+      events.add(
+          new TraceEvent(reply.getThreadId(), address, TraceEventType.ECHO_BREAKPOINT, valueSet));
+      final Integer count = activeEchoBreakpoints.get(address);
+      if (count != null) {
+        final int remaining = count - 1;
+        if (remaining <= 0) {
+          // Removing the last echo breakpoint finishes the trace, so the trace list must
+          // already contain all events at that point.
+          flushEvents(events);
+          breakpointManager.removeBreakpoints(BreakpointType.ECHO, Sets.newHashSet(address));
+        } else {
+          activeEchoBreakpoints.put(address, remaining);
         }
-        final List<TraceRegister> valueSet = Lists.newArrayList(registers);
-        final TraceEvent newEvent =
-            new TraceEvent(reply.getThreadId(), address, TraceEventType.ECHO_BREAKPOINT, valueSet);
-        eventList.addEvent(newEvent);
-        final Integer count = activeEchoBreakpoints.get(address);
-        if (count != null) {
-          final int remaining = count - 1;
-          if (remaining <= 0) {
-            breakpointManager.removeBreakpoints(BreakpointType.ECHO, Sets.newHashSet(address));
-          } else {
-            activeEchoBreakpoints.put(address, remaining);
+      }
+    }
+
+    /**
+     * Adds collected trace events to the trace list.
+     *
+     * @param events The collected trace events. The list is empty afterwards.
+     */
+    private void flushEvents(final List<ITraceEvent> events) {
+      if (events.isEmpty()) {
+        return;
+      }
+      if (events.size() == 1) {
+        final ITraceEvent event = events.get(0);
+        NaviLogger.info("Adding echo breakpoint event %s to event list %s",
+            event.getOffset().getAddress().getAddress().toHexString(), eventList.getName());
+        eventList.addEvent(event);
+      } else {
+        NaviLogger.info("Adding %d echo breakpoint events to event list %s", events.size(),
+            eventList.getName());
+        eventList.addEvents(events);
+      }
+      events.clear();
+    }
+
+    @Override
+    public void receivedReply(final EchoBreakpointHitReply reply) {
+      lock.lock();
+      try {
+        final List<ITraceEvent> events = new ArrayList<>(1);
+        handleHit(reply, events);
+        flushEvents(events);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void receivedReply(final EchoBreakpointHitsReply reply) {
+      lock.lock();
+      try {
+        final List<ITraceEvent> events = new ArrayList<>(reply.getHits().size());
+        try {
+          for (final EchoBreakpointHitReply hit : reply.getHits()) {
+            if (hit.success()) {
+              handleHit(hit, events);
+            }
           }
+        } finally {
+          // The events of a batch are added at once so that the trace list listeners are only
+          // notified once per batch.
+          flushEvents(events);
         }
-      } else {
-        NaviLogger.info("Unknown echo breakpoint event for address [%s]",
-            address.getAddress().getAddress().toHexString());
+      } finally {
+        lock.unlock();
       }
-      lock.unlock();
     }
   };
 
@@ -186,6 +254,20 @@ public final class TraceLogger {
     return activeEchoBreakpoints.containsKey(address);
   }
 
+  /**
+   * Stops writing events of the active trace to the database. Events that were not written yet
+   * are written before this method returns.
+   */
+  private void closeWriter() {
+    if (traceWriter != null) {
+      if (!traceWriter.close()) {
+        NaviLogger.warning("Events of trace %s could not be written during the trace",
+            eventList.getName());
+      }
+      traceWriter = null;
+    }
+  }
+
   /**
    * Removes all added listeners.
    */
@@ -267,6 +349,7 @@ public final class TraceLogger {
     lock.lock(); // Lock required because while breakpoints are added, previously set breakpoints
                  // can be hit => Comodification exception.
     eventList = trace;
+    traceWriter = new TraceStreamWriter(trace);
     // The trace logger must handle debug events
     debugger.addListener(m_debuggerListener);
     debugger.getProcessManager().addListener(m_processListener);
@@ -278,6 +361,7 @@ public final class TraceLogger {
         continue;
       }
       if (!debugger.isConnected()) {
+        closeWriter();
         lock.unlock();
         return;
       }
@@ -303,6 +387,7 @@ public final class TraceLogger {
     if (activeEchoBreakpoints.isEmpty()) {
       // Can happen if all given addresses are blocked
       removeListeners();
+      closeWriter();
     }
     lock.unlock();
   }
@@ -335,6 +420,7 @@ public final class TraceLogger {
       // we are removing echo breakpoints.
     }
     activeEchoBreakpoints.clear();
+    closeWriter();
     lock.unlock();
     for (final ITraceLoggerListener listener : listeners) {
       try {
@@ -354,9 +440,18 @@ public final class TraceLogger {
    * @return The old trace list that previously received events.
    */
   public TraceList switchTargetList(final TraceList trace) {
-    final TraceList oldList = eventList;
-    eventList = trace;
-    return oldList;
+    lock.lock();
+    try {
+      closeWriter();
+      final TraceList oldList = eventList;
+      eventList = trace;
+      if (hasEchoBreakpoints()) {
+        traceWriter = new TraceStreamWriter(trace);
+      }
+      return oldList;
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -380,6 +475,7 @@ public final class TraceLogger {
       }
       if (activeEchoBreakpointCount() == 0) {
         removeListeners();
+        closeWriter();
         for (final ITraceLoggerListener listener : listeners) {
           listener.finished(eventList);
         }
@@ -398,6 +494,7 @@ public final class TraceLogger {
       // No more events please
       removeListeners();
       activeEchoBreakpoints.clear();
+      closeWriter();
       for (final ITraceLoggerListener listener : listeners) {
         listener.finished(eventList);
       }
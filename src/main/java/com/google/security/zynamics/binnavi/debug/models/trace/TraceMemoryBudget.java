@@ -0,0 +1,165 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.models.trace;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Decides whether the buffers of a trace event store can allocate more direct memory. All stores
+ * share one budget that is derived from the direct memory limit of the JVM. The budget is checked
+ * against the direct memory the JVM actually uses, so memory of stores that were garbage collected
+ * is available again without explicit bookkeeping. Each store can additionally have a limit of its
+ * own.
+ *
+ * A budget is only used by the thread that writes to its store.
+ */
+final class TraceMemoryBudget {
+  /**
+   * Name of the JVM buffer pool that tracks direct buffers.
+   */
+  private static final String DIRECT_POOL_NAME = "direct";
+
+  /**
+   * Option that sets the direct memory limit of the JVM.
+   */
+  private static final String MAX_DIRECT_MEMORY_OPTION = "-XX:MaxDirectMemorySize=";
+
+  /**
+   * Number of bytes of direct memory all trace stores can use together. This is half of the direct
+   * memory limit of the JVM, which leaves the other half to the rest of the program.
+   */
+  static final long SHARED_LIMIT = getMaxDirectMemory() / 2;
+
+  /**
+   * Tracks the direct memory used by the JVM. This value is null if the JVM does not provide it.
+   */
+  private static final BufferPoolMXBean DIRECT_POOL = findDirectPool();
+
+  /**
+   * Number of bytes of direct memory the store can use.
+   */
+  private final long limit;
+
+  /**
+   * Number of bytes of direct memory the store uses.
+   */
+  private long used = 0;
+
+  /**
+   * Creates a new budget.
+   *
+   * @param limit Number of bytes of direct memory the store can use in addition to the shared
+   *        limit of all stores.
+   */
+  TraceMemoryBudget(final long limit) {
+    Preconditions.checkArgument(limit >= 0, "IE03488: Direct memory limit can not be negative");
+    this.limit = limit;
+  }
+
+  /**
+   * Finds the JVM buffer pool that tracks direct buffers.
+   *
+   * @return The buffer pool or null if the JVM does not provide it.
+   */
+  private static BufferPoolMXBean findDirectPool() {
+    for (final BufferPoolMXBean pool :
+        ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (DIRECT_POOL_NAME.equals(pool.getName())) {
+        return pool;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the direct memory limit of the JVM. Without an explicit limit, the JVM allows as much
+   * direct memory as the maximum heap size.
+   *
+   * @return The direct memory limit in bytes.
+   */
+  private static long getMaxDirectMemory() {
+    for (final String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      if (argument.startsWith(MAX_DIRECT_MEMORY_OPTION)) {
+        final long size = parseSize(argument.substring(MAX_DIRECT_MEMORY_OPTION.length()));
+        if (size >= 0) {
+          return size;
+        }
+      }
+    }
+    return Runtime.getRuntime().maxMemory();
+  }
+
+  /**
+   * Parses a JVM memory size like 512m.
+   *
+   * @param value The memory size.
+   *
+   * @return The memory size in bytes or -1 if the value could not be parsed.
+   */
+  private static long parseSize(final String value) {
+    if (value.isEmpty()) {
+      return -1;
+    }
+    final char unit = Character.toLowerCase(value.charAt(value.length() - 1));
+    final int shift = unit == 'k' ? 10 : unit == 'm' ? 20 : unit == 'g' ? 30 : unit == 't' ? 40 : 0;
+    final String digits = shift == 0 ? value : value.substring(0, value.length() - 1);
+    try {
+      return Long.parseLong(digits) << shift;
+    } catch (final NumberFormatException exception) {
+      return -1;
+    }
+  }
+
+  /**
+   * Gives back direct memory that is no longer used by the store.
+   *
+   * @param size Number of bytes to give back.
+   */
+  void free(final long size) {
+    used -= size;
+  }
+
+  /**
+   * Reserves direct memory for the store if both the limit of the store and the shared limit of all
+   * stores allow it.
+   *
+   * @param size Number of bytes to reserve.
+   *
+   * @return True, if the memory was reserved. False, if the store must spill instead.
+   */
+  boolean tryReserve(final long size) {
+    if (used + size > limit) {
+      return false;
+    }
+    if ((DIRECT_POOL != null) && (DIRECT_POOL.getMemoryUsed() + size > SHARED_LIMIT)) {
+      return false;
+    }
+    used += size;
+    return true;
+  }
+
+  /**
+   * Returns the number of bytes of direct memory the store uses.
+   *
+   * @return The used direct memory in bytes.
+   */
+  long getUsed() {
+    return used;
+  }
+}
@@ -0,0 +1,319 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.models.trace;
+
+import com.google.security.zynamics.binnavi.Log.NaviLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Append-only byte storage outside of the Java heap. The storage is split into segments of equal
+ * size that are allocated as direct buffers while the memory budget of the store allows it. Further
+ * segments are mapped from a temporary file, so the size of the buffer is only limited by the
+ * available disk space. The temporary file is deleted when the buffer is closed.
+ *
+ * Data is written by a single thread. Readers only access positions below a limit that was
+ * published after the data was written.
+ */
+final class TraceStoreBuffer {
+  /**
+   * Number of bits of a position that address a byte inside a segment.
+   */
+  private static final int SEGMENT_BITS = 20;
+
+  /**
+   * Size of a full segment in bytes.
+   */
+  static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+  /**
+   * Size of the first segment in bytes. The first segment grows up to the full segment size, so
+   * that small traces do not occupy a full segment per column.
+   */
+  private static final int INITIAL_SIZE = 256;
+
+  /**
+   * Decides whether segments can be allocated as direct memory.
+   */
+  private final TraceMemoryBudget budget;
+
+  /**
+   * The segments of the buffer.
+   */
+  private volatile ByteBuffer[] segments = new ByteBuffer[0];
+
+  /**
+   * Segments that are allocated as direct memory and count against the budget. Mapped segments are
+   * direct buffers as well, so they can not be told apart by the buffer alone.
+   */
+  private final Set<ByteBuffer> directSegments =
+      Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+
+  /**
+   * Number of bytes that can be stored in the allocated segments.
+   */
+  private long capacity = 0;
+
+  /**
+   * Temporary file the segments beyond the memory budget are mapped from. This value is null until
+   * the first segment is spilled.
+   */
+  private File spillFile;
+
+  /**
+   * Number of bytes of the spill file that are mapped.
+   */
+  private long spillSize = 0;
+
+  /**
+   * Creates a new buffer.
+   *
+   * @param budget Decides whether segments can be allocated as direct memory.
+   */
+  TraceStoreBuffer(final TraceMemoryBudget budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Allocates a new segment. Segments are allocated as direct memory while the budget allows it and
+   * mapped from the spill file otherwise. If the spill file can not be mapped, the segment is
+   * allocated on the heap rather than exceeding the budget.
+   *
+   * @param size Size of the segment in bytes.
+   *
+   * @return The allocated segment.
+   */
+  private ByteBuffer allocate(final int size) {
+    if (budget.tryReserve(size)) {
+      final ByteBuffer segment = ByteBuffer.allocateDirect(size);
+      directSegments.add(segment);
+      return segment;
+    }
+    try {
+      if (spillFile == null) {
+        spillFile = File.createTempFile("binnavi-trace", ".bin");
+        // Only a fallback for stores that are never closed.
+        spillFile.deleteOnExit();
+      }
+      // Mapped segments stay valid after the file is closed.
+      try (final RandomAccessFile file = new RandomAccessFile(spillFile, "rw")) {
+        final ByteBuffer segment =
+            file.getChannel().map(FileChannel.MapMode.READ_WRITE, spillSize, size);
+        spillSize += size;
+        return segment;
+      }
+    } catch (final IOException exception) {
+      NaviLogger.warning("Could not map trace segment, using heap memory instead: %s", exception);
+      return ByteBuffer.allocate(size);
+    }
+  }
+
+  /**
+   * Gives the direct memory of a segment that is no longer used back to the budget.
+   *
+   * @param segment The segment.
+   */
+  private void free(final ByteBuffer segment) {
+    if (directSegments.remove(segment)) {
+      budget.free(segment.capacity());
+    }
+  }
+
+  /**
+   * Returns the segment that contains a given position.
+   *
+   * @param position The position.
+   *
+   * @return The segment that contains the position.
+   */
+  private ByteBuffer segment(final long position) {
+    return segments[(int) (position >>> SEGMENT_BITS)];
+  }
+
+  /**
+   * Returns the offset of a position inside its segment.
+   *
+   * @param position The position.
+   *
+   * @return The offset of the position inside its segment.
+   */
+  private static int offset(final long position) {
+    return (int) (position & (SEGMENT_SIZE - 1));
+  }
+
+  /**
+   * Releases the segments of the buffer and deletes its spill file. The buffer must not be used
+   * afterwards.
+   */
+  void close() {
+    for (final ByteBuffer segment : segments) {
+      free(segment);
+    }
+    segments = new ByteBuffer[0];
+    capacity = 0;
+    if ((spillFile != null) && !spillFile.delete()) {
+      NaviLogger.warning("Could not delete trace spill file %s", spillFile);
+    }
+    spillFile = null;
+    spillSize = 0;
+  }
+
+  /**
+   * Makes sure that the buffer can store a given number of bytes.
+   *
+   * @param limit The number of bytes the buffer must be able to store.
+   */
+  void ensureCapacity(final long limit) {
+    while (limit > capacity) {
+      final ByteBuffer[] current = segments;
+      if ((current.length == 1) && (current[0].capacity() < SEGMENT_SIZE)) {
+        final ByteBuffer first = current[0];
+        final int size = Math.min(SEGMENT_SIZE, first.capacity() * 2);
+        final ByteBuffer grown = allocate(size);
+        free(first);
+        final ByteBuffer source = first.duplicate();
+        source.clear();
+        grown.put(source);
+        segments = new ByteBuffer[] {grown};
+        capacity = size;
+      } else {
+        final int size = current.length == 0 ? INITIAL_SIZE : SEGMENT_SIZE;
+        final ByteBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = allocate(size);
+        segments = grown;
+        capacity += size;
+      }
+    }
+  }
+
+  /**
+   * Reads a byte.
+   *
+   * @param position Position of the byte.
+   *
+   * @return The byte at the given position.
+   */
+  byte get(final long position) {
+    return segment(position).get(offset(position));
+  }
+
+  /**
+   * Reads bytes that can cross segment borders.
+   *
+   * @param position Position of the first byte.
+   * @param data Receives the bytes.
+   */
+  void get(final long position, final byte[] data) {
+    int done = 0;
+    while (done < data.length) {
+      final long current = position + done;
+      final ByteBuffer source = segment(current).duplicate();
+      source.position(offset(current));
+      final int count = Math.min(data.length - done, source.remaining());
+      source.get(data, done, count);
+      done += count;
+    }
+  }
+
+  /**
+   * Reads an integer. The position must be aligned to four bytes.
+   *
+   * @param position Position of the integer.
+   *
+   * @return The integer at the given position.
+   */
+  int getInt(final long position) {
+    return segment(position).getInt(offset(position));
+  }
+
+  /**
+   * Reads a long value. The position must be aligned to eight bytes.
+   *
+   * @param position Position of the long value.
+   *
+   * @return The long value at the given position.
+   */
+  long getLong(final long position) {
+    return segment(position).getLong(offset(position));
+  }
+
+  /**
+   * Returns the number of bytes of the buffer that are mapped from the spill file.
+   *
+   * @return The number of spilled bytes.
+   */
+  long getSpilledSize() {
+    return spillSize;
+  }
+
+  /**
+   * Writes a byte. The buffer must be large enough to hold the byte.
+   *
+   * @param position Position of the byte.
+   * @param value The byte to write.
+   */
+  void put(final long position, final byte value) {
+    segment(position).put(offset(position), value);
+  }
+
+  /**
+   * Writes bytes that can cross segment borders. The buffer must be large enough to hold the bytes.
+   *
+   * @param position Position of the first byte.
+   * @param data The bytes to write.
+   */
+  void put(final long position, final byte[] data) {
+    int done = 0;
+    while (done < data.length) {
+      final long current = position + done;
+      final ByteBuffer target = segment(current).duplicate();
+      target.position(offset(current));
+      final int count = Math.min(data.length - done, target.remaining());
+      target.put(data, done, count);
+      done += count;
+    }
+  }
+
+  /**
+   * Writes an integer. The position must be aligned to four bytes and the buffer must be large
+   * enough to hold the integer.
+   *
+   * @param position Position of the integer.
+   * @param value The integer to write.
+   */
+  void putInt(final long position, final int value) {
+    segment(position).putInt(offset(position), value);
+  }
+
+  /**
+   * Writes a long value. The position must be aligned to eight bytes and the buffer must be large
+   * enough to hold the long value.
+   *
+   * @param position Position of the long value.
+   * @param value The long value to write.
+   */
+  void putLong(final long position, final long value) {
+    segment(position).putLong(offset(position), value);
+  }
+}
@@ -0,0 +1,302 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.debug.models.trace;
+
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.binnavi.CUtilityFunctions;
+import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntSaveDataException;
+import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceEvent;
+import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceListListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the events of a trace to the database while the trace is recorded. A background thread
+ * saves the events in chunks as they are added to the trace, so long traces do not have to be
+ * written all at once when tracing stops.
+ *
+ * If the database falls too far behind, adding events to the trace blocks until the writer caught
+ * up. This slows down the trace logger instead of building up an unbounded backlog. If saving
+ * fails, the writer stops and the remaining events are written when the trace is saved.
+ *
+ * The trace must not contain events that were already saved when the writer is created.
+ */
+public final class TraceStreamWriter {
+  /**
+   * Default number of events that are saved at once.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+  /**
+   * Default number of unsaved events after which adding events to the trace blocks.
+   */
+  public static final int DEFAULT_MAXIMUM_BACKLOG = 100000;
+
+  /**
+   * Number of milliseconds after which events are saved even if there are fewer than a chunk.
+   */
+  private static final long FLUSH_INTERVAL = 1000;
+
+  /**
+   * The trace whose events are written.
+   */
+  private final TraceList trace;
+
+  /**
+   * Number of events that are saved at once.
+   */
+  private final int chunkSize;
+
+  /**
+   * Number of unsaved events after which adding events to the trace blocks.
+   */
+  private final int maximumBacklog;
+
+  /**
+   * Synchronizes the writer thread with the threads that add events to the trace.
+   */
+  private final Lock lock = new ReentrantLock();
+
+  /**
+   * Signaled when events were added or the writer was closed.
+   */
+  private final Condition eventsAdded = lock.newCondition();
+
+  /**
+   * Signaled when events were saved or saving failed.
+   */
+  private final Condition eventsSaved = lock.newCondition();
+
+  /**
+   * Number of events of the trace that are known to the writer.
+   */
+  private int addedEvents;
+
+  /**
+   * Number of events of the trace that were saved.
+   */
+  private int savedEvents = 0;
+
+  /**
+   * Flag that says whether the writer was closed.
+   */
+  private boolean closed = false;
+
+  /**
+   * Flag that says whether saving events failed.
+   */
+  private boolean failed = false;
+
+  /**
+   * Thread that saves the events.
+   */
+  private final Thread thread;
+
+  /**
+   * Keeps track of the events added to the trace.
+   */
+  private final ITraceListListener traceListener = new InternalTraceListener();
+
+  /**
+   * Creates a new writer with the default chunk size and backlog and starts writing events.
+   *
+   * @param trace The trace whose events are written.
+   */
+  public TraceStreamWriter(final TraceList trace) {
+    this(trace, DEFAULT_CHUNK_SIZE, DEFAULT_MAXIMUM_BACKLOG);
+  }
+
+  /**
+   * Creates a new writer and starts writing events.
+   *
+   * @param trace The trace whose events are written.
+   * @param chunkSize Number of events that are saved at once.
+   * @param maximumBacklog Number of unsaved events after which adding events to the trace blocks.
+   */
+  public TraceStreamWriter(final TraceList trace, final int chunkSize, final int maximumBacklog) {
+    this.trace = Preconditions.checkNotNull(trace, "IE03493: Trace argument can not be null");
+    Preconditions.checkArgument(chunkSize > 0, "IE03494: Chunk size must be positive");
+    Preconditions.checkArgument(maximumBacklog >= chunkSize,
+        "IE03495: Maximum backlog can not be smaller than the chunk size");
+    this.chunkSize = chunkSize;
+    this.maximumBacklog = maximumBacklog;
+    addedEvents = trace.getEventCount();
+    trace.addListener(traceListener);
+    thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        writeEvents();
+      }
+    }, "Trace Writer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Records the number of events of the trace and blocks while the backlog is too large.
+   *
+   * @param eventCount The number of events of the trace.
+   */
+  private void updateEventCount(final int eventCount) {
+    lock.lock();
+    try {
+      addedEvents = eventCount;
+      if (addedEvents - savedEvents >= chunkSize) {
+        eventsAdded.signal();
+      }
+      while (!closed && !failed && (addedEvents - savedEvents > maximumBacklog)) {
+        eventsSaved.await();
+      }
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Saves the events of the trace until the writer is closed and all events are saved.
+   */
+  private void writeEvents() {
+    while (true) {
+      final int from;
+      final int to;
+      lock.lock();
+      try {
+        while (!closed && (addedEvents - savedEvents < chunkSize)) {
+          if (!eventsAdded.await(FLUSH_INTERVAL, TimeUnit.MILLISECONDS)
+              && (addedEvents > savedEvents)) {
+            break;
+          }
+        }
+        if (addedEvents == savedEvents) {
+          if (closed) {
+            return;
+          }
+          continue;
+        }
+        from = savedEvents;
+        to = Math.min(addedEvents, savedEvents + chunkSize);
+      } catch (final InterruptedException exception) {
+        fail();
+        return;
+      } finally {
+        lock.unlock();
+      }
+
+      try {
+        trace.saveEvents(from, to);
+      } catch (final CouldntSaveDataException | RuntimeException exception) {
+        CUtilityFunctions.logException(exception);
+        fail();
+        return;
+      }
+
+      lock.lock();
+      try {
+        savedEvents = to;
+        eventsSaved.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Stops saving events and releases all threads that wait for the writer.
+   */
+  private void fail() {
+    lock.lock();
+    try {
+      failed = true;
+      eventsSaved.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Saves the remaining events and stops the writer. Events added to the trace afterwards are not
+   * written by this writer.
+   *
+   * @return True, if all events of the trace were saved. False, if saving failed.
+   */
+  public boolean close() {
+    trace.removeListener(traceListener);
+    lock.lock();
+    try {
+      addedEvents = trace.getEventCount();
+      closed = true;
+      eventsAdded.signal();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      thread.join();
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    lock.lock();
+    try {
+      return !failed && (savedEvents == addedEvents);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of events that were saved so far.
+   *
+   * @return The number of saved events.
+   */
+  public int getSavedEventCount() {
+    lock.lock();
+    try {
+      return savedEvents;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Keeps track of the events added to the trace.
+   */
+  private class InternalTraceListener implements ITraceListListener {
+    @Override
+    public void changedDescription(final TraceList traceList) {
+      // Not relevant for the writer
+    }
+
+    @Override
+    public void changedName(final TraceList traceList) {
+      // Not relevant for the writer
+    }
+
+    @Override
+    public void eventAdded(final TraceList traceList, final ITraceEvent event) {
+      updateEventCount(traceList.getEventCount());
+    }
+
+    @Override
+    public void eventsAdded(final TraceList traceList, final List<ITraceEvent> events) {
+      updateEventCount(traceList.getEventCount());
+    }
+  }
+}
@@ -17,6 +17,8 @@ package com.google.security.zynamics.binnavi.debug.models.trace.interfaces;
 
 import com.google.security.zynamics.binnavi.debug.models.trace.TraceList;
 
+import java.util.List;
+
 /**
  * Interface that must be implemented by all objects that want to be notified about changes in trace
  * lists.
@@ -43,4 +45,12 @@ public interface ITraceListListener {
    * @param event The event that was added to the trace list.
    */
   void eventAdded(TraceList trace, ITraceEvent event);
+
+  /**
+   * Invoked when several events were added to the trace list at once.
+   *
+   * @param trace The trace list where the events were added.
+   * @param events The events that were added to the trace list, in order.
+   */
+  void eventsAdded(TraceList trace, List<ITraceEvent> events);
 }
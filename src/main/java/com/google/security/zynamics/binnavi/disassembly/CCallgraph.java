@@ -67,6 +67,20 @@ public final class CCallgraph extends DirectedGraph<ICallgraphNode, ICallgraphEd
     return functions;
   }
 
+  /**
+   * Returns the functions that are called by a given function.
+   * 
+   * @param callingFunction The function whose callees are returned.
+   * 
+   * @return The callees of the given function. If the function is not part of the Call graph, the
+   *         returned set is empty.
+   */
+  public Set<INaviFunction> getCallees(final INaviFunction callingFunction) {
+    final ICallgraphNode node = m_functionMap.get(callingFunction);
+
+    return node == null ? new HashSet<INaviFunction>() : getFunctions(node.getChildren());
+  }
+
   /**
    * Returns the functions that call a given function.
    * 
@@ -422,6 +422,8 @@ public final class CProjectContent {
       }
     }
 
+    trace.close();
+
     m_project.getConfiguration().updateModificationDate();
   }
 
@@ -18,11 +18,13 @@ package com.google.security.zynamics.binnavi.disassembly.Modules;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntSaveDataException;
 import com.google.security.zynamics.binnavi.Database.Exceptions.LoadCancelledException;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
+import com.google.security.zynamics.binnavi.Log.NaviLogger;
 import com.google.security.zynamics.binnavi.debug.debugger.DebuggerTemplate;
 import com.google.security.zynamics.binnavi.debug.models.trace.TraceList;
 import com.google.security.zynamics.binnavi.disassembly.CCallgraph;
@@ -58,6 +60,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * The CModule class represents a module that is stored in the database. Simple information provided
@@ -138,6 +141,11 @@ public final class CModule implements INaviModule {
    */
   private TypeManager typeManager;
 
+  /**
+   * Durations of the stages of the last module load.
+   */
+  private volatile CModuleLoadTimings m_loadTimings;
+
   /**
    * Creates a new CModule object.
    *
@@ -287,6 +295,15 @@ public final class CModule implements INaviModule {
     return isLoaded() ? m_content.getFunctionContainer().getFunctionCount() : m_functionCount;
   }
 
+  /**
+   * Returns the durations of the stages of the last module load.
+   *
+   * @return The durations of the stages or null if the module was not loaded yet.
+   */
+  public CModuleLoadTimings getLoadTimings() {
+    return m_loadTimings;
+  }
+
   @Override
   public TypeManager getTypeManager() {
     return typeManager;
@@ -392,15 +409,81 @@ public final class CModule implements INaviModule {
 
       // TODO: Move loading into the content constructor
 
+      final CModuleLoadPipeline pipeline = new CModuleLoadPipeline(m_provider);
+
       try {
         if (!m_loadReporter.report(ModuleLoadEvents.Starting)) {
           throw new LoadCancelledException();
         }
 
+        // Stages that only depend on the module itself are started right away on pooled
+        // connections. Their results are collected below in the order of the load events.
+        final ListenableFuture<List<ICallgraphView>> userCallgraphsFuture = pipeline.submit(
+            ModuleLoadStage.CallgraphViews, new Callable<List<ICallgraphView>>() {
+              @Override
+              public List<ICallgraphView> call() throws CouldntLoadDataException {
+                return m_provider.loadCallgraphViews(CModule.this);
+              }
+            });
+        final ListenableFuture<ImmutableList<IFlowgraphView>> userFlowgraphsFuture =
+            pipeline.submit(ModuleLoadStage.FlowgraphViews,
+                new Callable<ImmutableList<IFlowgraphView>>() {
+                  @Override
+                  public ImmutableList<IFlowgraphView> call() throws CouldntLoadDataException {
+                    return m_provider.loadFlowgraphs(CModule.this);
+                  }
+                });
+        final ListenableFuture<List<INaviView>> userMixedGraphsFuture = pipeline.submit(
+            ModuleLoadStage.MixedViews, new Callable<List<INaviView>>() {
+              @Override
+              public List<INaviView> call() throws CouldntLoadDataException {
+                return m_provider.loadMixedgraphs(CModule.this);
+              }
+            });
+        final ListenableFuture<List<TraceList>> tracesFuture =
+            pipeline.submit(ModuleLoadStage.Traces, new Callable<List<TraceList>>() {
+              @Override
+              public List<TraceList> call() throws CouldntLoadDataException {
+                return m_provider.loadTraces(CModule.this);
+              }
+            });
+        final ListenableFuture<TypeManager> typeManagerFuture =
+            pipeline.submit(ModuleLoadStage.Types, new Callable<TypeManager>() {
+              @Override
+              public TypeManager call() throws CouldntLoadDataException {
+                return new TypeManager(new TypeManagerDatabaseBackend(m_provider, CModule.this));
+              }
+            });
+        final ListenableFuture<SectionContainer> sectionsFuture =
+            pipeline.submit(ModuleLoadStage.Sections, new Callable<SectionContainer>() {
+              @Override
+              public SectionContainer call() throws CouldntLoadDataException {
+                return new SectionContainer(new SectionContainerBackend(m_provider, CModule.this));
+              }
+            });
+        final ListenableFuture<TypeInstanceContainer> typeInstancesFuture =
+            pipeline.submitAfter(ModuleLoadStage.TypeInstances,
+                new Callable<TypeInstanceContainer>() {
+                  @Override
+                  public TypeInstanceContainer call() throws Exception {
+                    final TypeInstanceContainer typeInstances = new TypeInstanceContainer(
+                        new TypeInstanceContainerBackend(m_provider, CModule.this,
+                            typeManagerFuture.get(), sectionsFuture.get()), m_provider);
+                    typeInstances.initializeInstances();
+                    return typeInstances;
+                  }
+                }, typeManagerFuture, sectionsFuture);
+
         if (!m_loadReporter.report(ModuleLoadEvents.LoadingCallgraphView)) {
           throw new LoadCancelledException();
         }
-        final ICallgraphView nativeCallgraph = m_provider.loadNativeCallgraph(this);
+        final ICallgraphView nativeCallgraph = pipeline.run(ModuleLoadStage.NativeCallgraph,
+            new Callable<ICallgraphView>() {
+              @Override
+              public ICallgraphView call() throws CouldntLoadDataException {
+                return m_provider.loadNativeCallgraph(CModule.this);
+              }
+            });
 
         if (!m_loadReporter.report(ModuleLoadEvents.LoadingFlowgraphs)) {
           throw new LoadCancelledException();
@@ -415,21 +498,27 @@ public final class CModule implements INaviModule {
         // obviously wrong, so we are correcting this here.
         final ImmutableList<IFlowgraphView> nativeFlowgraphs = nativeCallgraph.getNodeCount() == 0
             ? new ImmutableList.Builder<IFlowgraphView>().build()
-            : m_provider.loadNativeFlowgraphs(this);
+            : pipeline.run(ModuleLoadStage.NativeFlowgraphs,
+                new Callable<ImmutableList<IFlowgraphView>>() {
+                  @Override
+                  public ImmutableList<IFlowgraphView> call() throws CouldntLoadDataException {
+                    return m_provider.loadNativeFlowgraphs(CModule.this);
+                  }
+                });
         if (!m_loadReporter.report(ModuleLoadEvents.LoadingCallgraphViews)) {
           throw new LoadCancelledException();
         }
-        final List<ICallgraphView> userCallgraphs = m_provider.loadCallgraphViews(this);
+        final List<ICallgraphView> userCallgraphs = pipeline.await(userCallgraphsFuture);
 
         if (!m_loadReporter.report(ModuleLoadEvents.LoadingFlowgraphViews)) {
           throw new LoadCancelledException();
         }
-        final ImmutableList<IFlowgraphView> userFlowgraphs = m_provider.loadFlowgraphs(this);
+        final ImmutableList<IFlowgraphView> userFlowgraphs = pipeline.await(userFlowgraphsFuture);
 
         if (!m_loadReporter.report(ModuleLoadEvents.LoadingMixedViews)) {
           throw new LoadCancelledException();
         }
-        final List<INaviView> userMixedGraphs = m_provider.loadMixedgraphs(this);
+        final List<INaviView> userMixedGraphs = pipeline.await(userMixedGraphsFuture);
 
         if (!m_loadReporter.report(ModuleLoadEvents.LoadingCallgraph)) {
           throw new LoadCancelledException();
@@ -441,18 +530,37 @@ public final class CModule implements INaviModule {
 
         // Note: the type manager needs to be loaded prior to functions, since a function might
         // have an associated stack frame, which in turn needs the type system.
-        typeManager = new TypeManager(new TypeManagerDatabaseBackend(m_provider, this));
-
-        final List<INaviFunction> functions = m_provider.loadFunctions(this, nativeFlowgraphs);
-        final ImmutableBiMap<INaviView, INaviFunction> viewFunctionMap =
-            m_provider.loadViewFunctionMapping(nativeFlowgraphs, functions, this);
+        typeManager = pipeline.await(typeManagerFuture);
+
+        final List<INaviFunction> functions = pipeline.run(ModuleLoadStage.Functions,
+            new Callable<List<INaviFunction>>() {
+              @Override
+              public List<INaviFunction> call() throws CouldntLoadDataException {
+                return m_provider.loadFunctions(CModule.this, nativeFlowgraphs);
+              }
+            });
+        final ImmutableBiMap<INaviView, INaviFunction> viewFunctionMap = pipeline.run(
+            ModuleLoadStage.Functions, new Callable<ImmutableBiMap<INaviView, INaviFunction>>() {
+              @Override
+              public ImmutableBiMap<INaviView, INaviFunction> call()
+                  throws CouldntLoadDataException {
+                return m_provider.loadViewFunctionMapping(nativeFlowgraphs, functions,
+                    CModule.this);
+              }
+            });
         final CCallgraph callgraph =
-            m_provider.loadCallgraph(this, nativeCallgraph.getConfiguration().getId(), functions);
+            pipeline.run(ModuleLoadStage.Callgraph, new Callable<CCallgraph>() {
+              @Override
+              public CCallgraph call() throws CouldntLoadDataException {
+                return m_provider.loadCallgraph(CModule.this,
+                    nativeCallgraph.getConfiguration().getId(), functions);
+              }
+            });
 
         if (!m_loadReporter.report(ModuleLoadEvents.LoadingTraces)) {
           throw new LoadCancelledException();
         }
-        final List<TraceList> traces = m_provider.loadTraces(this);
+        final List<TraceList> traces = pipeline.await(tracesFuture);
 
         if (!m_loadReporter.report(ModuleLoadEvents.LoadingGlobalVariables)) {
           throw new LoadCancelledException();
@@ -483,16 +591,25 @@ public final class CModule implements INaviModule {
           throw new LoadCancelledException();
         }
 
-        final SectionContainer sections =
-            new SectionContainer(new SectionContainerBackend(m_provider, this));
+        final SectionContainer sections = pipeline.await(sectionsFuture);
+        final TypeInstanceContainer typeInstances = pipeline.await(typeInstancesFuture);
 
-        final TypeInstanceContainer typeInstances = new TypeInstanceContainer(
-            new TypeInstanceContainerBackend(m_provider, this, typeManager, sections), m_provider);
         m_content = new CModuleContent(
             this, m_provider, m_listeners, callgraph, functions, nativeCallgraph, nativeFlowgraphs,
             customViews, viewFunctionMap, traces, sections, typeInstances);
-        typeInstances.initialize();
 
+        // The references to type instances are resolved through the views of the module, so they
+        // can only be loaded once the module content exists.
+        pipeline.run(ModuleLoadStage.TypeInstanceReferences, new Callable<Void>() {
+          @Override
+          public Void call() throws CouldntLoadDataException {
+            typeInstances.initializeReferences();
+            return null;
+          }
+        });
+
+        m_loadTimings = pipeline.getTimings();
+        NaviLogger.info("Loaded module '%s': %s", m_configuration.getName(), m_loadTimings);
       } catch (final CouldntLoadDataException e) {
         m_isLoading = false;
         throw e;
@@ -500,6 +617,7 @@ public final class CModule implements INaviModule {
         m_isLoading = false;
         throw e;
       } finally {
+        pipeline.cancel();
         m_loadReporter.report(ModuleLoadEvents.Finished);
       }
 
@@ -0,0 +1,344 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.disassembly.Modules;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.security.zynamics.binnavi.CUtilityFunctions;
+import com.google.security.zynamics.binnavi.Database.CConnection;
+import com.google.security.zynamics.binnavi.Database.CConnectionPool;
+import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
+import com.google.security.zynamics.binnavi.Database.Exceptions.LoadCancelledException;
+import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
+
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes the stages of a module load. Stages that do not depend on each other are submitted to a
+ * set of worker threads shared by all module loads of a database. While a worker executes a stage
+ * it holds a lease on a pooled database connection, so concurrent stages do not queue up on the
+ * primary connection. There are as many workers as pooled connections. Stages on the critical path
+ * are executed by the loading thread itself.
+ */
+final class CModuleLoadPipeline {
+  /**
+   * Time in seconds after which idle worker threads are stopped.
+   */
+  private static final long IDLE_TIMEOUT = 30;
+
+  /**
+   * Worker threads shared by all module loads of the databases, keyed by the connection pool of the
+   * database.
+   */
+  private static final Map<CConnectionPool, ListeningExecutorService> m_executors =
+      new WeakHashMap<CConnectionPool, ListeningExecutorService>();
+
+  /**
+   * Worker threads shared by all module loads of databases without a connection pool.
+   */
+  private static ListeningExecutorService m_defaultExecutor = null;
+
+  /**
+   * Provides the connection the stages are executed on.
+   */
+  private final SQLProvider m_provider;
+
+  /**
+   * Worker threads the stages are submitted to.
+   */
+  private final ListeningExecutorService m_executor;
+
+  /**
+   * Stages that were submitted to the worker threads.
+   */
+  private final List<Future<?>> m_futures = new CopyOnWriteArrayList<Future<?>>();
+
+  /**
+   * Duration in nanoseconds of every stage that was executed.
+   */
+  private final Map<ModuleLoadStage, Long> m_stageTimes =
+      new EnumMap<ModuleLoadStage, Long>(ModuleLoadStage.class);
+
+  /**
+   * Time when the pipeline was created.
+   */
+  private final long m_startTime = System.nanoTime();
+
+  /**
+   * Creates a new pipeline.
+   *
+   * @param provider Provides the connection the stages are executed on.
+   */
+  CModuleLoadPipeline(final SQLProvider provider) {
+    m_provider = Preconditions.checkNotNull(provider, "IE03465: Provider argument can not be null");
+    m_executor = getExecutor(provider.getConnection());
+  }
+
+  /**
+   * Creates worker threads for module loads.
+   *
+   * @param size Maximum number of stages that are executed by the worker threads at the same time.
+   *
+   * @return The created executor.
+   */
+  private static ListeningExecutorService createExecutor(final int size) {
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, IDLE_TIMEOUT,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Module Loader %d").build());
+    executor.allowCoreThreadTimeOut(true);
+
+    return MoreExecutors.listeningDecorator(executor);
+  }
+
+  /**
+   * Converts the exception thrown by a stage into the exception thrown by the load.
+   *
+   * @param exception The exception thrown by the stage.
+   *
+   * @return The exception to throw.
+   */
+  private static CouldntLoadDataException convert(final Throwable exception) {
+    if (exception instanceof CouldntLoadDataException) {
+      return (CouldntLoadDataException) exception;
+    }
+
+    Throwables.propagateIfPossible(exception);
+
+    return new CouldntLoadDataException((Exception) exception);
+  }
+
+  /**
+   * Returns the worker threads shared by all module loads of a database. The number of workers
+   * matches the size of the connection pool of the database, so every worker can hold a lease.
+   *
+   * @param connection The connection to the database.
+   *
+   * @return The worker threads of the database.
+   */
+  private static synchronized ListeningExecutorService getExecutor(
+      final CConnection connection) {
+    final CConnectionPool pool = connection == null ? null : connection.getPool();
+
+    if (pool == null) {
+      if (m_defaultExecutor == null) {
+        m_defaultExecutor = createExecutor(CConnectionPool.DEFAULT_SIZE);
+      }
+
+      return m_defaultExecutor;
+    }
+
+    ListeningExecutorService executor = m_executors.get(pool);
+
+    if (executor == null) {
+      executor = createExecutor(pool.getSize());
+      m_executors.put(pool, executor);
+    }
+
+    return executor;
+  }
+
+  /**
+   * Executes a stage on a leased pooled connection. If all pooled connections are in use, the call
+   * blocks until one becomes free. The stage is only executed on the primary connection if the
+   * database has no connection or if a new pooled connection could not be established.
+   *
+   * @param stage The executed stage.
+   * @param callable Loads the data of the stage.
+   *
+   * @return The result of the stage.
+   *
+   * @throws Exception Thrown if the stage failed.
+   */
+  private <T> T callLeased(final ModuleLoadStage stage, final Callable<T> callable)
+      throws Exception {
+    final CConnection connection = m_provider.getConnection();
+
+    if (connection == null) {
+      return time(stage, callable);
+    }
+
+    final CConnectionPool.Lease lease;
+
+    try {
+      lease = connection.lease();
+    } catch (final SQLException exception) {
+      CUtilityFunctions.logException(exception);
+
+      return time(stage, callable);
+    }
+
+    try {
+      return time(stage, callable);
+    } finally {
+      lease.close();
+    }
+  }
+
+  /**
+   * Executes a stage and records how long it took. If a stage is executed several times, the
+   * durations are added up.
+   *
+   * @param stage The executed stage.
+   * @param callable Loads the data of the stage.
+   *
+   * @return The result of the stage.
+   *
+   * @throws Exception Thrown if the stage failed.
+   */
+  private <T> T time(final ModuleLoadStage stage, final Callable<T> callable) throws Exception {
+    final long start = System.nanoTime();
+
+    try {
+      return callable.call();
+    } finally {
+      final long duration = System.nanoTime() - start;
+
+      synchronized (m_stageTimes) {
+        final Long previous = m_stageTimes.get(stage);
+        m_stageTimes.put(stage, previous == null ? duration : previous + duration);
+      }
+    }
+  }
+
+  /**
+   * Waits for a submitted stage to finish.
+   *
+   * @param future The future of the submitted stage.
+   *
+   * @return The result of the stage.
+   *
+   * @throws CouldntLoadDataException Thrown if the stage failed.
+   * @throws LoadCancelledException Thrown if the stage was cancelled or if the waiting thread was
+   *         interrupted.
+   */
+  <T> T await(final ListenableFuture<T> future)
+      throws CouldntLoadDataException, LoadCancelledException {
+    try {
+      return future.get();
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+
+      throw new LoadCancelledException();
+    } catch (final CancellationException exception) {
+      throw new LoadCancelledException();
+    } catch (final ExecutionException exception) {
+      throw convert(exception.getCause());
+    }
+  }
+
+  /**
+   * Cancels all submitted stages that did not finish yet.
+   */
+  void cancel() {
+    for (final Future<?> future : m_futures) {
+      future.cancel(true);
+    }
+  }
+
+  /**
+   * Returns the durations of the executed stages.
+   *
+   * @return The durations of the executed stages.
+   */
+  CModuleLoadTimings getTimings() {
+    synchronized (m_stageTimes) {
+      return new CModuleLoadTimings(m_stageTimes, System.nanoTime() - m_startTime);
+    }
+  }
+
+  /**
+   * Executes a stage in the current thread.
+   *
+   * @param stage The executed stage.
+   * @param callable Loads the data of the stage.
+   *
+   * @return The result of the stage.
+   *
+   * @throws CouldntLoadDataException Thrown if the stage failed.
+   */
+  <T> T run(final ModuleLoadStage stage, final Callable<T> callable)
+      throws CouldntLoadDataException {
+    try {
+      return time(stage, callable);
+    } catch (final Exception exception) {
+      throw convert(exception);
+    }
+  }
+
+  /**
+   * Submits a stage to the worker threads.
+   *
+   * @param stage The submitted stage.
+   * @param callable Loads the data of the stage.
+   *
+   * @return The future of the submitted stage.
+   */
+  <T> ListenableFuture<T> submit(final ModuleLoadStage stage, final Callable<T> callable) {
+    final ListenableFuture<T> future = m_executor.submit(new Callable<T>() {
+      @Override
+      public T call() throws Exception {
+        return callLeased(stage, callable);
+      }
+    });
+
+    m_futures.add(future);
+
+    return future;
+  }
+
+  /**
+   * Submits a stage to the worker threads once the stages it depends on finished successfully.
+   *
+   * @param stage The submitted stage.
+   * @param callable Loads the data of the stage.
+   * @param dependencies The futures of the stages the submitted stage depends on.
+   *
+   * @return The future of the submitted stage.
+   */
+  <T> ListenableFuture<T> submitAfter(final ModuleLoadStage stage, final Callable<T> callable,
+      final ListenableFuture<?>... dependencies) {
+    final ListenableFuture<T> future =
+        Futures.transform(Futures.allAsList(dependencies), new AsyncFunction<List<Object>, T>() {
+          @Override
+          public ListenableFuture<T> apply(final List<Object> results) {
+            return submit(stage, callable);
+          }
+        });
+
+    m_futures.add(future);
+
+    return future;
+  }
+}
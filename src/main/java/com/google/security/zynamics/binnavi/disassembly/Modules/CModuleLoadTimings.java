@@ -0,0 +1,87 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.disassembly.Modules;
+
+import com.google.common.base.Preconditions;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durations of the individual stages of a module load. Stages run concurrently, so the sum of the
+ * stage durations is usually larger than the total duration of the load.
+ */
+public final class CModuleLoadTimings {
+  /**
+   * Duration in nanoseconds of every stage that was executed.
+   */
+  private final Map<ModuleLoadStage, Long> m_stageTimes;
+
+  /**
+   * Duration in nanoseconds of the whole load.
+   */
+  private final long m_totalTime;
+
+  /**
+   * Creates a new timings object.
+   *
+   * @param stageTimes Duration in nanoseconds of every stage that was executed.
+   * @param totalTime Duration in nanoseconds of the whole load.
+   */
+  public CModuleLoadTimings(final Map<ModuleLoadStage, Long> stageTimes, final long totalTime) {
+    Preconditions.checkNotNull(stageTimes, "IE03464: Stage times argument can not be null");
+
+    m_stageTimes = new EnumMap<ModuleLoadStage, Long>(ModuleLoadStage.class);
+    m_stageTimes.putAll(stageTimes);
+    m_totalTime = totalTime;
+  }
+
+  /**
+   * Returns the duration of a stage.
+   *
+   * @param stage The stage whose duration is returned.
+   *
+   * @return The duration of the stage in milliseconds or -1 if the stage was not executed.
+   */
+  public long getStageTime(final ModuleLoadStage stage) {
+    final Long time = m_stageTimes.get(stage);
+
+    return time == null ? -1 : TimeUnit.NANOSECONDS.toMillis(time);
+  }
+
+  /**
+   * Returns the duration of the whole load.
+   *
+   * @return The duration of the load in milliseconds.
+   */
+  public long getTotalTime() {
+    return TimeUnit.NANOSECONDS.toMillis(m_totalTime);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+
+    builder.append(String.format("%d ms total", getTotalTime()));
+
+    for (final ModuleLoadStage stage : m_stageTimes.keySet()) {
+      builder.append(String.format(", %s %d ms", stage, getStageTime(stage)));
+    }
+
+    return builder.toString();
+  }
+}
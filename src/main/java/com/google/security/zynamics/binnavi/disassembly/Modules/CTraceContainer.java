@@ -132,6 +132,8 @@ public final class CTraceContainer {
         CUtilityFunctions.logException(exception);
       }
     }
+
+    trace.close();
   }
 
   /**
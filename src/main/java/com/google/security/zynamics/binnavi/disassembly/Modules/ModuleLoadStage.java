@@ -0,0 +1,81 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.disassembly.Modules;
+
+/**
+ * Contains the stages of loading a module whose durations are measured.
+ */
+public enum ModuleLoadStage {
+  /**
+   * Loading the native call graph view.
+   */
+  NativeCallgraph,
+
+  /**
+   * Loading the native flow graph views.
+   */
+  NativeFlowgraphs,
+
+  /**
+   * Loading the non-native call graph views.
+   */
+  CallgraphViews,
+
+  /**
+   * Loading the non-native flow graph views.
+   */
+  FlowgraphViews,
+
+  /**
+   * Loading the mixed graph views.
+   */
+  MixedViews,
+
+  /**
+   * Loading the base types and type members.
+   */
+  Types,
+
+  /**
+   * Loading the functions and mapping them to their views.
+   */
+  Functions,
+
+  /**
+   * Loading the native call graph.
+   */
+  Callgraph,
+
+  /**
+   * Loading the debug traces.
+   */
+  Traces,
+
+  /**
+   * Loading the sections.
+   */
+  Sections,
+
+  /**
+   * Loading the type instances.
+   */
+  TypeInstances,
+
+  /**
+   * Loading the references to type instances.
+   */
+  TypeInstanceReferences
+}
@@ -447,11 +447,30 @@ public final class TypeInstanceContainer {
    * @throws CouldntLoadDataException if the data could not be loaded from the database.
    */
   public synchronized void initialize() throws CouldntLoadDataException {
+    initializeInstances();
+    initializeReferences();
+  }
+
+  /**
+   * Loads the type instances from the database. Unlike the references, the instances can be loaded
+   * before the views of the module are available.
+   * 
+   * @throws CouldntLoadDataException if the data could not be loaded from the database.
+   */
+  public synchronized void initializeInstances() throws CouldntLoadDataException {
     for (final TypeInstance instance : backend.loadTypeInstances()) {
       instancesByAddress.put(instance.getAddress(), instance);
       instances.add(instance);
     }
+  }
 
+  /**
+   * Loads the references to the type instances from the database. The type instances and the views
+   * of the module must be loaded before.
+   * 
+   * @throws CouldntLoadDataException if the data could not be loaded from the database.
+   */
+  public synchronized void initializeReferences() throws CouldntLoadDataException {
     for (final TypeInstanceReference reference : backend.loadTypeInstanceReferences()) {
       referencesByInstance.put(reference.getTypeInstance(), reference);
     }
@@ -16,6 +16,7 @@ limitations under the License.
 package com.google.security.zynamics.binnavi.disassembly.views;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.security.zynamics.binnavi.CUtilityFunctions;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CPartialLoadException;
 import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
@@ -24,6 +25,7 @@ import com.google.security.zynamics.binnavi.Database.Exceptions.LoadCancelledExc
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
 import com.google.security.zynamics.binnavi.Database.cache.EdgeCache;
 import com.google.security.zynamics.binnavi.Database.cache.NodeCache;
+import com.google.security.zynamics.binnavi.Database.cache.ViewGraphCache;
 import com.google.security.zynamics.binnavi.Log.NaviLogger;
 import com.google.security.zynamics.binnavi.Tagging.CTag;
 import com.google.security.zynamics.binnavi.Tagging.TagType;
@@ -53,11 +55,14 @@ import com.google.security.zynamics.zylib.types.graphs.algorithms.MalformedGraph
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 /**
@@ -65,6 +70,11 @@ import java.util.Set;
  * creation date as well as the nodes and edges of the view.
  */
 public final class CView implements INaviView, ICallgraphView, IFlowgraphView {
+  /**
+   * Maximum number of views that are loaded together by {@link #loadViews(Collection)}.
+   */
+  private static final int LOAD_BATCH_SIZE = 64;
+
   /**
    * SQL provider that is used to load the view.
    */
@@ -413,6 +423,17 @@ public final class CView implements INaviView, ICallgraphView, IFlowgraphView {
     return m_content.getBasicBlocks();
   }
 
+  /**
+   * Returns the nodes and edges that changed since the view was last loaded or saved.
+   *
+   * @return The changes of the view.
+   */
+  public CViewChangeSet getChanges() {
+    Preconditions.checkNotNull(m_content, "IE03426: View is not loaded");
+
+    return m_content.getChanges();
+  }
+
   @Override
   public CViewConfiguration getConfiguration() {
     return m_configuration;
@@ -494,9 +515,143 @@ public final class CView implements INaviView, ICallgraphView, IFlowgraphView {
     return m_configuration.isStared();
   }
 
+  /**
+   * Loads several views. Stored views that belong to the same database are loaded in batches with
+   * set-based queries instead of one set of queries per view. Views that are already loaded are
+   * skipped.
+   *
+   * @param views The views to load.
+   *
+   * @throws CouldntLoadDataException Thrown if a view could not be loaded.
+   * @throws CPartialLoadException Thrown if not all necessary modules required to load a view are
+   *         loaded.
+   * @throws LoadCancelledException Thrown if the user cancelled loading.
+   */
+  public static void loadViews(final Collection<? extends INaviView> views)
+      throws CouldntLoadDataException, CPartialLoadException, LoadCancelledException {
+    Preconditions.checkNotNull(views, "IE03450: Views argument can not be null");
+
+    final List<INaviView> otherViews = new ArrayList<>();
+
+    final Map<SQLProvider, List<CView>> storedViews = groupStoredViews(views, otherViews);
+
+    for (final INaviView view : otherViews) {
+      view.load();
+    }
+
+    for (final Entry<SQLProvider, List<CView>> entry : storedViews.entrySet()) {
+      for (final List<CView> batch : Lists.partition(entry.getValue(), LOAD_BATCH_SIZE)) {
+        final Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> graphs =
+            entry.getKey().loadViews(batch);
+
+        for (final CView view : batch) {
+          view.load(graphs.get(view));
+        }
+      }
+    }
+  }
+
+  /**
+   * Loads the graphs of several views from the database without loading the views themselves. The
+   * graphs can later be used to load the views with {@link #load(MutableDirectedGraph)}. Views that
+   * are already loaded or that are not stored in the database are skipped.
+   *
+   * @param views The views whose graphs are loaded.
+   *
+   * @return Maps the views to their graphs.
+   *
+   * @throws CouldntLoadDataException Thrown if a graph could not be loaded.
+   * @throws CPartialLoadException Thrown if not all necessary modules required to load a graph are
+   *         loaded.
+   */
+  public static Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> loadGraphs(
+      final Collection<? extends INaviView> views)
+      throws CouldntLoadDataException, CPartialLoadException {
+    Preconditions.checkNotNull(views, "IE03460: Views argument can not be null");
+
+    final Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> graphs =
+        new LinkedHashMap<>();
+
+    for (final Entry<SQLProvider, List<CView>> entry :
+        groupStoredViews(views, new ArrayList<INaviView>()).entrySet()) {
+      for (final List<CView> batch : Lists.partition(entry.getValue(), LOAD_BATCH_SIZE)) {
+        graphs.putAll(entry.getKey().loadViews(batch));
+      }
+    }
+
+    return graphs;
+  }
+
+  /**
+   * Groups the unloaded views of a collection by the database they are stored in.
+   *
+   * @param views The views to group.
+   * @param otherViews Unloaded views that are not stored in a database are added to this list.
+   *
+   * @return Maps the databases to the unloaded views stored in them.
+   */
+  private static Map<SQLProvider, List<CView>> groupStoredViews(
+      final Collection<? extends INaviView> views, final List<INaviView> otherViews) {
+    final Map<SQLProvider, List<CView>> storedViews = new LinkedHashMap<>();
+
+    for (final INaviView view : views) {
+      if (view.isLoaded()) {
+        continue;
+      }
+
+      final CView cview = view instanceof CView ? (CView) view : null;
+
+      if ((cview != null) && cview.m_configuration.isStored()) {
+        if (!storedViews.containsKey(cview.m_provider)) {
+          storedViews.put(cview.m_provider, new ArrayList<CView>());
+        }
+
+        storedViews.get(cview.m_provider).add(cview);
+      } else {
+        otherViews.add(view);
+      }
+    }
+
+    return storedViews;
+  }
+
   @Override
   public void load() throws CouldntLoadDataException, CPartialLoadException,
       LoadCancelledException {
+    loadContent(m_configuration.isStored() ? ViewGraphCache.instance().take(this) : null);
+  }
+
+  /**
+   * Loads the view from a graph that was already loaded from the database, for example with
+   * {@link SQLProvider#loadViews(Collection)}.
+   *
+   * @param graph The graph of the view.
+   *
+   * @throws CouldntLoadDataException Thrown if the view could not be loaded.
+   * @throws CPartialLoadException Thrown if not all necessary modules required to load the view are
+   *         loaded.
+   * @throws LoadCancelledException Thrown if the user cancelled loading.
+   */
+  public void load(final MutableDirectedGraph<INaviViewNode, INaviEdge> graph)
+      throws CouldntLoadDataException, CPartialLoadException, LoadCancelledException {
+    Preconditions.checkNotNull(graph, "IE03451: Graph argument can not be null");
+
+    loadContent(graph);
+  }
+
+  /**
+   * Loads the view.
+   *
+   * @param preloadedGraph The graph of the view if it was loaded in advance. If this argument is
+   *        null, the graph is loaded from the database.
+   *
+   * @throws CouldntLoadDataException Thrown if the view could not be loaded.
+   * @throws CPartialLoadException Thrown if not all necessary modules required to load the view are
+   *         loaded.
+   * @throws LoadCancelledException Thrown if the user cancelled loading.
+   */
+  private void loadContent(final MutableDirectedGraph<INaviViewNode, INaviEdge> preloadedGraph)
+      throws CouldntLoadDataException, CPartialLoadException, LoadCancelledException {
     synchronized (m_loadReporter) {
       if (isLoaded()) {
         throw new IllegalStateException("IE01110: View is already loaded");
@@ -509,8 +664,8 @@ public final class CView implements INaviView, ICallgraphView, IFlowgraphView {
       }
 
       try {
-        final MutableDirectedGraph<INaviViewNode, INaviEdge> graph =
-            m_configuration.isStored() ? m_provider.loadView(this)
+        final MutableDirectedGraph<INaviViewNode, INaviEdge> graph = preloadedGraph != null
+            ? preloadedGraph : m_configuration.isStored() ? m_provider.loadView(this)
                 : new MutableDirectedGraph<INaviViewNode, INaviEdge>(new ArrayList<INaviViewNode>(),
                     new ArrayList<INaviEdge>());
         m_content = new CViewContent(this, m_listeners, m_provider, graph);
@@ -0,0 +1,254 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.disassembly.views;
+
+import com.google.security.zynamics.binnavi.disassembly.INaviEdge;
+import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Records the nodes and edges of a loaded view that changed since the view was last loaded or
+ * saved. The recorded changes are used to write only the changed rows of a stored view back to the
+ * database.
+ *
+ * Nodes and edges are tracked by object identity. A node or an edge that was added since the last
+ * save operation is only ever reported as added, no matter how often it changed afterwards.
+ */
+public final class CViewChangeSet {
+  /**
+   * Nodes that were added to the view.
+   */
+  private final Set<INaviViewNode> m_addedNodes = new LinkedHashSet<>();
+
+  /**
+   * Stored nodes whose row in the nodes table changed.
+   */
+  private final Set<INaviViewNode> m_modifiedNodes = new LinkedHashSet<>();
+
+  /**
+   * Stored nodes whose type specific data (instructions, group state) changed.
+   */
+  private final Set<INaviViewNode> m_rewrittenNodes = new LinkedHashSet<>();
+
+  /**
+   * IDs of stored nodes that were deleted from the view.
+   */
+  private final Set<Integer> m_deletedNodeIds = new LinkedHashSet<>();
+
+  /**
+   * Edges that were added to the view.
+   */
+  private final Set<INaviEdge> m_addedEdges = new LinkedHashSet<>();
+
+  /**
+   * Stored edges that changed.
+   */
+  private final Set<INaviEdge> m_modifiedEdges = new LinkedHashSet<>();
+
+  /**
+   * IDs of stored edges that were deleted from the view.
+   */
+  private final Set<Integer> m_deletedEdgeIds = new LinkedHashSet<>();
+
+  /**
+   * Forgets all recorded changes.
+   */
+  void clear() {
+    m_addedNodes.clear();
+    m_modifiedNodes.clear();
+    m_rewrittenNodes.clear();
+    m_deletedNodeIds.clear();
+    m_addedEdges.clear();
+    m_modifiedEdges.clear();
+    m_deletedEdgeIds.clear();
+  }
+
+  /**
+   * Records that an edge was added to the view.
+   *
+   * @param edge The added edge.
+   */
+  void edgeAdded(final INaviEdge edge) {
+    m_addedEdges.add(edge);
+  }
+
+  /**
+   * Records that an edge was deleted from the view.
+   *
+   * @param edge The deleted edge.
+   */
+  void edgeDeleted(final INaviEdge edge) {
+    if (m_addedEdges.remove(edge)) {
+      return;
+    }
+
+    m_modifiedEdges.remove(edge);
+
+    if (edge.getId() != -1) {
+      m_deletedEdgeIds.add(edge.getId());
+    }
+  }
+
+  /**
+   * Records that an edge of the view changed.
+   *
+   * @param edge The changed edge.
+   */
+  void edgeModified(final INaviEdge edge) {
+    if (!m_addedEdges.contains(edge)) {
+      m_modifiedEdges.add(edge);
+    }
+  }
+
+  /**
+   * Records that a node was added to the view.
+   *
+   * @param node The added node.
+   */
+  void nodeAdded(final INaviViewNode node) {
+    m_addedNodes.add(node);
+  }
+
+  /**
+   * Records that a node was deleted from the view.
+   *
+   * @param node The deleted node.
+   */
+  void nodeDeleted(final INaviViewNode node) {
+    if (m_addedNodes.remove(node)) {
+      return;
+    }
+
+    m_modifiedNodes.remove(node);
+    m_rewrittenNodes.remove(node);
+
+    if (node.getId() != -1) {
+      m_deletedNodeIds.add(node.getId());
+    }
+  }
+
+  /**
+   * Records that the row of a node in the nodes table changed.
+   *
+   * @param node The changed node.
+   */
+  void nodeModified(final INaviViewNode node) {
+    if (!m_addedNodes.contains(node) && !m_rewrittenNodes.contains(node)) {
+      m_modifiedNodes.add(node);
+    }
+  }
+
+  /**
+   * Records that the type specific data of a node changed.
+   *
+   * @param node The changed node.
+   */
+  void nodeRewritten(final INaviViewNode node) {
+    if (!m_addedNodes.contains(node)) {
+      m_modifiedNodes.remove(node);
+      m_rewrittenNodes.add(node);
+    }
+  }
+
+  /**
+   * Returns the edges that were added to the view.
+   *
+   * @return The added edges.
+   */
+  public Set<INaviEdge> getAddedEdges() {
+    return Collections.unmodifiableSet(m_addedEdges);
+  }
+
+  /**
+   * Returns the nodes that were added to the view.
+   *
+   * @return The added nodes.
+   */
+  public Set<INaviViewNode> getAddedNodes() {
+    return Collections.unmodifiableSet(m_addedNodes);
+  }
+
+  /**
+   * Returns the IDs of the stored edges that were deleted from the view.
+   *
+   * @return The IDs of the deleted edges.
+   */
+  public Set<Integer> getDeletedEdgeIds() {
+    return Collections.unmodifiableSet(m_deletedEdgeIds);
+  }
+
+  /**
+   * Returns the IDs of the stored nodes that were deleted from the view.
+   *
+   * @return The IDs of the deleted nodes.
+   */
+  public Set<Integer> getDeletedNodeIds() {
+    return Collections.unmodifiableSet(m_deletedNodeIds);
+  }
+
+  /**
+   * Returns the stored edges that changed.
+   *
+   * @return The changed edges.
+   */
+  public Set<INaviEdge> getModifiedEdges() {
+    return Collections.unmodifiableSet(m_modifiedEdges);
+  }
+
+  /**
+   * Returns the stored nodes whose row in the nodes table changed.
+   *
+   * @return The changed nodes.
+   */
+  public Set<INaviViewNode> getModifiedNodes() {
+    return Collections.unmodifiableSet(m_modifiedNodes);
+  }
+
+  /**
+   * Returns the stored nodes whose type specific data changed. These nodes must be written again
+   * completely.
+   *
+   * @return The nodes to write again.
+   */
+  public Set<INaviViewNode> getRewrittenNodes() {
+    return Collections.unmodifiableSet(m_rewrittenNodes);
+  }
+
+  /**
+   * Returns whether no changes were recorded.
+   *
+   * @return True, if nothing changed. False, otherwise.
+   */
+  public boolean isEmpty() {
+    return m_addedNodes.isEmpty() && m_modifiedNodes.isEmpty() && m_rewrittenNodes.isEmpty()
+        && m_deletedNodeIds.isEmpty() && m_addedEdges.isEmpty() && m_modifiedEdges.isEmpty()
+        && m_deletedEdgeIds.isEmpty();
+  }
+
+  /**
+   * Returns the number of recorded node and edge changes.
+   *
+   * @return The number of changes.
+   */
+  public int size() {
+    return m_addedNodes.size() + m_modifiedNodes.size() + m_rewrittenNodes.size()
+        + m_deletedNodeIds.size() + m_addedEdges.size() + m_modifiedEdges.size()
+        + m_deletedEdgeIds.size();
+  }
+}
@@ -122,6 +122,11 @@ public final class CViewContent implements IViewContent {
    */
   private boolean m_wasModified = false;
 
+  /**
+   * Nodes and edges that changed since the view was last loaded or saved.
+   */
+  private final CViewChangeSet m_changes = new CViewChangeSet();
+
   /**
    * Creates a new view content object.
    *
@@ -141,7 +146,7 @@ public final class CViewContent implements IViewContent {
     this.graph = Preconditions.checkNotNull(graph, "IE02616: graph argument can not be null");
 
     for (final INaviViewNode node : this.graph.getNodes()) {
-      node.addListener(m_internalNodeListener);
+      addListeners(node);
     }
 
     for (final INaviEdge edge : this.graph.getEdges()) {
@@ -193,6 +198,7 @@ public final class CViewContent implements IViewContent {
    */
   private void addNode(final INaviViewNode node) {
     graph.addNode(node);
+    m_changes.nodeAdded(node);
 
     for (final INaviViewListener listener : listeners) {
       try {
@@ -203,6 +209,40 @@ public final class CViewContent implements IViewContent {
     }
   }
 
+  /**
+   * Attaches the internal listeners to a node of the view.
+   *
+   * @param node The node to listen on.
+   */
+  private void addListeners(final INaviViewNode node) {
+    if (node instanceof INaviCodeNode) {
+      ((INaviCodeNode) node).addListener(m_internalNodeListener);
+    } else {
+      node.addListener(m_internalNodeListener);
+    }
+
+    if (node instanceof INaviGroupNode) {
+      ((INaviGroupNode) node).addGroupListener(m_internalNodeListener);
+    }
+  }
+
+  /**
+   * Removes the internal listeners from a node of the view.
+   *
+   * @param node The node to stop listening on.
+   */
+  private void removeListeners(final INaviViewNode node) {
+    if (node instanceof INaviCodeNode) {
+      ((INaviCodeNode) node).removeListener(m_internalNodeListener);
+    } else {
+      node.removeListener(m_internalNodeListener);
+    }
+
+    if (node instanceof INaviGroupNode) {
+      ((INaviGroupNode) node).removeGroupListener(m_internalNodeListener);
+    }
+  }
+
   /**
    * Returns all incoming and outgoing edges of a node from the view.
    *
@@ -263,6 +303,10 @@ public final class CViewContent implements IViewContent {
    * @param value The new modification state.
    */
   public void setModified(final boolean value) {
+    if (!value) {
+      m_changes.clear();
+    }
+
     if (m_wasModified == value) {
       return;
     }
@@ -413,6 +457,7 @@ public final class CViewContent implements IViewContent {
 
     edge.addListener(m_internalEdgeListener);
     graph.addEdge(edge);
+    m_changes.edgeAdded(edge);
 
     for (final INaviViewListener listener : listeners) {
       try {
@@ -514,6 +559,7 @@ public final class CViewContent implements IViewContent {
 
     graph.removeEdge(edge);
     edge.removeListener(m_internalEdgeListener);
+    m_changes.edgeDeleted(edge);
 
     edge.getSource().removeChild(edge.getTarget());
     edge.getTarget().removeParent(edge.getSource());
@@ -547,7 +593,8 @@ public final class CViewContent implements IViewContent {
     removeEdges(node);
 
     graph.removeNode(node);
-    node.removeListener(m_internalNodeListener);
+    removeListeners(node);
+    m_changes.nodeDeleted(node);
 
     for (final INaviViewListener listener : listeners) {
       try {
@@ -589,7 +636,8 @@ public final class CViewContent implements IViewContent {
       removeEdges(node);
 
       graph.removeNode(node);
-      node.removeListener(m_internalNodeListener);
+      removeListeners(node);
+      m_changes.nodeDeleted(node);
 
       final INaviGroupNode parent = node.getParentGroup();
 
@@ -649,6 +697,15 @@ public final class CViewContent implements IViewContent {
     return nodes;
   }
 
+  /**
+   * Returns the nodes and edges that changed since the view was last loaded or saved.
+   *
+   * @return The changes of the view.
+   */
+  public CViewChangeSet getChanges() {
+    return m_changes;
+  }
+
   @Override
   public int getEdgeCount() {
     return graph.getEdges().size();
@@ -713,6 +770,11 @@ public final class CViewContent implements IViewContent {
    * Updates the view on relevant changes in its edges.
    */
   private class InternalEdgeListener extends CNaviEdgeListenerAdapter {
+    @Override
+    public void addedBend(final IViewEdge<?> edge, final CBend path) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
+
     @Override
     public void appendedGlobalEdgeComment(final INaviEdge naviEdge, final IComment comment) {
       for (final INaviViewListener listener : listeners) {
@@ -737,6 +799,8 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void changedColor(final CViewEdge<?> edge, final Color color) {
+      m_changes.edgeModified((INaviEdge) edge);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.changedColor(view, (CNaviViewEdge) edge, color);
@@ -746,8 +810,40 @@ public final class CViewContent implements IViewContent {
       }
     }
 
+    @Override
+    public void changedSelection(final IViewEdge<?> edge, final boolean selected) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
+
+    @Override
+    public void changedSourceX(final CViewEdge<?> edge, final double sourceX) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
+
+    @Override
+    public void changedSourceY(final CViewEdge<?> edge, final double sourceY) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
+
+    @Override
+    public void changedTargetX(final CViewEdge<?> edge, final double targetX) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
+
+    @Override
+    public void changedTargetY(final CViewEdge<?> edge, final double targetY) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
+
+    @Override
+    public void changedType(final CViewEdge<?> edge, final EdgeType type) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
+
     @Override
     public void changedVisibility(final IViewEdge<?> edge, final boolean visibility) {
+      m_changes.edgeModified((INaviEdge) edge);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.changedVisibility(view, edge);
@@ -757,6 +853,11 @@ public final class CViewContent implements IViewContent {
       }
     }
 
+    @Override
+    public void clearedBends(final IViewEdge<?> edge) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
+
     @Override
     public void deletedGlobalEdgeComment(final INaviEdge naviEdge, final IComment comment) {
       for (final INaviViewListener listener : listeners) {
@@ -824,6 +925,16 @@ public final class CViewContent implements IViewContent {
         }
       }
     }
+
+    @Override
+    public void insertedBend(final IViewEdge<?> edge, final int index, final CBend path) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
+
+    @Override
+    public void removedBend(final CViewEdge<?> edge, final int index, final CBend path) {
+      m_changes.edgeModified((INaviEdge) edge);
+    }
   }
 
   /**
@@ -842,6 +953,7 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void addedInstruction(final INaviCodeNode codeNode, final INaviInstruction instruction) {
+      m_changes.nodeRewritten(codeNode);
       setModified(true);
     }
 
@@ -872,6 +984,8 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void changedBorderColor(final IViewNode<?> node, final Color color) {
+      m_changes.nodeModified((INaviViewNode) node);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.changedBorderColor(view, node, color);
@@ -883,6 +997,8 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void changedColor(final IViewNode<?> node, final Color color) {
+      m_changes.nodeModified((INaviViewNode) node);
+
       setModified(true);
 
       for (final INaviViewListener listener : listeners) {
@@ -900,6 +1016,8 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void changedParentGroup(final INaviViewNode node, final INaviGroupNode groupNode) {
+      m_changes.nodeModified(node);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.changedParentGroup(view, node, groupNode);
@@ -911,6 +1029,8 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void changedSelection(final IViewNode<?> node, final boolean selected) {
+      m_changes.nodeModified((INaviViewNode) node);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.changedSelection(view, node, selected);
@@ -921,10 +1041,14 @@ public final class CViewContent implements IViewContent {
     }
 
     @Override
-    public void changedState(final INaviGroupNode node) {}
+    public void changedState(final INaviGroupNode node) {
+      m_changes.nodeRewritten(node);
+    }
 
     @Override
     public void changedVisibility(final IViewNode<?> node, final boolean visible) {
+      m_changes.nodeModified((INaviViewNode) node);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.changedVisibility(view, node, visible);
@@ -984,6 +1108,8 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void heightChanged(final IViewNode<?> node, final double height) {
+      m_changes.nodeModified((INaviViewNode) node);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.heightChanged(view, node, height);
@@ -1024,6 +1150,7 @@ public final class CViewContent implements IViewContent {
     @Override
     public void removedInstruction(final INaviCodeNode codeNode,
         final INaviInstruction instruction) {
+      m_changes.nodeRewritten(codeNode);
       m_reilFunction = null;
       setModified(true);
     }
@@ -1052,6 +1179,8 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void widthChanged(final IViewNode<?> node, final double width) {
+      m_changes.nodeModified((INaviViewNode) node);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.widthChanged(view, node, width);
@@ -1063,6 +1192,8 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void xposChanged(final IViewNode<?> node, final double xpos) {
+      m_changes.nodeModified((INaviViewNode) node);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.xposChanged(view, node, xpos);
@@ -1074,6 +1205,8 @@ public final class CViewContent implements IViewContent {
 
     @Override
     public void yposChanged(final IViewNode<?> node, final double ypos) {
+      m_changes.nodeModified((INaviViewNode) node);
+
       for (final INaviViewListener listener : listeners) {
         try {
           listener.yposChanged(view, node, ypos);
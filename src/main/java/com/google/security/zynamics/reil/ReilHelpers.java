@@ -533,12 +533,20 @@ public class ReilHelpers {
         secondOperand, thirdOperand);
   }
 
+  /**
+   * Returns a REIL operand. Operands are immutable and shared between all instructions that use an
+   * operand with the same size and value.
+   *
+   * @param size The size of the operand
+   * @param value The value of the operand
+   *
+   * @return The operand
+   */
   public static ReilOperand createOperand(final OperandSize size, final String value) {
-    final ReilOperandNode root =
-        new ReilOperandNode(size.toSizeString(), ExpressionType.SIZE_PREFIX);
-    final ReilOperandNode child = new ReilOperandNode(value, getOperandType(value));
-    ReilOperandNode.link(root, child);
-    return new ReilOperand(root);
+    Preconditions.checkNotNull(size, "Error: Argument size can't be null");
+    Preconditions.checkNotNull(value, "Error: Argument value can't be null");
+
+    return ReilOperandInterner.getOperand(size, value);
   }
 
   /**
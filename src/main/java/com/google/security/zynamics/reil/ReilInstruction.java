@@ -57,9 +57,10 @@ public final class ReilInstruction implements IInstruction, Comparable<ReilInstr
   private final ReilOperand thirdOperand;
 
   /**
-   * Metadata of the REIL instruction.
+   * Metadata of the REIL instruction. Most instructions have no metadata, so the map is only
+   * allocated once the first entry is set.
    */
-  private final Map<String, String> metaData = new HashMap<>();
+  private Map<String, String> metaData = null;
 
   /**
    * Creates a new ReilInstruction object.
@@ -91,12 +92,24 @@ public final class ReilInstruction implements IInstruction, Comparable<ReilInstr
    * @return The string representation of meta-data.
    */
   private String getMetaDataString() {
+    if (metaData == null) {
+      return "";
+    }
+
     return metaData.keySet()
             .stream()
             .map(key -> key + " : " + metaData.get(key))
             .collect(Collectors.joining(", "));
   }
 
+  private boolean hasSameMetaData(final ReilInstruction rhs) {
+    if ((metaData == null) || metaData.isEmpty()) {
+      return (rhs.metaData == null) || rhs.metaData.isEmpty();
+    }
+
+    return metaData.equals(rhs.metaData);
+  }
+
   @Override
   public int compareTo(final ReilInstruction o) {
     return address.compareTo(o.address);
@@ -115,7 +128,7 @@ public final class ReilInstruction implements IInstruction, Comparable<ReilInstr
         && firstOperand.equals(rhsInstruction.getFirstOperand())
         && secondOperand.equals(rhsInstruction.getSecondOperand())
         && thirdOperand.equals(rhsInstruction.getThirdOperand())
-        && metaData.equals(rhsInstruction.getMetaData());
+        && hasSameMetaData(rhsInstruction);
   }
 
   /**
@@ -159,7 +172,7 @@ public final class ReilInstruction implements IInstruction, Comparable<ReilInstr
    * @return A map of metadata information.
    */
   public Map<String, String> getMetaData() {
-    return new HashMap<>(metaData);
+    return metaData == null ? new HashMap<String, String>() : new HashMap<>(metaData);
   }
 
   /**
@@ -173,7 +186,16 @@ public final class ReilInstruction implements IInstruction, Comparable<ReilInstr
 
     Preconditions.checkNotNull(key, "Argument key can't be null");
 
-    return metaData.get(key);
+    return metaData == null ? null : metaData.get(key);
+  }
+
+  /**
+   * Returns whether the metadata map of the instruction was allocated.
+   * 
+   * @return True, if metadata was set on the instruction at some point.
+   */
+  boolean hasMetaDataMap() {
+    return metaData != null;
   }
 
   @Override
@@ -235,7 +257,7 @@ public final class ReilInstruction implements IInstruction, Comparable<ReilInstr
   @Override
   public int hashCode() {
     return address.hashCode() * (mnemonic + 1) * firstOperand.hashCode() * secondOperand.hashCode()
-        * thirdOperand.hashCode() * metaData.hashCode();
+        * thirdOperand.hashCode() * (metaData == null ? 0 : metaData.hashCode());
   }
 
   /**
@@ -250,8 +272,14 @@ public final class ReilInstruction implements IInstruction, Comparable<ReilInstr
     Preconditions.checkNotNull(key, "Argument key can't be null");
 
     if (value == null) {
-      metaData.remove(key);
+      if (metaData != null) {
+        metaData.remove(key);
+      }
     } else {
+      if (metaData == null) {
+        metaData = new HashMap<>();
+      }
+
       metaData.put(key, value);
     }
   }
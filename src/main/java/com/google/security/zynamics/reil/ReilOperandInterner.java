@@ -0,0 +1,74 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.security.zynamics.zylib.disassembly.ExpressionType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shares REIL operands between instructions. REIL operands are immutable and translated code
+ * contains the same register and literal operands over and over again, so all instructions created
+ * through {@link ReilHelpers} use one operand object per distinct size and value.
+ *
+ * Operands are only weakly referenced by the interner, so operands that are no longer used by any
+ * instruction can be garbage collected.
+ */
+final class ReilOperandInterner {
+  /**
+   * Interned operands, grouped by operand size and keyed by operand value.
+   */
+  private static final Map<OperandSize, Cache<String, ReilOperand>> m_operands =
+      new EnumMap<OperandSize, Cache<String, ReilOperand>>(OperandSize.class);
+
+  static {
+    for (final OperandSize size : OperandSize.values()) {
+      m_operands.put(size, CacheBuilder.newBuilder().weakValues().<String, ReilOperand>build());
+    }
+  }
+
+  private ReilOperandInterner() {
+    // You are not supposed to instantiate this class
+  }
+
+  private static ReilOperand createOperand(final OperandSize size, final String value) {
+    final ReilOperandNode root =
+        new ReilOperandNode(size.toSizeString(), ExpressionType.SIZE_PREFIX);
+    final ReilOperandNode child = new ReilOperandNode(value, ReilHelpers.getOperandType(value));
+    ReilOperandNode.link(root, child);
+    return new ReilOperand(root);
+  }
+
+  /**
+   * Returns the operand with the given size and value.
+   *
+   * @param size The size of the operand.
+   * @param value The value of the operand.
+   *
+   * @return The shared operand object.
+   */
+  static ReilOperand getOperand(final OperandSize size, final String value) {
+    try {
+      return m_operands.get(size).get(value, () -> createOperand(size, value));
+    } catch (final ExecutionException exception) {
+      throw new IllegalStateException(exception.getCause());
+    }
+  }
+}
@@ -16,8 +16,8 @@ limitations under the License.
 package com.google.security.zynamics.reil.algorithms.mono2.common;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.MinMaxPriorityQueue;
 import com.google.security.zynamics.reil.algorithms.mono2.common.enums.AnalysisDirection;
+import com.google.security.zynamics.reil.algorithms.mono2.common.enums.WorklistStrategy;
 import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.interfaces.IInstructionGraph;
 import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.interfaces.IInstructionGraphEdge;
 import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.interfaces.IInstructionGraphNode;
@@ -52,7 +52,7 @@ public class MonoReilSolver<LatticeElementType extends ILatticeElement<LatticeEl
   /**
    * Determines the order in which nodes are traversed during fixed point iteration.
    */
-  private final MinMaxPriorityQueue<CComparableInstructionGraphNode> m_workList;
+  private final MonoReilWorklist m_workList;
 
   private final AnalysisDirection m_direction;
   private final ILattice<LatticeElementType> m_lattice;
@@ -65,15 +65,41 @@ public class MonoReilSolver<LatticeElementType extends ILatticeElement<LatticeEl
    */
   private final Set<IInstructionGraphEdge> m_traversedEdges = new HashSet<>();
 
+  /**
+   * Number of nodes processed by the last call to solve.
+   */
+  private int m_iterationCount = 0;
+
+  /**
+   * Number of lattice element combinations done by the last call to solve.
+   */
+  private int m_combineCount = 0;
+
   public MonoReilSolver(final IInstructionGraph instructionGraph,
       final AnalysisDirection analysisDirection, final ILattice<LatticeElementType> lattice) {
+    this(instructionGraph, analysisDirection, lattice, WorklistStrategy.UNORDERED);
+  }
+
+  /**
+   * Creates a solver that processes the nodes of the graph in the order given by a worklist
+   * strategy.
+   *
+   * @param instructionGraph The graph to operate on.
+   * @param analysisDirection The direction in which lattice elements are propagated.
+   * @param lattice The lattice of the analysis.
+   * @param worklistStrategy Determines the order in which the nodes are processed.
+   */
+  public MonoReilSolver(final IInstructionGraph instructionGraph,
+      final AnalysisDirection analysisDirection, final ILattice<LatticeElementType> lattice,
+      final WorklistStrategy worklistStrategy) {
     m_graph = Preconditions.checkNotNull(instructionGraph,
         "Error: instruction graph argument can not be null");
     m_direction = Preconditions.checkNotNull(analysisDirection,
         "Error: analysis direction argument can not be null");
     m_lattice = Preconditions.checkNotNull(lattice, "Error: latice argument can not be null");
 
-    m_workList = MinMaxPriorityQueue.expectedSize(m_graph.size()).create();
+    m_workList = new MonoReilWorklist(m_graph, m_direction, Preconditions.checkNotNull(
+        worklistStrategy, "Error: worklist strategy argument can not be null"));
   }
 
   /**
@@ -82,12 +108,11 @@ public class MonoReilSolver<LatticeElementType extends ILatticeElement<LatticeEl
    * @param node The node for which to determine the relevant edges.
    * @return An iterator for all relevant edges.
    */
-  private Iterable<IInstructionGraphEdge> getRelevantEdges(
-      final CComparableInstructionGraphNode node) {
+  private Iterable<IInstructionGraphEdge> getRelevantEdges(final IInstructionGraphNode node) {
     if (m_direction == AnalysisDirection.DOWN) {
-      return m_graph.getIncomingEdges(node.getNode());
+      return m_graph.getIncomingEdges(node);
     }
-    return m_graph.getOutgoingEdges(node.getNode());
+    return m_graph.getOutgoingEdges(node);
   }
 
   // TODO: document: is the first entry of the pair always the true edge? verify!
@@ -119,6 +144,7 @@ public class MonoReilSolver<LatticeElementType extends ILatticeElement<LatticeEl
       final List<LatticeElementType> combines = new ArrayList<LatticeElementType>();
       combines.add(state);
       combines.add(m_stateMap.get(edge));
+      m_combineCount++;
       m_stateMap.put(edge, m_lattice.combine(combines));
     } else {
       m_stateMap.put(edge, state);
@@ -126,9 +152,9 @@ public class MonoReilSolver<LatticeElementType extends ILatticeElement<LatticeEl
 
     if (!m_lattice.isSmallerEqual(state, m_lattice.getMinimalElement())) {
       if (m_direction == AnalysisDirection.DOWN) {
-        m_workList.add(new CComparableInstructionGraphNode(m_graph.getDestination(edge)));
+        m_workList.add(m_graph.getDestination(edge));
       } else if (m_direction == AnalysisDirection.UP) {
-        m_workList.add(new CComparableInstructionGraphNode(m_graph.getSource(edge)));
+        m_workList.add(m_graph.getSource(edge));
       }
     }
   }
@@ -138,6 +164,26 @@ public class MonoReilSolver<LatticeElementType extends ILatticeElement<LatticeEl
     setState(edge, state);
   }
 
+  /**
+   * Returns the number of lattice element combinations done by the last call to
+   * {@link #solve(ITransformationProvider, Iterable, int)}.
+   *
+   * @return The number of combinations.
+   */
+  public int getCombineCount() {
+    return m_combineCount;
+  }
+
+  /**
+   * Returns the number of nodes processed by the last call to
+   * {@link #solve(ITransformationProvider, Iterable, int)}.
+   *
+   * @return The number of iterations.
+   */
+  public int getIterationCount() {
+    return m_iterationCount;
+  }
+
   @Override
   public MonoReilSolverResult<LatticeElementType> solve(
       final ITransformationProvider<LatticeElementType> transformationProvider,
@@ -147,61 +193,38 @@ public class MonoReilSolver<LatticeElementType extends ILatticeElement<LatticeEl
         "Error: transformation provider argument can not be null");
     Preconditions.checkNotNull(initialStates, "Error: initialStates argument can not be null");
 
+    m_iterationCount = 0;
+    m_combineCount = 0;
+
     for (final Pair<IInstructionGraphEdge, LatticeElementType> initialState : initialStates) {
       setState(initialState.first(), initialState.second());
     }
 
-    while (m_workList.size() > 0) {
+    while (!m_workList.isEmpty()) {
       if (--maximumIteration == 0) {
         throw new IllegalStateException("Solver could not generate a sane result");
       }
 
-      final CComparableInstructionGraphNode comparableInstructionGraphNode =
-          m_workList.removeFirst();
+      final IInstructionGraphNode node = m_workList.removeFirst();
+      m_iterationCount++;
 
       final List<LatticeElementType> statesToCombine = new ArrayList<LatticeElementType>();
 
-      for (final IInstructionGraphEdge edge : getRelevantEdges(comparableInstructionGraphNode)) {
+      for (final IInstructionGraphEdge edge : getRelevantEdges(node)) {
         if (m_stateMap.containsKey(edge)) {
           statesToCombine.add(m_stateMap.get(edge));
         }
       }
 
       final LatticeElementType combinedState = m_lattice.combine(statesToCombine);
+      m_combineCount++;
       Pair<LatticeElementType, LatticeElementType> newStates;
 
-      newStates =
-          transformationProvider.transform(comparableInstructionGraphNode.getNode(), combinedState);
+      newStates = transformationProvider.transform(node, combinedState);
 
-      setOutgoingState(comparableInstructionGraphNode.getNode(), newStates);
+      setOutgoingState(node, newStates);
     }
     return new MonoReilSolverResult<LatticeElementType>(m_graph, m_direction, m_lattice, m_stateMap,
         m_traversedEdges);
   }
-
-  // This class only exists because the MinMaxPriorityQueue needs comparable
-  // objects for the priority comparison. It simply wraps the IInstructionGraphNode
-  private class CComparableInstructionGraphNode implements
-      Comparable<CComparableInstructionGraphNode> {
-    private final IInstructionGraphNode m_node;
-    private final int m_priority;
-
-    CComparableInstructionGraphNode(final IInstructionGraphNode n) {
-      m_node = n;
-      m_priority = 1;
-    }
-
-    private int getPriority() {
-      return m_priority;
-    }
-
-    @Override
-    public int compareTo(final CComparableInstructionGraphNode o) {
-      return o.getPriority() - m_priority;
-    }
-
-    public IInstructionGraphNode getNode() {
-      return m_node;
-    }
-  }
 }
@@ -0,0 +1,207 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.algorithms.mono2.common;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.MinMaxPriorityQueue;
+import com.google.security.zynamics.reil.algorithms.mono2.common.enums.AnalysisDirection;
+import com.google.security.zynamics.reil.algorithms.mono2.common.enums.WorklistStrategy;
+import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.interfaces.IInstructionGraph;
+import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.interfaces.IInstructionGraphEdge;
+import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.interfaces.IInstructionGraphNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Worklist of the monotone framework solver. With the {@link WorklistStrategy#DIRECTIONAL}
+ * strategy, nodes are removed in reverse postorder of the instruction graph for downward analyses
+ * and in postorder for upward analyses, so the state of a node is usually complete before the node
+ * is processed. A node that is already queued is not queued again.
+ */
+final class MonoReilWorklist {
+  /**
+   * Queue used by the {@link WorklistStrategy#UNORDERED} strategy, null otherwise.
+   */
+  private final MinMaxPriorityQueue<IInstructionGraphNode> m_unorderedNodes;
+
+  /**
+   * Maps the nodes of the graph to their position in the traversal order.
+   */
+  private final Map<IInstructionGraphNode, Integer> m_priorities =
+      new HashMap<IInstructionGraphNode, Integer>();
+
+  /**
+   * Nodes of the graph in traversal order.
+   */
+  private final List<IInstructionGraphNode> m_nodes = new ArrayList<IInstructionGraphNode>();
+
+  /**
+   * Positions of the queued nodes.
+   */
+  private final BitSet m_queued = new BitSet();
+
+  /**
+   * Number of queued nodes.
+   */
+  private int m_size = 0;
+
+  /**
+   * Creates a new worklist for the given graph.
+   *
+   * @param graph The graph whose nodes are queued.
+   * @param direction The direction of the analysis which determines the traversal order.
+   * @param strategy The strategy that determines the traversal order.
+   */
+  MonoReilWorklist(final IInstructionGraph graph, final AnalysisDirection direction,
+      final WorklistStrategy strategy) {
+    Preconditions.checkNotNull(graph, "Error: graph argument can not be null");
+    Preconditions.checkNotNull(direction, "Error: direction argument can not be null");
+    Preconditions.checkNotNull(strategy, "Error: strategy argument can not be null");
+
+    if (strategy == WorklistStrategy.UNORDERED) {
+      // All nodes have the same priority, which is the order the solver has always used.
+      m_unorderedNodes = MinMaxPriorityQueue.orderedBy(new Comparator<IInstructionGraphNode>() {
+        @Override
+        public int compare(final IInstructionGraphNode first, final IInstructionGraphNode second) {
+          return 0;
+        }
+      }).expectedSize(graph.size()).create();
+      return;
+    }
+
+    m_unorderedNodes = null;
+
+    final List<IInstructionGraphNode> postOrder = getPostOrder(graph);
+
+    for (int i = 0; i < postOrder.size(); i++) {
+      final IInstructionGraphNode node = direction == AnalysisDirection.DOWN
+          ? postOrder.get(postOrder.size() - 1 - i) : postOrder.get(i);
+
+      m_priorities.put(node, i);
+      m_nodes.add(node);
+    }
+  }
+
+  /**
+   * Determines the nodes reachable from the entry node of a graph in postorder.
+   *
+   * @param graph The graph to traverse.
+   *
+   * @return The reachable nodes in postorder.
+   */
+  private static List<IInstructionGraphNode> getPostOrder(final IInstructionGraph graph) {
+    final List<IInstructionGraphNode> postOrder = new ArrayList<IInstructionGraphNode>();
+
+    final IInstructionGraphNode entryNode = graph.getEntryNode();
+
+    if (entryNode == null) {
+      return postOrder;
+    }
+
+    final Set<IInstructionGraphNode> visited = new HashSet<IInstructionGraphNode>();
+    final Deque<IInstructionGraphNode> nodeStack = new ArrayDeque<IInstructionGraphNode>();
+    final Deque<Iterator<IInstructionGraphEdge>> edgeStack =
+        new ArrayDeque<Iterator<IInstructionGraphEdge>>();
+
+    visited.add(entryNode);
+    nodeStack.push(entryNode);
+    edgeStack.push(graph.getOutgoingEdges(entryNode).iterator());
+
+    // The traversal is iterative because instruction graphs of large functions are deep enough to
+    // overflow the stack.
+    while (!nodeStack.isEmpty()) {
+      final Iterator<IInstructionGraphEdge> edges = edgeStack.peek();
+
+      if (edges.hasNext()) {
+        final IInstructionGraphNode successor = graph.getDestination(edges.next());
+
+        if (visited.add(successor)) {
+          nodeStack.push(successor);
+          edgeStack.push(graph.getOutgoingEdges(successor).iterator());
+        }
+      } else {
+        postOrder.add(nodeStack.pop());
+        edgeStack.pop();
+      }
+    }
+
+    return postOrder;
+  }
+
+  /**
+   * Adds a node to the worklist. With the directional strategy, nodes that are not reachable from
+   * the entry node of the graph are ordered after all reachable nodes.
+   *
+   * @param node The node to add.
+   */
+  void add(final IInstructionGraphNode node) {
+    if (m_unorderedNodes != null) {
+      m_unorderedNodes.add(node);
+      return;
+    }
+
+    Integer priority = m_priorities.get(node);
+
+    if (priority == null) {
+      priority = m_nodes.size();
+      m_priorities.put(node, priority);
+      m_nodes.add(node);
+    }
+
+    if (!m_queued.get(priority)) {
+      m_queued.set(priority);
+      m_size++;
+    }
+  }
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Removes the queued node that comes first in the traversal order.
+   *
+   * @return The removed node.
+   */
+  IInstructionGraphNode removeFirst() {
+    if (m_unorderedNodes != null) {
+      return m_unorderedNodes.removeFirst();
+    }
+
+    final int priority = m_queued.nextSetBit(0);
+
+    Preconditions.checkState(priority != -1, "Error: worklist is empty");
+
+    m_queued.clear(priority);
+    m_size--;
+
+    return m_nodes.get(priority);
+  }
+
+  int size() {
+    return m_unorderedNodes == null ? m_size : m_unorderedNodes.size();
+  }
+}
@@ -0,0 +1,34 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.algorithms.mono2.common.enums;
+
+/**
+ * Determines the order in which the solver processes the nodes of an instruction graph.
+ */
+public enum WorklistStrategy {
+  /**
+   * Nodes are processed in no particular order and may be queued several times. Lattice elements
+   * whose transformations are not distributive can depend on the intermediate states produced by
+   * this order.
+   */
+  UNORDERED,
+
+  /**
+   * Nodes are processed in reverse postorder for downward analyses and in postorder for upward
+   * analyses. A node is never queued more than once at a time.
+   */
+  DIRECTIONAL;
+}
@@ -0,0 +1,100 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.algorithms.mono2.registertracking;
+
+import com.google.security.zynamics.reil.ReilHelpers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the register names used by a single register tracking analysis. Lattice elements of the
+ * same analysis share one index and store their register sets as bit vectors over it.
+ */
+final class RegisterIndex {
+  /**
+   * Maps register names to their indices.
+   */
+  private final Map<String, Integer> m_indices = new HashMap<String, Integer>();
+
+  /**
+   * Register names by index.
+   */
+  private final List<String> m_names = new ArrayList<String>();
+
+  /**
+   * One bit per register that is set for REIL temporary registers.
+   */
+  private long[] m_temporaryRegisters = new long[0];
+
+  /**
+   * Returns the index of a register.
+   *
+   * @param register The name of the register.
+   *
+   * @return The index of the register or -1 if the register was never interned.
+   */
+  int getIndex(final String register) {
+    final Integer index = m_indices.get(register);
+    return index == null ? -1 : index;
+  }
+
+  String getName(final int index) {
+    return m_names.get(index);
+  }
+
+  /**
+   * Returns a bit vector that contains all interned REIL temporary registers. The returned array
+   * must not be modified.
+   *
+   * @return The bit vector of temporary registers.
+   */
+  long[] getTemporaryRegisters() {
+    return m_temporaryRegisters;
+  }
+
+  /**
+   * Returns the index of a register and interns the register if necessary.
+   *
+   * @param register The name of the register.
+   *
+   * @return The index of the register.
+   */
+  int intern(final String register) {
+    final Integer index = m_indices.get(register);
+
+    if (index != null) {
+      return index;
+    }
+
+    final int newIndex = m_names.size();
+
+    m_indices.put(register, newIndex);
+    m_names.add(register);
+
+    if (ReilHelpers.isTemporaryRegister(register)) {
+      m_temporaryRegisters = RegisterSetLatticeElement.set(m_temporaryRegisters, newIndex);
+    }
+
+    return newIndex;
+  }
+
+  int size() {
+    return m_names.size();
+  }
+}
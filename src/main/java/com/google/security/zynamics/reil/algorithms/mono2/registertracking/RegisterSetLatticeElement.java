@@ -15,80 +15,84 @@ limitations under the License.
 */
 package com.google.security.zynamics.reil.algorithms.mono2.registertracking;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 import java.util.TreeSet;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicate;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
-import com.google.security.zynamics.reil.ReilHelpers;
 import com.google.security.zynamics.reil.algorithms.mono2.common.interfaces.ILatticeElement;
 
 /**
  * This lattice element keeps track of information in relation with the register tracking.
+ *
+ * Register sets are stored as bit vectors over a {@link RegisterIndex} that is shared by all
+ * elements derived from the same initial element, so combining, comparing and copying elements
+ * only needs word operations.
  */
 public class RegisterSetLatticeElement implements ILatticeElement<RegisterSetLatticeElement> {
+  private static final long[] EMPTY = new long[0];
+
+  /**
+   * Interned names of the registers in the bit vectors.
+   */
+  private RegisterIndex m_registers;
+
   /**
    * The registers which have been newly tainted throughout a complete native instruction. Set on
    * native instruction exit edge only.
    */
-  private ImmutableSet<String> m_nativeNewlyTaintedRegs = ImmutableSet.<String>builder().build();
+  private long[] m_nativeNewlyTaintedRegs = EMPTY;
 
   /**
    * The registers which have been untainted throughout a complete native instruction. Set on native
    * instruction exit edge only.
    */
-  private ImmutableSet<String> m_nativeUntaintedRegs = ImmutableSet.<String>builder().build();
+  private long[] m_nativeUntaintedRegs = EMPTY;
 
   /**
    * The registers which have been read throughout a complete native instruction. Set on native
    * instruction exit edge only.
    */
-  private ImmutableSet<String> m_nativeReadRegs = ImmutableSet.<String>builder().build();
+  private long[] m_nativeReadRegs = EMPTY;
 
   /**
    * The registers which have been updated throughout a complete native instruction. Set on native
    * instruction exit edge only.
    */
-  private ImmutableSet<String> m_nativeUpdatedRegs = ImmutableSet.<String>builder().build();
+  private long[] m_nativeUpdatedRegs = EMPTY;
 
   /**
    * The currently tainted registers.
    */
-  private final Set<String> m_taintedRegs;
+  private long[] m_taintedRegs = EMPTY;
 
   /**
    * The registers that have been added to the "tainted" set within this (native, not REIL)
    * instruction
    */
-  private final Set<String> m_newlyTaintedRegs;
+  private long[] m_newlyTaintedRegs = EMPTY;
 
   /**
    * The registers that have been removed from the "tainted" set within this (native, not REIL)
    * instruction.
    */
-  private final Set<String> m_untaintedRegs;
+  private long[] m_untaintedRegs = EMPTY;
 
   /**
    * The (tainted) registers which are read in any way or form from this (native, not REIL)
    * instruction.
    */
-  private final Set<String> m_readRegs;
+  private long[] m_readRegs = EMPTY;
 
   /**
    * The (tainted) registers which are written from itself or another already tainted register.
    */
-  private final Set<String> m_updatedRegs;
+  private long[] m_updatedRegs = EMPTY;
 
   public RegisterSetLatticeElement() {
-    m_taintedRegs = new TreeSet<String>();
-    m_newlyTaintedRegs = new TreeSet<String>();
-    m_untaintedRegs = new TreeSet<String>();
-    m_readRegs = new TreeSet<String>();
-    m_updatedRegs = new TreeSet<String>();
+    m_registers = new RegisterIndex();
   }
 
   public RegisterSetLatticeElement(final Set<String> taintedRegs,
@@ -102,138 +106,301 @@ public class RegisterSetLatticeElement implements ILatticeElement<RegisterSetLat
     Preconditions.checkNotNull(readRegs, "Error: Read registers argument can not be null");
     Preconditions.checkNotNull(updatedRegs, "Error: Updated registers argument can not be null");
 
-    m_taintedRegs = new TreeSet<String>(taintedRegs);
-    m_newlyTaintedRegs = new TreeSet<String>(newlyTaintedRegs);
-    m_untaintedRegs = new TreeSet<String>(untaintedRegs);
-    m_readRegs = new TreeSet<String>(readRegs);
-    m_updatedRegs = new TreeSet<String>(updatedRegs);
+    m_registers = new RegisterIndex();
+    m_taintedRegs = toBits(taintedRegs);
+    m_newlyTaintedRegs = toBits(newlyTaintedRegs);
+    m_untaintedRegs = toBits(untaintedRegs);
+    m_readRegs = toBits(readRegs);
+    m_updatedRegs = toBits(updatedRegs);
   }
 
   /**
    * Initializing constructor to be used for generating the initial
-   * {@link RegisterSetLatticeElement}
-   * 
+   * {@link RegisterSetLatticeElement}. Every initial element starts a new register index which is
+   * shared by all elements derived from it.
+   *
    * @param register The register which is initially tainted.
    */
   public RegisterSetLatticeElement(final String register) {
     Preconditions.checkNotNull(register, "Error: Register argument can not be null");
 
-    (m_taintedRegs = new TreeSet<String>()).add(register);
-    (m_newlyTaintedRegs = new TreeSet<String>()).add(register);
-    m_untaintedRegs = new TreeSet<String>();
-    m_readRegs = new TreeSet<String>();
-    m_updatedRegs = new TreeSet<String>();
+    m_registers = new RegisterIndex();
+
+    final int index = m_registers.intern(register);
+
+    m_taintedRegs = set(EMPTY, index);
+    m_newlyTaintedRegs = set(EMPTY, index);
+  }
+
+  private RegisterSetLatticeElement(final RegisterSetLatticeElement element) {
+    m_registers = element.m_registers;
+    m_taintedRegs = element.m_taintedRegs.clone();
+    m_newlyTaintedRegs = element.m_newlyTaintedRegs.clone();
+    m_untaintedRegs = element.m_untaintedRegs.clone();
+    m_readRegs = element.m_readRegs.clone();
+    m_updatedRegs = element.m_updatedRegs.clone();
+  }
+
+  /**
+   * Removes all registers of a mask from a bit vector.
+   */
+  private static void clear(final long[] bits, final long[] mask) {
+    final int length = Math.min(bits.length, mask.length);
+
+    for (int i = 0; i < length; i++) {
+      bits[i] &= ~mask[i];
+    }
+  }
 
+  private static boolean contains(final long[] bits, final int index) {
+    return (index >= 0) && ((index >>> 6) < bits.length)
+        && ((bits[index >>> 6] & (1L << index)) != 0);
   }
 
   /**
-   * This function clears all REIL temporary registers from a Set of registers.
-   * 
-   * @param registerSet The Set of registers where the REIL temporary registers are cleared from.
+   * Determines whether the first bit vector contains all registers of the second bit vector.
    */
-  private static void clearTemporaryRegisters(final Set<String> registerSet) {
-    Sets.filter(registerSet, new Predicate<String>() {
-      @Override
-      public boolean apply(final String register) {
-        return ReilHelpers.isTemporaryRegister(register);
+  private static boolean containsAll(final long[] bits, final long[] subset) {
+    for (int i = 0; i < subset.length; i++) {
+      final long word = i < bits.length ? bits[i] : 0;
+
+      if ((subset[i] & ~word) != 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Adds all registers of the second bit vector to the first bit vector.
+   *
+   * @return The first bit vector or a larger copy of it.
+   */
+  private static long[] or(final long[] bits, final long[] other) {
+    final long[] result = other.length > bits.length ? Arrays.copyOf(bits, other.length) : bits;
+
+    for (int i = 0; i < other.length; i++) {
+      result[i] |= other[i];
+    }
+
+    return result;
+  }
+
+  private static void remove(final long[] bits, final int index) {
+    if ((index >= 0) && ((index >>> 6) < bits.length)) {
+      bits[index >>> 6] &= ~(1L << index);
+    }
+  }
+
+  /**
+   * Adds a register to a bit vector.
+   *
+   * @return The bit vector or a larger copy of it.
+   */
+  static long[] set(final long[] bits, final int index) {
+    final long[] result =
+        (index >>> 6) < bits.length ? bits : Arrays.copyOf(bits, (index >>> 6) + 1);
+
+    result[index >>> 6] |= 1L << index;
+
+    return result;
+  }
+
+  /**
+   * Determines whether all registers of a bit vector that belongs to another register index are
+   * contained in a bit vector of this element.
+   */
+  private boolean containsAll(final long[] bits, final long[] subset,
+      final RegisterIndex subsetRegisters) {
+    if (subsetRegisters == m_registers) {
+      return containsAll(bits, subset);
+    }
+
+    for (int i = nextSetBit(subset, 0); i != -1; i = nextSetBit(subset, i + 1)) {
+      if (!contains(bits, m_registers.getIndex(subsetRegisters.getName(i)))) {
+        return false;
       }
-    }).clear();
+    }
+
+    return true;
+  }
+
+  private static int nextSetBit(final long[] bits, final int fromIndex) {
+    int wordIndex = fromIndex >>> 6;
+
+    if (wordIndex >= bits.length) {
+      return -1;
+    }
+
+    long word = bits[wordIndex] & (-1L << fromIndex);
+
+    while (true) {
+      if (word != 0) {
+        return (wordIndex * 64) + Long.numberOfTrailingZeros(word);
+      }
+
+      if (++wordIndex == bits.length) {
+        return -1;
+      }
+
+      word = bits[wordIndex];
+    }
+  }
+
+  private boolean contains(final long[] bits, final String register) {
+    return contains(bits, m_registers.getIndex(register));
+  }
+
+  /**
+   * Converts a bit vector of another element to a bit vector over the register index of this
+   * element.
+   */
+  private long[] importBits(final long[] bits, final RegisterIndex registers) {
+    if (registers == m_registers) {
+      return bits;
+    }
+
+    long[] result = EMPTY;
+
+    for (int i = nextSetBit(bits, 0); i != -1; i = nextSetBit(bits, i + 1)) {
+      result = set(result, m_registers.intern(registers.getName(i)));
+    }
+
+    return result;
+  }
+
+  private long[] toBits(final Collection<String> registers) {
+    long[] result = EMPTY;
+
+    for (final String register : registers) {
+      result = set(result, m_registers.intern(register));
+    }
+
+    return result;
+  }
+
+  private Collection<String> toNames(final long[] bits) {
+    final Set<String> names = new TreeSet<String>();
+
+    for (int i = nextSetBit(bits, 0); i != -1; i = nextSetBit(bits, i + 1)) {
+      names.add(m_registers.getName(i));
+    }
+
+    return Collections.unmodifiableCollection(names);
   }
 
   /**
    * This function copies the state from the input states into the current lattice element.
-   * 
+   *
    * @param inputState The Collection of input state to copy the information from.
    */
   public void addAll(final Collection<RegisterSetLatticeElement> inputState) {
     Preconditions.checkNotNull(inputState, "Error: Input state argument can not be null");
 
-    final Set<String> tempNativeNewlyTaintedRegisters = Sets.newHashSet();
-    final Set<String> tempNativeUntaintedRegisters = Sets.newHashSet();
-    final Set<String> tempNativeReadRegisters = Sets.newHashSet();
-    final Set<String> tempNativeUpdatedRegisters = Sets.newHashSet();
+    long[] tempNativeNewlyTaintedRegisters = EMPTY;
+    long[] tempNativeUntaintedRegisters = EMPTY;
+    long[] tempNativeReadRegisters = EMPTY;
+    long[] tempNativeUpdatedRegisters = EMPTY;
 
     for (final RegisterSetLatticeElement element : inputState) {
-      tempNativeNewlyTaintedRegisters.addAll(element.m_nativeNewlyTaintedRegs);
-      tempNativeUntaintedRegisters.addAll(element.m_nativeUntaintedRegs);
-      tempNativeReadRegisters.addAll(element.m_nativeReadRegs);
-      tempNativeUpdatedRegisters.addAll(element.m_nativeUpdatedRegs);
-      m_taintedRegs.addAll(element.m_taintedRegs);
-      m_newlyTaintedRegs.addAll(element.m_newlyTaintedRegs);
-      m_untaintedRegs.addAll(element.m_untaintedRegs);
-      m_readRegs.addAll(element.m_readRegs);
-      m_updatedRegs.addAll(element.m_updatedRegs);
+      // Elements without registers adopt the register index of the first input, which makes all
+      // following operations on elements of the same analysis plain word operations.
+      if (m_registers.size() == 0) {
+        m_registers = element.m_registers;
+      }
+
+      final RegisterIndex registers = element.m_registers;
+
+      tempNativeNewlyTaintedRegisters = or(tempNativeNewlyTaintedRegisters,
+          importBits(element.m_nativeNewlyTaintedRegs, registers));
+      tempNativeUntaintedRegisters = or(tempNativeUntaintedRegisters,
+          importBits(element.m_nativeUntaintedRegs, registers));
+      tempNativeReadRegisters =
+          or(tempNativeReadRegisters, importBits(element.m_nativeReadRegs, registers));
+      tempNativeUpdatedRegisters =
+          or(tempNativeUpdatedRegisters, importBits(element.m_nativeUpdatedRegs, registers));
+      m_taintedRegs = or(m_taintedRegs, importBits(element.m_taintedRegs, registers));
+      m_newlyTaintedRegs =
+          or(m_newlyTaintedRegs, importBits(element.m_newlyTaintedRegs, registers));
+      m_untaintedRegs = or(m_untaintedRegs, importBits(element.m_untaintedRegs, registers));
+      m_readRegs = or(m_readRegs, importBits(element.m_readRegs, registers));
+      m_updatedRegs = or(m_updatedRegs, importBits(element.m_updatedRegs, registers));
     }
 
-    m_nativeNewlyTaintedRegs = ImmutableSet.copyOf(tempNativeNewlyTaintedRegisters);
-    m_nativeUntaintedRegs = ImmutableSet.copyOf(tempNativeUntaintedRegisters);
-    m_nativeReadRegs = ImmutableSet.copyOf(tempNativeReadRegisters);
-    m_nativeUpdatedRegs = ImmutableSet.copyOf(tempNativeUpdatedRegisters);
+    m_nativeNewlyTaintedRegs = tempNativeNewlyTaintedRegisters;
+    m_nativeUntaintedRegs = tempNativeUntaintedRegisters;
+    m_nativeReadRegs = tempNativeReadRegisters;
+    m_nativeUpdatedRegs = tempNativeUpdatedRegisters;
   }
 
   /**
    * This function adds a register to the set of read registers.
-   * 
+   *
    * @param reg The register to be added to the read register set.
    */
   public void addReadReg(final String reg) {
-    m_readRegs.add(Preconditions.checkNotNull(reg, "Error: Register argument can not be null"));
+    Preconditions.checkNotNull(reg, "Error: Register argument can not be null");
+
+    m_readRegs = set(m_readRegs, m_registers.intern(reg));
   }
 
   @Override
   public RegisterSetLatticeElement copy() {
-    return new RegisterSetLatticeElement(m_taintedRegs, m_newlyTaintedRegs, m_untaintedRegs,
-        m_readRegs, m_updatedRegs);
+    return new RegisterSetLatticeElement(this);
   }
 
   public Collection<String> getNewlyTaintedRegisters() {
-    return Collections.unmodifiableCollection(m_nativeNewlyTaintedRegs);
+    return toNames(m_nativeNewlyTaintedRegs);
   }
 
   public Collection<String> getReadRegisters() {
-    return Collections.unmodifiableCollection(m_nativeReadRegs);
+    return toNames(m_nativeReadRegs);
   }
 
   public Collection<String> getTaintedRegisters() {
-    return Collections.unmodifiableCollection(m_taintedRegs);
+    return toNames(m_taintedRegs);
   }
 
   public Collection<String> getUntaintedRegisters() {
-    return Collections.unmodifiableCollection(m_nativeUntaintedRegs);
+    return toNames(m_nativeUntaintedRegs);
   }
 
   public Collection<String> getUpdatedRegisters() {
-    return Collections.unmodifiableCollection(m_nativeUpdatedRegs);
+    return toNames(m_nativeUpdatedRegs);
   }
 
   public boolean isSmallerEqual(final RegisterSetLatticeElement other) {
     Preconditions.checkNotNull(other, "Error: Other argument can not be null");
 
+    final RegisterIndex registers = m_registers;
+
     final boolean result =
-        other.m_taintedRegs.containsAll(m_taintedRegs)
-            && other.m_newlyTaintedRegs.containsAll(m_newlyTaintedRegs)
-            && other.m_untaintedRegs.containsAll(m_untaintedRegs)
-            && other.m_readRegs.containsAll(m_readRegs)
-            && other.m_updatedRegs.containsAll(m_updatedRegs)
-            && other.m_nativeNewlyTaintedRegs.containsAll(m_nativeNewlyTaintedRegs)
-            && other.m_nativeReadRegs.containsAll(m_nativeReadRegs)
-            && other.m_nativeUntaintedRegs.containsAll(m_nativeUntaintedRegs)
-            && other.m_nativeUpdatedRegs.containsAll(m_nativeUpdatedRegs);
+        other.containsAll(other.m_taintedRegs, m_taintedRegs, registers)
+            && other.containsAll(other.m_newlyTaintedRegs, m_newlyTaintedRegs, registers)
+            && other.containsAll(other.m_untaintedRegs, m_untaintedRegs, registers)
+            && other.containsAll(other.m_readRegs, m_readRegs, registers)
+            && other.containsAll(other.m_updatedRegs, m_updatedRegs, registers)
+            && other.containsAll(other.m_nativeNewlyTaintedRegs, m_nativeNewlyTaintedRegs,
+                registers)
+            && other.containsAll(other.m_nativeReadRegs, m_nativeReadRegs, registers)
+            && other.containsAll(other.m_nativeUntaintedRegs, m_nativeUntaintedRegs, registers)
+            && other.containsAll(other.m_nativeUpdatedRegs, m_nativeUpdatedRegs, registers);
     return result;
   }
 
   /**
    * Function to check if any of the registers in a collection is in the current taint set.
-   * 
+   *
    * @param registers {@link Collection} of register strings to be checked.
-   * 
+   *
    * @return True if any of the registers in the parameter is currently tainted.
    */
   public boolean isTainted(final Collection<String> registers) {
     Preconditions.checkNotNull(registers, "Error: Registers argument can not be null");
 
     for (final String register : registers) {
-      if (m_taintedRegs.contains(register)) {
+      if (contains(m_taintedRegs, register)) {
         return true;
       }
     }
@@ -242,14 +409,14 @@ public class RegisterSetLatticeElement implements ILatticeElement<RegisterSetLat
 
   /**
    * Function to check if a register is in the current taint set.
-   * 
+   *
    * @param register The register to be checked.
-   * 
+   *
    * @return True if the register is in the current taint set.
    */
   public boolean isTainted(final String register) {
-    return m_taintedRegs.contains(Preconditions.checkNotNull(register,
-        "Error: Register argument can not be null"));
+    return contains(m_taintedRegs,
+        Preconditions.checkNotNull(register, "Error: Register argument can not be null"));
   }
 
   /**
@@ -259,20 +426,22 @@ public class RegisterSetLatticeElement implements ILatticeElement<RegisterSetLat
    */
   @Override
   public void onInstructionExit() {
-    clearTemporaryRegisters(m_taintedRegs);
-    clearTemporaryRegisters(m_newlyTaintedRegs);
-    clearTemporaryRegisters(m_untaintedRegs);
-    clearTemporaryRegisters(m_readRegs);
-    clearTemporaryRegisters(m_updatedRegs);
-
-    m_nativeNewlyTaintedRegs = ImmutableSet.copyOf(m_newlyTaintedRegs);
-    m_nativeUntaintedRegs = ImmutableSet.copyOf(m_untaintedRegs);
-    m_nativeReadRegs = ImmutableSet.copyOf(m_readRegs);
-    m_nativeUpdatedRegs = ImmutableSet.copyOf(m_updatedRegs);
-    m_newlyTaintedRegs.clear();
-    m_untaintedRegs.clear();
-    m_readRegs.clear();
-    m_updatedRegs.clear();
+    final long[] temporaryRegisters = m_registers.getTemporaryRegisters();
+
+    clear(m_taintedRegs, temporaryRegisters);
+    clear(m_newlyTaintedRegs, temporaryRegisters);
+    clear(m_untaintedRegs, temporaryRegisters);
+    clear(m_readRegs, temporaryRegisters);
+    clear(m_updatedRegs, temporaryRegisters);
+
+    m_nativeNewlyTaintedRegs = m_newlyTaintedRegs;
+    m_nativeUntaintedRegs = m_untaintedRegs;
+    m_nativeReadRegs = m_readRegs;
+    m_nativeUpdatedRegs = m_updatedRegs;
+    m_newlyTaintedRegs = EMPTY;
+    m_untaintedRegs = EMPTY;
+    m_readRegs = EMPTY;
+    m_updatedRegs = EMPTY;
   }
 
   /**
@@ -281,18 +450,20 @@ public class RegisterSetLatticeElement implements ILatticeElement<RegisterSetLat
   public void taint(final String register) {
     Preconditions.checkNotNull(register, "Error: Register argument can not be null");
 
-    if (isTainted(register) || m_untaintedRegs.contains(register)) {
-      m_updatedRegs.add(register);
+    final int index = m_registers.intern(register);
+
+    if (contains(m_taintedRegs, index) || contains(m_untaintedRegs, index)) {
+      m_updatedRegs = set(m_updatedRegs, index);
     } else {
-      m_newlyTaintedRegs.add(register);
+      m_newlyTaintedRegs = set(m_newlyTaintedRegs, index);
     }
-    m_taintedRegs.add(register);
-    m_untaintedRegs.remove(register);
+    m_taintedRegs = set(m_taintedRegs, index);
+    remove(m_untaintedRegs, index);
   }
 
   /**
    * Function that taints all the registers in the given state.
-   * 
+   *
    * @param registers The {@link RegisterSetLatticeElement} which contains the registers to be
    *        tainted in its own m_taintedRegs Set.
    */
@@ -307,36 +478,38 @@ public class RegisterSetLatticeElement implements ILatticeElement<RegisterSetLat
   @Override
   public String toString() {
     final StringBuilder builder = new StringBuilder();
-    builder.append("Preserved added registers: " + m_nativeNewlyTaintedRegs + "\n");
-    builder.append("Preserved untainted registers: " + m_nativeUntaintedRegs + "\n");
-    builder.append("Preserved read registers: " + m_nativeReadRegs + "\n");
-    builder.append("Preserved updated registers: " + m_nativeUpdatedRegs + "\n");
-    builder.append("Tainted registers: " + m_taintedRegs + "\n");
-    builder.append("Added registers: " + m_newlyTaintedRegs + "\n");
-    builder.append("Untainted registers: " + m_untaintedRegs + "\n");
-    builder.append("Read registers: " + m_readRegs + "\n");
-    builder.append("Updated registers: " + m_updatedRegs + "\n");
+    builder.append("Preserved added registers: " + toNames(m_nativeNewlyTaintedRegs) + "\n");
+    builder.append("Preserved untainted registers: " + toNames(m_nativeUntaintedRegs) + "\n");
+    builder.append("Preserved read registers: " + toNames(m_nativeReadRegs) + "\n");
+    builder.append("Preserved updated registers: " + toNames(m_nativeUpdatedRegs) + "\n");
+    builder.append("Tainted registers: " + toNames(m_taintedRegs) + "\n");
+    builder.append("Added registers: " + toNames(m_newlyTaintedRegs) + "\n");
+    builder.append("Untainted registers: " + toNames(m_untaintedRegs) + "\n");
+    builder.append("Read registers: " + toNames(m_readRegs) + "\n");
+    builder.append("Updated registers: " + toNames(m_updatedRegs) + "\n");
 
     return builder.toString();
   }
 
   /**
    * Function that untaints a register.
-   * 
+   *
    * @param register The register to be removed from the taint set and added to the untainted set.
    */
   public void untaint(final String register) {
     Preconditions.checkNotNull(register, "Error: Register argument can not be null");
 
-    if (isTainted(register)) {
-      m_untaintedRegs.add(register);
-      m_taintedRegs.remove(register);
+    final int index = m_registers.getIndex(register);
+
+    if (contains(m_taintedRegs, index)) {
+      m_untaintedRegs = set(m_untaintedRegs, index);
+      remove(m_taintedRegs, index);
     }
   }
 
   /**
    * Function that untaints all registers in the {@link Collection} of registers.
-   * 
+   *
    * @param registers The {@link Collection} of registers to be untainted.
    */
   public void untaintAll(final Collection<String> registers) {
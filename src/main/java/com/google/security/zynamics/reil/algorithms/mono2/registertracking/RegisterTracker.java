@@ -59,7 +59,8 @@ public final class RegisterTracker {
 
     final MonoReilSolver<RegisterSetLatticeElement> monoReilSolver =
         new MonoReilSolver<RegisterSetLatticeElement>(instructionGraph,
-            options.getAnalysisDirection(), new RegisterSetLattice());
+            options.getAnalysisDirection(), new RegisterSetLattice(),
+            options.getWorklistStrategy());
 
     final Iterable<IInstructionGraphEdge> relevantEdges =
         options.trackIncoming() ? instructionGraph.getIncomingEdgesForAddress(startInstruction
@@ -17,6 +17,7 @@ package com.google.security.zynamics.reil.algorithms.mono2.registertracking;
 
 import com.google.common.base.Preconditions;
 import com.google.security.zynamics.reil.algorithms.mono2.common.enums.AnalysisDirection;
+import com.google.security.zynamics.reil.algorithms.mono2.common.enums.WorklistStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -26,9 +27,16 @@ public class RegisterTrackingOptions {
   private final Set<String> m_clearedRegisters;
   private final boolean m_trackIncoming;
   private final AnalysisDirection m_analysisDirection;
+  private final WorklistStrategy m_worklistStrategy;
 
   public RegisterTrackingOptions(final boolean clearAll, final Set<String> clearedRegisters,
       final boolean trackIncoming, final AnalysisDirection analysisDirection) {
+    this(clearAll, clearedRegisters, trackIncoming, analysisDirection, WorklistStrategy.UNORDERED);
+  }
+
+  public RegisterTrackingOptions(final boolean clearAll, final Set<String> clearedRegisters,
+      final boolean trackIncoming, final AnalysisDirection analysisDirection,
+      final WorklistStrategy worklistStrategy) {
     m_clearAll = clearAll;
     m_clearedRegisters =
         new HashSet<String>(Preconditions.checkNotNull(clearedRegisters,
@@ -37,6 +45,9 @@ public class RegisterTrackingOptions {
     m_analysisDirection =
         Preconditions.checkNotNull(analysisDirection,
             "Error: Analysis direction argument can not be null");
+    m_worklistStrategy =
+        Preconditions.checkNotNull(worklistStrategy,
+            "Error: Worklist strategy argument can not be null");
   }
 
   public boolean clearsAllRegisters() {
@@ -51,6 +62,10 @@ public class RegisterTrackingOptions {
     return new HashSet<String>(m_clearedRegisters);
   }
 
+  public WorklistStrategy getWorklistStrategy() {
+    return m_worklistStrategy;
+  }
+
   public boolean trackIncoming() {
     return m_trackIncoming;
   }
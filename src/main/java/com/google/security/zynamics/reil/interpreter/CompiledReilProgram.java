@@ -0,0 +1,207 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.interpreter;
+
+import com.google.security.zynamics.reil.OperandSize;
+import com.google.security.zynamics.reil.ReilInstruction;
+
+import java.util.Arrays;
+
+/**
+ * REIL code in a pre-decoded form that can be interpreted repeatedly without parsing operand
+ * strings. Programs are created by {@link ReilProgramCompiler} and are immutable.
+ *
+ * All REIL instructions are stored in flat arrays, grouped by the native instruction they belong
+ * to. Native instructions are sorted by address. Operands are stored as a kind, a size and a value
+ * which is either the parsed literal, the index of an interned register name or the native part of
+ * a sub-address.
+ */
+public final class CompiledReilProgram {
+  static final byte OPERAND_EMPTY = 0;
+
+  static final byte OPERAND_LITERAL = 1;
+
+  static final byte OPERAND_REGISTER = 2;
+
+  static final byte OPERAND_SUB_ADDRESS = 3;
+
+  /**
+   * Operands that can only be handled by interpreting the original instruction.
+   */
+  static final byte OPERAND_UNSUPPORTED = 4;
+
+  /**
+   * Native addresses of the native instructions, sorted in ascending order.
+   */
+  private final long[] nativeAddresses;
+
+  /**
+   * Index of the first REIL instruction of each native instruction. Has one extra element that
+   * marks the end of the last native instruction.
+   */
+  private final int[] nativeStarts;
+
+  /**
+   * Index of the native instruction that follows each native instruction if it does not jump, or
+   * -1 if there is no such instruction.
+   */
+  private final int[] fallThroughIndices;
+
+  /**
+   * The original REIL instructions.
+   */
+  private final ReilInstruction[] instructions;
+
+  /**
+   * Mnemonic codes of the REIL instructions.
+   */
+  private final int[] opcodes;
+
+  /**
+   * Operand kinds, three per instruction.
+   */
+  private final byte[] operandKinds;
+
+  /**
+   * Operand sizes, three per instruction.
+   */
+  private final OperandSize[] operandSizes;
+
+  /**
+   * Operand values, three per instruction.
+   */
+  private final long[] operandValues;
+
+  /**
+   * Sub-instruction index of sub-address jump targets, one per instruction.
+   */
+  private final int[] subAddressIndices;
+
+  /**
+   * Index of the native instruction a JCC instruction jumps to, or -1 if the jump target is not
+   * known in advance.
+   */
+  private final int[] jumpTargets;
+
+  /**
+   * Names of the interned registers.
+   */
+  private final String[] registerNames;
+
+  CompiledReilProgram(final long[] nativeAddresses, final int[] nativeStarts,
+      final int[] fallThroughIndices, final ReilInstruction[] instructions, final int[] opcodes,
+      final byte[] operandKinds, final OperandSize[] operandSizes, final long[] operandValues,
+      final int[] subAddressIndices, final int[] jumpTargets, final String[] registerNames) {
+    this.nativeAddresses = nativeAddresses;
+    this.nativeStarts = nativeStarts;
+    this.fallThroughIndices = fallThroughIndices;
+    this.instructions = instructions;
+    this.opcodes = opcodes;
+    this.operandKinds = operandKinds;
+    this.operandSizes = operandSizes;
+    this.operandValues = operandValues;
+    this.subAddressIndices = subAddressIndices;
+    this.jumpTargets = jumpTargets;
+    this.registerNames = registerNames;
+  }
+
+  /**
+   * Searches for the native instruction at the given address.
+   *
+   * @param address The native address of the instruction.
+   *
+   * @return The index of the native instruction or -1 if there is no instruction at the address.
+   */
+  int findNativeInstruction(final long address) {
+    final int index = Arrays.binarySearch(nativeAddresses, address);
+    return index < 0 ? -1 : index;
+  }
+
+  int getFallThroughIndex(final int nativeIndex) {
+    return fallThroughIndices[nativeIndex];
+  }
+
+  ReilInstruction getInstruction(final int index) {
+    return instructions[index];
+  }
+
+  /**
+   * Returns the number of REIL instructions in the program.
+   *
+   * @return The number of REIL instructions.
+   */
+  public int getInstructionCount() {
+    return instructions.length;
+  }
+
+  int getJumpTarget(final int index) {
+    return jumpTargets[index];
+  }
+
+  long getNativeAddress(final int nativeIndex) {
+    return nativeAddresses[nativeIndex];
+  }
+
+  int getNativeEnd(final int nativeIndex) {
+    return nativeStarts[nativeIndex + 1];
+  }
+
+  /**
+   * Returns the number of native instructions in the program.
+   *
+   * @return The number of native instructions.
+   */
+  public int getNativeInstructionCount() {
+    return nativeAddresses.length;
+  }
+
+  int getNativeStart(final int nativeIndex) {
+    return nativeStarts[nativeIndex];
+  }
+
+  int getOpcode(final int index) {
+    return opcodes[index];
+  }
+
+  byte getOperandKind(final int index, final int operand) {
+    return operandKinds[(index * 3) + operand];
+  }
+
+  OperandSize getOperandSize(final int index, final int operand) {
+    return operandSizes[(index * 3) + operand];
+  }
+
+  long getOperandValue(final int index, final int operand) {
+    return operandValues[(index * 3) + operand];
+  }
+
+  /**
+   * Returns the number of distinct registers used by the program.
+   *
+   * @return The number of distinct registers.
+   */
+  public int getRegisterCount() {
+    return registerNames.length;
+  }
+
+  String getRegisterName(final int register) {
+    return registerNames[register];
+  }
+
+  int getSubAddressIndex(final int index) {
+    return subAddressIndices[index];
+  }
+}
@@ -0,0 +1,32 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.interpreter;
+
+/**
+ * Collection of execution modes supported by the REIL interpreter.
+ */
+public enum InterpreterMode {
+  /**
+   * All instructions are evaluated using BigInteger arithmetic.
+   */
+  BIG_INTEGER,
+
+  /**
+   * Instructions with operands of up to QWORD size are evaluated on primitive long values without
+   * allocating objects. Everything else falls back to BigInteger arithmetic.
+   */
+  PRIMITIVE
+}
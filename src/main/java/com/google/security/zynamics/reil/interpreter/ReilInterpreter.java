@@ -24,7 +24,6 @@ import com.google.security.zynamics.reil.ReilOperand;
 import com.google.security.zynamics.zylib.general.Pair;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -34,6 +33,11 @@ import java.util.List;
 public class ReilInterpreter {
   private static final String SUB_PC = "sub_PC";
 
+  /**
+   * Largest unsigned long value that can be multiplied by ten without overflow.
+   */
+  private static final long UNSIGNED_LIMIT_DIV_10 = Long.divideUnsigned(-1L, 10);
+
   /**
    * CPU policy used by the interpreter
    */
@@ -44,10 +48,30 @@ public class ReilInterpreter {
    */
   private final IInterpreterPolicy interpreterPolicy;
 
+  /**
+   * Execution mode of the interpreter
+   */
+  private final InterpreterMode mode;
+
   /**
    * Registers currently in use by the interpreter
    */
-  private final HashMap<String, ReilRegister> registers = new HashMap<String, ReilRegister>();
+  private final ReilRegisterFile registers = new ReilRegisterFile();
+
+  /**
+   * Operand values loaded by the primitive execution mode
+   */
+  private final long[] primitiveOperands = new long[3];
+
+  /**
+   * Result of the last instruction evaluated by the primitive execution mode
+   */
+  private long primitiveResult;
+
+  /**
+   * Index of the native instruction targeted by the last jump taken in a compiled program, or -1
+   */
+  private int compiledJumpTarget;
 
   /**
    * Memory currently in use by the interpreter
@@ -63,16 +87,45 @@ public class ReilInterpreter {
    */
   public ReilInterpreter(final Endianness endianness, final ICpuPolicy cpuPolicy,
       final IInterpreterPolicy interpreterPolicy) {
+    this(endianness, cpuPolicy, interpreterPolicy, InterpreterMode.BIG_INTEGER);
+  }
+
+  /**
+   * Creates a new REIL interpreter with the given options.
+   *
+   * @param endianness Endianness of the memory layout of the interpreter
+   * @param cpuPolicy CPU policy used by the interpreter
+   * @param interpreterPolicy Interpreter policy used by the interpreter
+   * @param mode Execution mode of the interpreter
+   */
+  public ReilInterpreter(final Endianness endianness, final ICpuPolicy cpuPolicy,
+      final IInterpreterPolicy interpreterPolicy, final InterpreterMode mode) {
     Preconditions.checkNotNull(endianness, "Error: Argument endianness can't be null");
     this.cpuPolicy =
         Preconditions.checkNotNull(cpuPolicy, "Error: Argument cpuPolicy can't be null");
     this.interpreterPolicy =
         Preconditions.checkNotNull(interpreterPolicy,
             "Error: Argument interpreterPolicy can't be null");
+    this.mode = Preconditions.checkNotNull(mode, "Error: Argument mode can't be null");
 
     this.memory = new ReilMemory(endianness);
   }
 
+  private static long getPrimitiveTruncateMask(final OperandSize targetSize) {
+    switch (targetSize) {
+      case BYTE:
+        return 0xFFL;
+      case WORD:
+        return 0xFFFFL;
+      case DWORD:
+        return 0xFFFFFFFFL;
+      case QWORD:
+        return 0xFFFFFFFFFFFFFFFFL;
+      default:
+        throw new IllegalStateException("Error: Unknown target size for truncate mask");
+    }
+  }
+
   private static BigInteger getTruncateMask(final OperandSize targetSize) {
     switch (targetSize) {
       case BYTE:
@@ -92,6 +145,29 @@ public class ReilInterpreter {
     }
   }
 
+  /**
+   * Determines whether values of the given size can be handled by the primitive execution mode.
+   *
+   * @param size The size in question
+   *
+   * @return True, if the size is between BYTE and QWORD. False, otherwise.
+   */
+  private static boolean isPrimitiveSize(final OperandSize size) {
+    return (size == OperandSize.BYTE) || (size == OperandSize.WORD)
+        || (size == OperandSize.DWORD) || (size == OperandSize.QWORD);
+  }
+
+  /**
+   * Determines whether an instruction only reads its first operand.
+   *
+   * @param mnemonic The mnemonic code of the instruction
+   *
+   * @return True, if the instruction is a BISZ or STR instruction. False, otherwise.
+   */
+  private static boolean isUnaryPrimitive(final int mnemonic) {
+    return (mnemonic == ReilHelpers._OPCODE_BISZ) || (mnemonic == ReilHelpers._OPCODE_STR);
+  }
+
   private static void log(final String msg, final Object... args) {
     System.out.printf(msg, args);
   }
@@ -453,7 +529,11 @@ public class ReilInterpreter {
    * @param instruction The UNDEF instruction to interpret
    */
   private void interpretUndef(final ReilInstruction instruction) {
-    registers.remove(instruction.getThirdOperand().getValue());
+    final int slot = registers.findSlot(instruction.getThirdOperand().getValue());
+
+    if (slot != -1) {
+      registers.undefine(slot);
+    }
   }
 
   /**
@@ -509,6 +589,508 @@ public class ReilInterpreter {
     }
   }
 
+  /**
+   * Loads the value of an operand into a primitive long value. Literals that do not fit into an
+   * unsigned long, negated registers, sub-addresses and registers whose values do not fit into an
+   * unsigned long can not be loaded.
+   *
+   * @param operand The operand to load
+   * @param index Index of the slot in the primitive operand array where the value is stored
+   *
+   * @return True, if the value was loaded. False, otherwise.
+   */
+  private boolean loadPrimitiveValue(final ReilOperand operand, final int index) {
+    final String value = operand.getValue();
+
+    if (value.isEmpty()) {
+      return false;
+    }
+
+    boolean isLiteral = true;
+
+    for (int i = 0; i < value.length(); i++) {
+      final char character = value.charAt(i);
+
+      if ((character == '.') || (character == '-')) {
+        return false;
+      } else if ((character < '0') || (character > '9')) {
+        isLiteral = false;
+      }
+    }
+
+    if (isLiteral) {
+      long result = 0;
+
+      for (int i = 0; i < value.length(); i++) {
+        if (Long.compareUnsigned(result, UNSIGNED_LIMIT_DIV_10) > 0) {
+          return false;
+        }
+
+        final long next = (result * 10) + (value.charAt(i) - '0');
+
+        if (Long.compareUnsigned(next, result * 10) < 0) {
+          return false;
+        }
+
+        result = next;
+      }
+
+      primitiveOperands[index] = result;
+      return true;
+    }
+
+    final int slot = registers.findSlot(value);
+
+    if ((slot == -1) || !registers.isDefined(slot) || registers.isWide(slot)) {
+      return false;
+    }
+
+    primitiveOperands[index] = registers.getLong(slot);
+    return true;
+  }
+
+  /**
+   * Evaluates an arithmetic or logical instruction on primitive long values. The truncated result
+   * is stored in the primitive result field.
+   *
+   * @param mnemonic The mnemonic code of the instruction
+   * @param first The value of the first operand
+   * @param second The value of the second operand. Ignored for BISZ and STR.
+   * @param secondSize The size of the second operand
+   * @param targetSize The size of the third operand
+   *
+   * @return True, if the instruction was evaluated. False, if it must be interpreted using
+   *         BigInteger arithmetic.
+   */
+  private boolean evaluatePrimitive(final int mnemonic, final long first, final long second,
+      final OperandSize secondSize, final OperandSize targetSize) {
+    // QWORD values are not truncated by the BigInteger path, so results that do not fit into
+    // an unsigned long must be left to it.
+    final boolean isQword = targetSize == OperandSize.QWORD;
+
+    long result;
+
+    switch (mnemonic) {
+      case ReilHelpers._OPCODE_ADD:
+        result = first + second;
+
+        if (isQword && (Long.compareUnsigned(result, first) < 0)) {
+          return false;
+        }
+        break;
+      case ReilHelpers._OPCODE_AND:
+        result = first & second;
+        break;
+      case ReilHelpers._OPCODE_BISZ:
+        result = first == 0 ? 1 : 0;
+        break;
+      case ReilHelpers._OPCODE_BSH:
+        final long msbMask = (long) Math.pow(2, secondSize.getBitSize() - 1);
+
+        if ((second & msbMask) != 0) {
+          final int shift = (int) (-second & 0xFF);
+          result = shift < 64 ? first >>> shift : 0;
+        } else {
+          final int shift = (int) second;
+
+          if (shift < 0) {
+            return false;
+          } else if (shift >= 64) {
+            if (isQword && (first != 0)) {
+              return false;
+            }
+
+            result = 0;
+          } else {
+            if (isQword && (shift != 0) && ((first >>> (64 - shift)) != 0)) {
+              return false;
+            }
+
+            result = first << shift;
+          }
+        }
+        break;
+      case ReilHelpers._OPCODE_DIV:
+        if (second == 0) {
+          return false;
+        }
+
+        result = Long.divideUnsigned(first, second);
+        break;
+      case ReilHelpers._OPCODE_MOD:
+        if (second == 0) {
+          return false;
+        }
+
+        result = Long.remainderUnsigned(first, second);
+        break;
+      case ReilHelpers._OPCODE_MUL:
+        result = first * second;
+
+        if (isQword && (((first | second) >>> 32) != 0) && (first != 0)
+            && (Long.divideUnsigned(result, first) != second)) {
+          return false;
+        }
+        break;
+      case ReilHelpers._OPCODE_OR:
+        result = first | second;
+        break;
+      case ReilHelpers._OPCODE_STR:
+        result = first;
+        break;
+      case ReilHelpers._OPCODE_SUB:
+        if (isQword && (Long.compareUnsigned(first, second) < 0)) {
+          return false;
+        }
+
+        result = first - second;
+        break;
+      case ReilHelpers._OPCODE_XOR:
+        result = first ^ second;
+        break;
+      default:
+        return false;
+    }
+
+    primitiveResult = result & getPrimitiveTruncateMask(targetSize);
+
+    return true;
+  }
+
+  /**
+   * Interprets an arithmetic or logical instruction on primitive long values.
+   *
+   * @param mnemonic The mnemonic code of the instruction
+   * @param instruction The instruction to interpret
+   *
+   * @return True, if the instruction was interpreted. False, if it must be interpreted using
+   *         BigInteger arithmetic.
+   */
+  private boolean interpretArithmeticPrimitive(final int mnemonic,
+      final ReilInstruction instruction) {
+    final OperandSize targetSize = instruction.getThirdOperand().getSize();
+
+    if (!isPrimitiveSize(targetSize) || !loadPrimitiveValue(instruction.getFirstOperand(), 0)) {
+      return false;
+    }
+
+    if (!isUnaryPrimitive(mnemonic) && !loadPrimitiveValue(instruction.getSecondOperand(), 1)) {
+      return false;
+    }
+
+    if (!evaluatePrimitive(mnemonic, primitiveOperands[0], primitiveOperands[1],
+        instruction.getSecondOperand().getSize(), targetSize)) {
+      return false;
+    }
+
+    registers.set(registers.getSlot(instruction.getThirdOperand().getValue()), primitiveResult,
+        targetSize);
+
+    return true;
+  }
+
+  /**
+   * Interprets a single REIL instruction on primitive long values.
+   *
+   * @param instruction The REIL instruction to interpret
+   * @param programCounterSlot The register slot of the program counter
+   *
+   * @return True, if the instruction was interpreted. False, if it must be interpreted using
+   *         BigInteger arithmetic.
+   */
+  private boolean interpretInstructionPrimitive(final ReilInstruction instruction,
+      final int programCounterSlot) {
+    final int mnemonic = instruction.getMnemonicCode();
+
+    switch (mnemonic) {
+      case ReilHelpers._OPCODE_NOP:
+        return true;
+      case ReilHelpers._OPCODE_JCC:
+        if (!loadPrimitiveValue(instruction.getFirstOperand(), 0)) {
+          return false;
+        }
+
+        if (primitiveOperands[0] == 0) {
+          return true;
+        }
+
+        if (!loadPrimitiveValue(instruction.getThirdOperand(), 2)) {
+          return false;
+        }
+
+        registers.set(programCounterSlot, primitiveOperands[2] & 0xFFFFFFFFL, OperandSize.DWORD);
+        return true;
+      case ReilHelpers._OPCODE_LDM: {
+        final OperandSize targetSize = instruction.getThirdOperand().getSize();
+
+        if (!isPrimitiveSize(targetSize) || !loadPrimitiveValue(instruction.getFirstOperand(), 0)) {
+          return false;
+        }
+
+        final long value = memory.load(primitiveOperands[0], targetSize.getByteSize());
+
+        registers.set(registers.getSlot(instruction.getThirdOperand().getValue()),
+            value & getPrimitiveTruncateMask(targetSize), targetSize);
+        return true;
+      }
+      case ReilHelpers._OPCODE_STM:
+        if (!loadPrimitiveValue(instruction.getFirstOperand(), 0)
+            || !loadPrimitiveValue(instruction.getThirdOperand(), 2)) {
+          return false;
+        }
+
+        memory.store(primitiveOperands[2], primitiveOperands[0],
+            instruction.getFirstOperand().getSize().getByteSize());
+        return true;
+      case ReilHelpers._OPCODE_UNDEF:
+      case ReilHelpers._OPCODE_UNKNOWN:
+        return false;
+      default:
+        return interpretArithmeticPrimitive(mnemonic, instruction);
+    }
+  }
+
+  /**
+   * Loads the value of an operand of a compiled instruction into a primitive long value.
+   *
+   * @param program The compiled program
+   * @param index Index of the instruction in the program
+   * @param operand Index of the operand in the instruction
+   * @param slotMap Maps the register indices of the program to interpreter register slots
+   *
+   * @return True, if the value was loaded. False, otherwise.
+   */
+  private boolean loadCompiledValue(final CompiledReilProgram program, final int index,
+      final int operand, final int[] slotMap) {
+    final byte kind = program.getOperandKind(index, operand);
+
+    if (kind == CompiledReilProgram.OPERAND_LITERAL) {
+      primitiveOperands[operand] = program.getOperandValue(index, operand);
+      return true;
+    } else if (kind == CompiledReilProgram.OPERAND_REGISTER) {
+      final int slot = slotMap[(int) program.getOperandValue(index, operand)];
+
+      if (!registers.isDefined(slot) || registers.isWide(slot)) {
+        return false;
+      }
+
+      primitiveOperands[operand] = registers.getLong(slot);
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Interprets a single instruction of a compiled program on primitive long values.
+   *
+   * @param program The compiled program
+   * @param index Index of the instruction in the program
+   * @param slotMap Maps the register indices of the program to interpreter register slots
+   * @param programCounterSlot The register slot of the program counter
+   * @param subPcSlot The register slot of the sub-instruction program counter
+   *
+   * @return True, if the instruction was interpreted. False, if the original instruction must be
+   *         interpreted using BigInteger arithmetic.
+   */
+  private boolean interpretCompiledInstruction(final CompiledReilProgram program, final int index,
+      final int[] slotMap, final int programCounterSlot, final int subPcSlot) {
+    final int mnemonic = program.getOpcode(index);
+
+    switch (mnemonic) {
+      case ReilHelpers._OPCODE_NOP:
+        return true;
+      case ReilHelpers._OPCODE_JCC:
+        if (!loadCompiledValue(program, index, 0, slotMap)) {
+          return false;
+        }
+
+        if (primitiveOperands[0] == 0) {
+          return true;
+        }
+
+        if (program.getOperandKind(index, 2) == CompiledReilProgram.OPERAND_SUB_ADDRESS) {
+          registers.set(programCounterSlot, program.getOperandValue(index, 2), OperandSize.DWORD);
+          registers.set(subPcSlot, program.getSubAddressIndex(index) & 0xFFFFFFFFL,
+              OperandSize.DWORD);
+        } else if (loadCompiledValue(program, index, 2, slotMap)) {
+          registers.set(programCounterSlot, primitiveOperands[2] & 0xFFFFFFFFL, OperandSize.DWORD);
+        } else {
+          return false;
+        }
+
+        compiledJumpTarget = program.getJumpTarget(index);
+        return true;
+      case ReilHelpers._OPCODE_LDM: {
+        final OperandSize targetSize = program.getOperandSize(index, 2);
+
+        if (!isPrimitiveSize(targetSize)
+            || (program.getOperandKind(index, 2) != CompiledReilProgram.OPERAND_REGISTER)
+            || !loadCompiledValue(program, index, 0, slotMap)) {
+          return false;
+        }
+
+        final long value = memory.load(primitiveOperands[0], targetSize.getByteSize());
+
+        registers.set(slotMap[(int) program.getOperandValue(index, 2)],
+            value & getPrimitiveTruncateMask(targetSize), targetSize);
+        return true;
+      }
+      case ReilHelpers._OPCODE_STM:
+        if (!loadCompiledValue(program, index, 0, slotMap)
+            || !loadCompiledValue(program, index, 2, slotMap)) {
+          return false;
+        }
+
+        memory.store(primitiveOperands[2], primitiveOperands[0],
+            program.getOperandSize(index, 0).getByteSize());
+        return true;
+      case ReilHelpers._OPCODE_UNDEF:
+        if (program.getOperandKind(index, 2) != CompiledReilProgram.OPERAND_REGISTER) {
+          return false;
+        }
+
+        registers.undefine(slotMap[(int) program.getOperandValue(index, 2)]);
+        return true;
+      case ReilHelpers._OPCODE_UNKNOWN:
+        return true;
+      default: {
+        final OperandSize targetSize = program.getOperandSize(index, 2);
+
+        if (!isPrimitiveSize(targetSize)
+            || (program.getOperandKind(index, 2) != CompiledReilProgram.OPERAND_REGISTER)
+            || !loadCompiledValue(program, index, 0, slotMap)) {
+          return false;
+        }
+
+        if (!isUnaryPrimitive(mnemonic) && !loadCompiledValue(program, index, 1, slotMap)) {
+          return false;
+        }
+
+        if (!evaluatePrimitive(mnemonic, primitiveOperands[0], primitiveOperands[1],
+            program.getOperandSize(index, 1), targetSize)) {
+          return false;
+        }
+
+        registers.set(slotMap[(int) program.getOperandValue(index, 2)], primitiveResult,
+            targetSize);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Interprets the REIL instructions of a single native instruction of a compiled program.
+   *
+   * @param program The compiled program
+   * @param nativeIndex Index of the native instruction in the program
+   * @param slotMap Maps the register indices of the program to interpreter register slots
+   * @param programCounter The name of the program counter register
+   * @param programCounterSlot The register slot of the program counter
+   * @param subPcSlot The register slot of the sub-instruction program counter
+   */
+  private void interpretCompiledInstructions(final CompiledReilProgram program,
+      final int nativeIndex, final int[] slotMap, final String programCounter,
+      final int programCounterSlot, final int subPcSlot) {
+    final int start = program.getNativeStart(nativeIndex);
+    final int count = program.getNativeEnd(nativeIndex) - start;
+
+    int subPc = getVariableValue(SUB_PC).intValue();
+
+    while (subPc < count) {
+      if (subPc < 0) {
+        throw new IndexOutOfBoundsException("Error: Invalid sub-instruction index " + subPc);
+      }
+
+      if (!interpretCompiledInstruction(program, start + subPc, slotMap, programCounterSlot,
+          subPcSlot)) {
+        compiledJumpTarget = -1;
+        interpretInstruction(program.getInstruction(start + subPc), programCounter);
+      }
+
+      final int newSubPc =
+          registers.isDefined(subPcSlot) ? (int) registers.getLong(subPcSlot)
+              : getVariableValue(SUB_PC).intValue();
+
+      if (subPc == newSubPc) {
+        subPc = newSubPc + 1;
+      } else {
+        subPc = newSubPc;
+      }
+
+      registers.set(subPcSlot, subPc & 0xFFFFFFFFL, OperandSize.DWORD);
+    }
+  }
+
+  /**
+   * Interprets the REIL instructions of a single native instruction using BigInteger arithmetic.
+   *
+   * @param instructionList The REIL instructions to interpret
+   * @param programCounter The name of the program counter register
+   */
+  private void interpretInstructionList(final List<ReilInstruction> instructionList,
+      final String programCounter) {
+    int subPc = getVariableValue(SUB_PC).intValue();
+
+    while (subPc < instructionList.size()) {
+      final ReilInstruction inst = instructionList.get(subPc);
+
+      log("Next instruction: " + inst.toString().replaceAll("%", ""));
+
+      for (final ReilRegister r : registers.getDefinedRegisters()) {
+        log("%s: %X%n", r.getRegister(), r.getValue());
+      }
+
+      interpretInstruction(inst, programCounter);
+
+      final int newSubPc = getVariableValue(SUB_PC).intValue();
+
+      if (subPc == newSubPc) {
+        subPc = newSubPc + 1;
+      } else {
+        subPc = newSubPc;
+      }
+
+      setRegister(SUB_PC, BigInteger.valueOf(subPc), OperandSize.DWORD,
+          ReilRegisterStatus.DEFINED);
+    }
+  }
+
+  /**
+   * Interprets the REIL instructions of a single native instruction on primitive long values.
+   * Instructions that can not be handled that way are passed on to the BigInteger code.
+   *
+   * @param instructionList The REIL instructions to interpret
+   * @param programCounter The name of the program counter register
+   */
+  private void interpretInstructionListPrimitive(final List<ReilInstruction> instructionList,
+      final String programCounter) {
+    final int programCounterSlot = registers.getSlot(programCounter);
+    final int subPcSlot = registers.getSlot(SUB_PC);
+
+    int subPc = getVariableValue(SUB_PC).intValue();
+
+    while (subPc < instructionList.size()) {
+      final ReilInstruction inst = instructionList.get(subPc);
+
+      if (!interpretInstructionPrimitive(inst, programCounterSlot)) {
+        interpretInstruction(inst, programCounter);
+      }
+
+      final int newSubPc =
+          registers.isDefined(subPcSlot) ? (int) registers.getLong(subPcSlot)
+              : getVariableValue(SUB_PC).intValue();
+
+      if (subPc == newSubPc) {
+        subPc = newSubPc + 1;
+      } else {
+        subPc = newSubPc;
+      }
+
+      registers.set(subPcSlot, subPc & 0xFFFFFFFFL, OperandSize.DWORD);
+    }
+  }
+
   /**
    * Searches the instruction at the next valid PC offset.
    *
@@ -532,6 +1114,53 @@ public class ReilInterpreter {
     return false;
   }
 
+  /**
+   * Searches the native instruction at the next valid PC offset of a compiled program.
+   *
+   * @param program The compiled program
+   * @param pc The current value of the program counter
+   *
+   * @return The index of the next native instruction or -1 if there is no such instruction.
+   */
+  private static int searchNextPc(final CompiledReilProgram program, final long pc) {
+    for (int i = 0; i < 10; i++) {
+      final int index = program.findNativeInstruction(pc + i);
+
+      if (index != -1) {
+        return index;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Sets the value of the program counter to a native address without allocating objects.
+   *
+   * @param programCounterSlot The register slot of the program counter
+   * @param address The new value of the program counter
+   */
+  private void setProgramCounter(final int programCounterSlot, final long address) {
+    registers.set(programCounterSlot, address & 0xFFFFFFFFL, OperandSize.DWORD);
+  }
+
+  /**
+   * Creates a new interpreter that starts with a copy of the register and memory state of this
+   * interpreter. The new interpreter uses the same CPU policy, interpreter policy and execution
+   * mode. Memory is shared between both interpreters until either of them modifies it.
+   *
+   * @return The new interpreter
+   */
+  public ReilInterpreter fork() {
+    final ReilInterpreter fork =
+        new ReilInterpreter(memory.endianness, cpuPolicy, interpreterPolicy, mode);
+
+    fork.registers.restore(registers);
+    fork.memory.restore(memory);
+
+    return fork;
+  }
+
   /**
    * Returns the CPU policy of the interpreter.
    *
@@ -542,7 +1171,7 @@ public class ReilInterpreter {
   }
 
   public List<ReilRegister> getDefinedRegisters() {
-    return new ArrayList<ReilRegister>(registers.values());
+    return registers.getDefinedRegisters();
   }
 
   public ReilMemory getMemory() {
@@ -564,9 +1193,9 @@ public class ReilInterpreter {
    */
   public BigInteger getVariableValue(final String register) {
     Preconditions.checkNotNull(register, "Error: register argument can not be null");
-    Preconditions.checkArgument(registers.containsKey(register), "Error: Register has no value");
+    Preconditions.checkArgument(registers.isDefined(register), "Error: Register has no value");
 
-    return registers.get(register).getValue();
+    return registers.getValue(registers.findSlot(register));
   }
 
   /**
@@ -596,7 +1225,9 @@ public class ReilInterpreter {
 
       interpreterPolicy.nextInstruction(this);
 
-      log("Interpreting: %X%n", pc.longValue());
+      if (mode == InterpreterMode.BIG_INTEGER) {
+        log("Interpreting: %X%n", pc.longValue());
+      }
 
       if (!instructions.containsKey(pc)) {
         throw new InterpreterException(String.format("Error: Instruction at offset %X not found",
@@ -612,29 +1243,10 @@ public class ReilInterpreter {
 
       setRegister(SUB_PC, BigInteger.ZERO, OperandSize.DWORD, ReilRegisterStatus.DEFINED);
 
-      int subPc = getVariableValue(SUB_PC).intValue();
-
-      while (subPc < instructionList.size()) {
-        final ReilInstruction inst = instructionList.get(subPc);
-
-        log("Next instruction: " + inst.toString().replaceAll("%", ""));
-
-        for (final ReilRegister r : registers.values()) {
-          log("%s: %X%n", r.getRegister(), r.getValue());
-        }
-
-        interpretInstruction(inst, programCounter);
-
-        final int newSubPc = getVariableValue(SUB_PC).intValue();
-
-        if (subPc == newSubPc) {
-          subPc = newSubPc + 1;
-        } else {
-          subPc = newSubPc;
-        }
-
-        setRegister(SUB_PC, BigInteger.valueOf(subPc), OperandSize.DWORD,
-            ReilRegisterStatus.DEFINED);
+      if (mode == InterpreterMode.PRIMITIVE) {
+        interpretInstructionListPrimitive(instructionList, programCounter);
+      } else {
+        interpretInstructionList(instructionList, programCounter);
       }
 
       final BigInteger pcNew = getVariableValue(programCounter);
@@ -657,6 +1269,109 @@ public class ReilInterpreter {
     interpreterPolicy.end();
   }
 
+  /**
+   * Interprets a compiled REIL program in the current REIL interpreter. Compiled programs are
+   * always interpreted on primitive long values where possible, independent of the execution mode
+   * of the interpreter. The resulting register and memory state is the same as if the original
+   * instructions were interpreted.
+   *
+   * @param program The program to interpret
+   * @param entryPoint The native address of the first instruction to interpret
+   * @throws InterpreterException
+   */
+  public void interpret(final CompiledReilProgram program, final BigInteger entryPoint)
+      throws InterpreterException {
+    Preconditions.checkNotNull(program, "Error: Argument program can't be null");
+    Preconditions.checkNotNull(entryPoint, "Error: Argument entryPoint can't be null");
+
+    cpuPolicy.start(this);
+    interpreterPolicy.start();
+
+    final String programCounter = cpuPolicy.getProgramCounter();
+
+    Preconditions.checkNotNull(programCounter,
+        "Error: CPU Policy returned an invalid program counter");
+
+    // Set the program counter to the entry point
+    setRegister(programCounter, entryPoint, cpuPolicy.getRegisterSize(programCounter),
+        ReilRegisterStatus.DEFINED);
+
+    final int[] slotMap = new int[program.getRegisterCount()];
+
+    for (int i = 0; i < slotMap.length; i++) {
+      slotMap[i] = registers.getSlot(program.getRegisterName(i));
+    }
+
+    final int programCounterSlot = registers.getSlot(programCounter);
+    final int subPcSlot = registers.getSlot(SUB_PC);
+
+    int nativeIndex = -1;
+
+    while (true) {
+      final long pc =
+          registers.isDefined(programCounterSlot) && !registers.isWide(programCounterSlot)
+              ? registers.getLong(programCounterSlot)
+              : getVariableValue(programCounter).longValue();
+
+      interpreterPolicy.nextInstruction(this);
+
+      if (nativeIndex == -1) {
+        nativeIndex = program.findNativeInstruction(pc);
+      }
+
+      if (nativeIndex == -1) {
+        throw new InterpreterException(String.format("Error: Instruction at offset %X not found",
+            nativeToReil(ReilRegisterFile.toBigInteger(pc))));
+      }
+
+      if (program.getNativeStart(nativeIndex) == program.getNativeEnd(nativeIndex)) {
+        throw new InterpreterException(String.format(
+            "Error: Instruction at offset %X has invalid REIL code",
+            nativeToReil(ReilRegisterFile.toBigInteger(pc))));
+      }
+
+      setRegister(SUB_PC, BigInteger.ZERO, OperandSize.DWORD, ReilRegisterStatus.DEFINED);
+
+      compiledJumpTarget = -1;
+
+      interpretCompiledInstructions(program, nativeIndex, slotMap, programCounter,
+          programCounterSlot, subPcSlot);
+
+      final long pcNew =
+          registers.isDefined(programCounterSlot) && !registers.isWide(programCounterSlot)
+              ? registers.getLong(programCounterSlot)
+              : getVariableValue(programCounter).longValue();
+
+      if (pcNew == 4294967295L) {
+        break;
+      }
+
+      final int candidate;
+
+      if (pcNew == pc) {
+        candidate = program.getFallThroughIndex(nativeIndex);
+      } else if ((compiledJumpTarget != -1)
+          && (program.getNativeAddress(compiledJumpTarget) == pcNew)) {
+        candidate = compiledJumpTarget;
+      } else {
+        candidate = searchNextPc(program, pcNew);
+      }
+
+      if (candidate == -1) {
+        break;
+      }
+
+      final long nextPc = program.getNativeAddress(candidate);
+
+      setProgramCounter(programCounterSlot, nextPc);
+
+      // The program counter is truncated to DWORD size, so larger addresses must be looked up again
+      nativeIndex = (nextPc & 0xFFFFFFFFL) == nextPc ? candidate : -1;
+    }
+
+    interpreterPolicy.end();
+  }
+
   /**
    * Determines whether a register currently holds a value or not.
    *
@@ -665,8 +1380,7 @@ public class ReilInterpreter {
    * @return True, if the register has a value. False, otherwise.
    */
   public boolean isDefined(final String register) {
-    System.out.println(registers.keySet());
-    return registers.containsKey(register);
+    return registers.isDefined(register);
   }
 
   public byte readMemoryByte(final long address) {
@@ -681,6 +1395,19 @@ public class ReilInterpreter {
     return memory.load(address, 2);
   }
 
+  /**
+   * Restores a register and memory state previously returned by {@link #snapshot()}. The state
+   * stays valid and can be restored again later.
+   *
+   * @param state The state to restore
+   */
+  public void restore(final ReilInterpreterState state) {
+    Preconditions.checkNotNull(state, "Error: Argument state can't be null");
+
+    registers.restore(state.getRegisters());
+    memory.restore(state.getMemory());
+  }
+
   /**
    * Sets a value in the simulated memory.
    *
@@ -704,15 +1431,22 @@ public class ReilInterpreter {
       final ReilRegisterStatus status) {
     final BigInteger truncatedValue = value.and(getTruncateMask(size));
 
-    final ReilRegister r = new ReilRegister(register, size, truncatedValue);
-
-    if (registers.containsKey(register)) {
-      registers.remove(register);
-    }
+    final int slot = registers.getSlot(register);
 
     if (status == ReilRegisterStatus.DEFINED) {
-      registers.put(register, r);
+      registers.set(slot, truncatedValue, size);
+    } else {
+      registers.undefine(slot);
     }
   }
-}
 
+  /**
+   * Creates a snapshot of the current register and memory state of the interpreter. Registers are
+   * copied, memory is shared with the interpreter until either side modifies it.
+   *
+   * @return The snapshot of the interpreter state
+   */
+  public ReilInterpreterState snapshot() {
+    return new ReilInterpreterState(registers.copy(), memory.snapshot());
+  }
+}
@@ -0,0 +1,66 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.interpreter;
+
+import java.util.List;
+
+/**
+ * Snapshot of the register and memory state of a REIL interpreter. Snapshots are created with
+ * {@link ReilInterpreter#snapshot()} and can be restored any number of times with
+ * {@link ReilInterpreter#restore(ReilInterpreterState)}.
+ */
+public final class ReilInterpreterState {
+  /**
+   * Copy of the interpreter registers
+   */
+  private final ReilRegisterFile registers;
+
+  /**
+   * Copy-on-write snapshot of the interpreter memory
+   */
+  private final ReilMemory memory;
+
+  ReilInterpreterState(final ReilRegisterFile registers, final ReilMemory memory) {
+    this.registers = registers;
+    this.memory = memory;
+  }
+
+  /**
+   * Returns the registers that had a value when the snapshot was taken.
+   *
+   * @return The defined registers of the snapshot
+   */
+  public List<ReilRegister> getDefinedRegisters() {
+    return registers.getDefinedRegisters();
+  }
+
+  /**
+   * Returns the amount of memory that was allocated when the snapshot was taken.
+   *
+   * @return The allocated memory of the snapshot
+   */
+  public long getMemorySize() {
+    return memory.getAllocatedMemory();
+  }
+
+  ReilMemory getMemory() {
+    return memory;
+  }
+
+  ReilRegisterFile getRegisters() {
+    return registers;
+  }
+}
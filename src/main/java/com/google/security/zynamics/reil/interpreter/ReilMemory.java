@@ -16,133 +16,234 @@ limitations under the License.
 package com.google.security.zynamics.reil.interpreter;
 
 import com.google.common.base.Preconditions;
-import com.google.security.zynamics.zylib.general.memmanager.Memory;
 
 /**
  * Simulates memory used by the REIL interpreter.
+ *
+ * The memory is kept in a sparse page table, so loads and stores take constant time no matter how
+ * much memory is in use. Memory objects can be snapshotted cheaply: a snapshot shares all pages
+ * with the original memory and pages are only copied once either side modifies them.
  */
 public class ReilMemory {
-
-  private final Memory memory = new Memory();
-
   /**
    * Endianness of the memory
    */
   final Endianness endianness;
 
+  /**
+   * Pages of the memory
+   */
+  private ReilMemoryPageTable pages;
+
+  /**
+   * Token that identifies the pages this memory object is allowed to modify without copying them
+   * first. A new token is created whenever the pages are shared with a snapshot.
+   */
+  private Object owner = new Object();
+
+  /**
+   * Number of bytes that were written to the memory
+   */
+  private int allocatedMemory;
+
+  /**
+   * Number of the most recently accessed page
+   */
+  private long cachedPageNumber = -1;
+
+  /**
+   * The most recently accessed page or null
+   */
+  private ReilMemoryPage cachedPage;
+
   /**
    * Creates a new simulated REIL memory object with the given endianness.
-   * 
+   *
    * @param endianness The memory layout of the memory
    */
   public ReilMemory(final Endianness endianness) {
     this.endianness =
         Preconditions.checkNotNull(endianness, "Error: Argument endianness can't be null");
+    this.pages = new ReilMemoryPageTable();
   }
 
-  private byte[] getData(final long value, final int length) {
-    if (endianness == Endianness.LITTLE_ENDIAN) {
-      return getDataLittle(value, length);
-    } else {
-      return getDataBig(value, length);
-    }
+  private ReilMemory(final ReilMemory memory) {
+    this.endianness = memory.endianness;
+    this.pages = memory.pages.copy();
+    this.allocatedMemory = memory.allocatedMemory;
   }
 
-  private byte[] getDataBig(final long value, final int length) {
-    if (length == 1) {
-      return new byte[] {(byte) (value & 0xFF)};
-    } else if (length == 2) {
-      return new byte[] {(byte) ((value & 0xFF00) >> 8), (byte) (value & 0xFF)};
-    } else if (length == 4) {
-      return new byte[] {(byte) ((value & 0xFF000000) >> 24), (byte) ((value & 0xFF0000) >> 16),
-          (byte) ((value & 0xFF00) >> 8), (byte) ((value & 0xFF))};
-    } else {
-      throw new IllegalArgumentException("Error: Invalid data length");
+  private ReilMemoryPage getPage(final long pageNumber) {
+    if ((pageNumber != cachedPageNumber) || (cachedPage == null)) {
+      cachedPage = pages.get(pageNumber);
+      cachedPageNumber = pageNumber;
     }
+
+    return cachedPage;
   }
 
-  private byte[] getDataLittle(final long value, final int length) {
-    if (length == 1) {
-      return new byte[] {(byte) (value & 0xFF)};
-    } else if (length == 2) {
-      return new byte[] {(byte) (value & 0xFF), (byte) ((value & 0xFF00) >> 8)};
-    } else if (length == 4) {
-      return new byte[] {(byte) (value & 0xFF), (byte) ((value & 0xFF00) >> 8),
-          (byte) ((value & 0xFF0000) >> 16), (byte) ((value & 0xFF000000) >> 24)};
+  private ReilMemoryPage getWritablePage(final long pageNumber) {
+    ReilMemoryPage page = getPage(pageNumber);
+
+    if (page == null) {
+      page = new ReilMemoryPage(owner);
+      pages.put(pageNumber, page);
+    } else if (!page.isOwnedBy(owner)) {
+      page = page.copy(owner);
+      pages.put(pageNumber, page);
     } else {
-      throw new IllegalArgumentException("Error: Invalid data length");
+      return page;
     }
+
+    cachedPage = page;
+    cachedPageNumber = pageNumber;
+
+    return page;
   }
 
-  private long loadBig(final byte[] data) {
-    switch (data.length) {
-      case 1:
-        return data[0] & 0xFF;
-      case 2:
-        return (data[1] & 0xFF) + ((data[0] & 0xFF) * 0x100);
-      case 4:
-        return (data[3] & 0xFF) + ((data[2] & 0xFF) * 0x100) + ((data[1] & 0xFF) * 0x100 * 0x100)
-            + ((data[0] & 0xFF) * 0x100 * 0x100 * 0x100);
-      default:
-        throw new IllegalArgumentException("Not yet implemented");
+  private int loadByte(final long address) {
+    final ReilMemoryPage page = getPage(address >>> ReilMemoryPage.PAGE_BITS);
+    final int offset = (int) (address & ReilMemoryPage.OFFSET_MASK);
+
+    if ((page == null) || !page.isValid(offset)) {
+      throw new IllegalArgumentException("Error: Data is not available");
     }
+
+    return page.getByte(offset) & 0xFF;
   }
 
-  private long loadLittle(final byte[] data) {
-    switch (data.length) {
-      case 1:
-        return data[0] & 0xFF;
-      case 2:
-        return (data[0] & 0xFF) + ((data[1] & 0xFF) * 0x100);
-      case 3:
-        return (data[0] & 0xFF) + ((data[1] & 0xFF) * 0x100) + ((data[2] & 0xFF) * 0x100 * 0x100);
-      case 4:
-        return (data[0] & 0xFF) + ((data[1] & 0xFF) * 0x100) + ((data[2] & 0xFF) * 0x100 * 0x100)
-            + ((data[3] & 0xFF) * 0x100 * 0x100 * 0x100);
-      default:
-        throw new IllegalArgumentException("Not yet implemented");
+  private void storeByte(final long address, final long value) {
+    final ReilMemoryPage page = getWritablePage(address >>> ReilMemoryPage.PAGE_BITS);
+
+    if (page.setByte((int) (address & ReilMemoryPage.OFFSET_MASK), (byte) value)) {
+      allocatedMemory++;
     }
   }
 
   /**
    * Returns the total amount of allocated memory.
-   * 
+   *
    * @return The total amount of allocated memory
    */
   public int getAllocatedMemory() {
-    return memory.getMemorySize();
+    return allocatedMemory;
   }
 
   /**
    * Loads a value from memory
-   * 
+   *
    * @param address The address of the value (must be >= 0)
    * @param length Length of the value
-   * 
+   *
    * @return The value
    */
   public long load(final long address, final int length) {
     Preconditions.checkArgument(address >= 0, "Error: Argument address can't be less than 0");
     Preconditions.checkArgument(length > 0, "Error: Argument length must be bigger than 0");
 
-    if (endianness == Endianness.LITTLE_ENDIAN) {
-      return loadLittle(memory.getData(address, length));
-    } else {
-      return loadBig(memory.getData(address, length));
+    int value = 0;
+
+    for (int i = 0; i < length; i++) {
+      final int data = loadByte(address + i);
+
+      if (endianness == Endianness.LITTLE_ENDIAN) {
+        value |= data << (8 * i);
+      } else {
+        value = (value << 8) | data;
+      }
     }
+
+    if ((length > 4) || ((length == 3) && (endianness == Endianness.BIG_ENDIAN))) {
+      throw new IllegalArgumentException("Not yet implemented");
+    }
+
+    // Values are assembled as int, so four byte values are returned sign-extended.
+    return value;
   }
 
   /**
    * Prints the contents of the REIL memory.
-   * 
+   *
    */
   public void printMemory() {
-    memory.printMemory();
+    boolean inChunk = false;
+    long nextAddress = -1;
+
+    for (final long pageNumber : pages.getPageNumbers()) {
+      final ReilMemoryPage page = pages.get(pageNumber);
+      final long pageAddress = pageNumber << ReilMemoryPage.PAGE_BITS;
+
+      for (int offset = 0; offset < ReilMemoryPage.PAGE_SIZE; offset++) {
+        final long address = pageAddress + offset;
+
+        if (!page.isValid(offset)) {
+          continue;
+        }
+
+        if (inChunk && (address != nextAddress)) {
+          System.out.println();
+          inChunk = false;
+        }
+
+        if (!inChunk) {
+          System.out.printf("%08X: ", address);
+          inChunk = true;
+        }
+
+        System.out.printf("%02X ", page.getByte(offset));
+        nextAddress = address + 1;
+      }
+    }
+
+    if (inChunk) {
+      System.out.println();
+    }
+  }
+
+  /**
+   * Replaces the content of the memory with the content of a snapshot. The snapshot stays valid
+   * and can be restored again later.
+   *
+   * @param snapshot The snapshot to restore
+   */
+  public void restore(final ReilMemory snapshot) {
+    Preconditions.checkNotNull(snapshot, "Error: Argument snapshot can't be null");
+    Preconditions.checkArgument(snapshot.endianness == endianness,
+        "Error: Snapshot has a different endianness");
+
+    if (snapshot == this) {
+      return;
+    }
+
+    pages = snapshot.pages.copy();
+    allocatedMemory = snapshot.allocatedMemory;
+
+    // Both memory objects now share the pages and must copy them before modifying them.
+    owner = new Object();
+    snapshot.owner = new Object();
+
+    cachedPage = null;
+    cachedPageNumber = -1;
+  }
+
+  /**
+   * Creates a snapshot of the memory. The snapshot and this memory object share their data until
+   * either of them is modified, so taking snapshots is cheap even for large memories.
+   *
+   * @return The snapshot of the memory
+   */
+  public ReilMemory snapshot() {
+    final ReilMemory snapshot = new ReilMemory(this);
+
+    // From now on the pages are shared and must be copied before they are modified.
+    owner = new Object();
+
+    return snapshot;
   }
 
   /**
    * Stores a value in memory
-   * 
+   *
    * @param address Address where the value is stored (must be >= 0)
    * @param value Value to store
    * @param length Length of the value
@@ -150,6 +251,17 @@ public class ReilMemory {
   public void store(final long address, final long value, final int length) {
     Preconditions.checkArgument(address >= 0, "Error: Argument address can't be less than 0");
     Preconditions.checkArgument(length > 0, "Error: Argument length must be bigger than 0");
-    memory.store(address, getData(value, length));
+
+    if ((length != 1) && (length != 2) && (length != 4)) {
+      throw new IllegalArgumentException("Error: Invalid data length");
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (endianness == Endianness.LITTLE_ENDIAN) {
+        storeByte(address + i, value >>> (8 * i));
+      } else {
+        storeByte(address + i, value >>> (8 * (length - 1 - i)));
+      }
+    }
   }
 }
@@ -0,0 +1,110 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.interpreter;
+
+/**
+ * A single page of simulated REIL memory. Besides the data, every page keeps track of which of its
+ * bytes were ever written.
+ */
+final class ReilMemoryPage {
+  static final int PAGE_BITS = 12;
+
+  static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+  static final long OFFSET_MASK = PAGE_SIZE - 1;
+
+  /**
+   * Content of the page.
+   */
+  private final byte[] data;
+
+  /**
+   * One bit per byte of the page that is set if the byte was written.
+   */
+  private final long[] valid;
+
+  /**
+   * Number of bytes of the page that were written.
+   */
+  private int validCount;
+
+  /**
+   * The memory object that is allowed to modify the page. Pages are shared between memory
+   * snapshots and must be copied before any other memory object modifies them.
+   */
+  private final Object owner;
+
+  ReilMemoryPage(final Object owner) {
+    this.owner = owner;
+    this.data = new byte[PAGE_SIZE];
+    this.valid = new long[PAGE_SIZE / 64];
+  }
+
+  private ReilMemoryPage(final Object owner, final ReilMemoryPage page) {
+    this.owner = owner;
+    this.data = page.data.clone();
+    this.valid = page.valid.clone();
+    this.validCount = page.validCount;
+  }
+
+  /**
+   * Creates a modifiable copy of the page.
+   *
+   * @param newOwner The owner of the copy.
+   *
+   * @return The copied page.
+   */
+  ReilMemoryPage copy(final Object newOwner) {
+    return new ReilMemoryPage(newOwner, this);
+  }
+
+  byte getByte(final int offset) {
+    return data[offset];
+  }
+
+  int getValidCount() {
+    return validCount;
+  }
+
+  boolean isOwnedBy(final Object memory) {
+    return owner == memory;
+  }
+
+  boolean isValid(final int offset) {
+    return (valid[offset >>> 6] & (1L << offset)) != 0;
+  }
+
+  /**
+   * Writes a byte to the page.
+   *
+   * @param offset Offset of the byte in the page.
+   * @param value The new value of the byte.
+   *
+   * @return True, if the byte was not written before. False, otherwise.
+   */
+  boolean setByte(final int offset, final byte value) {
+    data[offset] = value;
+
+    if (isValid(offset)) {
+      return false;
+    }
+
+    valid[offset >>> 6] |= 1L << offset;
+    validCount++;
+
+    return true;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.interpreter;
+
+import java.util.Arrays;
+
+/**
+ * Sparse page table of the simulated REIL memory. Maps page numbers to pages using open addressing
+ * so lookups do not allocate objects.
+ */
+final class ReilMemoryPageTable {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] pageNumbers;
+
+  private ReilMemoryPage[] pages;
+
+  private int size = 0;
+
+  ReilMemoryPageTable() {
+    pageNumbers = new long[INITIAL_CAPACITY];
+    pages = new ReilMemoryPage[INITIAL_CAPACITY];
+  }
+
+  private ReilMemoryPageTable(final ReilMemoryPageTable table) {
+    pageNumbers = table.pageNumbers.clone();
+    pages = table.pages.clone();
+    size = table.size;
+  }
+
+  private static int hash(final long pageNumber, final int mask) {
+    final long hash = pageNumber * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void grow() {
+    final long[] oldPageNumbers = pageNumbers;
+    final ReilMemoryPage[] oldPages = pages;
+
+    pageNumbers = new long[oldPageNumbers.length * 2];
+    pages = new ReilMemoryPage[oldPages.length * 2];
+
+    final int mask = pages.length - 1;
+
+    for (int i = 0; i < oldPages.length; i++) {
+      if (oldPages[i] != null) {
+        int index = hash(oldPageNumbers[i], mask);
+
+        while (pages[index] != null) {
+          index = (index + 1) & mask;
+        }
+
+        pageNumbers[index] = oldPageNumbers[i];
+        pages[index] = oldPages[i];
+      }
+    }
+  }
+
+  /**
+   * Creates a copy of the page table. The pages themselves are shared with the copy.
+   *
+   * @return The copied page table.
+   */
+  ReilMemoryPageTable copy() {
+    return new ReilMemoryPageTable(this);
+  }
+
+  /**
+   * Returns the page with the given number.
+   *
+   * @param pageNumber The number of the page.
+   *
+   * @return The page or null if the page does not exist.
+   */
+  ReilMemoryPage get(final long pageNumber) {
+    final int mask = pages.length - 1;
+
+    for (int index = hash(pageNumber, mask); pages[index] != null; index = (index + 1) & mask) {
+      if (pageNumbers[index] == pageNumber) {
+        return pages[index];
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the numbers of all pages in ascending order.
+   *
+   * @return The page numbers.
+   */
+  long[] getPageNumbers() {
+    final long[] result = new long[size];
+
+    int count = 0;
+
+    for (int i = 0; i < pages.length; i++) {
+      if (pages[i] != null) {
+        result[count++] = pageNumbers[i];
+      }
+    }
+
+    Arrays.sort(result);
+
+    return result;
+  }
+
+  /**
+   * Adds a page to the page table or replaces the page with the same number.
+   *
+   * @param pageNumber The number of the page.
+   * @param page The page.
+   */
+  void put(final long pageNumber, final ReilMemoryPage page) {
+    int mask = pages.length - 1;
+
+    for (int index = hash(pageNumber, mask); pages[index] != null; index = (index + 1) & mask) {
+      if (pageNumbers[index] == pageNumber) {
+        pages[index] = page;
+        return;
+      }
+    }
+
+    // Keep the load factor below one half
+    if ((size + 1) * 2 > pages.length) {
+      grow();
+      mask = pages.length - 1;
+    }
+
+    int index = hash(pageNumber, mask);
+
+    while (pages[index] != null) {
+      index = (index + 1) & mask;
+    }
+
+    pageNumbers[index] = pageNumber;
+    pages[index] = page;
+    size++;
+  }
+
+  int size() {
+    return size;
+  }
+}
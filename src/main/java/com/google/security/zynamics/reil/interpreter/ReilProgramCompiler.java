@@ -0,0 +1,299 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.interpreter;
+
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.reil.OperandSize;
+import com.google.security.zynamics.reil.ReilBlock;
+import com.google.security.zynamics.reil.ReilFunction;
+import com.google.security.zynamics.reil.ReilGraph;
+import com.google.security.zynamics.reil.ReilHelpers;
+import com.google.security.zynamics.reil.ReilInstruction;
+import com.google.security.zynamics.reil.ReilOperand;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns REIL code into the pre-decoded form that is used by the REIL interpreter to run the same
+ * code many times.
+ */
+public final class ReilProgramCompiler {
+  /**
+   * Number of native addresses following a native instruction that are searched for the next
+   * instruction. Must match the search done by the interpreter.
+   */
+  private static final int NEXT_PC_SEARCH_RANGE = 10;
+
+  private static final BigInteger REIL_ADDRESS_FACTOR = BigInteger.valueOf(0x100);
+
+  private static final BigInteger DWORD_MASK = BigInteger.valueOf(0xFFFFFFFFL);
+
+  private ReilProgramCompiler() {
+    // You are not supposed to instantiate this class
+  }
+
+  /**
+   * Compiles the instructions of the native instructions given in a sorted map.
+   *
+   * @param nativeInstructions Maps native addresses to the REIL instructions of the native
+   *        instructions.
+   *
+   * @return The compiled program.
+   */
+  private static CompiledReilProgram compile(
+      final TreeMap<Long, List<ReilInstruction>> nativeInstructions) {
+    final int nativeCount = nativeInstructions.size();
+
+    final long[] nativeAddresses = new long[nativeCount];
+    final int[] nativeStarts = new int[nativeCount + 1];
+
+    final List<ReilInstruction> instructionList = new ArrayList<ReilInstruction>();
+
+    int nativeIndex = 0;
+
+    for (final Map.Entry<Long, List<ReilInstruction>> entry : nativeInstructions.entrySet()) {
+      nativeAddresses[nativeIndex] = entry.getKey();
+      nativeStarts[nativeIndex] = instructionList.size();
+      instructionList.addAll(entry.getValue());
+      nativeIndex++;
+    }
+
+    nativeStarts[nativeCount] = instructionList.size();
+
+    final int instructionCount = instructionList.size();
+
+    final ReilInstruction[] instructions =
+        instructionList.toArray(new ReilInstruction[instructionCount]);
+    final int[] opcodes = new int[instructionCount];
+    final byte[] operandKinds = new byte[instructionCount * 3];
+    final OperandSize[] operandSizes = new OperandSize[instructionCount * 3];
+    final long[] operandValues = new long[instructionCount * 3];
+    final int[] subAddressIndices = new int[instructionCount];
+    final int[] jumpTargets = new int[instructionCount];
+
+    final Map<String, Integer> registerIndices = new HashMap<String, Integer>();
+    final List<String> registerNames = new ArrayList<String>();
+
+    for (int i = 0; i < instructionCount; i++) {
+      final ReilInstruction instruction = instructions[i];
+
+      opcodes[i] = instruction.getMnemonicCode();
+
+      compileOperand(instruction.getFirstOperand(), (i * 3), operandKinds, operandSizes,
+          operandValues, subAddressIndices, i, registerIndices, registerNames);
+      compileOperand(instruction.getSecondOperand(), (i * 3) + 1, operandKinds, operandSizes,
+          operandValues, subAddressIndices, i, registerIndices, registerNames);
+      compileOperand(instruction.getThirdOperand(), (i * 3) + 2, operandKinds, operandSizes,
+          operandValues, subAddressIndices, i, registerIndices, registerNames);
+
+      jumpTargets[i] = -1;
+
+      if (opcodes[i] == ReilHelpers._OPCODE_JCC) {
+        final byte targetKind = operandKinds[(i * 3) + 2];
+
+        if ((targetKind == CompiledReilProgram.OPERAND_LITERAL)
+            || (targetKind == CompiledReilProgram.OPERAND_SUB_ADDRESS)) {
+          jumpTargets[i] =
+              findNativeInstruction(nativeAddresses, operandValues[(i * 3) + 2] & 0xFFFFFFFFL);
+        }
+      }
+    }
+
+    final int[] fallThroughIndices = new int[nativeCount];
+
+    for (int i = 0; i < nativeCount; i++) {
+      fallThroughIndices[i] = -1;
+
+      for (int j = 0; j < NEXT_PC_SEARCH_RANGE; j++) {
+        final int index = findNativeInstruction(nativeAddresses, nativeAddresses[i] + 1 + j);
+
+        if (index != -1) {
+          fallThroughIndices[i] = index;
+          break;
+        }
+      }
+    }
+
+    return new CompiledReilProgram(nativeAddresses, nativeStarts, fallThroughIndices,
+        instructions, opcodes, operandKinds, operandSizes, operandValues, subAddressIndices,
+        jumpTargets, registerNames.toArray(new String[registerNames.size()]));
+  }
+
+  /**
+   * Decodes a single operand.
+   */
+  private static void compileOperand(final ReilOperand operand, final int operandIndex,
+      final byte[] operandKinds, final OperandSize[] operandSizes, final long[] operandValues,
+      final int[] subAddressIndices, final int instructionIndex,
+      final Map<String, Integer> registerIndices, final List<String> registerNames) {
+    final String value = operand.getValue();
+
+    operandSizes[operandIndex] = operand.getSize();
+
+    switch (operand.getType()) {
+      case EMPTY:
+        operandKinds[operandIndex] = CompiledReilProgram.OPERAND_EMPTY;
+        break;
+      case INTEGER_LITERAL:
+        final BigInteger literal = parseInteger(value);
+
+        if ((literal == null) || (literal.signum() < 0) || (literal.bitLength() > 64)) {
+          operandKinds[operandIndex] = CompiledReilProgram.OPERAND_UNSUPPORTED;
+        } else {
+          operandKinds[operandIndex] = CompiledReilProgram.OPERAND_LITERAL;
+          operandValues[operandIndex] = literal.longValue();
+        }
+        break;
+      case REGISTER:
+        // Negated registers are a special case of the BigInteger interpreter.
+        if (value.charAt(0) == '-') {
+          operandKinds[operandIndex] = CompiledReilProgram.OPERAND_UNSUPPORTED;
+        } else {
+          operandKinds[operandIndex] = CompiledReilProgram.OPERAND_REGISTER;
+          operandValues[operandIndex] = internRegister(value, registerIndices, registerNames);
+        }
+        break;
+      case SUB_ADDRESS:
+        final String[] parts = value.split("\\.");
+        final BigInteger nativePart = parts.length == 2 ? parseInteger(parts[0]) : null;
+        final BigInteger subPart = parts.length == 2 ? parseInteger(parts[1]) : null;
+
+        if ((nativePart == null) || (subPart == null)) {
+          operandKinds[operandIndex] = CompiledReilProgram.OPERAND_UNSUPPORTED;
+        } else {
+          operandKinds[operandIndex] = CompiledReilProgram.OPERAND_SUB_ADDRESS;
+          operandValues[operandIndex] = nativePart.and(DWORD_MASK).longValue();
+          subAddressIndices[instructionIndex] = subPart.and(DWORD_MASK).intValue();
+        }
+        break;
+      default:
+        operandKinds[operandIndex] = CompiledReilProgram.OPERAND_UNSUPPORTED;
+        break;
+    }
+  }
+
+  private static int findNativeInstruction(final long[] nativeAddresses, final long address) {
+    final int index = Arrays.binarySearch(nativeAddresses, address);
+    return index < 0 ? -1 : index;
+  }
+
+  private static int internRegister(final String register,
+      final Map<String, Integer> registerIndices, final List<String> registerNames) {
+    final Integer index = registerIndices.get(register);
+
+    if (index != null) {
+      return index;
+    }
+
+    registerIndices.put(register, registerNames.size());
+    registerNames.add(register);
+
+    return registerNames.size() - 1;
+  }
+
+  private static BigInteger parseInteger(final String value) {
+    try {
+      return new BigInteger(value);
+    } catch (final NumberFormatException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Compiles the REIL code of a map that maps REIL addresses to the REIL code of the native
+   * instructions at these addresses. This is the same format that is accepted by
+   * {@link ReilInterpreter#interpret(HashMap, BigInteger)}.
+   *
+   * @param instructions The instructions to compile.
+   *
+   * @return The compiled program.
+   */
+  public static CompiledReilProgram compile(
+      final Map<BigInteger, List<ReilInstruction>> instructions) {
+    Preconditions.checkNotNull(instructions, "Error: Argument instructions can't be null");
+
+    final TreeMap<Long, List<ReilInstruction>> nativeInstructions =
+        new TreeMap<Long, List<ReilInstruction>>();
+
+    for (final Map.Entry<BigInteger, List<ReilInstruction>> entry : instructions.entrySet()) {
+      final BigInteger[] nativeAddress = entry.getKey().divideAndRemainder(REIL_ADDRESS_FACTOR);
+
+      // Instructions at other addresses can never be reached by the interpreter.
+      if ((nativeAddress[1].signum() == 0) && (nativeAddress[0].signum() >= 0)
+          && (nativeAddress[0].bitLength() < 64)) {
+        nativeInstructions.put(nativeAddress[0].longValue(),
+            entry.getValue() == null ? new ArrayList<ReilInstruction>() : entry.getValue());
+      }
+    }
+
+    return compile(nativeInstructions);
+  }
+
+  /**
+   * Compiles the REIL code of a REIL function.
+   *
+   * @param function The function to compile.
+   *
+   * @return The compiled program.
+   */
+  public static CompiledReilProgram compile(final ReilFunction function) {
+    Preconditions.checkNotNull(function, "Error: Argument function can't be null");
+
+    return compile(function.getGraph());
+  }
+
+  /**
+   * Compiles the REIL code of a REIL graph.
+   *
+   * @param graph The graph to compile.
+   *
+   * @return The compiled program.
+   */
+  public static CompiledReilProgram compile(final ReilGraph graph) {
+    Preconditions.checkNotNull(graph, "Error: Argument graph can't be null");
+
+    final TreeMap<Long, List<ReilInstruction>> nativeInstructions =
+        new TreeMap<Long, List<ReilInstruction>>();
+
+    for (final ReilBlock block : graph) {
+      for (final ReilInstruction instruction : block) {
+        final long nativeAddress = instruction.getAddress().toLong() >>> 8;
+
+        List<ReilInstruction> reilInstructions = nativeInstructions.get(nativeAddress);
+
+        if (reilInstructions == null) {
+          reilInstructions = new ArrayList<ReilInstruction>();
+          nativeInstructions.put(nativeAddress, reilInstructions);
+        }
+
+        reilInstructions.add(instruction);
+      }
+    }
+
+    for (final List<ReilInstruction> reilInstructions : nativeInstructions.values()) {
+      Collections.sort(reilInstructions);
+    }
+
+    return compile(nativeInstructions);
+  }
+}
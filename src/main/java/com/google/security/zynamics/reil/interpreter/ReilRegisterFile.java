@@ -0,0 +1,270 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.interpreter;
+
+import com.google.common.base.Preconditions;
+import com.google.security.zynamics.reil.OperandSize;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Register storage of the REIL interpreter. Every register name is assigned a fixed slot the first
+ * time it is seen. Values that fit into 64 bits are kept as unsigned primitive longs, only OWORD
+ * registers and values outside of that range are kept as BigInteger objects.
+ */
+final class ReilRegisterFile {
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * Maps register names to their slots. The map is shared between copies of the register file
+   * until one of them assigns a new slot.
+   */
+  private HashMap<String, Integer> slots = new HashMap<String, Integer>();
+
+  /**
+   * Flag that says whether the slot map is shared with another register file.
+   */
+  private boolean slotsShared = false;
+
+  /**
+   * Register names by slot.
+   */
+  private String[] names = new String[INITIAL_CAPACITY];
+
+  /**
+   * Register sizes by slot.
+   */
+  private OperandSize[] sizes = new OperandSize[INITIAL_CAPACITY];
+
+  /**
+   * Register values by slot.
+   */
+  private long[] values = new long[INITIAL_CAPACITY];
+
+  /**
+   * Register values by slot for registers that do not fit into a long value.
+   */
+  private BigInteger[] wideValues = new BigInteger[INITIAL_CAPACITY];
+
+  /**
+   * Flags that say whether the register in a slot currently holds a value.
+   */
+  private boolean[] defined = new boolean[INITIAL_CAPACITY];
+
+  /**
+   * Number of assigned slots.
+   */
+  private int slotCount = 0;
+
+  ReilRegisterFile() {
+  }
+
+  private ReilRegisterFile(final ReilRegisterFile registers) {
+    restore(registers);
+  }
+
+  /**
+   * Converts an unsigned long value to a BigInteger.
+   *
+   * @param value The value to convert.
+   *
+   * @return The converted value.
+   */
+  static BigInteger toBigInteger(final long value) {
+    final BigInteger result = BigInteger.valueOf(value);
+    return value >= 0 ? result : result.add(BigInteger.ONE.shiftLeft(64));
+  }
+
+  /**
+   * Creates a copy of the register file.
+   *
+   * @return The copied register file.
+   */
+  ReilRegisterFile copy() {
+    return new ReilRegisterFile(this);
+  }
+
+  /**
+   * Returns the slot of a register, assigning a new slot if the register was not seen before.
+   *
+   * @param register The name of the register.
+   *
+   * @return The slot of the register.
+   */
+  int getSlot(final String register) {
+    final Integer slot = slots.get(register);
+
+    if (slot != null) {
+      return slot;
+    }
+
+    if (slotCount == names.length) {
+      final int capacity = names.length * 2;
+      names = Arrays.copyOf(names, capacity);
+      sizes = Arrays.copyOf(sizes, capacity);
+      values = Arrays.copyOf(values, capacity);
+      wideValues = Arrays.copyOf(wideValues, capacity);
+      defined = Arrays.copyOf(defined, capacity);
+    }
+
+    if (slotsShared) {
+      slots = new HashMap<String, Integer>(slots);
+      slotsShared = false;
+    }
+
+    names[slotCount] = register;
+    slots.put(register, slotCount);
+
+    return slotCount++;
+  }
+
+  /**
+   * Returns the slot of a register without assigning a new one.
+   *
+   * @param register The name of the register.
+   *
+   * @return The slot of the register or -1 if the register was never seen.
+   */
+  int findSlot(final String register) {
+    final Integer slot = slots.get(register);
+    return slot == null ? -1 : slot;
+  }
+
+  /**
+   * Returns the defined registers and their values.
+   *
+   * @return The defined registers.
+   */
+  List<ReilRegister> getDefinedRegisters() {
+    final List<ReilRegister> registers = new ArrayList<ReilRegister>();
+
+    for (int slot = 0; slot < slotCount; slot++) {
+      if (defined[slot]) {
+        registers.add(new ReilRegister(names[slot], sizes[slot], getValue(slot)));
+      }
+    }
+
+    return registers;
+  }
+
+  /**
+   * Returns the value of a register as a long value. For wide registers only the lower 64 bits are
+   * returned.
+   *
+   * @param slot The slot of the register.
+   *
+   * @return The value of the register.
+   */
+  long getLong(final int slot) {
+    return values[slot];
+  }
+
+  /**
+   * Returns the value of a register.
+   *
+   * @param slot The slot of the register.
+   *
+   * @return The value of the register.
+   */
+  BigInteger getValue(final int slot) {
+    Preconditions.checkArgument(defined[slot], "Error: Register has no value");
+    return wideValues[slot] == null ? toBigInteger(values[slot]) : wideValues[slot];
+  }
+
+  boolean isDefined(final int slot) {
+    return defined[slot];
+  }
+
+  boolean isDefined(final String register) {
+    final int slot = findSlot(register);
+    return (slot != -1) && defined[slot];
+  }
+
+  /**
+   * Returns whether the value of a register does not fit into a long value.
+   *
+   * @param slot The slot of the register.
+   *
+   * @return True, if the value is only available as BigInteger.
+   */
+  boolean isWide(final int slot) {
+    return wideValues[slot] != null;
+  }
+
+  /**
+   * Replaces the content of the register file with the content of another register file.
+   *
+   * @param registers The register file to copy.
+   */
+  void restore(final ReilRegisterFile registers) {
+    slots = registers.slots;
+    slotsShared = true;
+    registers.slotsShared = true;
+
+    names = registers.names.clone();
+    sizes = registers.sizes.clone();
+    values = registers.values.clone();
+    wideValues = registers.wideValues.clone();
+    defined = registers.defined.clone();
+    slotCount = registers.slotCount;
+  }
+
+  /**
+   * Sets the value of a register. The value must already be truncated to the register size.
+   *
+   * @param slot The slot of the register.
+   * @param value The new value of the register.
+   * @param size The size of the register.
+   */
+  void set(final int slot, final BigInteger value, final OperandSize size) {
+    values[slot] = value.longValue();
+    wideValues[slot] =
+        (size == OperandSize.OWORD) || (value.signum() < 0) || (value.bitLength() > 64) ? value
+            : null;
+    sizes[slot] = size;
+    defined[slot] = true;
+  }
+
+  /**
+   * Sets the value of a register. The value must already be truncated to the register size.
+   *
+   * @param slot The slot of the register.
+   * @param value The new value of the register.
+   * @param size The size of the register.
+   */
+  void set(final int slot, final long value, final OperandSize size) {
+    values[slot] = value;
+    wideValues[slot] = null;
+    sizes[slot] = size;
+    defined[slot] = true;
+  }
+
+  /**
+   * Removes the value of a register.
+   *
+   * @param slot The slot of the register.
+   */
+  void undefine(final int slot) {
+    values[slot] = 0;
+    wideValues[slot] = null;
+    sizes[slot] = null;
+    defined[slot] = false;
+  }
+}
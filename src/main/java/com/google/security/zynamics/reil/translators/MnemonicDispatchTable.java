@@ -0,0 +1,198 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.translators;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatch table that maps native mnemonics to the translators of a CPU architecture.
+ *
+ * Every registered mnemonic is resolved to a dense integer ID once and the translators are stored
+ * in an array indexed by that ID. Architecture translators fill the table while their classes are
+ * initialized and only read from it afterwards, so concurrent lookups need no locking.
+ */
+public final class MnemonicDispatchTable {
+  /**
+   * Maps registered mnemonics to their IDs.
+   */
+  private final Map<String, Integer> m_ids = new HashMap<String, Integer>();
+
+  /**
+   * Mnemonics that were only found after case normalization, mapped to their IDs. This avoids
+   * normalizing the same mnemonic for every instruction.
+   */
+  private final Map<String, Integer> m_aliases = new ConcurrentHashMap<String, Integer>();
+
+  /**
+   * Translators indexed by mnemonic ID.
+   */
+  private final List<IInstructionTranslator> m_translators =
+      new ArrayList<IInstructionTranslator>();
+
+  /**
+   * Flag that indicates whether mnemonics that are not found are looked up again in lower case.
+   */
+  private final boolean m_ignoreCase;
+
+  /**
+   * Creates a new dispatch table that matches mnemonics exactly.
+   */
+  public MnemonicDispatchTable() {
+    this(false);
+  }
+
+  /**
+   * Creates a new dispatch table.
+   *
+   * @param ignoreCase True, to look up unknown mnemonics again in lower case. In that case all
+   *        mnemonics must be registered in lower case.
+   */
+  public MnemonicDispatchTable(final boolean ignoreCase) {
+    m_ignoreCase = ignoreCase;
+  }
+
+  /**
+   * Determines whether a translator is registered for a mnemonic.
+   *
+   * @param mnemonic The mnemonic to look up.
+   *
+   * @return True, if a translator is registered for the mnemonic. False, otherwise.
+   */
+  public boolean containsKey(final String mnemonic) {
+    return getId(mnemonic) != -1;
+  }
+
+  /**
+   * Returns the ID of a mnemonic.
+   *
+   * @param mnemonic The mnemonic to look up.
+   *
+   * @return The ID of the mnemonic or -1 if no translator is registered for the mnemonic.
+   */
+  public int getId(final String mnemonic) {
+    if (mnemonic == null) {
+      return -1;
+    }
+
+    final Integer id = m_ids.get(mnemonic);
+
+    if (id != null) {
+      return id;
+    }
+
+    if (!m_ignoreCase) {
+      return -1;
+    }
+
+    final Integer alias = m_aliases.get(mnemonic);
+
+    if (alias != null) {
+      return alias;
+    }
+
+    final Integer normalized = m_ids.get(mnemonic.toLowerCase());
+
+    if (normalized == null) {
+      return -1;
+    }
+
+    m_aliases.put(mnemonic, normalized);
+
+    return normalized;
+  }
+
+  /**
+   * Returns the translator with the given ID.
+   *
+   * @param id The ID of the translator.
+   *
+   * @return The translator with the given ID.
+   */
+  public IInstructionTranslator getTranslator(final int id) {
+    return m_translators.get(id);
+  }
+
+  /**
+   * Returns the translator for a mnemonic.
+   *
+   * @param mnemonic The mnemonic to look up.
+   *
+   * @return The translator for the mnemonic or null if no translator is registered.
+   */
+  public IInstructionTranslator getTranslator(final String mnemonic) {
+    final int id = getId(mnemonic);
+
+    return id == -1 ? null : m_translators.get(id);
+  }
+
+  /**
+   * Registers a translator for a mnemonic. If the mnemonic was registered before, the old
+   * translator is replaced but the mnemonic keeps its ID.
+   *
+   * @param mnemonic The mnemonic handled by the translator.
+   * @param translator The translator for the mnemonic.
+   */
+  public void put(final String mnemonic, final IInstructionTranslator translator) {
+    Preconditions.checkNotNull(mnemonic, "Error: Argument mnemonic can not be null");
+    Preconditions.checkNotNull(translator, "Error: Argument translator can not be null");
+
+    final Integer id = m_ids.get(mnemonic);
+
+    if (id == null) {
+      m_ids.put(mnemonic, m_translators.size());
+      m_translators.add(translator);
+    } else {
+      m_translators.set(id, translator);
+    }
+  }
+
+  /**
+   * Returns the number of registered mnemonics.
+   *
+   * @return The number of registered mnemonics.
+   */
+  public int size() {
+    return m_translators.size();
+  }
+
+  /**
+   * Creates a new dispatch table from all mnemonics that start with a given prefix. The prefix is
+   * removed from the mnemonics in the new table.
+   *
+   * @param prefix The mnemonic prefix.
+   *
+   * @return The new dispatch table.
+   */
+  public MnemonicDispatchTable withPrefix(final String prefix) {
+    Preconditions.checkNotNull(prefix, "Error: Argument prefix can not be null");
+
+    final MnemonicDispatchTable table = new MnemonicDispatchTable(m_ignoreCase);
+
+    for (final Map.Entry<String, Integer> entry : m_ids.entrySet()) {
+      if (entry.getKey().startsWith(prefix)) {
+        table.put(entry.getKey().substring(prefix.length()), m_translators.get(entry.getValue()));
+      }
+    }
+
+    return table;
+  }
+}
@@ -0,0 +1,267 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.translators;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.security.zynamics.reil.ReilFunction;
+import com.google.security.zynamics.zylib.disassembly.IBlockContainer;
+import com.google.security.zynamics.zylib.disassembly.ICodeContainer;
+import com.google.security.zynamics.zylib.disassembly.ICodeEdge;
+import com.google.security.zynamics.zylib.disassembly.IInstruction;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Translates all functions of a module to REIL code in parallel and caches the results.
+ *
+ * Every function is translated by its own fork-join task with its own translation environment.
+ * Translated functions are cached per function object together with a fingerprint of the function
+ * code, so a function is only translated again if its code changes or if it was invalidated
+ * explicitly. The cache only holds weak references to the function objects.
+ *
+ * @param <InstructionType> Type of the translated instructions.
+ */
+public final class ModuleReilTranslator<InstructionType extends IInstruction> {
+  /**
+   * Translates the individual functions.
+   */
+  private final ReilTranslator<InstructionType> m_translator =
+      new ReilTranslator<InstructionType>();
+
+  /**
+   * Pool that runs the translation tasks.
+   */
+  private final ForkJoinPool m_pool;
+
+  /**
+   * Caches the translated functions. Keys are compared by identity.
+   */
+  private final Cache<IBlockContainer<InstructionType>, CachedTranslation> m_cache =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  /**
+   * Creates a translator that uses the common fork-join pool.
+   */
+  public ModuleReilTranslator() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a translator that uses the given fork-join pool.
+   *
+   * @param pool The pool that runs the translation tasks.
+   */
+  public ModuleReilTranslator(final ForkJoinPool pool) {
+    m_pool = Preconditions.checkNotNull(pool, "Error: pool argument can not be null");
+  }
+
+  /**
+   * Calculates a fingerprint of the code of a function. The fingerprint covers the instructions and
+   * the control flow of all basic blocks.
+   *
+   * @param function The function.
+   *
+   * @return The fingerprint of the function.
+   */
+  private static <InstructionType extends IInstruction> HashCode getFingerprint(
+      final IBlockContainer<InstructionType> function) {
+    final Hasher hasher = Hashing.sha256().newHasher();
+
+    for (final ICodeContainer<InstructionType> block : function.getBasicBlocks()) {
+      hasher.putLong(block.getAddress().toLong());
+
+      for (final InstructionType instruction : block.getInstructions()) {
+        hasher.putLong(instruction.getAddress().toLong());
+        hasher.putString(instruction.getArchitecture(), StandardCharsets.UTF_8);
+        hasher.putString(instruction.getMnemonic(), StandardCharsets.UTF_8);
+
+        final byte[] data = instruction.getData();
+
+        if (data != null) {
+          hasher.putBytes(data);
+        }
+      }
+    }
+
+    for (final ICodeEdge<?> edge : function.getBasicBlockEdges()) {
+      hasher.putInt(edge.getType().ordinal());
+      putEdgeNode(hasher, edge.getSource());
+      putEdgeNode(hasher, edge.getTarget());
+    }
+
+    return hasher.hash();
+  }
+
+  private static void putEdgeNode(final Hasher hasher, final Object node) {
+    if (node instanceof ICodeContainer) {
+      hasher.putLong(((ICodeContainer<?>) node).getAddress().toLong());
+    }
+  }
+
+  /**
+   * Removes the translation of a function from the cache. This is only necessary if a function
+   * changed in a way that is not covered by the fingerprint of its code.
+   *
+   * @param function The function whose translation is removed.
+   */
+  public void invalidate(final IBlockContainer<InstructionType> function) {
+    Preconditions.checkNotNull(function, "Error: function argument can not be null");
+
+    m_cache.invalidate(function);
+  }
+
+  /**
+   * Removes all translated functions from the cache.
+   */
+  public void invalidateAll() {
+    m_cache.invalidateAll();
+  }
+
+  /**
+   * Returns the number of cached function translations.
+   *
+   * @return The number of cached translations.
+   */
+  public long size() {
+    return m_cache.size();
+  }
+
+  /**
+   * Translates a single function to REIL code or returns the cached translation of the function.
+   *
+   * @param function The function to translate.
+   *
+   * @return The function translated to REIL code.
+   *
+   * @throws InternalTranslationException Thrown if an internal error occurs.
+   */
+  public ReilFunction translate(final IBlockContainer<InstructionType> function)
+      throws InternalTranslationException {
+    Preconditions.checkNotNull(function, "Error: function argument can not be null");
+
+    final HashCode fingerprint = getFingerprint(function);
+    final CachedTranslation cached = m_cache.getIfPresent(function);
+
+    if ((cached != null) && cached.m_fingerprint.equals(fingerprint)) {
+      return cached.m_function;
+    }
+
+    final ReilFunction translated = m_translator.translate(new StandardEnvironment(), function);
+
+    m_cache.put(function, new CachedTranslation(fingerprint, translated));
+
+    return translated;
+  }
+
+  /**
+   * Translates functions to REIL code in parallel. Functions whose code did not change since they
+   * were last translated are taken from the cache.
+   *
+   * @param functions The functions to translate.
+   *
+   * @return Maps the functions to their REIL code, in the order of the input functions.
+   *
+   * @throws InternalTranslationException Thrown if the translation of any function failed. The
+   *         exception of the first failed function is thrown.
+   */
+  public Map<IBlockContainer<InstructionType>, ReilFunction> translate(
+      final Collection<? extends IBlockContainer<InstructionType>> functions)
+      throws InternalTranslationException {
+    Preconditions.checkNotNull(functions, "Error: functions argument can not be null");
+
+    final List<TranslationTask> tasks = new ArrayList<TranslationTask>();
+
+    for (final IBlockContainer<InstructionType> function : functions) {
+      tasks.add(new TranslationTask(
+          Preconditions.checkNotNull(function, "Error: functions list can not contain null")));
+    }
+
+    m_pool.invoke(new RecursiveAction() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected void compute() {
+        invokeAll(tasks);
+      }
+    });
+
+    final Map<IBlockContainer<InstructionType>, ReilFunction> result =
+        new LinkedHashMap<IBlockContainer<InstructionType>, ReilFunction>();
+
+    for (final TranslationTask task : tasks) {
+      if (task.m_exception != null) {
+        throw task.m_exception;
+      }
+
+      result.put(task.m_function, task.m_result);
+    }
+
+    return result;
+  }
+
+  /**
+   * A translated function together with the fingerprint of the code it was translated from.
+   */
+  private static final class CachedTranslation {
+    private final HashCode m_fingerprint;
+
+    private final ReilFunction m_function;
+
+    private CachedTranslation(final HashCode fingerprint, final ReilFunction function) {
+      m_fingerprint = fingerprint;
+      m_function = function;
+    }
+  }
+
+  /**
+   * Translates a single function. Translation errors are stored in the task instead of being thrown
+   * so they can be reported for the right function.
+   */
+  private final class TranslationTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final IBlockContainer<InstructionType> m_function;
+
+    private ReilFunction m_result;
+
+    private InternalTranslationException m_exception;
+
+    private TranslationTask(final IBlockContainer<InstructionType> function) {
+      m_function = function;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        m_result = translate(m_function);
+      } catch (final InternalTranslationException exception) {
+        m_exception = exception;
+      }
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
@@ -53,8 +54,12 @@ import com.google.security.zynamics.zylib.types.common.ICollectionMapper;
  * Translates disassembled programs to REIL code.
  */
 public class ReilTranslator<InstructionType extends IInstruction> {
+  /**
+   * Translators indexed by architecture name. Architecture names that only match after case
+   * normalization are added on first use, so later lookups need no string conversion.
+   */
   private final Map<String, ITranslator<InstructionType>> m_translators =
-      new HashMap<String, ITranslator<InstructionType>>();
+      new ConcurrentHashMap<String, ITranslator<InstructionType>>();
 
   public ReilTranslator() {
     m_translators.put("X86-32", new TranslatorX86<InstructionType>());
@@ -398,6 +403,35 @@ public class ReilTranslator<InstructionType extends IInstruction> {
     return result;
   }
 
+  /**
+   * Returns the translator for the architecture of an instruction.
+   *
+   * @param instruction The instruction to translate.
+   *
+   * @return The translator for the architecture of the instruction.
+   *
+   * @throws InternalTranslationException Thrown if the architecture is not supported.
+   */
+  private ITranslator<InstructionType> getTranslator(final InstructionType instruction)
+      throws InternalTranslationException {
+    final String architecture = instruction.getArchitecture();
+
+    ITranslator<InstructionType> translator = m_translators.get(architecture);
+
+    if (translator == null) {
+      translator = m_translators.get(architecture.toUpperCase());
+
+      if (translator == null) {
+        throw new InternalTranslationException(
+            "Could not translate instruction from unknown architecture " + architecture);
+      }
+
+      m_translators.put(architecture, translator);
+    }
+
+    return translator;
+  }
+
   /**
    * Translates a disassembled function to REIL code.
    * 
@@ -444,14 +478,7 @@ public class ReilTranslator<InstructionType extends IInstruction> {
       for (final InstructionType instruction : blockInstructions) {
         environment.nextInstruction();
 
-        final ITranslator<InstructionType> translator =
-            m_translators.get(instruction.getArchitecture().toUpperCase());
-
-        if (translator == null) {
-          throw new InternalTranslationException(
-              "Could not translate instruction from unknown architecture "
-                  + instruction.getArchitecture());
-        }
+        final ITranslator<InstructionType> translator = getTranslator(instruction);
 
         try {
           final List<ReilInstruction> result =
@@ -555,14 +582,7 @@ public class ReilTranslator<InstructionType extends IInstruction> {
     for (final InstructionType instruction : block.getInstructions()) {
       environment.nextInstruction();
 
-      final ITranslator<InstructionType> translator =
-          m_translators.get(instruction.getArchitecture().toUpperCase());
-
-      if (translator == null) {
-        throw new InternalTranslationException(
-            "Could not translate instruction from unknown architecture "
-                + instruction.getArchitecture());
-      }
+      final ITranslator<InstructionType> translator = getTranslator(instruction);
 
       try {
         instructions.addAll(translator.translate(environment, instruction, extensions));
@@ -595,14 +615,7 @@ public class ReilTranslator<InstructionType extends IInstruction> {
 
     environment.nextInstruction();
 
-    final ITranslator<InstructionType> translator =
-        m_translators.get(instruction.getArchitecture().toUpperCase());
-
-    if (translator == null) {
-      throw new InternalTranslationException(
-          "Could not translate instruction from unknown architecture "
-              + instruction.getArchitecture());
-    }
+    final ITranslator<InstructionType> translator = getTranslator(instruction);
 
     try {
       instructions.addAll(translator.translate(environment, instruction, extensions));
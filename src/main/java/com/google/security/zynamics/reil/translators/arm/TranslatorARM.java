@@ -16,7 +16,6 @@ limitations under the License.
 package com.google.security.zynamics.reil.translators.arm;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import com.google.common.base.Preconditions;
@@ -28,16 +27,21 @@ import com.google.security.zynamics.reil.translators.ITranslationEnvironment;
 import com.google.security.zynamics.reil.translators.ITranslationExtension;
 import com.google.security.zynamics.reil.translators.ITranslator;
 import com.google.security.zynamics.reil.translators.InternalTranslationException;
+import com.google.security.zynamics.reil.translators.MnemonicDispatchTable;
 import com.google.security.zynamics.zylib.disassembly.IInstruction;
 
 
 public class TranslatorARM<InstructionType extends IInstruction> implements
     ITranslator<InstructionType> {
   /**
-   * List of translator for all opcodes
+   * Translators for all opcodes, indexed by mnemonic
    */
-  private static HashMap<String, IInstructionTranslator> translators =
-      new HashMap<String, IInstructionTranslator>();
+  private static final MnemonicDispatchTable translators = new MnemonicDispatchTable();
+
+  /**
+   * Translators for all THUMB opcodes, indexed by mnemonic without the THUMB prefix
+   */
+  private static final MnemonicDispatchTable thumbTranslators;
 
   private final static String matchLDR = "LDR";
   private final static String matchSTR = "STR";
@@ -581,6 +585,8 @@ public class TranslatorARM<InstructionType extends IInstruction> implements
     } catch (final Exception e) {
       // TODO Handle this more gracefully
     }
+
+    thumbTranslators = translators.withPrefix("THUMB");
   }
 
   /**
@@ -608,11 +614,10 @@ public class TranslatorARM<InstructionType extends IInstruction> implements
     final long instLength = instruction.getLength();
 
     // TODO: >= 4 is a workaround because IDA merges multiple instructions into 1
-    final String normalizedMnemonic = instLength >= 4 ? mnemonic : "THUMB" + mnemonic;
-
-    final IInstructionTranslator translator = translators.get(normalizedMnemonic);
+    final IInstructionTranslator translator =
+        (instLength >= 4 ? translators : thumbTranslators).getTranslator(mnemonic);
 
-    if (translators.containsKey(normalizedMnemonic)) {
+    if (translator != null) {
       final ArrayList<ReilInstruction> instructions = new ArrayList<ReilInstruction>();
 
       translator.translate(environment, instruction, instructions);
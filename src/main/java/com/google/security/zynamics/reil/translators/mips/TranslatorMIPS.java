@@ -16,7 +16,6 @@ limitations under the License.
 package com.google.security.zynamics.reil.translators.mips;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import com.google.common.base.Preconditions;
@@ -28,16 +27,16 @@ import com.google.security.zynamics.reil.translators.ITranslationEnvironment;
 import com.google.security.zynamics.reil.translators.ITranslationExtension;
 import com.google.security.zynamics.reil.translators.ITranslator;
 import com.google.security.zynamics.reil.translators.InternalTranslationException;
+import com.google.security.zynamics.reil.translators.MnemonicDispatchTable;
 import com.google.security.zynamics.zylib.disassembly.IInstruction;
 
 
 public class TranslatorMIPS<InstructionType extends IInstruction> implements
     ITranslator<InstructionType> {
   /**
-   * List of translator for all opcodes
+   * Translators for all opcodes, indexed by mnemonic
    */
-  private static HashMap<String, IInstructionTranslator> translators =
-      new HashMap<String, IInstructionTranslator>();
+  private static final MnemonicDispatchTable translators = new MnemonicDispatchTable(true);
 
   static {
     try {
@@ -415,9 +414,9 @@ public class TranslatorMIPS<InstructionType extends IInstruction> implements
       return new ArrayList<ReilInstruction>();
     }
 
-    final IInstructionTranslator translator = translators.get(mnemonic.toLowerCase());
+    final IInstructionTranslator translator = translators.getTranslator(mnemonic);
 
-    if (translators.containsKey(mnemonic.toLowerCase())) {
+    if (translator != null) {
       final ArrayList<ReilInstruction> instructions = new ArrayList<ReilInstruction>();
 
       translator.translate(environment, instruction, instructions);
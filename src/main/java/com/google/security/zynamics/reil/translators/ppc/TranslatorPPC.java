@@ -16,7 +16,6 @@ limitations under the License.
 package com.google.security.zynamics.reil.translators.ppc;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import com.google.common.base.Preconditions;
@@ -28,6 +27,7 @@ import com.google.security.zynamics.reil.translators.ITranslationEnvironment;
 import com.google.security.zynamics.reil.translators.ITranslationExtension;
 import com.google.security.zynamics.reil.translators.ITranslator;
 import com.google.security.zynamics.reil.translators.InternalTranslationException;
+import com.google.security.zynamics.reil.translators.MnemonicDispatchTable;
 import com.google.security.zynamics.zylib.disassembly.IInstruction;
 
 
@@ -41,10 +41,9 @@ public class TranslatorPPC<InstructionType extends IInstruction> implements
     ITranslator<InstructionType> {
 
   /**
-   * List of translator for all opcodes
+   * Translators for all opcodes, indexed by mnemonic
    */
-  private static HashMap<String, IInstructionTranslator> translators =
-      new HashMap<String, IInstructionTranslator>();
+  private static final MnemonicDispatchTable translators = new MnemonicDispatchTable();
 
   /**
    * Initializes the list of translators
@@ -642,9 +641,9 @@ public class TranslatorPPC<InstructionType extends IInstruction> implements
 
     final String mnemonic = instruction.getMnemonic();
 
-    if (translators.containsKey(mnemonic)) {
-      final IInstructionTranslator translator = translators.get(mnemonic);
+    final IInstructionTranslator translator = translators.getTranslator(mnemonic);
 
+    if (translator != null) {
       final ArrayList<ReilInstruction> instructions = new ArrayList<ReilInstruction>();
 
       translator.translate(environment, instruction, instructions);
@@ -227,10 +227,7 @@ public class Helpers {
    * @return True, if the name of the register is a 16 bit register. False, otherwise.
    */
   private static boolean is16BitRegister(final String register) {
-
-    return register.equals("ax") || register.equals("bx") || register.equals("cx")
-        || register.equals("dx") || register.equals("si") || register.equals("di")
-        || register.equals("sp") || register.equals("bp") || register.equals("ip");
+    return isRegisterOfKind(register, X86Register.Kind.BIT16);
   }
 
   /**
@@ -240,9 +237,20 @@ public class Helpers {
    * @return True, if the name of the register is either AL, BL, CL, or DL. False, otherwise.
    */
   private static boolean isLower8BitRegister(final String register) {
+    return isRegisterOfKind(register, X86Register.Kind.LOWER_8BIT);
+  }
+
+  /**
+   * Determines whether a passed register belongs to a given class of registers.
+   *
+   * @param register The name of the register
+   * @param kind The class of registers
+   * @return True, if the register belongs to the class. False, otherwise.
+   */
+  private static boolean isRegisterOfKind(final String register, final X86Register.Kind kind) {
+    final X86Register x86Register = X86Register.forName(register);
 
-    return register.equals("al") || register.equals("bl") || register.equals("cl")
-        || register.equals("dl");
+    return (x86Register != null) && (x86Register.getKind() == kind);
   }
 
   /**
@@ -262,8 +270,7 @@ public class Helpers {
    * @return True, if the string identifies a segment. False, otherwise.
    */
   private static boolean isSegment(final String value) {
-    return value.equals("cs") || value.equals("ds") || value.equals("es") || value.equals("fs")
-        || value.equals("gs") || value.equals("ss");
+    return isRegisterOfKind(value, X86Register.Kind.SEGMENT);
   }
 
   /**
@@ -1349,24 +1356,10 @@ public class Helpers {
 
     Preconditions.checkNotNull(subRegister, "Error: Argument subRegister can't be null");
 
-    if (subRegister.equals("al") || subRegister.equals("ah") || subRegister.equals("ax")) {
-      return "eax";
-    } else if (subRegister.equals("bl") || subRegister.equals("bh") || subRegister.equals("bx")) {
-      return "ebx";
-    } else if (subRegister.equals("cl") || subRegister.equals("ch") || subRegister.equals("cx")) {
-      return "ecx";
-    } else if (subRegister.equals("dl") || subRegister.equals("dh") || subRegister.equals("dx")) {
-      return "edx";
-    } else if (subRegister.equals("si")) {
-      return "esi";
-    } else if (subRegister.equals("di")) {
-      return "edi";
-    } else if (subRegister.equals("sp")) {
-      return "esp";
-    } else if (subRegister.equals("bp")) {
-      return "ebp";
-    } else if (subRegister.equals("ip")) {
-      return "eip";
+    final X86Register register = X86Register.forName(subRegister);
+
+    if ((register != null) && (register.getParent() != null)) {
+      return register.getParent();
     } else {
       throw new InternalTranslationException(String.format("Error: Invalid subRegister %s",
           subRegister));
@@ -1385,19 +1378,10 @@ public class Helpers {
    */
   public static OperandSize getRegisterSize(final String register)
       throws InternalTranslationException {
-    if (register.equals("al") || register.equals("ah") || register.equals("bl")
-        || register.equals("bh") || register.equals("cl") || register.equals("ch")
-        || register.equals("dl") || register.equals("dh")) {
-      return OperandSize.BYTE;
-    } else if (register.equals("ax") || register.equals("bx") || register.equals("cx")
-        || register.equals("dx") || register.equals("si") || register.equals("di")
-        || register.equals("sp") || register.equals("bp") || register.equals("ip")
-        || isSegment(register)) {
-      return OperandSize.WORD;
-    } else if (register.equals("eax") || register.equals("ebx") || register.equals("ecx")
-        || register.equals("edx") || register.equals("esi") || register.equals("edi")
-        || register.equals("esp") || register.equals("ebp")) {
-      return OperandSize.DWORD;
+    final X86Register x86Register = X86Register.forName(register);
+
+    if (x86Register != null) {
+      return x86Register.getSize();
     }
 
     throw new InternalTranslationException(String.format("Error: Invalid register name %s",
@@ -1412,9 +1396,7 @@ public class Helpers {
    * @return True, if the name of the register is either AH, BH, CH, or DH. False, otherwise.
    */
   public static boolean isHigher8BitRegister(final String register) {
-
-    return register.equals("ah") || register.equals("bh") || register.equals("ch")
-        || register.equals("dh");
+    return isRegisterOfKind(register, X86Register.Kind.HIGHER_8BIT);
   }
 
   public static TranslationResult loadFirstDivOperand(final ITranslationEnvironment environment,
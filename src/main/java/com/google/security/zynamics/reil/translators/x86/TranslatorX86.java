@@ -25,10 +25,10 @@ import com.google.security.zynamics.reil.translators.ITranslationEnvironment;
 import com.google.security.zynamics.reil.translators.ITranslationExtension;
 import com.google.security.zynamics.reil.translators.ITranslator;
 import com.google.security.zynamics.reil.translators.InternalTranslationException;
+import com.google.security.zynamics.reil.translators.MnemonicDispatchTable;
 import com.google.security.zynamics.zylib.disassembly.IInstruction;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -41,10 +41,9 @@ public class TranslatorX86<InstructionType extends IInstruction> implements
     ITranslator<InstructionType> {
 
   /**
-   * List of translator for all opcodes
+   * Translators for all opcodes, indexed by mnemonic
    */
-  private static final HashMap<String, IInstructionTranslator> translators =
-      new HashMap<String, IInstructionTranslator>();
+  private static final MnemonicDispatchTable translators = new MnemonicDispatchTable();
 
   /**
    * Initializes the list of translators
@@ -266,8 +265,9 @@ public class TranslatorX86<InstructionType extends IInstruction> implements
 
     final String mnemonic = instruction.getMnemonic();
 
-    if (translators.containsKey(mnemonic)) {
-      final IInstructionTranslator translator = translators.get(mnemonic);
+    final IInstructionTranslator translator = translators.getTranslator(mnemonic);
+
+    if (translator != null) {
       final ArrayList<ReilInstruction> instructions = new ArrayList<ReilInstruction>();
       translator.translate(environment, instruction, instructions);
 
@@ -0,0 +1,146 @@
+/*
+Copyright 2011-2016 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.translators.x86;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.security.zynamics.reil.OperandSize;
+
+/**
+ * Classification of the x86 registers that can appear in operand trees. Looking up a register
+ * once replaces the chains of string comparisons that were previously needed to find out the
+ * size and the parent register of an operand.
+ */
+enum X86Register {
+  AL("al", OperandSize.BYTE, "eax", Kind.LOWER_8BIT),
+  AH("ah", OperandSize.BYTE, "eax", Kind.HIGHER_8BIT),
+  BL("bl", OperandSize.BYTE, "ebx", Kind.LOWER_8BIT),
+  BH("bh", OperandSize.BYTE, "ebx", Kind.HIGHER_8BIT),
+  CL("cl", OperandSize.BYTE, "ecx", Kind.LOWER_8BIT),
+  CH("ch", OperandSize.BYTE, "ecx", Kind.HIGHER_8BIT),
+  DL("dl", OperandSize.BYTE, "edx", Kind.LOWER_8BIT),
+  DH("dh", OperandSize.BYTE, "edx", Kind.HIGHER_8BIT),
+  AX("ax", OperandSize.WORD, "eax", Kind.BIT16),
+  BX("bx", OperandSize.WORD, "ebx", Kind.BIT16),
+  CX("cx", OperandSize.WORD, "ecx", Kind.BIT16),
+  DX("dx", OperandSize.WORD, "edx", Kind.BIT16),
+  SI("si", OperandSize.WORD, "esi", Kind.BIT16),
+  DI("di", OperandSize.WORD, "edi", Kind.BIT16),
+  SP("sp", OperandSize.WORD, "esp", Kind.BIT16),
+  BP("bp", OperandSize.WORD, "ebp", Kind.BIT16),
+  IP("ip", OperandSize.WORD, "eip", Kind.BIT16),
+  EAX("eax", OperandSize.DWORD, null, Kind.BIT32),
+  EBX("ebx", OperandSize.DWORD, null, Kind.BIT32),
+  ECX("ecx", OperandSize.DWORD, null, Kind.BIT32),
+  EDX("edx", OperandSize.DWORD, null, Kind.BIT32),
+  ESI("esi", OperandSize.DWORD, null, Kind.BIT32),
+  EDI("edi", OperandSize.DWORD, null, Kind.BIT32),
+  ESP("esp", OperandSize.DWORD, null, Kind.BIT32),
+  EBP("ebp", OperandSize.DWORD, null, Kind.BIT32),
+  CS("cs", OperandSize.WORD, null, Kind.SEGMENT),
+  DS("ds", OperandSize.WORD, null, Kind.SEGMENT),
+  ES("es", OperandSize.WORD, null, Kind.SEGMENT),
+  FS("fs", OperandSize.WORD, null, Kind.SEGMENT),
+  GS("gs", OperandSize.WORD, null, Kind.SEGMENT),
+  SS("ss", OperandSize.WORD, null, Kind.SEGMENT);
+
+  /**
+   * The different classes of registers.
+   */
+  enum Kind {
+    LOWER_8BIT, HIGHER_8BIT, BIT16, BIT32, SEGMENT
+  }
+
+  /**
+   * Maps register names to registers.
+   */
+  private static final ImmutableMap<String, X86Register> registers;
+
+  static {
+    final ImmutableMap.Builder<String, X86Register> builder = ImmutableMap.builder();
+
+    for (final X86Register register : values()) {
+      builder.put(register.name, register);
+    }
+
+    registers = builder.build();
+  }
+
+  /**
+   * Name of the register as it appears in operand trees.
+   */
+  private final String name;
+
+  /**
+   * Size of the register.
+   */
+  private final OperandSize size;
+
+  /**
+   * Name of the register that contains this register or null for full registers.
+   */
+  private final String parent;
+
+  /**
+   * Class of the register.
+   */
+  private final Kind kind;
+
+  private X86Register(final String name, final OperandSize size, final String parent,
+      final Kind kind) {
+    this.name = name;
+    this.size = size;
+    this.parent = parent;
+    this.kind = kind;
+  }
+
+  /**
+   * Looks up a register by name.
+   *
+   * @param name The name of the register.
+   *
+   * @return The register or null if the name does not identify a known register.
+   */
+  static X86Register forName(final String name) {
+    return registers.get(name);
+  }
+
+  /**
+   * Returns the class of the register.
+   *
+   * @return The class of the register.
+   */
+  Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the name of the register that contains this register.
+   *
+   * @return The name of the parent register or null for full registers.
+   */
+  String getParent() {
+    return parent;
+  }
+
+  /**
+   * Returns the size of the register.
+   *
+   * @return The size of the register.
+   */
+  OperandSize getSize() {
+    return size;
+  }
+}
@@ -0,0 +1,309 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CConnectionPoolTest {
+  private static final String URL = "jdbc:pooltest:database";
+
+  private static final MockDriver DRIVER = new MockDriver();
+
+  @BeforeClass
+  public static void registerDriver() throws SQLException {
+    DriverManager.registerDriver(DRIVER);
+  }
+
+  @AfterClass
+  public static void deregisterDriver() throws SQLException {
+    DriverManager.deregisterDriver(DRIVER);
+  }
+
+  private static MockConnection handler(final Connection connection) {
+    return (MockConnection) Proxy.getInvocationHandler(connection);
+  }
+
+  @Test
+  public void testBlocksWhenExhausted() throws Exception {
+    final CConnectionPool pool = new CConnectionPool(URL, new Properties(), 1);
+    final CConnectionPool.Lease lease = pool.lease();
+
+    final AtomicReference<Connection> other = new AtomicReference<>();
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try (CConnectionPool.Lease otherLease = pool.lease()) {
+          other.set(otherLease.getConnection());
+        } catch (SQLException | InterruptedException exception) {
+          throw new IllegalStateException(exception);
+        }
+      }
+    });
+
+    thread.start();
+    thread.join(200);
+    assertTrue(thread.isAlive());
+
+    lease.close();
+    thread.join();
+
+    assertSame(lease.getConnection(), other.get());
+    assertEquals(1, pool.getIdleCount());
+    pool.close();
+  }
+
+  @Test
+  public void testDiscardsInvalidConnections() throws Exception {
+    final CConnectionPool pool = new CConnectionPool(URL, new Properties(), 2);
+
+    Connection first;
+    try (CConnectionPool.Lease lease = pool.lease()) {
+      first = lease.getConnection();
+    }
+
+    handler(first).valid = false;
+    assertEquals(1, pool.checkHealth());
+    assertTrue(handler(first).closed);
+    assertEquals(0, pool.getIdleCount());
+
+    try (CConnectionPool.Lease lease = pool.lease()) {
+      assertNotSame(first, lease.getConnection());
+    }
+
+    pool.close();
+  }
+
+  @Test
+  public void testLeaseIsReentrant() throws Exception {
+    final CConnectionPool pool = new CConnectionPool(URL, new Properties(), 2);
+
+    try (CConnectionPool.Lease outer = pool.lease()) {
+      try (CConnectionPool.Lease inner = pool.lease()) {
+        assertSame(outer.getConnection(), inner.getConnection());
+        assertSame(outer.getConnection(), pool.getLeasedConnection());
+      }
+
+      assertSame(outer.getConnection(), pool.getLeasedConnection());
+    }
+
+    assertNull(pool.getLeasedConnection());
+    assertEquals(1, pool.getIdleCount());
+    assertEquals(0, pool.getLeasedCount());
+    pool.close();
+  }
+
+  @Test
+  public void testLookupDoesNotTakeLock() throws Exception {
+    final CConnectionPool pool = new CConnectionPool(URL, new Properties(), 1);
+    final CountDownLatch leased = new CountDownLatch(1);
+    final CountDownLatch lookup = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(1);
+    final AtomicReference<Connection> found = new AtomicReference<>();
+
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try (CConnectionPool.Lease lease = pool.lease()) {
+          leased.countDown();
+          lookup.await();
+          found.set(pool.getLeasedConnection());
+          done.countDown();
+        } catch (SQLException | InterruptedException exception) {
+          throw new IllegalStateException(exception);
+        }
+      }
+    });
+
+    thread.start();
+    leased.await();
+
+    // Queries of leasing threads must not wait for other threads that hold the pool lock.
+    synchronized (pool) {
+      lookup.countDown();
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    thread.join();
+
+    assertNotNull(found.get());
+    assertEquals(1, pool.getIdleCount());
+    pool.close();
+  }
+
+  @Test
+  public void testReclaimsConnectionsOfDeadThreads() throws Exception {
+    final CConnectionPool pool = new CConnectionPool(URL, new Properties(), 1);
+
+    final AtomicReference<Connection> abandoned = new AtomicReference<>();
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          final CConnectionPool.Lease lease = pool.lease();
+          lease.getConnection().setAutoCommit(false);
+          abandoned.set(lease.getConnection());
+          lease.close();
+        } catch (SQLException | InterruptedException exception) {
+          throw new IllegalStateException(exception);
+        }
+      }
+    });
+
+    thread.start();
+    thread.join();
+
+    assertEquals(1, pool.getLeasedCount());
+
+    try (CConnectionPool.Lease lease = pool.lease()) {
+      assertSame(abandoned.get(), lease.getConnection());
+      assertTrue(handler(lease.getConnection()).rolledBack);
+      assertTrue(lease.getConnection().getAutoCommit());
+    }
+
+    pool.close();
+  }
+
+  @Test
+  public void testTransactionAffinity() throws Exception {
+    final CConnectionPool pool = new CConnectionPool(URL, new Properties(), 2);
+
+    final Connection connection;
+    try (CConnectionPool.Lease lease = pool.lease()) {
+      connection = lease.getConnection();
+      connection.setAutoCommit(false);
+    }
+
+    // The open transaction keeps the connection pinned to this thread.
+    assertSame(connection, pool.getLeasedConnection());
+    assertEquals(0, pool.getIdleCount());
+
+    try (CConnectionPool.Lease lease = pool.lease()) {
+      assertSame(connection, lease.getConnection());
+      connection.commit();
+      connection.setAutoCommit(true);
+    }
+
+    assertNull(pool.getLeasedConnection());
+    assertEquals(1, pool.getIdleCount());
+    pool.close();
+    assertTrue(handler(connection).closed);
+  }
+
+  private static final class MockConnection implements InvocationHandler {
+    private boolean autoCommit = true;
+    private volatile boolean valid = true;
+    private boolean closed = false;
+    private boolean rolledBack = false;
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+      switch (method.getName()) {
+        case "getAutoCommit":
+          return autoCommit;
+        case "setAutoCommit":
+          autoCommit = (Boolean) args[0];
+          return null;
+        case "rollback":
+          rolledBack = true;
+          return null;
+        case "commit":
+          return null;
+        case "close":
+          closed = true;
+          return null;
+        case "isClosed":
+          return closed;
+        case "isValid":
+          return valid && !closed;
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        default:
+          throw new UnsupportedOperationException(method.getName());
+      }
+    }
+  }
+
+  private static final class MockDriver implements Driver {
+    @Override
+    public boolean acceptsURL(final String url) {
+      return url.startsWith("jdbc:pooltest:");
+    }
+
+    @Override
+    public Connection connect(final String url, final Properties info) {
+      if (!acceptsURL(url)) {
+        return null;
+      }
+
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+          new Class<?>[] {Connection.class}, new MockConnection());
+    }
+
+    @Override
+    public int getMajorVersion() {
+      return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+      return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+      return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+      return false;
+    }
+  }
+}
@@ -21,12 +21,18 @@ import com.google.security.zynamics.binnavi.Database.CDatabaseConfiguration;
 import com.google.security.zynamics.binnavi.Database.Interfaces.IDatabase;
 import com.google.security.zynamics.binnavi.Database.Interfaces.IDatabaseListener;
 import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
+import com.google.security.zynamics.binnavi.Database.cache.CacheStatistics;
+import com.google.security.zynamics.binnavi.Database.cache.EdgeCache;
+import com.google.security.zynamics.binnavi.Database.cache.InstructionCache;
+import com.google.security.zynamics.binnavi.Database.cache.NodeCache;
 import com.google.security.zynamics.binnavi.debug.debugger.DebuggerTemplateManager;
 import com.google.security.zynamics.binnavi.disassembly.CProject;
 import com.google.security.zynamics.binnavi.disassembly.IDatabaseObject;
 import com.google.security.zynamics.zylib.general.ListenerProvider;
 
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class MockDatabase implements IDatabase {
   private final ListenerProvider<IDatabaseListener> listeners =
@@ -115,6 +121,15 @@ public final class MockDatabase implements IDatabase {
     throw new IllegalStateException("Not yet implemented");
   }
 
+  @Override
+  public List<CacheStatistics> getCacheStatistics() {
+    final List<CacheStatistics> statistics = new ArrayList<CacheStatistics>();
+    statistics.addAll(InstructionCache.get(provider).getStatistics());
+    statistics.addAll(NodeCache.get(provider).getStatistics());
+    statistics.addAll(EdgeCache.get(provider).getStatistics());
+    return statistics;
+  }
+
   @Override
   public CDatabaseConfiguration getConfiguration() {
     return m_descriptionX;
@@ -104,6 +104,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -1237,6 +1238,19 @@ public final class MockSqlProvider implements SQLProvider {
         new ArrayList<INaviEdge>());
   }
 
+  @Override
+  public Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> loadViews(
+      final Collection<? extends INaviView> views) {
+    final Map<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>> graphs =
+        new LinkedHashMap<INaviView, MutableDirectedGraph<INaviViewNode, INaviEdge>>();
+
+    for (final INaviView view : views) {
+      graphs.put(view, loadView(view));
+    }
+
+    return graphs;
+  }
+
   @Override
   public ImmutableBiMap<INaviView, INaviFunction> loadViewFunctionMapping(
       final List<IFlowgraphView> flowgraphs, final List<INaviFunction> functions,
@@ -1304,6 +1318,11 @@ public final class MockSqlProvider implements SQLProvider {
     return;
   }
 
+  @Override
+  public void saveEvents(final TraceList trace, final int from, final int to) {
+    // saving can not be modeled.
+  }
+
   @Override
   public void saveSettings(final CView view, final Map<String, String> settings) {}
 
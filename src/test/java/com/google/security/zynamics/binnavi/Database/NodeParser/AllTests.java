@@ -20,6 +20,6 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({CCodeNodeParserTest.class})
+@SuiteClasses({CCodeNodeParserTest.class, StreamingSqlCodeNodeProviderTest.class})
 public final class AllTests {
 }
@@ -0,0 +1,163 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.NodeParser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+import com.google.security.zynamics.zylib.disassembly.ReferenceType;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public final class StreamingSqlCodeNodeProviderTest {
+  private static final String[] COLUMNS =
+      {"node_id", "instruction_address", "operand_position", "target", "address_references_type"};
+
+  private static final int[] TYPES =
+      {Types.INTEGER, Types.NUMERIC, Types.INTEGER, Types.NUMERIC, Types.OTHER};
+
+  private static StreamingSqlCodeNodeProvider createProvider(final Object[]... rows)
+      throws SQLException {
+    return new StreamingSqlCodeNodeProvider(createResultSet(Arrays.asList(rows)));
+  }
+
+  /**
+   * Creates a forward-only result set that fails on every attempt to scroll backwards.
+   */
+  private static ResultSet createResultSet(final List<Object[]> rows) {
+    final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+        ResultSetMetaData.class.getClassLoader(), new Class<?>[] {ResultSetMetaData.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+              case "getColumnCount":
+                return COLUMNS.length;
+              case "getColumnLabel":
+                return COLUMNS[(Integer) args[0] - 1];
+              case "getColumnType":
+                return TYPES[(Integer) args[0] - 1];
+              default:
+                throw new UnsupportedOperationException(method.getName());
+            }
+          }
+        });
+
+    return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+        new Class<?>[] {ResultSet.class}, new InvocationHandler() {
+          private int m_row = -1;
+
+          @Override
+          public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+              case "getMetaData":
+                return metaData;
+              case "next":
+                m_row++;
+                return m_row < rows.size();
+              case "getObject":
+                return rows.get(m_row)[(Integer) args[0] - 1];
+              case "getString":
+                final Object value = rows.get(m_row)[(Integer) args[0] - 1];
+                return value == null ? null : value.toString();
+              default:
+                throw new UnsupportedOperationException(method.getName());
+            }
+          }
+        });
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    final StreamingSqlCodeNodeProvider provider = createProvider();
+
+    assertFalse(provider.next());
+    assertTrue(provider.isAfterLast());
+    assertFalse(provider.next());
+  }
+
+  @Test
+  public void testPrevAfterLast() throws Exception {
+    final StreamingSqlCodeNodeProvider provider =
+        createProvider(new Object[] {1, new BigDecimal(16), null, null, null});
+
+    assertTrue(provider.next());
+    assertFalse(provider.next());
+    assertTrue(provider.isAfterLast());
+
+    provider.prev();
+    assertFalse(provider.isAfterLast());
+    assertEquals(1, provider.getNodeId());
+
+    assertFalse(provider.next());
+    assertTrue(provider.isAfterLast());
+  }
+
+  @Test
+  public void testPrevAndNext() throws Exception {
+    final StreamingSqlCodeNodeProvider provider = createProvider(
+        new Object[] {1, new BigDecimal(16), 0, new BigDecimal(32), "call_direct"},
+        new Object[] {2, new BigDecimal(17), null, null, null});
+
+    assertTrue(provider.next());
+    assertEquals(new CAddress(16), provider.getInstructionAddress());
+    assertEquals(Integer.valueOf(0), provider.getOperandPosition());
+    assertEquals(new CAddress(32), provider.getReference().getTarget());
+    assertEquals(ReferenceType.CALL_DIRECT, provider.getReference().getType());
+
+    assertTrue(provider.next());
+    assertEquals(2, provider.getNodeId());
+    assertNull(provider.getOperandPosition());
+    assertNull(provider.getReference());
+
+    provider.prev();
+    assertEquals(1, provider.getNodeId());
+
+    assertTrue(provider.next());
+    assertEquals(2, provider.getNodeId());
+    assertFalse(provider.next());
+    assertTrue(provider.isAfterLast());
+  }
+
+  @Test(expected = ParserException.class)
+  public void testTwoStepsBack() throws Exception {
+    final StreamingSqlCodeNodeProvider provider = createProvider(
+        new Object[] {1, new BigDecimal(16), null, null, null},
+        new Object[] {2, new BigDecimal(17), null, null, null});
+
+    provider.next();
+    provider.next();
+    provider.prev();
+    provider.prev();
+  }
+}
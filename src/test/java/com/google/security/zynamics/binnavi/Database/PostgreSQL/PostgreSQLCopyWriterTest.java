@@ -0,0 +1,218 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.PostgreSQL;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.postgresql.copy.CopyIn;
+
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+
+@RunWith(JUnit4.class)
+public final class PostgreSQLCopyWriterTest {
+  private static final byte[] HEADER =
+      {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+  private static final class MockCopyIn implements InvocationHandler {
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private boolean active = true;
+    private boolean cancelled = false;
+    private int writes = 0;
+
+    private CopyIn create() {
+      return (CopyIn) Proxy.newProxyInstance(CopyIn.class.getClassLoader(),
+          new Class<?>[] {CopyIn.class}, this);
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+      switch (method.getName()) {
+        case "writeToCopy":
+          data.write((byte[]) args[0], (Integer) args[1], (Integer) args[2]);
+          writes++;
+          return null;
+        case "endCopy":
+          active = false;
+          return 0L;
+        case "cancelCopy":
+          active = false;
+          cancelled = true;
+          return null;
+        case "isActive":
+          return active;
+        default:
+          throw new UnsupportedOperationException(method.getName());
+      }
+    }
+  }
+
+  @Test
+  public void testBytes() throws SQLException, IOException {
+    final MockCopyIn copyIn = new MockCopyIn();
+
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(copyIn.create(), 2)) {
+      writer.startRow();
+      writer.writeBytes(new byte[] {1, 2, (byte) 0xFF});
+      writer.writeBytes(null);
+      assertEquals(1, writer.finish());
+    }
+
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    final DataOutputStream stream = new DataOutputStream(expected);
+    stream.write(HEADER);
+    stream.writeShort(2);
+    stream.writeInt(3);
+    stream.write(new byte[] {1, 2, (byte) 0xFF});
+    stream.writeInt(-1);
+    stream.writeShort(-1);
+
+    assertArrayEquals(expected.toByteArray(), copyIn.data.toByteArray());
+  }
+
+  @Test
+  public void testCancelUnfinished() throws SQLException {
+    final MockCopyIn copyIn = new MockCopyIn();
+
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(copyIn.create(), 1)) {
+      writer.startRow();
+      writer.writeInt(1);
+    }
+
+    assertTrue(copyIn.cancelled);
+  }
+
+  @Test
+  public void testEncoding() throws SQLException, IOException {
+    final MockCopyIn copyIn = new MockCopyIn();
+
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(copyIn.create(), 6)) {
+      writer.startRow();
+      writer.writeInt(17);
+      writer.writeLong(0x1000000000L);
+      writer.writeDouble(1.5);
+      writer.writeBoolean(true);
+      writer.writeText("code");
+      writer.writeInteger(null);
+      assertEquals(1, writer.finish());
+    }
+
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    final DataOutputStream stream = new DataOutputStream(expected);
+    stream.write(HEADER);
+    stream.writeShort(6);
+    stream.writeInt(4);
+    stream.writeInt(17);
+    stream.writeInt(8);
+    stream.writeLong(0x1000000000L);
+    stream.writeInt(8);
+    stream.writeDouble(1.5);
+    stream.writeInt(1);
+    stream.writeByte(1);
+    stream.writeInt(4);
+    stream.write("code".getBytes(StandardCharsets.UTF_8));
+    stream.writeInt(-1);
+    stream.writeShort(-1);
+
+    assertArrayEquals(expected.toByteArray(), copyIn.data.toByteArray());
+    assertFalse(copyIn.cancelled);
+    assertFalse(copyIn.active);
+  }
+
+  @Test
+  public void testHighAddress() throws SQLException, IOException {
+    final MockCopyIn copyIn = new MockCopyIn();
+    final CAddress address = new CAddress(new BigInteger("ffffffff80001000", 16));
+
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(copyIn.create(), 2)) {
+      writer.startRow();
+      writer.writeAddress(address);
+      writer.writeAddress(new CAddress(0x401000));
+      assertEquals(1, writer.finish());
+    }
+
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    final DataOutputStream stream = new DataOutputStream(expected);
+    stream.write(HEADER);
+    stream.writeShort(2);
+    stream.writeInt(8);
+    stream.writeLong(0xffffffff80001000L);
+    stream.writeInt(8);
+    stream.writeLong(0x401000);
+    stream.writeShort(-1);
+
+    assertArrayEquals(expected.toByteArray(), copyIn.data.toByteArray());
+
+    // Loading reads the stored bigint back into the same address.
+    assertEquals(address,
+        new CAddress(new BigInteger(String.valueOf(0xffffffff80001000L))));
+  }
+
+  @Test
+  public void testLargeData() throws SQLException {
+    final MockCopyIn copyIn = new MockCopyIn();
+
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      text.append('x');
+    }
+
+    try (PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(copyIn.create(), 1)) {
+      for (int i = 0; i < 20000; i++) {
+        writer.startRow();
+        writer.writeInt(i);
+      }
+
+      writer.startRow();
+      writer.writeText(text.toString());
+      assertEquals(20001, writer.finish());
+    }
+
+    assertTrue(copyIn.writes > 2);
+    assertEquals(HEADER.length + 20000 * 10 + 2 + 4 + 100000 + 2, copyIn.data.size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMissingValue() throws SQLException {
+    final PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(new MockCopyIn().create(), 2);
+    writer.startRow();
+    writer.writeInt(1);
+    writer.startRow();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testTooManyValues() throws SQLException {
+    final PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter(new MockCopyIn().create(), 1);
+    writer.startRow();
+    writer.writeInt(1);
+    writer.writeInt(2);
+  }
+}
@@ -19,12 +19,18 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import com.google.security.zynamics.binnavi.Database.PostgreSQL.PostgreSQLCopyWriterTest;
+import com.google.security.zynamics.binnavi.Database.cache.BoundedCacheTest;
+import com.google.security.zynamics.binnavi.Database.cache.ModuleSnapshotCacheTest;
+import com.google.security.zynamics.binnavi.Database.cache.ViewGraphCacheTest;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Notifications.parsers.PostgreSQLFunctionNotificationParserTest;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Notifications.parsers.PostgreSQLNotificationParserTest;
 import com.google.security.zynamics.binnavi.Database.PostgreSQL.Notifications.parsers.PostgreSQLViewNotificationParserTest;
 
 @RunWith(Suite.class)
 @SuiteClasses({com.google.security.zynamics.binnavi.Database.NodeParser.AllTests.class,
+    CConnectionPoolTest.class, PostgreSQLCopyWriterTest.class, BoundedCacheTest.class,
+    ModuleSnapshotCacheTest.class, ViewGraphCacheTest.class,
     PostgreSQLNotificationParserTest.class, PostgreSQLViewNotificationParserTest.class,
     PostgreSQLFunctionNotificationParserTest.class})
 public final class PostgreSQLSimpleTests {
@@ -0,0 +1,237 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.binnavi.Common.CommonTestObjects;
+import com.google.security.zynamics.binnavi.Database.MockClasses.MockSqlProvider;
+import com.google.security.zynamics.binnavi.Gui.GraphWindows.CommentDialogs.Interfaces.IComment;
+import com.google.security.zynamics.binnavi.Tagging.CTag;
+import com.google.security.zynamics.binnavi.disassembly.CCodeNode;
+import com.google.security.zynamics.binnavi.disassembly.CFunction;
+import com.google.security.zynamics.binnavi.disassembly.COperandTree;
+import com.google.security.zynamics.binnavi.disassembly.CTextNode;
+import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
+import com.google.security.zynamics.binnavi.disassembly.MockInstruction;
+import com.google.security.zynamics.binnavi.disassembly.MockView;
+import com.google.security.zynamics.binnavi.disassembly.Modules.CModule;
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+import com.google.security.zynamics.zylib.disassembly.FunctionType;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public final class BoundedCacheTest {
+  private static final Weigher<Integer, String> LENGTH_WEIGHER = new Weigher<Integer, String>() {
+    @Override
+    public int weigh(final Integer key, final String value) {
+      return value.length();
+    }
+  };
+
+  @Test
+  public void testEviction() {
+    final BoundedCache<Integer, String> cache =
+        new BoundedCache<>("Test", LENGTH_WEIGHER, 100, false);
+
+    for (int i = 0; i < 20; i++) {
+      cache.put(i, "0123456789");
+    }
+
+    final CacheStatistics statistics = cache.getStatistics();
+
+    assertTrue(statistics.getWeight() <= 100);
+    assertEquals(statistics.getSize() * 10, statistics.getWeight());
+    assertEquals(20, statistics.getSize() + statistics.getEvictionCount());
+    assertEquals(100, statistics.getMaximumWeight());
+  }
+
+  @Test
+  public void testHeldNodeSurvivesPressure() {
+    final MockSqlProvider provider = new MockSqlProvider();
+    CacheSettings.setCacheSize(provider, 1);
+    final NodeCache cache = NodeCache.get(provider);
+
+    // The node is still referenced by an open view while many other nodes are loaded.
+    final CTextNode heldNode = createNode(1, provider);
+    cache.addNodes(Lists.<INaviViewNode>newArrayList(heldNode));
+
+    for (int i = 0; i < 100; i++) {
+      final List<INaviViewNode> nodes = Lists.newArrayList();
+      for (int j = 0; j < 100; j++) {
+        nodes.add(createNode(2 + i * 100 + j, provider));
+      }
+      cache.addNodes(nodes);
+    }
+
+    System.gc();
+
+    assertSame(heldNode, cache.getNodeById(1));
+
+    final CacheStatistics statistics = cache.getStatistics().get(0);
+    assertEquals(CacheStatistics.UNBOUNDED, statistics.getMaximumWeight());
+  }
+
+  @Test
+  public void testAddressIndexIsBounded() {
+    final MockSqlProvider provider = new MockSqlProvider();
+    CacheSettings.setCacheSize(provider, 1);
+    final NodeCache cache = NodeCache.get(provider);
+    final CFunction function = createFunction(provider);
+
+    final CCodeNode heldNode = createCodeNode(1, 0x1000, function, provider);
+    cache.addNodes(Lists.<INaviViewNode>newArrayList(heldNode));
+
+    for (int i = 0; i < 20; i++) {
+      final List<INaviViewNode> nodes = Lists.newArrayList();
+      for (int j = 0; j < 1000; j++) {
+        final int nodeId = 2 + i * 1000 + j;
+        nodes.add(createCodeNode(nodeId, 0x2000 + nodeId, function, provider));
+      }
+      cache.addNodes(nodes);
+    }
+
+    final CacheStatistics statistics = cache.getStatistics().get(1);
+    assertEquals(1024L * 1024 * CacheSettings.NODE_INDEX_SHARE / 100,
+        statistics.getMaximumWeight());
+    assertTrue(statistics.getWeight() <= statistics.getMaximumWeight());
+    assertTrue(statistics.getEvictionCount() > 0);
+
+    // Nodes whose index entry was evicted are still found by address.
+    assertEquals(Lists.newArrayList(heldNode),
+        Lists.newArrayList(cache.getNodeByAddress(new CAddress(0x1000), 1)));
+  }
+
+  @Test
+  public void testCollectedNodesArePruned() {
+    final MockSqlProvider provider = new MockSqlProvider();
+    final NodeCache cache = NodeCache.get(provider);
+    final CFunction function = createFunction(provider);
+
+    final CCodeNode heldNode = createCodeNode(1, 0x1000, function, provider);
+    cache.addNodes(Lists.<INaviViewNode>newArrayList(heldNode,
+        createCodeNode(2, 0x1000, function, provider), createCodeNode(3, 0x2000, function,
+            provider)));
+
+    for (int i = 0; (i < 20) && (cache.getNodeById(2) != null || cache.getNodeById(3) != null);
+        i++) {
+      System.gc();
+    }
+
+    assertNull(cache.getNodeById(2));
+    assertNull(cache.getNodeById(3));
+
+    assertEquals(Lists.newArrayList(heldNode),
+        Lists.newArrayList(cache.getNodeByAddress(new CAddress(0x1000), 1)));
+    assertNull(cache.getNodeByAddress(new CAddress(0x2000), 1));
+
+    // Only the ID of the held node is left in the index.
+    final CacheStatistics statistics = cache.getStatistics().get(1);
+    assertEquals(1, statistics.getSize());
+    assertEquals(CacheWeights.ids(Lists.newArrayList(1)), statistics.getWeight());
+  }
+
+  @Test
+  public void testStatistics() {
+    final BoundedCache<Integer, String> cache =
+        new BoundedCache<>("Test", LENGTH_WEIGHER, 100, true);
+
+    final String value = "value";
+    cache.put(1, value);
+
+    assertEquals(value, cache.getIfPresent(1));
+    assertEquals(null, cache.getIfPresent(2));
+
+    cache.recordLoad(1000);
+    cache.recordLoad(2000);
+
+    final CacheStatistics statistics = cache.getStatistics();
+
+    assertEquals("Test", statistics.getName());
+    assertEquals(1, statistics.getHitCount());
+    assertEquals(1, statistics.getMissCount());
+    assertEquals(0.5, statistics.getHitRate(), 0.0);
+    assertEquals(2, statistics.getLoadCount());
+    assertEquals(3000, statistics.getTotalLoadTime());
+    assertEquals(5, statistics.getWeight());
+  }
+
+  @Test
+  public void testSettings() {
+    final MockSqlProvider provider = new MockSqlProvider();
+
+    assertEquals(CacheSettings.DEFAULT_CACHE_SIZE, CacheSettings.getCacheSize(provider));
+
+    CacheSettings.setCacheSize(provider, 2);
+
+    assertEquals(2, CacheSettings.getCacheSize(provider));
+    assertEquals(1024 * 1024, CacheSettings.getMaximumWeight(provider, 50));
+
+    assertEquals(CacheStatistics.UNBOUNDED,
+        InstructionCache.get(provider).getStatistics().get(0).getMaximumWeight());
+    assertEquals(2L * 1024 * 1024 * CacheSettings.EDGE_INDEX_SHARE / 100,
+        EdgeCache.get(provider).getStatistics().get(1).getMaximumWeight());
+  }
+
+  @Test
+  public void testUnknownAddress() {
+    final MockSqlProvider provider = new MockSqlProvider();
+
+    assertNull(NodeCache.get(provider).getNodeByAddress(new CAddress(0x1000), 1));
+    assertNull(EdgeCache.get(provider)
+        .getEdgeBySourceAndTarget(new CAddress(0x1000), 1, new CAddress(0x2000), 1));
+    assertEquals(2, NodeCache.get(provider).getStatistics().size());
+  }
+
+  private static CCodeNode createCodeNode(final int nodeId, final long address,
+      final CFunction function, final MockSqlProvider provider) {
+    final CCodeNode node = new CCodeNode(nodeId, 0, 0, 0, 0, Color.BLACK, Color.BLACK, false, true,
+        null, function, new LinkedHashSet<CTag>(), provider);
+    node.addInstruction(
+        new MockInstruction(new CAddress(address), "nop", new ArrayList<COperandTree>(), null),
+        null);
+    return node;
+  }
+
+  private static CFunction createFunction(final MockSqlProvider provider) {
+    final CModule module = new CModule(1, "", "", new Date(), new Date(), CommonTestObjects.MD5,
+        CommonTestObjects.SHA1, 0, 0, new CAddress(0), new CAddress(0), null, null,
+        Integer.MAX_VALUE, false, provider);
+    return new CFunction(module, new MockView(), new CAddress(0x123), "Mock Function",
+        "Mock Function", "Mock Description", 0, 0, 0, 0, FunctionType.NORMAL, "", 0, null, null,
+        null, provider);
+  }
+
+  private static CTextNode createNode(final int nodeId, final MockSqlProvider provider) {
+    return new CTextNode(nodeId, 0, 0, 0, 0, Color.RED, false, true, new HashSet<CTag>(),
+        Lists.<IComment>newArrayList(), provider);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.io.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public final class ModuleSnapshotCacheTest {
+  private static final String URL = "jdbc:postgresql://localhost/test";
+
+  private File m_directory;
+
+  private ModuleSnapshotCache m_cache;
+
+  @Before
+  public void setUp() {
+    m_directory = Files.createTempDir();
+    m_cache = new ModuleSnapshotCache(m_directory);
+  }
+
+  @After
+  public void tearDown() {
+    for (final File file : m_directory.listFiles()) {
+      file.delete();
+    }
+
+    m_directory.delete();
+  }
+
+  private Map<Integer, int[]> createViewCounts() {
+    final Map<Integer, int[]> counts = new HashMap<Integer, int[]>();
+    counts.put(1, new int[] {10, 12});
+    counts.put(2, new int[] {-1, -1});
+    counts.put(3, new int[] {1, 0});
+    return counts;
+  }
+
+  @Test
+  public void testDamagedSnapshot() throws IOException {
+    m_cache.writeViewCounts(URL, 5, 100, createViewCounts());
+
+    for (final File file : m_directory.listFiles()) {
+      try (final RandomAccessFile stream = new RandomAccessFile(file, "rw")) {
+        stream.setLength(stream.length() - 3);
+      }
+    }
+
+    assertNull(m_cache.readViewCounts(URL, 5, 100));
+  }
+
+  @Test
+  public void testFunctionCounts() {
+    final Map<Long, int[]> counts = new HashMap<Long, int[]>();
+    counts.put(0x401000L, new int[] {5, 6, 2, 3});
+    counts.put(0xFFFFFFFF00000000L, new int[] {-1, -1, -1, -1});
+
+    m_cache.writeFunctionCounts(URL, 5, 100, counts);
+
+    final Map<Long, int[]> loaded = m_cache.readFunctionCounts(URL, 5, 100);
+
+    assertEquals(2, loaded.size());
+    assertArrayEquals(new int[] {5, 6, 2, 3}, loaded.get(0x401000L));
+    assertArrayEquals(new int[] {-1, -1, -1, -1}, loaded.get(0xFFFFFFFF00000000L));
+    assertNull(m_cache.readViewCounts(URL, 5, 100));
+  }
+
+  @Test
+  public void testInvalidate() {
+    m_cache.writeViewCounts(URL, 5, 100, createViewCounts());
+    m_cache.invalidate(URL, 5);
+
+    assertNull(m_cache.readViewCounts(URL, 5, 100));
+    assertEquals(0, m_directory.listFiles().length);
+  }
+
+  @Test
+  public void testStaleSnapshot() {
+    m_cache.writeViewCounts(URL, 5, 100, createViewCounts());
+
+    assertNull(m_cache.readViewCounts(URL, 5, 101));
+    assertNull(m_cache.readViewCounts(URL, 6, 100));
+    assertNull(m_cache.readViewCounts("jdbc:postgresql://localhost/other", 5, 100));
+  }
+
+  @Test
+  public void testViewCounts() {
+    m_cache.writeViewCounts(URL, 5, 100, createViewCounts());
+
+    final Map<Integer, int[]> loaded = m_cache.readViewCounts(URL, 5, 100);
+
+    assertEquals(3, loaded.size());
+    assertArrayEquals(new int[] {10, 12}, loaded.get(1));
+    assertArrayEquals(new int[] {-1, -1}, loaded.get(2));
+    assertArrayEquals(new int[] {1, 0}, loaded.get(3));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Database.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.security.zynamics.binnavi.disassembly.INaviEdge;
+import com.google.security.zynamics.binnavi.disassembly.INaviViewNode;
+import com.google.security.zynamics.binnavi.disassembly.MockView;
+import com.google.security.zynamics.zylib.types.graphs.MutableDirectedGraph;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+@RunWith(JUnit4.class)
+public final class ViewGraphCacheTest {
+  private static MutableDirectedGraph<INaviViewNode, INaviEdge> createGraph() {
+    return new MutableDirectedGraph<INaviViewNode, INaviEdge>(new ArrayList<INaviViewNode>(),
+        new ArrayList<INaviEdge>());
+  }
+
+  @After
+  public void tearDown() {
+    ViewGraphCache.instance().setCacheSize(ViewGraphCache.DEFAULT_CACHE_SIZE);
+  }
+
+  @Test
+  public void testModifiedView() {
+    final MockView view = new MockView();
+    view.getConfiguration().setModificationDateInternal(new Date(1000));
+
+    ViewGraphCache.instance().add(view, createGraph(), 0);
+
+    view.getConfiguration().setModificationDateInternal(new Date(2000));
+
+    assertNull(ViewGraphCache.instance().take(view));
+    assertFalse(ViewGraphCache.instance().contains(view));
+  }
+
+  @Test
+  public void testSetCacheSize() {
+    final MockView view = new MockView();
+
+    ViewGraphCache.instance().add(view, createGraph(), 0);
+    ViewGraphCache.instance().setCacheSize(ViewGraphCache.DEFAULT_CACHE_SIZE + 1);
+
+    assertEquals(ViewGraphCache.DEFAULT_CACHE_SIZE + 1, ViewGraphCache.instance().getCacheSize());
+    assertFalse(ViewGraphCache.instance().contains(view));
+  }
+
+  @Test
+  public void testTake() {
+    final MockView view = new MockView();
+    final MutableDirectedGraph<INaviViewNode, INaviEdge> graph = createGraph();
+
+    ViewGraphCache.instance().add(view, graph, 0);
+
+    assertTrue(ViewGraphCache.instance().contains(view));
+    assertSame(graph, ViewGraphCache.instance().take(view));
+    assertFalse(ViewGraphCache.instance().contains(view));
+    assertNull(ViewGraphCache.instance().take(view));
+  }
+}
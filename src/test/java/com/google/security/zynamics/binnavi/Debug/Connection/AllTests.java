@@ -20,7 +20,9 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({CAbstractConnectionTest.class, com.google.security.zynamics.binnavi.Debug.Connection.Helpers.AllTests.class,
+@SuiteClasses({CAbstractConnectionTest.class, ChannelReaderTest.class, DebugConnectionTest.class,
+    PipeFetcherTest.class,
+    com.google.security.zynamics.binnavi.Debug.Connection.Helpers.AllTests.class,
     com.google.security.zynamics.binnavi.Debug.Connection.Packets.AllTests.class})
 public final class AllTests {
 }
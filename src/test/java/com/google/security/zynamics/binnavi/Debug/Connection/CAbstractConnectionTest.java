@@ -84,6 +84,11 @@ public final class CAbstractConnectionTest {
     public int read(final byte[] data, final int i, final int length) {
       return 0;
     }
+
+    @Override
+    public long readDWord() {
+      return 0;
+    }
   }
 
   @SuppressWarnings("unused")
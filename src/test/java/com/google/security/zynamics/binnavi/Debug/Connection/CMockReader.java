@@ -94,6 +94,15 @@ public final class CMockReader implements ClientReader {
     return length;
   }
 
+  @Override
+  public long readDWord() throws IOException {
+    long dword = 0;
+    for (int i = 0; i < 4; i++) {
+      dword = (dword << 8) | read();
+    }
+    return dword;
+  }
+
   public void setMessages(final byte[][] messages) {
     m_msgcounter = -1;
     m_messages = messages;
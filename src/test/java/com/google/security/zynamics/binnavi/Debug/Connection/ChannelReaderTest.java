@@ -0,0 +1,116 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Debug.Connection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.google.security.zynamics.binnavi.debug.connection.helpers.DebugProtocolHelper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+@RunWith(JUnit4.class)
+public final class ChannelReaderTest {
+  private static byte[] createData(final int size) {
+    final byte[] data = new byte[size];
+
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) (i * 31);
+    }
+
+    return data;
+  }
+
+  @Test
+  public void testChannelReader() throws IOException {
+    final byte[] data = createData(200000);
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    stream.write(new byte[] {0x12, 0x34, 0x56, 0x78});
+    stream.write(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F});
+    stream.write(data);
+
+    final ChannelReader reader = new ChannelReader(new TrickleChannel(stream.toByteArray(), 3));
+
+    assertEquals(0x12345678L, DebugProtocolHelper.readDWord(reader));
+    assertEquals(0xFFFFFFFFL, reader.readDWord());
+    assertEquals(0x7F, reader.read());
+
+    final byte[] received = new byte[data.length];
+    int offset = 0;
+
+    while (offset < received.length) {
+      offset += reader.read(received, offset, received.length - offset);
+    }
+
+    assertArrayEquals(data, received);
+    assertEquals(0, reader.available());
+    assertEquals(-1, reader.read());
+    assertEquals(-1, reader.read(received, 0, 10));
+
+    try {
+      reader.readDWord();
+      fail();
+    } catch (final IOException exception) {
+      // Expected
+    }
+  }
+
+  /**
+   * Channel that returns at most a few bytes per read.
+   */
+  private static class TrickleChannel implements ReadableByteChannel {
+    private final ByteBuffer m_data;
+
+    private final int m_chunkSize;
+
+    public TrickleChannel(final byte[] data, final int chunkSize) {
+      m_data = ByteBuffer.wrap(data);
+      m_chunkSize = chunkSize;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public int read(final ByteBuffer destination) {
+      if (!m_data.hasRemaining()) {
+        return -1;
+      }
+
+      final int count =
+          Math.min(m_chunkSize, Math.min(destination.remaining(), m_data.remaining()));
+      final ByteBuffer chunk = m_data.slice();
+      chunk.limit(count);
+      destination.put(chunk);
+      m_data.position(m_data.position() + count);
+      return count;
+    }
+  }
+}
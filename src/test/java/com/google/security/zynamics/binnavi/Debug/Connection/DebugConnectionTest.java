@@ -0,0 +1,135 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Debug.Connection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.security.zynamics.binnavi.debug.connection.DebugConnection;
+import com.google.security.zynamics.binnavi.debug.connection.interfaces.DebugEventListener;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerClosedUnexpectedlyReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.ReadMemoryReply;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public final class DebugConnectionTest {
+  private static final String REGISTERS =
+      "<Registers><Thread id=\"5\"><Register name=\"eax\" value=\"123\" memory=\"\"/>"
+      + "<Register name=\"eip\" value=\"401000\" memory=\"\" pc=\"true\"/></Thread></Registers>";
+
+  private static byte[] createData(final int size) {
+    final byte[] data = new byte[size];
+
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) (i * 31);
+    }
+
+    return data;
+  }
+
+  @Test
+  public void testReceive() throws Exception {
+    final byte[] data = createData(1024 * 1024);
+    final ByteArrayOutputStream replies = new ByteArrayOutputStream();
+    replies.write(LoopbackDebugServer.createReadMemoryReply(7, 0x401000, data));
+    replies.write(LoopbackDebugServer.createEchoBreakpointHitReply(8, 5, REGISTERS));
+
+    try (final LoopbackDebugServer server = new LoopbackDebugServer(replies.toByteArray(), 1)) {
+      final DebugConnection connection = new DebugConnection("127.0.0.1", server.getPort());
+      final QueueListener listener = new QueueListener();
+      final LinkedBlockingQueue<DebuggerReply> received = listener.m_replies;
+      connection.addEventListener(listener);
+
+      connection.startConnection();
+
+      try {
+        final ReadMemoryReply memoryReply =
+            (ReadMemoryReply) received.poll(10, TimeUnit.SECONDS);
+        assertEquals(7, memoryReply.getId());
+        assertEquals(0x401000, memoryReply.getAddress().toLong());
+        assertArrayEquals(data, memoryReply.getData());
+
+        final EchoBreakpointHitReply hitReply =
+            (EchoBreakpointHitReply) received.poll(10, TimeUnit.SECONDS);
+        assertEquals(8, hitReply.getId());
+        assertEquals(5, hitReply.getThreadId());
+        assertEquals("eax",
+            hitReply.getRegisterValues().getThreads().get(0).getRegisters().get(0).getName());
+
+        // The server closes the connection after the last reply.
+        assertTrue(received.poll(10, TimeUnit.SECONDS) instanceof DebuggerClosedUnexpectedlyReply);
+      } finally {
+        // Listeners are only weakly referenced by the connection.
+        connection.removeEventListener(listener);
+        connection.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void testReceiveBatchedHits() throws Exception {
+    final String registers = REGISTERS.replace("401000", "402000");
+    final byte[] replies = LoopbackDebugServer.createEchoBreakpointHitsReply(9,
+        new int[] {5, 5}, new String[] {REGISTERS, registers});
+
+    try (final LoopbackDebugServer server = new LoopbackDebugServer(replies, 1)) {
+      final DebugConnection connection = new DebugConnection("127.0.0.1", server.getPort());
+      final QueueListener listener = new QueueListener();
+      final LinkedBlockingQueue<DebuggerReply> received = listener.m_replies;
+      connection.addEventListener(listener);
+
+      connection.startConnection();
+
+      try {
+        final EchoBreakpointHitsReply hitsReply =
+            (EchoBreakpointHitsReply) received.poll(10, TimeUnit.SECONDS);
+        assertEquals(9, hitsReply.getId());
+        assertEquals(2, hitsReply.getHits().size());
+
+        final EchoBreakpointHitReply secondHit = hitsReply.getHits().get(1);
+        assertTrue(secondHit.success());
+        assertEquals(5, secondHit.getThreadId());
+        assertEquals(0x402000, secondHit.getRegisterValues().getThreads().get(0).getRegisters()
+            .get(1).getValue().longValue());
+
+        assertTrue(received.poll(10, TimeUnit.SECONDS) instanceof DebuggerClosedUnexpectedlyReply);
+      } finally {
+        connection.removeEventListener(listener);
+        connection.shutdown();
+      }
+    }
+  }
+
+  private static class QueueListener implements DebugEventListener {
+    private final LinkedBlockingQueue<DebuggerReply> m_replies = new LinkedBlockingQueue<>();
+
+    @Override
+    public void receivedEvent(final DebuggerReply reply) {
+      m_replies.add(reply);
+    }
+  }
+}
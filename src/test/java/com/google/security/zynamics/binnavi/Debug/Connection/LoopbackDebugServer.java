@@ -0,0 +1,176 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Debug.Connection;
+
+import com.google.security.zynamics.binnavi.CUtilityFunctions;
+import com.google.security.zynamics.binnavi.debug.connection.DebugCommandType;
+import com.google.security.zynamics.binnavi.debug.connection.packets.arguments.DebugMessageAddressArgument;
+import com.google.security.zynamics.binnavi.debug.connection.packets.arguments.DebugMessageIntegerArgument;
+import com.google.security.zynamics.binnavi.debug.connection.packets.arguments.DebugMessageRawArgument;
+import com.google.security.zynamics.binnavi.debug.connection.packets.commands.DebugCommand;
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Stand-in for a debug client that listens on the loopback interface. Every client that connects
+ * receives the authentication message followed by a fixed reply stream, after which the server
+ * closes the connection. Commands sent by the client are ignored.
+ */
+public final class LoopbackDebugServer implements Closeable {
+  /**
+   * The authentication message every debug client sends first.
+   */
+  private static final byte[] AUTHENTICATION = "NAVI".getBytes();
+
+  /**
+   * Channel that accepts the connections.
+   */
+  private final ServerSocketChannel m_server;
+
+  /**
+   * The replies sent to every client.
+   */
+  private final byte[] m_replies;
+
+  /**
+   * How often the replies are sent to every client.
+   */
+  private final int m_repetitions;
+
+  /**
+   * Creates a new server and starts listening on a free port.
+   *
+   * @param replies The replies sent to every client.
+   * @param repetitions How often the replies are sent to every client.
+   *
+   * @throws IOException Thrown if the server could not be started.
+   */
+  public LoopbackDebugServer(final byte[] replies, final int repetitions) throws IOException {
+    m_replies = replies.clone();
+    m_repetitions = repetitions;
+    m_server = ServerSocketChannel.open();
+    m_server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        serve();
+      }
+    }, "Loopback Debug Server");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Creates the bytes of an echo breakpoint hit reply.
+   *
+   * @param packetId The packet ID of the reply.
+   * @param tid The thread that hit the echo breakpoint.
+   * @param registers The register values in the XML format of the debug client.
+   *
+   * @return The bytes of the reply.
+   */
+  public static byte[] createEchoBreakpointHitReply(final int packetId, final int tid,
+      final String registers) {
+    final DebugCommand reply = new DebugCommand(DebugCommandType.RESP_BPE_HIT, packetId);
+    reply.addArgument(new DebugMessageIntegerArgument(tid));
+    reply.addArgument(new DebugMessageRawArgument(registers.getBytes()));
+    return reply.toByteArray();
+  }
+
+  /**
+   * Creates the bytes of a batched echo breakpoint hit reply.
+   *
+   * @param packetId The packet ID of the reply.
+   * @param tids The threads that hit the echo breakpoints, one per hit.
+   * @param registers The register values in the XML format of the debug client, one per hit.
+   *
+   * @return The bytes of the reply.
+   */
+  public static byte[] createEchoBreakpointHitsReply(final int packetId, final int[] tids,
+      final String[] registers) {
+    final DebugCommand reply = new DebugCommand(DebugCommandType.RESP_BPE_HITS, packetId);
+    for (int i = 0; i < tids.length; i++) {
+      reply.addArgument(new DebugMessageIntegerArgument(tids[i]));
+      reply.addArgument(new DebugMessageRawArgument(registers[i].getBytes()));
+    }
+    return reply.toByteArray();
+  }
+
+  /**
+   * Creates the bytes of a successful read memory reply.
+   *
+   * @param packetId The packet ID of the reply.
+   * @param address The start address of the memory.
+   * @param data The memory content.
+   *
+   * @return The bytes of the reply.
+   */
+  public static byte[] createReadMemoryReply(final int packetId, final long address,
+      final byte[] data) {
+    final DebugCommand reply =
+        new DebugCommand(DebugCommandType.RESP_READ_MEMORY_SUCCESS, packetId);
+    reply.addArgument(new DebugMessageAddressArgument(new CAddress(address)));
+    reply.addArgument(new DebugMessageRawArgument(data));
+    return reply.toByteArray();
+  }
+
+  /**
+   * Accepts clients and sends them the replies until the server is closed.
+   */
+  private void serve() {
+    while (m_server.isOpen()) {
+      try (final SocketChannel client = m_server.accept()) {
+        client.write(ByteBuffer.wrap(AUTHENTICATION));
+
+        final ByteBuffer replies = ByteBuffer.wrap(m_replies);
+
+        for (int i = 0; i < m_repetitions; i++) {
+          replies.rewind();
+
+          while (replies.hasRemaining()) {
+            client.write(replies);
+          }
+        }
+      } catch (final IOException exception) {
+        if (m_server.isOpen()) {
+          CUtilityFunctions.logException(exception);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    m_server.close();
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return The port of the server.
+   */
+  public int getPort() {
+    return m_server.socket().getLocalPort();
+  }
+}
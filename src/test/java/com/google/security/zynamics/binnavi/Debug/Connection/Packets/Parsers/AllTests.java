@@ -20,6 +20,6 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({CRegisterValuesParserTest.class})
+@SuiteClasses({BinaryRegisterValuesParserTest.class, CRegisterValuesParserTest.class})
 public final class AllTests {
 }
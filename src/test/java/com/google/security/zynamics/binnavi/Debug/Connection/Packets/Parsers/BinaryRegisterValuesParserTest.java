@@ -0,0 +1,117 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Debug.Connection.Packets.Parsers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.binnavi.debug.connection.packets.parsers.BinaryRegisterValuesParser;
+import com.google.security.zynamics.binnavi.debug.connection.packets.parsers.MessageParserException;
+import com.google.security.zynamics.binnavi.debug.connection.packets.parsers.RegisterValuesParser;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValue;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValues;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.ThreadRegisters;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+public final class BinaryRegisterValuesParserTest {
+  private static final String XML =
+      "<Registers><Thread id=\"5\"><Register name=\"eax\" value=\"123\" memory=\"\"/></Thread>"
+      + "</Registers>";
+
+  private static RegisterValues createValues() {
+    return new RegisterValues(Lists.newArrayList(
+        new ThreadRegisters(3607910890L, Lists.newArrayList(
+            new RegisterValue("EAX", BigInteger.valueOf(0x1a1eb4), new byte[] {1, 2, 3}, false,
+                false),
+            new RegisterValue("ESP", BigInteger.ZERO, new byte[0], false, true),
+            new RegisterValue("RIP", new BigInteger("ffffffff80001000", 16), new byte[0], true,
+                false))),
+        new ThreadRegisters(7, Lists.<RegisterValue>newArrayList())));
+  }
+
+  @Test
+  public void testIsBinary() {
+    assertTrue(BinaryRegisterValuesParser.isBinary(BinaryRegisterValuesWriter.write(
+        createValues())));
+    assertFalse(BinaryRegisterValuesParser.isBinary(XML.getBytes()));
+    assertFalse(BinaryRegisterValuesParser.isBinary(new byte[] {0x42}));
+  }
+
+  @Test
+  public void testParse() throws MessageParserException {
+    final RegisterValues values =
+        RegisterValuesParser.parse(BinaryRegisterValuesWriter.write(createValues()));
+
+    assertEquals(2, values.getThreads().size());
+
+    final ThreadRegisters thread = values.getThreads().get(0);
+    assertEquals(3607910890L, thread.getTid());
+    assertEquals(3, thread.getRegisters().size());
+
+    final RegisterValue eax = thread.getRegisters().get(0);
+    assertEquals("EAX", eax.getName());
+    assertEquals(BigInteger.valueOf(0x1a1eb4), eax.getValue());
+    assertArrayEquals(new byte[] {1, 2, 3}, eax.getMemory());
+    assertFalse(eax.isPc());
+    assertFalse(eax.isSp());
+
+    final RegisterValue esp = thread.getRegisters().get(1);
+    assertEquals(BigInteger.ZERO, esp.getValue());
+    assertTrue(esp.isSp());
+
+    final RegisterValue rip = thread.getRegisters().get(2);
+    assertEquals(new BigInteger("ffffffff80001000", 16), rip.getValue());
+    assertTrue(rip.isPc());
+
+    assertEquals(7, values.getThreads().get(1).getTid());
+    assertTrue(values.getThreads().get(1).getRegisters().isEmpty());
+  }
+
+  @Test
+  public void testTruncated() {
+    final byte[] data = BinaryRegisterValuesWriter.write(createValues());
+
+    for (final int length : new int[] {6, 20, data.length - 1}) {
+      try {
+        BinaryRegisterValuesParser.parse(Arrays.copyOf(data, length));
+        fail();
+      } catch (final MessageParserException exception) {
+        // Expected
+      }
+    }
+  }
+
+  @Test
+  public void testXmlFallback() throws MessageParserException {
+    // Parsing twice makes sure the cached document builder can be reused.
+    for (int i = 0; i < 2; i++) {
+      final RegisterValues values = RegisterValuesParser.parse(XML.getBytes());
+      assertEquals(5, values.getThreads().get(0).getTid());
+      assertEquals("eax", values.getThreads().get(0).getRegisters().get(0).getName());
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Debug.Connection.Packets.Parsers;
+
+import com.google.security.zynamics.binnavi.debug.connection.packets.parsers.BinaryRegisterValuesParser;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValue;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValues;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.ThreadRegisters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes register values in the binary format of {@link BinaryRegisterValuesParser} like a debug
+ * client does.
+ */
+public final class BinaryRegisterValuesWriter {
+  private BinaryRegisterValuesWriter() {}
+
+  private static byte[] toUnsignedBytes(final BigInteger value) {
+    final byte[] bytes = value.toByteArray();
+    return (bytes.length > 1) && (bytes[0] == 0) ? Arrays.copyOfRange(bytes, 1, bytes.length)
+        : bytes;
+  }
+
+  public static byte[] write(final RegisterValues values) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream stream = new DataOutputStream(bytes);
+
+    try {
+      stream.writeInt(BinaryRegisterValuesParser.MAGIC);
+      stream.writeInt(values.getThreads().size());
+
+      for (final ThreadRegisters thread : values) {
+        stream.writeInt((int) thread.getTid());
+        stream.writeInt(thread.getRegisters().size());
+
+        for (final RegisterValue register : thread) {
+          stream.writeByte((register.isPc() ? BinaryRegisterValuesParser.FLAG_PC : 0)
+              | (register.isSp() ? BinaryRegisterValuesParser.FLAG_SP : 0));
+
+          final byte[] name = register.getName().getBytes(StandardCharsets.US_ASCII);
+          stream.writeByte(name.length);
+          stream.write(name);
+
+          final byte[] value = toUnsignedBytes(register.getValue());
+          stream.writeByte(value.length);
+          stream.write(value);
+
+          stream.writeInt(register.getMemory().length);
+          stream.write(register.getMemory());
+        }
+      }
+    } catch (final IOException exception) {
+      throw new IllegalStateException(exception);
+    }
+
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Debug.Connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.binnavi.debug.connection.PipeFetcher;
+import com.google.security.zynamics.binnavi.debug.connection.interfaces.DebugEventListener;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerClosedUnexpectedlyReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.ReadMemoryReply;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValue;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.RegisterValues;
+import com.google.security.zynamics.binnavi.debug.models.targetinformation.ThreadRegisters;
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public final class PipeFetcherTest {
+  private static EchoBreakpointHitReply createHit(final long address) {
+    final RegisterValue pc =
+        new RegisterValue("eip", BigInteger.valueOf(address), new byte[0], true, false);
+    return new EchoBreakpointHitReply(0, 0, 1, new RegisterValues(
+        Lists.<ThreadRegisters>newArrayList(new ThreadRegisters(1, Lists.newArrayList(pc)))));
+  }
+
+  private static List<DebuggerReply> fetch(final LinkedBlockingQueue<DebuggerReply> queue,
+      final int count) throws InterruptedException {
+    final PipeFetcher fetcher = new PipeFetcher(queue);
+    final QueueListener listener = new QueueListener();
+    fetcher.addEventListener(listener);
+
+    final Thread thread = new Thread(fetcher);
+    thread.start();
+
+    try {
+      final List<DebuggerReply> received = Lists.newArrayList();
+
+      for (int i = 0; i < count; i++) {
+        received.add(listener.m_replies.poll(10, TimeUnit.SECONDS));
+      }
+
+      return received;
+    } finally {
+      fetcher.shutdown();
+      thread.interrupt();
+      thread.join();
+      fetcher.removeEventListener(listener);
+    }
+  }
+
+  @Test
+  public void testCoalesceHits() throws InterruptedException {
+    final LinkedBlockingQueue<DebuggerReply> queue = new LinkedBlockingQueue<>();
+
+    final EchoBreakpointHitReply hit1 = createHit(0x1000);
+    final EchoBreakpointHitReply hit2 = createHit(0x2000);
+    final EchoBreakpointHitReply hit3 = createHit(0x3000);
+    final EchoBreakpointHitReply hit4 = createHit(0x4000);
+    final EchoBreakpointHitReply hit5 = createHit(0x5000);
+    final EchoBreakpointHitReply hit6 = createHit(0x6000);
+    final ReadMemoryReply memory = new ReadMemoryReply(0, 0, new CAddress(0x1000), new byte[1]);
+    final DebuggerClosedUnexpectedlyReply closed = new DebuggerClosedUnexpectedlyReply();
+
+    queue.add(hit1);
+    queue.add(hit2);
+    queue.add(memory);
+    queue.add(hit3);
+    queue.add(new EchoBreakpointHitsReply(0, 0, Lists.newArrayList(hit4, hit5)));
+    queue.add(closed);
+    queue.add(hit6);
+
+    final List<DebuggerReply> received = fetch(queue, 5);
+
+    // Consecutive hits are merged but never moved past other events.
+    assertEquals(Lists.newArrayList(hit1, hit2),
+        ((EchoBreakpointHitsReply) received.get(0)).getHits());
+    assertSame(memory, received.get(1));
+    assertEquals(Lists.newArrayList(hit3, hit4, hit5),
+        ((EchoBreakpointHitsReply) received.get(2)).getHits());
+    assertSame(closed, received.get(3));
+
+    // A single hit is delivered as it is.
+    assertSame(hit6, received.get(4));
+  }
+
+  @Test
+  public void testMaximumBatchSize() throws InterruptedException {
+    final LinkedBlockingQueue<DebuggerReply> queue = new LinkedBlockingQueue<>();
+
+    for (int i = 0; i < PipeFetcher.MAX_COALESCED_HITS + 2; i++) {
+      queue.add(createHit(0x1000 + i));
+    }
+
+    final List<DebuggerReply> received = fetch(queue, 2);
+
+    assertEquals(PipeFetcher.MAX_COALESCED_HITS,
+        ((EchoBreakpointHitsReply) received.get(0)).getHits().size());
+    assertEquals(2, ((EchoBreakpointHitsReply) received.get(1)).getHits().size());
+    assertTrue(queue.isEmpty());
+  }
+
+  private static class QueueListener implements DebugEventListener {
+    private final LinkedBlockingQueue<DebuggerReply> m_replies = new LinkedBlockingQueue<>();
+
+    @Override
+    public void receivedEvent(final DebuggerReply reply) {
+      m_replies.add(reply);
+    }
+  }
+}
@@ -26,6 +26,7 @@ import com.google.security.zynamics.binnavi.debug.connection.packets.replies.Can
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DebuggerClosedUnexpectedlyReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.DetachReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitReply;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointSetReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointsRemovedReply;
 import com.google.security.zynamics.binnavi.debug.connection.packets.replies.ExceptionOccurredReply;
@@ -146,6 +147,10 @@ public final class MockEventListener implements IDebugEventListener {
   public void receivedReply(final EchoBreakpointHitReply reply) {
   }
 
+  @Override
+  public void receivedReply(final EchoBreakpointHitsReply reply) {
+  }
+
   @Override
   public void receivedReply(final EchoBreakpointSetReply reply) {
     for (final Pair<RelocatedAddress, Integer> resultPair : reply.getAddresses()) {
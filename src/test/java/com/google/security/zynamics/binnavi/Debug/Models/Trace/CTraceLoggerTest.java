@@ -16,13 +16,16 @@ limitations under the License.
 package com.google.security.zynamics.binnavi.Debug.Models.Trace;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.security.zynamics.binnavi.Common.CommonTestObjects;
 import com.google.security.zynamics.binnavi.Database.MockClasses.MockSqlProvider;
 import com.google.security.zynamics.binnavi.Debug.Debugger.DebuggerMessageBuilder;
 import com.google.security.zynamics.binnavi.Debug.Debugger.MockDebugger;
 import com.google.security.zynamics.binnavi.debug.connection.packets.parsers.MessageParserException;
+import com.google.security.zynamics.binnavi.debug.connection.packets.replies.EchoBreakpointHitsReply;
 import com.google.security.zynamics.binnavi.debug.debugger.AbstractDebugger;
 import com.google.security.zynamics.binnavi.debug.debugger.DebugExceptionWrapper;
 import com.google.security.zynamics.binnavi.debug.debugger.ModuleTargetSettings;
@@ -238,6 +241,71 @@ public final class CTraceLoggerTest {
     debugger.close();
   }
 
+  @Test
+  public void testHitEchoBreakpointBatch() throws DebugExceptionWrapper, MessageParserException,
+      SecurityException, IllegalAccessException, NoSuchFieldException {
+    // Scenario: Echo breakpoint hits arrive in batches
+
+    final ITraceListProvider provider = new MockTraceListProvider();
+    final MockDebugger debugger = new MockDebugger(new ModuleTargetSettings(module));
+
+    final MockModule module = new MockModule();
+
+    debugger.setAddressTranslator(module, new CAddress(0), new CAddress(0x1000));
+
+    debugger.connect();
+
+    final TraceLogger logger = new TraceLogger(provider, debugger);
+
+    final MockTraceLoggerListener listener = new MockTraceLoggerListener();
+    logger.addListener(listener);
+
+    final MockSqlProvider sqlProvider = new MockSqlProvider();
+
+    final TraceList trace = new TraceList(1, "Foo", "Bar", sqlProvider);
+
+    final MockListListener listListener = new MockListListener();
+    trace.addListener(listListener);
+
+    final Set<BreakpointAddress> addresses = new HashSet<BreakpointAddress>();
+
+    addresses.add(new BreakpointAddress(module, new UnrelocatedAddress(new CAddress(0x100))));
+    addresses.add(new BreakpointAddress(module, new UnrelocatedAddress(new CAddress(0x200))));
+
+    logger.start(trace, addresses, 2);
+
+    final DebuggerSynchronizer m_synchronizer =
+        (DebuggerSynchronizer) ReflectionHelpers.getField(AbstractDebugger.class, debugger,
+            "synchronizer");
+
+    // The third hit at 0x1100 comes after its echo breakpoint was removed and is not logged.
+    m_synchronizer.receivedEvent(new EchoBreakpointHitsReply(0, 0, Lists.newArrayList(
+        DebuggerMessageBuilder.buildEchoBreakpointHit(new RelocatedAddress(new CAddress(0x1100))),
+        DebuggerMessageBuilder.buildEchoBreakpointHit(new RelocatedAddress(new CAddress(0x1200))),
+        DebuggerMessageBuilder.buildEchoBreakpointHit(new RelocatedAddress(new CAddress(0x1100))),
+        DebuggerMessageBuilder.buildEchoBreakpointHit(
+            new RelocatedAddress(new CAddress(0x1100))))));
+
+    assertEquals(3, trace.getEventCount());
+    assertEquals("++-", listener.events);
+
+    // The trace list listeners are notified once for all events.
+    assertTrue(listListener.events.startsWith("[") && listListener.events.endsWith("]"));
+    assertEquals(3, listListener.events.split(";").length - 1);
+
+    m_synchronizer.receivedEvent(new EchoBreakpointHitsReply(0, 0, Lists.newArrayList(
+        DebuggerMessageBuilder.buildEchoBreakpointHit(new RelocatedAddress(new CAddress(0x1200))),
+        DebuggerMessageBuilder.buildEchoBreakpointHit(
+            new RelocatedAddress(new CAddress(0x1200))))));
+
+    assertEquals(4, trace.getEventCount());
+    assertEquals("++--!", listener.events);
+
+    logger.stop();
+
+    debugger.close();
+  }
+
   @Test
   public void testOverwrittenAllEchoBreakpoints() throws DebugExceptionWrapper {
     // Scenario: All echo breakpoints of the trace are overwritten by regular breakpoints
@@ -19,6 +19,8 @@ import com.google.security.zynamics.binnavi.debug.models.trace.TraceList;
 import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceEvent;
 import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceListListener;
 
+import java.util.List;
+
 
 public final class MockListListener implements ITraceListListener {
   public String events = "";
@@ -37,4 +39,13 @@ public final class MockListListener implements ITraceListListener {
   public void eventAdded(final TraceList trace, final ITraceEvent event) {
     events += event.getOffset().getAddress().getAddress().toHexString() + ":" + event + ";";
   }
+
+  @Override
+  public void eventsAdded(final TraceList trace, final List<ITraceEvent> addedEvents) {
+    events += "[";
+    for (final ITraceEvent event : addedEvents) {
+      eventAdded(trace, event);
+    }
+    events += "]";
+  }
 }
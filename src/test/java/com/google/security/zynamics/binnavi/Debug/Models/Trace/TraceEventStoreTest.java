@@ -0,0 +1,192 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Debug.Models.Trace;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.binnavi.Common.CommonTestObjects;
+import com.google.security.zynamics.binnavi.debug.models.breakpoints.BreakpointAddress;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceEvent;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceEventStore;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceEventType;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceRegister;
+import com.google.security.zynamics.binnavi.debug.models.trace.interfaces.ITraceEvent;
+import com.google.security.zynamics.binnavi.disassembly.UnrelocatedAddress;
+import com.google.security.zynamics.binnavi.disassembly.Modules.MockModule;
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public final class TraceEventStoreTest {
+  private final MockModule m_module = CommonTestObjects.MODULE;
+
+  private TraceEvent createEvent(final long tid, final long address, final TraceEventType type,
+      final List<TraceRegister> registers) {
+    return new TraceEvent(tid, new BreakpointAddress(m_module,
+        new UnrelocatedAddress(new CAddress(address))), type, registers);
+  }
+
+  @Test
+  public void testAddAndRead() {
+    final TraceEventStore store = new TraceEventStore();
+
+    final TraceRegister eax = new TraceRegister("eax", new CAddress(0x1234), new byte[] {1, 2, 3});
+    final TraceRegister esp = new TraceRegister("esp", new CAddress(0xFFFF0000L), new byte[0]);
+
+    store.add(createEvent(1, 0x100, TraceEventType.ECHO_BREAKPOINT, Lists.newArrayList(eax, esp)));
+    store.add(createEvent(2, 0x200, TraceEventType.REGULAR_BREAKPOINT,
+        Lists.<TraceRegister>newArrayList()));
+
+    assertEquals(2, store.size());
+
+    final ITraceEvent first = store.get(0);
+    assertEquals(1, first.getThreadId());
+    assertEquals(TraceEventType.ECHO_BREAKPOINT, first.getType());
+    assertEquals(new BreakpointAddress(m_module, new UnrelocatedAddress(new CAddress(0x100))),
+        first.getOffset());
+    assertEquals(2, first.getRegisterValues().size());
+    assertEquals("eax", first.getRegisterValues().get(0).getName());
+    assertEquals(0x1234, first.getRegisterValues().get(0).getValue().toLong());
+    assertArrayEquals(new byte[] {1, 2, 3}, first.getRegisterValues().get(0).getMemory());
+    assertEquals("esp", first.getRegisterValues().get(1).getName());
+    assertEquals(0xFFFF0000L, first.getRegisterValues().get(1).getValue().toLong());
+    assertEquals(0, first.getRegisterValues().get(1).getMemory().length);
+
+    final ITraceEvent second = store.get(1);
+    assertEquals(2, second.getThreadId());
+    assertEquals(TraceEventType.REGULAR_BREAKPOINT, second.getType());
+    assertEquals(0x200, second.getOffset().getAddress().getAddress().toLong());
+    assertTrue(second.getRegisterValues().isEmpty());
+  }
+
+  @Test
+  public void testSnapshot() {
+    final TraceEventStore store = new TraceEventStore();
+
+    store.add(createEvent(1, 0x100, TraceEventType.ECHO_BREAKPOINT,
+        Lists.<TraceRegister>newArrayList()));
+
+    final List<ITraceEvent> events = store.getEvents();
+
+    store.add(createEvent(1, 0x104, TraceEventType.ECHO_BREAKPOINT,
+        Lists.<TraceRegister>newArrayList()));
+
+    assertEquals(1, events.size());
+    assertEquals(2, store.getEvents().size());
+
+    int count = 0;
+    for (final ITraceEvent event : store) {
+      assertEquals(0x100 + (4 * count), event.getOffset().getAddress().getAddress().toLong());
+      count++;
+    }
+    assertEquals(2, count);
+  }
+
+  @Test
+  public void testClose() {
+    final Set<File> existingFiles = getSpillFiles();
+    final TraceEventStore store = new TraceEventStore(1024);
+
+    for (int i = 0; i < 10000; i++) {
+      store.add(createEvent(i, i, TraceEventType.ECHO_BREAKPOINT,
+          Lists.newArrayList(new TraceRegister("eip", new CAddress(i), new byte[16]))));
+    }
+
+    assertTrue(store.getDirectMemorySize() <= 1024);
+    assertTrue(store.getSpilledSize() > 0);
+
+    final Set<File> spillFiles = getSpillFiles();
+    spillFiles.removeAll(existingFiles);
+    assertFalse(spillFiles.isEmpty());
+
+    store.close();
+
+    assertEquals(0, store.size());
+    assertEquals(0, store.getDirectMemorySize());
+    assertEquals(0, store.getSpilledSize());
+    for (final File file : spillFiles) {
+      assertFalse(file.exists());
+    }
+  }
+
+  private static Set<File> getSpillFiles() {
+    final File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles(
+        new FilenameFilter() {
+          @Override
+          public boolean accept(final File directory, final String name) {
+            return name.startsWith("binnavi-trace") && name.endsWith(".bin");
+          }
+        });
+    return files == null ? new HashSet<File>() : new HashSet<>(Arrays.asList(files));
+  }
+
+  @Test
+  public void testSpill() {
+    final TraceEventStore store = new TraceEventStore(0);
+
+    final byte[] memory = new byte[64];
+    for (int i = 0; i < 100000; i++) {
+      memory[0] = (byte) i;
+      store.add(createEvent(i, i, TraceEventType.ECHO_BREAKPOINT,
+          Lists.newArrayList(new TraceRegister("eip", new CAddress(i), memory))));
+    }
+
+    assertTrue(store.getSpilledSize() > 0);
+    assertEquals(100000, store.size());
+
+    for (int i = 0; i < 100000; i += 999) {
+      final ITraceEvent event = store.get(i);
+      assertEquals(i, event.getThreadId());
+      assertEquals(i, event.getOffset().getAddress().getAddress().toLong());
+      assertEquals(i, event.getRegisterValues().get(0).getValue().toLong());
+      assertEquals((byte) i, event.getRegisterValues().get(0).getMemory()[0]);
+    }
+  }
+
+  @Test
+  public void testViews() {
+    final TraceEventStore store = new TraceEventStore();
+    final TraceEventStore otherStore = new TraceEventStore();
+
+    final TraceEvent event =
+        createEvent(1, 0x100, TraceEventType.ECHO_BREAKPOINT, Lists.<TraceRegister>newArrayList());
+
+    store.add(event);
+    otherStore.add(event);
+
+    assertFalse(store.contains(event));
+    assertTrue(store.contains(store.get(0)));
+    assertFalse(store.contains(otherStore.get(0)));
+
+    assertEquals(store.get(0), store.getEvents().get(0));
+    assertEquals(store.get(0).hashCode(), store.getEvents().get(0).hashCode());
+    assertFalse(store.get(0).equals(otherStore.get(0)));
+  }
+}
@@ -0,0 +1,171 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Debug.Models.Trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.binnavi.Common.CommonTestObjects;
+import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntSaveDataException;
+import com.google.security.zynamics.binnavi.Database.Interfaces.SQLProvider;
+import com.google.security.zynamics.binnavi.debug.models.breakpoints.BreakpointAddress;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceEvent;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceEventType;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceList;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceRegister;
+import com.google.security.zynamics.binnavi.debug.models.trace.TraceStreamWriter;
+import com.google.security.zynamics.binnavi.disassembly.UnrelocatedAddress;
+import com.google.security.zynamics.zylib.disassembly.CAddress;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(JUnit4.class)
+public final class TraceStreamWriterTest {
+  private static final class MockProvider implements InvocationHandler {
+    private final List<int[]> m_savedRanges = Collections.synchronizedList(new ArrayList<int[]>());
+    private final CountDownLatch m_release;
+    private final boolean m_fail;
+
+    private MockProvider(final CountDownLatch release, final boolean fail) {
+      m_release = release;
+      m_fail = fail;
+    }
+
+    private SQLProvider create() {
+      return (SQLProvider) Proxy.newProxyInstance(SQLProvider.class.getClassLoader(),
+          new Class<?>[] {SQLProvider.class}, this);
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args)
+        throws Exception {
+      switch (method.getName()) {
+        case "saveEvents":
+          m_release.await();
+          if (m_fail) {
+            throw new CouldntSaveDataException("Error: Saving failed");
+          }
+          m_savedRanges.add(new int[] {(Integer) args[1], (Integer) args[2]});
+          return null;
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        default:
+          throw new UnsupportedOperationException(method.getName());
+      }
+    }
+  }
+
+  private static void addEvents(final TraceList trace, final int count) {
+    for (int i = 0; i < count; i++) {
+      trace.addEvent(new TraceEvent(1, new BreakpointAddress(CommonTestObjects.MODULE,
+          new UnrelocatedAddress(new CAddress(i))), TraceEventType.ECHO_BREAKPOINT,
+          new ArrayList<TraceRegister>()));
+    }
+  }
+
+  private static void waitForState(final Thread thread, final Thread.State state)
+      throws InterruptedException {
+    for (int i = 0; (i < 500) && (thread.getState() != state); i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  public void testBackPressure() throws InterruptedException {
+    final CountDownLatch release = new CountDownLatch(1);
+    final MockProvider provider = new MockProvider(release, false);
+    final TraceList trace = new TraceList(1, "Foo", "Bar", provider.create());
+    final TraceStreamWriter writer = new TraceStreamWriter(trace, 2, 4);
+
+    final Thread adder = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        addEvents(trace, 10);
+      }
+    });
+    adder.start();
+
+    waitForState(adder, Thread.State.WAITING);
+
+    // The writer is stuck in the database, so the logger is blocked once the backlog is full.
+    assertEquals(Thread.State.WAITING, adder.getState());
+    assertEquals(5, trace.getEventCount());
+
+    release.countDown();
+    adder.join(5000);
+
+    assertFalse(adder.isAlive());
+    assertTrue(writer.close());
+    assertEquals(10, writer.getSavedEventCount());
+  }
+
+  @Test
+  public void testFailure() {
+    final MockProvider provider = new MockProvider(new CountDownLatch(0), true);
+    final TraceList trace = new TraceList(1, "Foo", "Bar", provider.create());
+    final TraceStreamWriter writer = new TraceStreamWriter(trace, 2, 4);
+
+    // Adding events must not block after the writer failed.
+    addEvents(trace, 100);
+
+    assertFalse(writer.close());
+    assertEquals(0, writer.getSavedEventCount());
+    assertEquals(100, trace.getEventCount());
+  }
+
+  @Test
+  public void testWriteChunks() {
+    final MockProvider provider = new MockProvider(new CountDownLatch(0), false);
+    final TraceList trace = new TraceList(1, "Foo", "Bar", provider.create());
+    final TraceStreamWriter writer = new TraceStreamWriter(trace, 10, 20);
+
+    addEvents(trace, 7);
+    trace.addEvents(Lists.newArrayList(new TraceEvent(1, new BreakpointAddress(
+        CommonTestObjects.MODULE, new UnrelocatedAddress(new CAddress(0x100))),
+        TraceEventType.ECHO_BREAKPOINT, new ArrayList<TraceRegister>())));
+    addEvents(trace, 17);
+
+    assertTrue(writer.close());
+    assertEquals(25, writer.getSavedEventCount());
+
+    int next = 0;
+    for (final int[] range : provider.m_savedRanges) {
+      assertEquals(next, range[0]);
+      assertTrue(range[1] > range[0]);
+      assertTrue(range[1] - range[0] <= 10);
+      next = range[1];
+    }
+    assertEquals(25, next);
+
+    // Events added after the writer was closed are left to the regular save.
+    addEvents(trace, 1);
+    assertEquals(25, writer.getSavedEventCount());
+  }
+}
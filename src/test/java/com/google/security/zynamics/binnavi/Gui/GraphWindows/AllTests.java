@@ -23,6 +23,7 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({com.google.security.zynamics.binnavi.Gui.GraphWindows.BottomPanel.AllTests.class,
   com.google.security.zynamics.binnavi.Gui.GraphWindows.CommentDialogs.AllTests.class,
   com.google.security.zynamics.binnavi.Gui.GraphWindows.Implementations.AllTests.class,
+  com.google.security.zynamics.binnavi.Gui.GraphWindows.Loader.AllTests.class,
   com.google.security.zynamics.binnavi.Gui.GraphWindows.NodeTaggingTree.AllTests.class,
   com.google.security.zynamics.binnavi.Gui.GraphWindows.Searchers.AllTests.class,
   com.google.security.zynamics.binnavi.Gui.GraphWindows.types.AllTests.class,
@@ -0,0 +1,149 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.Gui.GraphWindows.Loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+@RunWith(JUnit4.class)
+public final class CViewLoadSchedulerTest {
+  private CViewLoadScheduler m_scheduler;
+  private CountDownLatch m_release;
+  private ListenableFuture<String> m_blocker;
+
+  private static Callable<String> createTask(final String name, final List<String> order) {
+    return new Callable<String>() {
+      @Override
+      public String call() {
+        order.add(name);
+        return name;
+      }
+    };
+  }
+
+  @Before
+  public void setUp() throws InterruptedException {
+    m_scheduler = new CViewLoadScheduler(1);
+    m_release = new CountDownLatch(1);
+
+    final CountDownLatch started = new CountDownLatch(1);
+
+    // Occupies the only worker thread so that the following tasks have to wait.
+    m_blocker = m_scheduler.submit(new Callable<String>() {
+      @Override
+      public String call() throws InterruptedException {
+        started.countDown();
+        m_release.await();
+        return "blocker";
+      }
+    }, ViewLoadPriority.FOREGROUND);
+
+    started.await();
+  }
+
+  @After
+  public void tearDown() {
+    m_release.countDown();
+    m_scheduler.shutdown();
+  }
+
+  @Test
+  public void testCancelPending() throws InterruptedException, ExecutionException {
+    final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+    final ListenableFuture<String> prefetch1 =
+        m_scheduler.submit(createTask("prefetch1", order), ViewLoadPriority.PREFETCH);
+    final ListenableFuture<String> prefetch2 =
+        m_scheduler.submit(createTask("prefetch2", order), ViewLoadPriority.PREFETCH);
+    final ListenableFuture<String> foreground =
+        m_scheduler.submit(createTask("foreground", order), ViewLoadPriority.FOREGROUND);
+
+    assertEquals(3, m_scheduler.getStatistics().getQueueDepth());
+    assertEquals(2, m_scheduler.cancelPending(ViewLoadPriority.PREFETCH));
+    assertEquals(1, m_scheduler.getStatistics().getQueueDepth());
+    assertEquals(2, m_scheduler.getStatistics().getCancelledCount());
+
+    m_release.countDown();
+
+    assertEquals("foreground", foreground.get());
+    assertTrue(prefetch1.isCancelled());
+    assertTrue(prefetch2.isCancelled());
+    assertEquals(Collections.singletonList("foreground"), order);
+  }
+
+  @Test
+  public void testForegroundBeforePrefetch() throws InterruptedException, ExecutionException {
+    final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+    final ListenableFuture<String> prefetch =
+        m_scheduler.submit(createTask("prefetch", order), ViewLoadPriority.PREFETCH);
+    m_scheduler.submit(createTask("foreground1", order), ViewLoadPriority.FOREGROUND);
+    m_scheduler.submit(createTask("foreground2", order), ViewLoadPriority.FOREGROUND);
+
+    assertEquals(2, m_scheduler.getStatistics().getQueueDepth(ViewLoadPriority.FOREGROUND));
+    assertEquals(1, m_scheduler.getStatistics().getQueueDepth(ViewLoadPriority.PREFETCH));
+    assertTrue(m_scheduler.hasForegroundWork());
+
+    m_release.countDown();
+    prefetch.get();
+
+    final List<String> expected = new ArrayList<String>();
+    expected.add("foreground1");
+    expected.add("foreground2");
+    expected.add("prefetch");
+
+    assertEquals(expected, order);
+  }
+
+  @Test
+  public void testStatistics() throws InterruptedException, ExecutionException {
+    m_release.countDown();
+    m_blocker.get();
+
+    final ListenableFuture<String> task = m_scheduler.submit(
+        createTask("task", new ArrayList<String>()), ViewLoadPriority.FOREGROUND);
+    task.get();
+
+    // The counters are updated after the result of the task is published.
+    while (m_scheduler.getStatistics().getCompletedCount() < 2) {
+      Thread.sleep(1);
+    }
+
+    final CViewLoadStatistics statistics = m_scheduler.getStatistics();
+
+    assertEquals(0, statistics.getQueueDepth());
+    assertEquals(0, statistics.getCancelledCount());
+    assertTrue(statistics.getMaximumLatency() > 0);
+    assertTrue(statistics.getAverageLatency() <= statistics.getMaximumLatency());
+    assertFalse(m_scheduler.hasForegroundWork());
+  }
+}
@@ -15,6 +15,7 @@ limitations under the License.
 */
 package com.google.security.zynamics.binnavi.disassembly;
 
+import com.google.security.zynamics.binnavi.disassembly.Modules.CModuleLoadPipelineTest;
 import com.google.security.zynamics.binnavi.disassembly.Modules.CModuleTest;
 
 import org.junit.runner.RunWith;
@@ -26,6 +27,7 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({com.google.security.zynamics.binnavi.disassembly.AddressSpaces.AllTests.class,
     CCodeNodeTest.class,
     CFunctionTest.class,
+    CModuleLoadPipelineTest.class,
     CModuleTest.class,
     CProjectContainerTest.class,
     CProjectContentTest.class,
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.security.zynamics.binnavi.Common.CommonTestObjects;
 import com.google.security.zynamics.binnavi.Database.CModuleViewGenerator;
 import com.google.security.zynamics.binnavi.Database.CProjectViewGenerator;
@@ -39,6 +40,7 @@ import com.google.security.zynamics.binnavi.config.FileReadException;
 import com.google.security.zynamics.binnavi.disassembly.Modules.CModule;
 import com.google.security.zynamics.binnavi.disassembly.Modules.MockModule;
 import com.google.security.zynamics.binnavi.disassembly.views.CView;
+import com.google.security.zynamics.binnavi.disassembly.views.CViewChangeSet;
 import com.google.security.zynamics.zylib.disassembly.GraphType;
 import com.google.security.zynamics.zylib.disassembly.ViewType;
 import com.google.security.zynamics.zylib.gui.zygraph.edges.EdgeType;
@@ -49,6 +51,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.awt.Color;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
@@ -675,6 +678,63 @@ public final class CViewTest {
     assertEquals("loadedView/addedNode/", m_listener.eventList);
   }
 
+  @Test
+  public void testChanges() throws CouldntLoadDataException, CPartialLoadException,
+      LoadCancelledException, CouldntSaveDataException {
+    m_view.load();
+
+    final CViewChangeSet changes = m_view.getChanges();
+    assertTrue(changes.isEmpty());
+
+    final CCodeNode codeNode =
+        m_view.getContent().createCodeNode(m_function, Lists.newArrayList(m_instruction));
+    final CFunctionNode functionNode = m_view.getContent().createFunctionNode(m_function);
+    final CNaviViewEdge edge =
+        m_view.getContent().createEdge(codeNode, functionNode, EdgeType.JUMP_UNCONDITIONAL);
+
+    // Changes of unsaved nodes and edges are covered by writing them completely.
+    codeNode.setX(100);
+    edge.setColor(Color.RED);
+
+    assertEquals(2, changes.getAddedNodes().size());
+    assertEquals(1, changes.getAddedEdges().size());
+    assertTrue(changes.getModifiedNodes().isEmpty());
+    assertTrue(changes.getModifiedEdges().isEmpty());
+
+    // Saving is not modeled by the mock provider, so the IDs are assigned here.
+    codeNode.setId(1);
+    functionNode.setId(2);
+    edge.setId(3);
+
+    m_view.save();
+
+    assertTrue(changes.isEmpty());
+
+    codeNode.setX(200);
+    codeNode.setY(200);
+    edge.setColor(Color.BLUE);
+
+    assertEquals(Sets.newHashSet(codeNode), changes.getModifiedNodes());
+    assertEquals(Sets.newHashSet(edge), changes.getModifiedEdges());
+
+    codeNode.removeInstruction(m_instruction);
+
+    assertTrue(changes.getModifiedNodes().isEmpty());
+    assertEquals(Sets.newHashSet(codeNode), changes.getRewrittenNodes());
+
+    m_view.getContent().deleteNode(functionNode);
+
+    assertEquals(Sets.newHashSet(2), changes.getDeletedNodeIds());
+    assertEquals(Sets.newHashSet(3), changes.getDeletedEdgeIds());
+    assertTrue(changes.getModifiedEdges().isEmpty());
+
+    final CTextNode textNode = m_view.getContent().createTextNode(null);
+    m_view.getContent().deleteNode(textNode);
+
+    assertTrue(changes.getAddedNodes().isEmpty());
+    assertEquals(Sets.newHashSet(2), changes.getDeletedNodeIds());
+  }
+
   @Test
   public void testDeleteEdge() throws CouldntLoadDataException, CPartialLoadException,
       LoadCancelledException {
@@ -941,6 +1001,31 @@ public final class CViewTest {
     assertFalse(view.isLoaded());
   }
 
+  @Test
+  public void testLoadViews() throws CouldntLoadDataException, CPartialLoadException,
+      LoadCancelledException {
+    final CModuleViewGenerator generator = new CModuleViewGenerator(m_sql, m_module);
+
+    final CView first =
+        generator.generate(1, "First View", "", ViewType.NonNative, GraphType.FLOWGRAPH,
+            new Date(), new Date(), 0, 0, new HashSet<CTag>(), new HashSet<CTag>(), false);
+    final CView second =
+        generator.generate(2, "Second View", "", ViewType.NonNative, GraphType.FLOWGRAPH,
+            new Date(), new Date(), 0, 0, new HashSet<CTag>(), new HashSet<CTag>(), false);
+
+    CView.loadViews(Lists.newArrayList(first, second, m_unsavedView));
+
+    assertTrue(first.isLoaded());
+    assertTrue(second.isLoaded());
+    assertTrue(m_unsavedView.isLoaded());
+    assertFalse(first.wasModified());
+
+    // Views that are already loaded are skipped.
+    CView.loadViews(Lists.newArrayList(first, second));
+
+    assertTrue(first.isLoaded());
+  }
+
   @Test
   public void testSave() throws CouldntSaveDataException, CouldntLoadDataException,
       CPartialLoadException, LoadCancelledException {
@@ -0,0 +1,127 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.binnavi.disassembly.Modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.security.zynamics.binnavi.Database.Exceptions.CouldntLoadDataException;
+import com.google.security.zynamics.binnavi.Database.Exceptions.LoadCancelledException;
+import com.google.security.zynamics.binnavi.Database.MockClasses.MockSqlProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.Callable;
+
+@RunWith(JUnit4.class)
+public final class CModuleLoadPipelineTest {
+  @Test
+  public void testCancel() throws CouldntLoadDataException {
+    final CModuleLoadPipeline pipeline = new CModuleLoadPipeline(new MockSqlProvider());
+    final SettableFuture<Integer> dependency = SettableFuture.create();
+
+    final ListenableFuture<Integer> future =
+        pipeline.submitAfter(ModuleLoadStage.Types, new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            return 1;
+          }
+        }, dependency);
+
+    pipeline.cancel();
+
+    try {
+      pipeline.await(future);
+      fail();
+    } catch (final LoadCancelledException exception) {
+    }
+
+    assertEquals(-1, pipeline.getTimings().getStageTime(ModuleLoadStage.Types));
+  }
+
+  @Test
+  public void testFailure() throws LoadCancelledException {
+    final CModuleLoadPipeline pipeline = new CModuleLoadPipeline(new MockSqlProvider());
+    final CouldntLoadDataException failure = new CouldntLoadDataException("Failure");
+
+    final ListenableFuture<Integer> future =
+        pipeline.submit(ModuleLoadStage.Traces, new Callable<Integer>() {
+          @Override
+          public Integer call() throws CouldntLoadDataException {
+            throw failure;
+          }
+        });
+
+    try {
+      pipeline.await(future);
+      fail();
+    } catch (final CouldntLoadDataException exception) {
+      assertSame(failure, exception);
+    }
+  }
+
+  @Test
+  public void testSubmitAfter() throws CouldntLoadDataException, LoadCancelledException {
+    final CModuleLoadPipeline pipeline = new CModuleLoadPipeline(new MockSqlProvider());
+
+    final ListenableFuture<Integer> first =
+        pipeline.submit(ModuleLoadStage.Types, new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            return 2;
+          }
+        });
+    final ListenableFuture<Integer> second =
+        pipeline.submit(ModuleLoadStage.Sections, new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            return 3;
+          }
+        });
+    final ListenableFuture<Integer> product =
+        pipeline.submitAfter(ModuleLoadStage.TypeInstances, new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            return first.get() * second.get();
+          }
+        }, first, second);
+
+    assertEquals(6, (int) pipeline.await(product));
+
+    final int result = pipeline.run(ModuleLoadStage.Functions, new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        return 7;
+      }
+    });
+
+    assertEquals(7, result);
+
+    final CModuleLoadTimings timings = pipeline.getTimings();
+
+    for (final ModuleLoadStage stage : new ModuleLoadStage[] {ModuleLoadStage.Types,
+        ModuleLoadStage.Sections, ModuleLoadStage.TypeInstances, ModuleLoadStage.Functions}) {
+      assertEquals(0, timings.getStageTime(stage), 1000);
+    }
+
+    assertEquals(-1, timings.getStageTime(ModuleLoadStage.Traces));
+  }
+}
@@ -241,6 +241,21 @@ public final class CModuleTest {
     }
   }
 
+  @Test
+  public void test_C_getLoadTimings() throws CouldntLoadDataException, LoadCancelledException {
+    assertNull(m_module.getLoadTimings());
+
+    m_module.load();
+
+    final CModuleLoadTimings timings = m_module.getLoadTimings();
+
+    assertNotNull(timings);
+    assertTrue(timings.getStageTime(ModuleLoadStage.Functions) >= 0);
+    assertTrue(timings.getStageTime(ModuleLoadStage.Traces) >= 0);
+    assertTrue(timings.getStageTime(ModuleLoadStage.TypeInstanceReferences) >= 0);
+    assertTrue(timings.getTotalTime() >= 0);
+  }
+
   @Test
   public void test_C_getterFunctions() throws CouldntLoadDataException, LoadCancelledException {
     assertEquals(66, m_module.getCustomViewCount());
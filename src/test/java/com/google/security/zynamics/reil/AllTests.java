@@ -22,6 +22,9 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses({com.google.security.zynamics.reil.interpreter.AllTests.class,
+    com.google.security.zynamics.reil.ReilOperandSharingTest.class,
+    com.google.security.zynamics.reil.translators.MnemonicDispatchTableTest.class,
+    com.google.security.zynamics.reil.translators.ModuleReilTranslatorTest.class,
     com.google.security.zynamics.reil.translators.ReilTranslatorTest.class,
     com.google.security.zynamics.reil.translators.TranslationHelpersTest.class,
     com.google.security.zynamics.reil.translators.arm.AllTests.class,
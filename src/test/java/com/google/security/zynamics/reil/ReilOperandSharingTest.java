@@ -0,0 +1,154 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.reil.translators.InternalTranslationException;
+import com.google.security.zynamics.reil.translators.ReilTranslator;
+import com.google.security.zynamics.reil.translators.StandardEnvironment;
+import com.google.security.zynamics.zylib.disassembly.ExpressionType;
+import com.google.security.zynamics.zylib.disassembly.MockBlockContainer;
+import com.google.security.zynamics.zylib.disassembly.MockCodeContainer;
+import com.google.security.zynamics.zylib.disassembly.MockInstruction;
+import com.google.security.zynamics.zylib.disassembly.MockOperandTree;
+import com.google.security.zynamics.zylib.disassembly.MockOperandTreeNode;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that translated REIL code shares its operands and does not allocate instruction metadata.
+ */
+@RunWith(JUnit4.class)
+public class ReilOperandSharingTest {
+  private static final String[] REGISTERS = {"eax", "ebx", "ecx", "edx", "esi", "edi"};
+
+  private static MockOperandTree createOperand(final ExpressionType type, final String value) {
+    final MockOperandTree operand = new MockOperandTree();
+    operand.root = new MockOperandTreeNode(ExpressionType.SIZE_PREFIX, "dword");
+    operand.root.m_children.add(new MockOperandTreeNode(type, value));
+    return operand;
+  }
+
+  private static MockBlockContainer createFunction(final int index) {
+    final MockBlockContainer function = new MockBlockContainer();
+    final MockCodeContainer block = new MockCodeContainer();
+
+    long address = 0x1000000L + (index * 0x1000L);
+
+    for (int i = 0; i < 50; i++) {
+      final String first = REGISTERS[i % REGISTERS.length];
+      final String second = REGISTERS[(i + index) % REGISTERS.length];
+
+      final MockInstruction instruction;
+
+      switch (i % 4) {
+        case 0:
+          instruction = new MockInstruction(address, "mov", Lists.newArrayList(
+              createOperand(ExpressionType.REGISTER, first),
+              createOperand(ExpressionType.IMMEDIATE_INTEGER, String.valueOf(i))));
+          break;
+        case 1:
+          instruction = new MockInstruction(address, "add", Lists.newArrayList(
+              createOperand(ExpressionType.REGISTER, first),
+              createOperand(ExpressionType.REGISTER, second)));
+          break;
+        case 2:
+          instruction = new MockInstruction(address, "xor", Lists.newArrayList(
+              createOperand(ExpressionType.REGISTER, first),
+              createOperand(ExpressionType.REGISTER, second)));
+          break;
+        default:
+          instruction = new MockInstruction(address, "push",
+              Lists.newArrayList(createOperand(ExpressionType.REGISTER, first)));
+          break;
+      }
+
+      block.m_instructions.add(instruction);
+      address += 5;
+    }
+
+    function.m_blocks.add(block);
+
+    return function;
+  }
+
+  @Test
+  public void testMetaDataIsAllocatedOnFirstEntry() {
+    final ReilInstruction instruction = ReilHelpers.createNop(0x100);
+
+    assertFalse(instruction.hasMetaDataMap());
+    assertTrue(instruction.getMetaData().isEmpty());
+    assertFalse(instruction.hasMetaDataMap());
+
+    instruction.setMetaData("isCall", "true");
+
+    assertTrue(instruction.hasMetaDataMap());
+    assertEquals("true", instruction.getMetaData("isCall"));
+  }
+
+  @Test
+  public void testTranslatedOperandsAreShared() throws InternalTranslationException {
+    final ReilTranslator<MockInstruction> translator = new ReilTranslator<MockInstruction>();
+
+    final Map<ReilOperand, ReilOperand> operandsByValue = new HashMap<ReilOperand, ReilOperand>();
+    final Set<ReilOperand> operandObjects =
+        Collections.newSetFromMap(new IdentityHashMap<ReilOperand, Boolean>());
+    int instructionCount = 0;
+
+    for (int i = 0; i < 100; i++) {
+      final ReilFunction function =
+          translator.translate(new StandardEnvironment(), createFunction(i));
+
+      for (final ReilBlock block : function.getGraph()) {
+        for (final ReilInstruction instruction : block.getInstructions()) {
+          instructionCount++;
+
+          assertFalse(instruction.hasMetaDataMap());
+
+          for (final ReilOperand operand : Lists.newArrayList(instruction.getFirstOperand(),
+              instruction.getSecondOperand(), instruction.getThirdOperand())) {
+            if (!operandsByValue.containsKey(operand)) {
+              operandsByValue.put(operand, operand);
+            }
+
+            // Equal operands must be the same object, no matter which instruction uses them.
+            assertSame(operandsByValue.get(operand), operand);
+            operandObjects.add(operand);
+          }
+        }
+      }
+    }
+
+    assertEquals(operandsByValue.size(), operandObjects.size());
+
+    // The synthetic functions only use a handful of registers, literals and temporary registers,
+    // so almost all operand slots point to shared objects.
+    assertTrue(operandObjects.size() * 100 < instructionCount * 3);
+  }
+}
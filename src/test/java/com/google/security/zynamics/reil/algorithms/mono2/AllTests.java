@@ -20,7 +20,8 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({com.google.security.zynamics.reil.algorithms.mono2.registertracking.AllTests.class})
+@SuiteClasses({com.google.security.zynamics.reil.algorithms.mono2.common.AllTests.class,
+    com.google.security.zynamics.reil.algorithms.mono2.registertracking.AllTests.class})
 public class AllTests {
 
 }
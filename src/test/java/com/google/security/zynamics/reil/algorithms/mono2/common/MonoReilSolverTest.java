@@ -0,0 +1,219 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.algorithms.mono2.common;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.reil.ReilHelpers;
+import com.google.security.zynamics.reil.algorithms.mono2.common.enums.AnalysisDirection;
+import com.google.security.zynamics.reil.algorithms.mono2.common.enums.WorklistStrategy;
+import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.ReilInstructionGraphEdge;
+import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.ReilInstructionGraphNode;
+import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.interfaces.IInstructionGraph;
+import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.interfaces.IInstructionGraphEdge;
+import com.google.security.zynamics.reil.algorithms.mono2.common.instructiongraph.interfaces.IInstructionGraphNode;
+import com.google.security.zynamics.reil.algorithms.mono2.common.interfaces.ITransformationProvider;
+import com.google.security.zynamics.reil.algorithms.mono2.registertracking.RegisterSetLattice;
+import com.google.security.zynamics.reil.algorithms.mono2.registertracking.RegisterSetLatticeElement;
+import com.google.security.zynamics.zylib.general.Pair;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class MonoReilSolverTest {
+  private DiamondGraph m_graph;
+
+  @Before
+  public void setUp() {
+    m_graph = new DiamondGraph();
+  }
+
+  @Test
+  public void testDownwardOrder() {
+    final MonoReilSolver<RegisterSetLatticeElement> solver =
+        new MonoReilSolver<RegisterSetLatticeElement>(m_graph, AnalysisDirection.DOWN,
+            new RegisterSetLattice(), WorklistStrategy.DIRECTIONAL);
+    final RecordingTransformationProvider provider = new RecordingTransformationProvider();
+
+    solver.solve(provider, Lists.newArrayList(new Pair<IInstructionGraphEdge,
+        RegisterSetLatticeElement>(m_graph.m_entryEdge, new RegisterSetLatticeElement("eax"))),
+        Integer.MAX_VALUE);
+
+    // Every node of the acyclic graph is processed exactly once.
+    assertEquals(5, solver.getIterationCount());
+    assertEquals(5, provider.m_visited.size());
+    assertEquals(m_graph.m_top, provider.m_visited.get(0));
+    assertEquals(m_graph.m_bottom, provider.m_visited.get(3));
+    assertEquals(m_graph.getExitNode(), provider.m_visited.get(4));
+  }
+
+  @Test
+  public void testUpwardOrder() {
+    final MonoReilSolver<RegisterSetLatticeElement> solver =
+        new MonoReilSolver<RegisterSetLatticeElement>(m_graph, AnalysisDirection.UP,
+            new RegisterSetLattice(), WorklistStrategy.DIRECTIONAL);
+    final RecordingTransformationProvider provider = new RecordingTransformationProvider();
+
+    solver.solve(provider, Lists.newArrayList(new Pair<IInstructionGraphEdge,
+        RegisterSetLatticeElement>(m_graph.m_exitEdge, new RegisterSetLatticeElement("eax"))),
+        Integer.MAX_VALUE);
+
+    assertEquals(5, solver.getIterationCount());
+    assertEquals(5, provider.m_visited.size());
+    assertEquals(m_graph.m_bottom, provider.m_visited.get(0));
+    assertEquals(m_graph.m_top, provider.m_visited.get(3));
+    assertEquals(m_graph.getEntryNode(), provider.m_visited.get(4));
+  }
+
+  @Test
+  public void testSolveTwice() {
+    final MonoReilSolver<RegisterSetLatticeElement> solver =
+        new MonoReilSolver<RegisterSetLatticeElement>(m_graph, AnalysisDirection.DOWN,
+            new RegisterSetLattice(), WorklistStrategy.DIRECTIONAL);
+    final RecordingTransformationProvider provider = new RecordingTransformationProvider();
+
+    solver.solve(provider, Lists.newArrayList(new Pair<IInstructionGraphEdge,
+        RegisterSetLatticeElement>(m_graph.m_entryEdge, new RegisterSetLatticeElement("eax"))),
+        Integer.MAX_VALUE);
+
+    assertEquals(5, solver.getIterationCount());
+    assertEquals(5, solver.getCombineCount());
+
+    // A new register at the entry edge forces the whole graph to be processed again, but the
+    // counters only describe the second call.
+    solver.solve(provider, Lists.newArrayList(new Pair<IInstructionGraphEdge,
+        RegisterSetLatticeElement>(m_graph.m_entryEdge, new RegisterSetLatticeElement("ebx"))),
+        Integer.MAX_VALUE);
+
+    assertEquals(10, provider.m_visited.size());
+    assertEquals(5, solver.getIterationCount());
+    // One combine per processed node plus one per edge that already carried a state.
+    assertEquals(11, solver.getCombineCount());
+  }
+
+  /**
+   * Graph of the form entry -> top -> (left | right) -> bottom -> exit.
+   */
+  private static class DiamondGraph implements IInstructionGraph {
+    private final IInstructionGraphNode m_entry = createNode(0);
+    private final IInstructionGraphNode m_top = createNode(0x100);
+    private final IInstructionGraphNode m_left = createNode(0x200);
+    private final IInstructionGraphNode m_right = createNode(0x300);
+    private final IInstructionGraphNode m_bottom = createNode(0x400);
+    private final IInstructionGraphNode m_exit = createNode(0x500);
+
+    private final Map<IInstructionGraphEdge, IInstructionGraphNode> m_sources =
+        new HashMap<IInstructionGraphEdge, IInstructionGraphNode>();
+    private final Map<IInstructionGraphEdge, IInstructionGraphNode> m_destinations =
+        new HashMap<IInstructionGraphEdge, IInstructionGraphNode>();
+
+    private final IInstructionGraphEdge m_entryEdge = createEdge(m_entry, m_top);
+    private final IInstructionGraphEdge m_exitEdge;
+
+    DiamondGraph() {
+      createEdge(m_top, m_left);
+      createEdge(m_top, m_right);
+      createEdge(m_left, m_bottom);
+      createEdge(m_right, m_bottom);
+      m_exitEdge = createEdge(m_bottom, m_exit);
+    }
+
+    private static IInstructionGraphNode createNode(final long address) {
+      return new ReilInstructionGraphNode(ReilHelpers.createNop(address));
+    }
+
+    private IInstructionGraphEdge createEdge(final IInstructionGraphNode source,
+        final IInstructionGraphNode destination) {
+      final IInstructionGraphEdge edge = new ReilInstructionGraphEdge(true, true);
+      m_sources.put(edge, source);
+      m_destinations.put(edge, destination);
+      return edge;
+    }
+
+    private List<IInstructionGraphEdge> getEdges(
+        final Map<IInstructionGraphEdge, IInstructionGraphNode> nodes,
+        final IInstructionGraphNode node) {
+      final List<IInstructionGraphEdge> edges = new ArrayList<IInstructionGraphEdge>();
+
+      for (final Map.Entry<IInstructionGraphEdge, IInstructionGraphNode> entry : nodes.entrySet()) {
+        if (entry.getValue() == node) {
+          edges.add(entry.getKey());
+        }
+      }
+
+      return edges;
+    }
+
+    @Override
+    public IInstructionGraphNode getDestination(final IInstructionGraphEdge edge) {
+      return m_destinations.get(edge);
+    }
+
+    @Override
+    public IInstructionGraphNode getEntryNode() {
+      return m_entry;
+    }
+
+    @Override
+    public IInstructionGraphNode getExitNode() {
+      return m_exit;
+    }
+
+    @Override
+    public Iterable<IInstructionGraphEdge> getIncomingEdges(final IInstructionGraphNode node) {
+      return getEdges(m_destinations, node);
+    }
+
+    @Override
+    public Iterable<IInstructionGraphEdge> getOutgoingEdges(final IInstructionGraphNode node) {
+      return getEdges(m_sources, node);
+    }
+
+    @Override
+    public IInstructionGraphNode getSource(final IInstructionGraphEdge edge) {
+      return m_sources.get(edge);
+    }
+
+    @Override
+    public int size() {
+      return m_sources.size();
+    }
+  }
+
+  /**
+   * Passes states through unchanged and records the order in which nodes are processed.
+   */
+  private static class RecordingTransformationProvider implements
+      ITransformationProvider<RegisterSetLatticeElement> {
+    private final List<IInstructionGraphNode> m_visited = new ArrayList<IInstructionGraphNode>();
+
+    @Override
+    public Pair<RegisterSetLatticeElement, RegisterSetLatticeElement> transform(
+        final IInstructionGraphNode node, final RegisterSetLatticeElement state) {
+      m_visited.add(node);
+      return new Pair<RegisterSetLatticeElement, RegisterSetLatticeElement>(state, state);
+    }
+  }
+}
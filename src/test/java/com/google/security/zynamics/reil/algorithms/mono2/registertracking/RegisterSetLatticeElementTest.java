@@ -77,6 +77,21 @@ public class RegisterSetLatticeElementTest {
         Lists.newArrayList("register5", "register10")));
   }
 
+  @Test
+  public void addAllTemporaryRegisters() {
+    final RegisterSetLatticeElement element = new RegisterSetLatticeElement("eax");
+    element.taint("t0");
+    element.taint("ebx");
+
+    m_emptyRegisterSetLatticeElement.addAll(Lists.newArrayList(element, element.copy()));
+    m_emptyRegisterSetLatticeElement.onInstructionExit();
+
+    Assert.assertEquals(Lists.newArrayList("eax", "ebx"),
+        Lists.newArrayList(m_emptyRegisterSetLatticeElement.getTaintedRegisters()));
+    Assert.assertEquals(Lists.newArrayList("eax", "ebx"),
+        Lists.newArrayList(m_emptyRegisterSetLatticeElement.getNewlyTaintedRegisters()));
+  }
+
   @Test
   public void copy() {
     final RegisterSetLatticeElement copiedElement = m_fullRegisterSetLatticeElement.copy();
@@ -106,6 +121,19 @@ public class RegisterSetLatticeElementTest {
         .isSmallerEqual(m_fullRegisterSetLatticeElement));
   }
 
+  @Test
+  public void isSmallerEqualDifferentRegisterOrder() {
+    final RegisterSetLatticeElement first = new RegisterSetLatticeElement("ecx");
+    first.taint("eax");
+
+    final RegisterSetLatticeElement second = new RegisterSetLatticeElement("eax");
+    second.taint("ebx");
+    second.taint("ecx");
+
+    Assert.assertTrue(first.isSmallerEqual(second));
+    Assert.assertFalse(second.isSmallerEqual(first));
+  }
+
   @Test
   public void isTaintedRegister() {
     Assert.assertTrue(m_fullRegisterSetLatticeElement.isTainted("eax"));
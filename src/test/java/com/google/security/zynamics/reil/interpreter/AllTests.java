@@ -20,7 +20,7 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({InterpreterTest.class})
+@SuiteClasses({InterpreterTest.class, ReilMemoryTest.class})
 public class AllTests {
 
 }
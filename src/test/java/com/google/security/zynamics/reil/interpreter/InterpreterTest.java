@@ -71,4 +71,146 @@ public class InterpreterTest {
 
     assertEquals(BigInteger.valueOf(0x17FFFFFFFL), interpreter.getVariableValue("t0"));
   }
+
+  @Test
+  public void testPrimitiveModeMatchesBigIntegerMode() throws InterpreterException {
+    final HashMap<BigInteger, List<ReilInstruction>> instructions =
+        new HashMap<BigInteger, List<ReilInstruction>>();
+
+    instructions.put(BigInteger.ZERO, Lists.newArrayList(
+        ReilHelpers.createStr(0, OperandSize.DWORD, "4294967295", OperandSize.DWORD, "t0"),
+        ReilHelpers.createAdd(1, OperandSize.DWORD, "t0", OperandSize.DWORD, "1",
+            OperandSize.QWORD, "t1"),
+        ReilHelpers.createSub(2, OperandSize.DWORD, "0", OperandSize.DWORD, "1",
+            OperandSize.DWORD, "t2"),
+        ReilHelpers.createBsh(3, OperandSize.DWORD, "t0", OperandSize.DWORD, "4294967288",
+            OperandSize.DWORD, "t3"),
+        ReilHelpers.createMul(4, OperandSize.QWORD, "18446744073709551615", OperandSize.QWORD,
+            "2", OperandSize.QWORD, "t4"),
+        ReilHelpers.createStm(5, OperandSize.DWORD, "t0", OperandSize.DWORD, "4096"),
+        ReilHelpers.createLdm(6, OperandSize.DWORD, "4096", OperandSize.WORD, "t5"),
+        ReilHelpers.createBisz(7, OperandSize.WORD, "t5", OperandSize.BYTE, "t6"),
+        ReilHelpers.createDiv(8, OperandSize.DWORD, "t0", OperandSize.DWORD, "16",
+            OperandSize.DWORD, "t7")));
+
+    final ReilInterpreter bigIntegerInterpreter =
+        new ReilInterpreter(Endianness.LITTLE_ENDIAN, new CpuPolicyX86(),
+            new EmptyInterpreterPolicy(), InterpreterMode.BIG_INTEGER);
+    final ReilInterpreter primitiveInterpreter =
+        new ReilInterpreter(Endianness.LITTLE_ENDIAN, new CpuPolicyX86(),
+            new EmptyInterpreterPolicy(), InterpreterMode.PRIMITIVE);
+
+    bigIntegerInterpreter.interpret(instructions, BigInteger.ZERO);
+    primitiveInterpreter.interpret(instructions, BigInteger.ZERO);
+
+    for (final String register : new String[] {"t0", "t1", "t2", "t3", "t4", "t5", "t6", "t7"}) {
+      assertEquals(bigIntegerInterpreter.getVariableValue(register),
+          primitiveInterpreter.getVariableValue(register));
+    }
+
+    assertEquals(BigInteger.valueOf(0x100000000L), primitiveInterpreter.getVariableValue("t1"));
+    assertEquals(BigInteger.valueOf(0xFFFFFFFFL), primitiveInterpreter.getVariableValue("t2"));
+    assertEquals(BigInteger.valueOf(0xFFFFFFL), primitiveInterpreter.getVariableValue("t3"));
+    assertEquals(BigInteger.valueOf(0xFFFFL), primitiveInterpreter.getVariableValue("t5"));
+    assertEquals(bigIntegerInterpreter.getMemorySize(), primitiveInterpreter.getMemorySize());
+    assertEquals(bigIntegerInterpreter.readMemoryDword(4096),
+        primitiveInterpreter.readMemoryDword(4096));
+  }
+
+  @Test
+  public void testCompiledProgram() throws InterpreterException {
+    final HashMap<BigInteger, List<ReilInstruction>> instructions =
+        new HashMap<BigInteger, List<ReilInstruction>>();
+
+    instructions.put(BigInteger.valueOf(0x000), Lists.newArrayList(
+        ReilHelpers.createStr(0x000, OperandSize.DWORD, "10", OperandSize.DWORD, "ecx"),
+        ReilHelpers.createStr(0x001, OperandSize.DWORD, "0", OperandSize.DWORD, "eax")));
+    instructions.put(BigInteger.valueOf(0x100), Lists.newArrayList(
+        ReilHelpers.createAdd(0x100, OperandSize.DWORD, "eax", OperandSize.DWORD, "ecx",
+            OperandSize.QWORD, "t0"),
+        ReilHelpers.createAnd(0x101, OperandSize.QWORD, "t0", OperandSize.DWORD, "4294967295",
+            OperandSize.DWORD, "eax"),
+        ReilHelpers.createSub(0x102, OperandSize.DWORD, "ecx", OperandSize.DWORD, "1",
+            OperandSize.DWORD, "ecx")));
+    instructions.put(BigInteger.valueOf(0x200), Lists.newArrayList(
+        ReilHelpers.createBisz(0x200, OperandSize.DWORD, "ecx", OperandSize.BYTE, "t1"),
+        ReilHelpers.createJcc(0x201, OperandSize.BYTE, "t1", OperandSize.ADDRESS, "2.4"),
+        ReilHelpers.createJcc(0x202, OperandSize.DWORD, "1", OperandSize.DWORD, "1"),
+        ReilHelpers.createNop(0x203),
+        ReilHelpers.createStm(0x204, OperandSize.DWORD, "eax", OperandSize.DWORD, "4096")));
+
+    final ReilInterpreter interpreter =
+        new ReilInterpreter(Endianness.LITTLE_ENDIAN, new CpuPolicyX86(),
+            new EmptyInterpreterPolicy());
+    final ReilInterpreter compiledInterpreter =
+        new ReilInterpreter(Endianness.LITTLE_ENDIAN, new CpuPolicyX86(),
+            new EmptyInterpreterPolicy());
+
+    final CompiledReilProgram program = ReilProgramCompiler.compile(instructions);
+
+    assertEquals(3, program.getNativeInstructionCount());
+    assertEquals(10, program.getInstructionCount());
+
+    interpreter.interpret(instructions, BigInteger.ZERO);
+    compiledInterpreter.interpret(program, BigInteger.ZERO);
+
+    assertEquals(BigInteger.valueOf(55), compiledInterpreter.getVariableValue("eax"));
+    assertEquals(55, compiledInterpreter.readMemoryDword(4096));
+
+    for (final String register : new String[] {"eax", "ecx", "eip", "t0", "t1"}) {
+      assertEquals(interpreter.getVariableValue(register),
+          compiledInterpreter.getVariableValue(register));
+    }
+
+    assertEquals(interpreter.getMemorySize(), compiledInterpreter.getMemorySize());
+  }
+
+  @Test
+  public void testSnapshotRestoreAndFork() throws InterpreterException {
+    final ReilInterpreter interpreter =
+        new ReilInterpreter(Endianness.LITTLE_ENDIAN, new CpuPolicyX86(),
+            new EmptyInterpreterPolicy(), InterpreterMode.PRIMITIVE);
+
+    final HashMap<BigInteger, List<ReilInstruction>> instructions =
+        new HashMap<BigInteger, List<ReilInstruction>>();
+
+    instructions.put(BigInteger.ZERO, Lists.newArrayList(
+        ReilHelpers.createAdd(0, OperandSize.DWORD, "eax", OperandSize.DWORD, "1",
+            OperandSize.DWORD, "eax"),
+        ReilHelpers.createStm(1, OperandSize.DWORD, "eax", OperandSize.DWORD, "4096")));
+
+    interpreter.setRegister("eax", BigInteger.ONE, OperandSize.DWORD,
+        ReilRegisterStatus.DEFINED);
+    interpreter.setMemory(4096, 1, 4);
+
+    final ReilInterpreterState state = interpreter.snapshot();
+    final ReilInterpreter fork = interpreter.fork();
+
+    interpreter.interpret(instructions, BigInteger.ZERO);
+
+    assertEquals(BigInteger.valueOf(2), interpreter.getVariableValue("eax"));
+    assertEquals(2, interpreter.readMemoryDword(4096));
+    assertEquals(BigInteger.ONE, fork.getVariableValue("eax"));
+    assertEquals(1, fork.readMemoryDword(4096));
+
+    fork.interpret(instructions, BigInteger.ZERO);
+    fork.interpret(instructions, BigInteger.ZERO);
+
+    assertEquals(BigInteger.valueOf(3), fork.getVariableValue("eax"));
+    assertEquals(3, fork.readMemoryDword(4096));
+    assertEquals(2, interpreter.readMemoryDword(4096));
+
+    interpreter.restore(state);
+
+    assertEquals(BigInteger.ONE, interpreter.getVariableValue("eax"));
+    assertEquals(1, interpreter.readMemoryDword(4096));
+    assertEquals(false, interpreter.isDefined("eip"));
+
+    interpreter.interpret(instructions, BigInteger.ZERO);
+    interpreter.restore(state);
+
+    assertEquals(BigInteger.ONE, interpreter.getVariableValue("eax"));
+    assertEquals(1, interpreter.readMemoryDword(4096));
+    assertEquals(1, state.getDefinedRegisters().size());
+  }
 }
@@ -0,0 +1,124 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.interpreter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ReilMemoryTest {
+  @Test
+  public void testBigEndian() {
+    final ReilMemory memory = new ReilMemory(Endianness.BIG_ENDIAN);
+
+    memory.store(0x1000, 0x12345678L, 4);
+
+    assertEquals(0x12, memory.load(0x1000, 1));
+    assertEquals(0x1234, memory.load(0x1000, 2));
+    assertEquals(0x12345678L, memory.load(0x1000, 4));
+  }
+
+  @Test
+  public void testLittleEndian() {
+    final ReilMemory memory = new ReilMemory(Endianness.LITTLE_ENDIAN);
+
+    memory.store(0x1000, 0x12345678L, 4);
+
+    assertEquals(0x78, memory.load(0x1000, 1));
+    assertEquals(0x5678, memory.load(0x1000, 2));
+    assertEquals(0x345678, memory.load(0x1000, 3));
+    assertEquals(0x12345678L, memory.load(0x1000, 4));
+  }
+
+  @Test
+  public void testAllocatedMemory() {
+    final ReilMemory memory = new ReilMemory(Endianness.LITTLE_ENDIAN);
+
+    assertEquals(0, memory.getAllocatedMemory());
+
+    memory.store(0x1000, 0x12345678L, 4);
+    memory.store(0x1002, 0xAABBCCDDL, 4);
+    memory.store(0x7FFFFFFF0000L, 0x11, 1);
+
+    assertEquals(7, memory.getAllocatedMemory());
+    assertEquals(0x5678, memory.load(0x1000, 2));
+    assertEquals(0xCCDD, memory.load(0x1002, 2));
+    assertEquals(0xAABB, memory.load(0x1004, 2));
+  }
+
+  @Test
+  public void testPageBoundary() {
+    final ReilMemory memory = new ReilMemory(Endianness.LITTLE_ENDIAN);
+
+    memory.store(0x0FFE, 0x12345678L, 4);
+
+    assertEquals(0x12345678L, memory.load(0x0FFE, 4));
+    assertEquals(0x1234, memory.load(0x1000, 2));
+  }
+
+  @Test
+  public void testSignExtension() {
+    final ReilMemory memory = new ReilMemory(Endianness.LITTLE_ENDIAN);
+
+    memory.store(0, 0xFFFFFFFFL, 4);
+
+    assertEquals(-1, memory.load(0, 4));
+    assertEquals(0xFFFF, memory.load(0, 2));
+  }
+
+  @Test
+  public void testSnapshot() {
+    final ReilMemory memory = new ReilMemory(Endianness.LITTLE_ENDIAN);
+
+    memory.store(0x1000, 0x11111111L, 4);
+
+    final ReilMemory snapshot = memory.snapshot();
+
+    memory.store(0x1000, 0x22222222L, 4);
+    memory.store(0x2000, 0x33, 1);
+    snapshot.store(0x1002, 0x4444, 2);
+
+    assertEquals(0x22222222L, memory.load(0x1000, 4));
+    assertEquals(0x44441111L, snapshot.load(0x1000, 4));
+    assertEquals(5, memory.getAllocatedMemory());
+    assertEquals(4, snapshot.getAllocatedMemory());
+
+    try {
+      snapshot.load(0x2000, 1);
+      fail();
+    } catch (final IllegalArgumentException exception) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testUnavailableData() {
+    final ReilMemory memory = new ReilMemory(Endianness.LITTLE_ENDIAN);
+
+    memory.store(0x1000, 0x1234, 2);
+
+    try {
+      memory.load(0x1000, 4);
+      fail();
+    } catch (final IllegalArgumentException exception) {
+      // Expected
+    }
+  }
+}
@@ -16,7 +16,9 @@ limitations under the License.
 package com.google.security.zynamics.reil.misc;
 
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.google.security.zynamics.reil.OperandSize;
@@ -75,4 +77,35 @@ public class ReilInstructionTest
 		final ReilInstruction instr1 = createReilInstruction();
 		assertTrue(instr0.hashCode() == instr1.hashCode());
 	}
+
+	@Test
+	public void testMetaData()
+	{
+		final ReilInstruction instr0 = createReilInstruction();
+		final ReilInstruction instr1 = createReilInstruction();
+
+		assertEquals(0, instr0.getMetaData().size());
+		assertEquals(null, instr0.getMetaData("isCall"));
+
+		instr1.setMetaData("isCall", "true");
+		assertEquals("true", instr1.getMetaData("isCall"));
+		assertEquals(0, instr0.getMetaData().size());
+
+		instr0.setMetaData("isCall", "true");
+		assertTrue(instr0.hashCode() == instr1.hashCode());
+
+		instr0.setMetaData("isCall", null);
+		assertEquals(0, instr0.getMetaData().size());
+	}
+
+	@Test
+	public void testSharedOperands()
+	{
+		final ReilInstruction instr0 = createReilInstruction();
+		final ReilInstruction instr1 = createReilInstruction();
+
+		assertSame(instr0.getFirstOperand(), instr1.getFirstOperand());
+		assertSame(instr0.getThirdOperand(), instr1.getThirdOperand());
+		assertFalse(instr0.getFirstOperand() == instr0.getSecondOperand());
+	}
 }
@@ -0,0 +1,106 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.translators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.security.zynamics.reil.ReilInstruction;
+import com.google.security.zynamics.zylib.disassembly.IInstruction;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class MnemonicDispatchTableTest {
+  private static class NopTranslator implements IInstructionTranslator {
+    @Override
+    public void translate(final ITranslationEnvironment environment,
+        final IInstruction instruction, final List<ReilInstruction> instructions) {
+      // Nothing to translate
+    }
+  }
+
+  @Test
+  public void testExactLookup() {
+    final MnemonicDispatchTable table = new MnemonicDispatchTable();
+    final IInstructionTranslator add = new NopTranslator();
+    final IInstructionTranslator sub = new NopTranslator();
+
+    table.put("add", add);
+    table.put("sub", sub);
+
+    assertEquals(2, table.size());
+    assertEquals(0, table.getId("add"));
+    assertEquals(1, table.getId("sub"));
+    assertSame(add, table.getTranslator("add"));
+    assertSame(sub, table.getTranslator(table.getId("sub")));
+    assertNull(table.getTranslator("ADD"));
+    assertNull(table.getTranslator((String) null));
+    assertEquals(-1, table.getId("mul"));
+    assertFalse(table.containsKey("mul"));
+  }
+
+  @Test
+  public void testIgnoreCase() {
+    final MnemonicDispatchTable table = new MnemonicDispatchTable(true);
+    final IInstructionTranslator addu = new NopTranslator();
+
+    table.put("addu", addu);
+
+    assertSame(addu, table.getTranslator("ADDU"));
+    assertSame(addu, table.getTranslator("AddU"));
+    assertTrue(table.containsKey("ADDU"));
+    assertNull(table.getTranslator("SUBU"));
+    assertEquals(1, table.size());
+  }
+
+  @Test
+  public void testReplace() {
+    final MnemonicDispatchTable table = new MnemonicDispatchTable();
+    final IInstructionTranslator first = new NopTranslator();
+    final IInstructionTranslator second = new NopTranslator();
+
+    table.put("mov", first);
+    table.put("mov", second);
+
+    assertEquals(1, table.size());
+    assertEquals(0, table.getId("mov"));
+    assertSame(second, table.getTranslator("mov"));
+  }
+
+  @Test
+  public void testWithPrefix() {
+    final MnemonicDispatchTable table = new MnemonicDispatchTable();
+    final IInstructionTranslator arm = new NopTranslator();
+    final IInstructionTranslator thumb = new NopTranslator();
+
+    table.put("ADD", arm);
+    table.put("THUMBADD", thumb);
+
+    final MnemonicDispatchTable thumbTable = table.withPrefix("THUMB");
+
+    assertEquals(1, thumbTable.size());
+    assertSame(thumb, thumbTable.getTranslator("ADD"));
+    assertSame(arm, table.getTranslator("ADD"));
+  }
+}
@@ -0,0 +1,134 @@
+/*
+Copyright 2014 Google Inc. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.google.security.zynamics.reil.translators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.Lists;
+import com.google.security.zynamics.reil.ReilFunction;
+import com.google.security.zynamics.zylib.disassembly.ExpressionType;
+import com.google.security.zynamics.zylib.disassembly.IBlockContainer;
+import com.google.security.zynamics.zylib.disassembly.MockBlockContainer;
+import com.google.security.zynamics.zylib.disassembly.MockCodeContainer;
+import com.google.security.zynamics.zylib.disassembly.MockInstruction;
+import com.google.security.zynamics.zylib.disassembly.MockOperandTree;
+import com.google.security.zynamics.zylib.disassembly.MockOperandTreeNode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+@RunWith(JUnit4.class)
+public class ModuleReilTranslatorTest {
+  private ForkJoinPool m_pool;
+
+  private ModuleReilTranslator<MockInstruction> m_translator;
+
+  private final List<MockBlockContainer> m_functions = new ArrayList<MockBlockContainer>();
+
+  private static MockInstruction createMov(final long address, final String lhs, final String rhs) {
+    final MockOperandTree operandTree1 = new MockOperandTree();
+    operandTree1.root = new MockOperandTreeNode(ExpressionType.SIZE_PREFIX, "dword");
+    operandTree1.root.m_children.add(new MockOperandTreeNode(ExpressionType.REGISTER, lhs));
+
+    final MockOperandTree operandTree2 = new MockOperandTree();
+    operandTree2.root = new MockOperandTreeNode(ExpressionType.SIZE_PREFIX, "dword");
+    operandTree2.root.m_children
+        .add(new MockOperandTreeNode(ExpressionType.IMMEDIATE_INTEGER, rhs));
+
+    return new MockInstruction(address, "mov", Lists.newArrayList(operandTree1, operandTree2));
+  }
+
+  @Before
+  public void setUp() {
+    m_pool = new ForkJoinPool(4);
+    m_translator = new ModuleReilTranslator<MockInstruction>(m_pool);
+
+    for (int i = 0; i < 16; i++) {
+      final MockCodeContainer block = new MockCodeContainer();
+      block.m_instructions.add(createMov(0x1000 + (i * 0x10), "eax", String.valueOf(i)));
+      block.m_instructions.add(createMov(0x1005 + (i * 0x10), "ebx", "eax"));
+
+      final MockBlockContainer function = new MockBlockContainer();
+      function.m_blocks.add(block);
+
+      m_functions.add(function);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    m_pool.shutdown();
+  }
+
+  @Test
+  public void testCache() throws InternalTranslationException {
+    final Map<IBlockContainer<MockInstruction>, ReilFunction> first =
+        m_translator.translate(m_functions);
+    final Map<IBlockContainer<MockInstruction>, ReilFunction> second =
+        m_translator.translate(m_functions);
+
+    assertEquals(16, m_translator.size());
+
+    for (final MockBlockContainer function : m_functions) {
+      assertSame(first.get(function), second.get(function));
+    }
+
+    // Changed instruction bytes invalidate the cached translation.
+    final MockInstruction instruction = (MockInstruction) m_functions.get(3).m_blocks.get(0)
+        .getInstructions().iterator().next();
+    instruction.data = new byte[] {(byte) 0xB8, 0x01, 0x00, 0x00, 0x00};
+
+    final Map<IBlockContainer<MockInstruction>, ReilFunction> third =
+        m_translator.translate(m_functions);
+
+    assertNotSame(second.get(m_functions.get(3)), third.get(m_functions.get(3)));
+    assertSame(second.get(m_functions.get(4)), third.get(m_functions.get(4)));
+
+    m_translator.invalidate(m_functions.get(4));
+
+    assertNotSame(third.get(m_functions.get(4)), m_translator.translate(m_functions.get(4)));
+
+    m_translator.invalidateAll();
+
+    assertEquals(0, m_translator.size());
+  }
+
+  @Test
+  public void testTranslate() throws InternalTranslationException {
+    final Map<IBlockContainer<MockInstruction>, ReilFunction> result =
+        m_translator.translate(m_functions);
+
+    assertEquals(16, result.size());
+
+    final ReilTranslator<MockInstruction> translator = new ReilTranslator<MockInstruction>();
+
+    for (final MockBlockContainer function : m_functions) {
+      final ReilFunction expected = translator.translate(new StandardEnvironment(), function);
+
+      assertEquals(expected.getGraph().toString(), result.get(function).getGraph().toString());
+    }
+  }
+}
@@ -27,6 +27,8 @@ public class MockInstruction implements IInstruction {
 
   public long length = 5;
 
+  public byte[] data = new byte[0];
+
   public MockInstruction() {
     this(0x123, "nop", new ArrayList<MockOperandTree>());
   }
@@ -55,8 +57,7 @@ public class MockInstruction implements IInstruction {
 
   @Override
   public byte[] getData() {
-    // TODO Auto-generated method stub
-    throw new IllegalStateException("Not yet implemented");
+    return data;
   }
 
   @Override